@@ -2,11 +2,14 @@ package com.machina.minterfacebuilder;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -14,6 +17,7 @@ import javax.annotation.Nullable;
 
 import com.machina.minterfacebuilder.cache.FileWatcher;
 import com.machina.minterfacebuilder.cache.TemplateCache;
+import com.machina.minterfacebuilder.cache.TemplateWarmup;
 import com.machina.minterfacebuilder.factory.ComponentFactory;
 import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
 import com.machina.minterfacebuilder.model.InterfaceVariable;
@@ -22,6 +26,7 @@ import com.machina.minterfacebuilder.parser.CustomUIScriptParser;
 import com.machina.minterfacebuilder.parser.HTMLAttributeParser;
 import com.machina.minterfacebuilder.parser.VariableParser;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+import com.machina.minterfacebuilder.util.customui.TreeLimits;
 
 /**
  * HTML to Custom UI Interface Builder.
@@ -66,6 +71,36 @@ public class InterfaceBuilder {
         Pattern.CASE_INSENSITIVE
     );
 
+    /**
+     * Pattern to match a numeric m-show/m-if value.
+     */
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("^-?\\d+(\\.\\d+)?$");
+
+    /**
+     * Directives by attribute key, so each key spelling is normalized once.
+     */
+    private static final Map<String, Directive> DIRECTIVES = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of cached directive keys.
+     */
+    private static final int MAX_DIRECTIVE_KEYS = 4096;
+
+    /**
+     * The depth and node limits applied while parsing.
+     */
+    private static volatile TreeLimits treeLimits = TreeLimits.DEFAULT;
+
+    /**
+     * Whether parsed templates reference the shared prelude asset for their text tags.
+     */
+    private static volatile boolean sharedPrelude = false;
+
+    /**
+     * The logger non-fatal errors of the caches and live reload are reported to.
+     */
+    private static volatile Logger logger = Logger.getLogger("MInterfaceBuilder");
+
     /**
      * Parse HTML file from a path within an asset pack.
      * Uses AssetModule to find the asset pack containing the path and resolve it.
@@ -274,24 +309,12 @@ public class InterfaceBuilder {
     public static HTMLCustomUITemplate parse(Path path, Map<String, String> variables) throws java.io.IOException {
         // Note: Cache doesn't consider variables, so we don't use cache when variables are provided
         if (variables == null || variables.isEmpty()) {
-            HTMLCustomUITemplate cached = TemplateCache.get(path);
-            if (cached != null) {
-                return cached;
-            }
+            // Concurrent misses share one load, and watched files are reloaded in the background
+            return TemplateCache.getOrLoad(path, file -> parse(Files.readString(file), variables));
         }
 
-        // Read file content
-        String html = Files.readString(path);
-
-        // Parse the HTML with variables
-        HTMLCustomUITemplate result = parse(html, variables);
-
-        // Store in cache only if no custom variables were provided
-        if (variables == null || variables.isEmpty()) {
-            TemplateCache.put(path, result);
-        }
-
-        return result;
+        // Read file content and parse the HTML with variables
+        return parse(Files.readString(path), variables);
     }
 
     /**
@@ -310,6 +333,30 @@ public class InterfaceBuilder {
      * @return The HTMLCustomUITemplate representing the parsed HTML.
      */
     public static HTMLCustomUITemplate parse(String html, Map<String, String> variables) {
+        return parse(html, variables, true);
+    }
+
+    /**
+     * Parse HTML string keeping the variables bound by attributes as references (e.g., {@code :text="@Title"}
+     * gives {@code Text: @Title} instead of the value of @Title), so the output follows the variables section.
+     * Used for templates compiled at build time, whose variables change without parsing.
+     * @param html The HTML string to parse.
+     * @return The HTMLCustomUITemplate representing the parsed HTML.
+     */
+    public static HTMLCustomUITemplate parseWithReferences(String html) {
+        return parse(html, new HashMap<>(), false);
+    }
+
+    /**
+     * Parse HTML string and convert it to a HTMLCustomUITemplate.
+     * @param html The HTML string to parse.
+     * @param variables Additional variables to use during parsing (will override template variables).
+     * @param substitute Whether variables bound by attributes are substituted by their values.
+     * @return The HTMLCustomUITemplate representing the parsed HTML.
+     */
+    private static HTMLCustomUITemplate parse(String html, Map<String, String> variables, boolean substitute) {
+        String source = html;
+
         // Remove HTML comments
         html = COMMENT_PATTERN.matcher(html).replaceAll("");
 
@@ -356,6 +403,7 @@ public class InterfaceBuilder {
         } else {
             // Parse the HTML with custom aliases
             context = new ParseContext(html, templateVariables, customAliases);
+            context.substitute = substitute;
             componentBuilder = parseElement(context);
         }
 
@@ -374,6 +422,9 @@ public class InterfaceBuilder {
         HTMLCustomUITemplate template = new HTMLCustomUITemplate(componentBuilder, templateVariables, usedHtmlTags);
         // Store used aliases for output generation
         template.setUsedAliases(usedAliases, customAliases);
+        template.setSharedPrelude(context.sharedPrelude);
+        template.setSource(source, variables);
+        template.setSubstitutedVariables(context.substitutedVariables);
         
         return template;
     }
@@ -436,8 +487,8 @@ public class InterfaceBuilder {
      * Start watching a file for changes and automatically reload it when modified.
      * <p>
      * This method monitors the specified file using the file system's watch service.
-     * When the file is modified on disk, it will be automatically removed from the cache,
-     * causing it to be reloaded from disk on the next parse call.
+     * When the file is modified on disk, its cached template is reloaded in the background and
+     * swapped in atomically; parse calls keep returning the previous version until then.
      * </p>
      * <p>
      * The file watcher runs in a background daemon thread and does not block the calling thread.
@@ -453,8 +504,8 @@ public class InterfaceBuilder {
      * // Parse the file (will be cached)
      * HTMLCustomUITemplate template = InterfaceBuilder.parse(templatePath);
      *
-     * // Later, when the file is modified on disk, the cache will be cleared
-     * // The next parse call will automatically reload the file
+     * // Later, when the file is modified on disk, it is reloaded in the background
+     * // Parse calls return the new version once it is ready
      * HTMLCustomUITemplate updatedTemplate = InterfaceBuilder.parse(templatePath);
      * </pre>
      * <p>
@@ -470,6 +521,30 @@ public class InterfaceBuilder {
         FileWatcher.watchFile(filePath);
     }
 
+    /**
+     * Start watching a template folder for changes and automatically reload its templates when modified.
+     * <p>
+     * The folder is watched recursively (including subfolders created later). Only the files matching
+     * the glob pattern, relative to the folder, are removed from the cache (e.g., {@code "**.html"}).
+     * </p>
+     *
+     * @param directory The folder to watch.
+     * @param glob The glob pattern of the templates, or null for all files.
+     * @throws java.io.IOException If the folder cannot be watched (e.g., it doesn't exist or is not accessible).
+     * @throws IllegalArgumentException If the folder path is null.
+     */
+    public static void watchDirectoryChanges(Path directory, String glob) throws java.io.IOException {
+        FileWatcher.watchDirectory(directory, glob);
+    }
+
+    /**
+     * Stop watching a template folder for changes.
+     * @param directory The folder to stop watching.
+     */
+    public static void stopWatchingDirectory(Path directory) {
+        FileWatcher.stopWatchingDirectory(directory);
+    }
+
     /**
      * Stop watching a file for changes.
      * <p>
@@ -506,12 +581,142 @@ public class InterfaceBuilder {
         FileWatcher.stopAll();
     }
 
+    /**
+     * Parse, validate and pre-render the HTML templates of a plugin's AssetPack in parallel, so the
+     * first opening of a page costs as much as the next ones (see {@link TemplateWarmup}).
+     * @param plugin The JavaPlugin instance.
+     * @return The report of timings, sizes and errors.
+     * @throws java.io.IOException If the AssetPack is not found or cannot be walked.
+     */
+    public static TemplateWarmup.Report warmUp(Object plugin) throws java.io.IOException {
+        return TemplateWarmup.warmUp(plugin);
+    }
+
+    /**
+     * Parse, validate and pre-render the templates of a folder in parallel (see {@link TemplateWarmup}).
+     * @param directory The folder.
+     * @param glob The glob pattern of the templates, relative to the folder (null for {@code "**.html"}).
+     * @return The report of timings, sizes and errors.
+     * @throws java.io.IOException If the folder cannot be walked.
+     */
+    public static TemplateWarmup.Report warmUp(Path directory, String glob) throws java.io.IOException {
+        return TemplateWarmup.warmUp(directory, glob);
+    }
+
+    /**
+     * Set the depth and node limits applied while parsing.
+     * Templates exceeding them fail with a {@link com.machina.minterfacebuilder.util.customui.TreeLimitExceededException}.
+     * The limits applied while building are set in {@link com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings#limits}.
+     * @param limits The limits (null for the defaults).
+     */
+    public static void setTreeLimits(@Nullable TreeLimits limits) {
+        treeLimits = limits != null ? limits : TreeLimits.DEFAULT;
+    }
+
+    /**
+     * Get the depth and node limits applied while parsing.
+     * @return The limits.
+     */
+    public static TreeLimits getTreeLimits() {
+        return treeLimits;
+    }
+
+    /**
+     * Set whether the templates parsed from now on reference the @MIB definitions of their text tags
+     * (h1-h6, p, span, label) in the shared prelude asset ({@value HTMLCustomUITemplate#SHARED_PRELUDE_DOCUMENT},
+     * shipped with the library) instead of repeating them at the top of every page.
+     * Templates already parsed (and cached) keep their mode, so this is meant to be set at plugin start.
+     * @param enabled True to reference the shared prelude.
+     */
+    public static void setSharedPrelude(boolean enabled) {
+        sharedPrelude = enabled;
+    }
+
+    /**
+     * Check if parsed templates reference the shared prelude asset.
+     * @return True if the shared prelude is referenced.
+     */
+    public static boolean isSharedPrelude() {
+        return sharedPrelude;
+    }
+
+    /**
+     * Set the logger non-fatal errors (a cache entry that cannot be written, a template that cannot be
+     * reloaded) are reported to, e.g. one named after the plugin:
+     * <pre>
+     * InterfaceBuilder.setLogger(Logger.getLogger("MyPlugin"));
+     * </pre>
+     * @param newLogger The logger (null for the library's own).
+     */
+    public static void setLogger(@Nullable Logger newLogger) {
+        logger = newLogger != null ? newLogger : Logger.getLogger("MInterfaceBuilder");
+    }
+
+    /**
+     * Get the logger non-fatal errors are reported to.
+     * @return The logger.
+     */
+    public static Logger getLogger() {
+        return logger;
+    }
+
     /**
      * Parse a single HTML element and its children.
+     * <p>
+     * Nested elements are parsed with an explicit stack of open elements rather than by recursion,
+     * so the nesting depth is bounded by the {@link TreeLimits} of the context, not by the call stack.
+     * </p>
      * @param context The parsing context.
      * @return The ComponentBuilder for the element.
      */
     private static ComponentBuilder parseElement(ParseContext context) {
+        ElementFrame root = openElement(context);
+        if (root == null || !root.open) {
+            return root != null ? root.component : null;
+        }
+
+        ArrayDeque<ElementFrame> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        while (true) {
+            ElementFrame frame = stack.peek();
+
+            if (!scanToNextChild(context, frame)) {
+                // Closing tag or end of content reached
+                finishElement(context, frame);
+                stack.pop();
+
+                if (stack.isEmpty()) {
+                    return frame.component;
+                }
+
+                stack.peek().addChild(frame.component);
+                continue;
+            }
+
+            // Try to parse an element (opening tag)
+            // If null is returned, it might be the end of the content (checked by the next scan)
+            ElementFrame child = openElement(context);
+            if (child == null) {
+                continue;
+            }
+
+            if (child.open) {
+                context.limits.checkDepth(stack.size() + 1);
+                stack.push(child);
+            } else {
+                frame.addChild(child.component);
+            }
+        }
+    }
+
+    /**
+     * Parse the opening tag of an element at the current position and create its component.
+     * Self-closing elements (and selects, whose options are collected here) are complete when this returns.
+     * @param context The parsing context.
+     * @return The element, or null if there is no element at the position (end of content or closing tag).
+     */
+    private static ElementFrame openElement(ParseContext context) {
         String html = context.html;
         int pos = context.position;
 
@@ -538,10 +743,11 @@ public class InterfaceBuilder {
             // No tag found, treat as text content
             String text = html.substring(pos).trim();
             if (!text.isEmpty()) {
+                context.limits.checkNodes(++context.nodes);
                 ComponentBuilder label = ComponentBuilder.create("Label");
                 label.setProperty("Text", text);
                 context.position = html.length();
-                return label;
+                return new ElementFrame(label, null, -1, false);
             }
             return null;
         }
@@ -555,6 +761,7 @@ public class InterfaceBuilder {
         String commonPrefix = tagMatcher.group(2);
         String tagNameOriginal = tagMatcher.group(3);
         String tagName = tagNameOriginal.toLowerCase();
+        TagHandler handler = TagHandler.of(tagName);
         String attributesStr = tagMatcher.group(4);
         String selfClosingSlash = tagMatcher.group(5);
         int tagEnd = tagMatcher.end();
@@ -589,31 +796,22 @@ public class InterfaceBuilder {
         // Track HTML tags that need aliases (h1-h6, span, p, label)
         // These tags map to Label components and should have aliases generated
         // Use lowercase to ensure consistency and prevent duplicates
-        if (commonPrefix == null || commonPrefix.isEmpty()) {
-            String tagNameLower = tagName.toLowerCase();
-            // Check for h1-h6 (avoid regex to prevent stack overflow issues)
-            boolean isHeading = tagNameLower.length() == 2 && tagNameLower.startsWith("h") && 
-                tagNameLower.charAt(1) >= '1' && tagNameLower.charAt(1) <= '6';
-
-            boolean isSpan = tagNameLower.equals("span");
-            boolean isP = tagNameLower.equals("p");
-            boolean isLabel = tagNameLower.equals("label");
-
-            boolean isAnyTextTag = isHeading || isSpan || isP || isLabel;
-
-            if (isAnyTextTag) {
-                context.usedHtmlTags.add(tagNameLower);
-            }
+        boolean textTag = (commonPrefix == null || commonPrefix.isEmpty()) && handler.isTextTag();
+        if (textTag) {
+            context.usedHtmlTags.add(tagName);
         }
 
         // Create the component based on tag name, using custom aliases if present
+        context.limits.checkNodes(++context.nodes);
         ComponentBuilder component = ComponentFactory.createFromTag(tagName, tagNameOriginal, attributes, commonPrefix, context.customAliases);
 
+        // Reference the @MIB definition of the shared prelude asset (unless a custom component handles the tag)
+        if (textTag && context.sharedPrelude && component.getClass() == ComponentBuilder.class && component.getComponent().startsWith("@MIB")) {
+            component = ComponentBuilder.create(HTMLCustomUITemplate.SHARED_PRELUDE_ALIAS + "." + component.getComponent());
+        }
+
         // Set ID if present (note: "id" is capitalized to "Id" by HTMLAttributeParser)
         String id = attributes.get("Id");
-        if (id == null) {
-            id = attributes.get("id"); // Fallback to lowercase (shouldn't happen)
-        }
         if (id != null && !id.isEmpty()) {
             // Prohibit using MIBRoot as ID (reserved for root container)
             String idNormalized = id.trim();
@@ -628,21 +826,16 @@ public class InterfaceBuilder {
         }
 
         // Set properties from attributes
-        applyAttributesToComponent(component, attributes, tagName, context.variables);
+        // Without substitution, no variable is found and the references are kept
+        applyAttributesToComponent(component, attributes, handler, context.substitute ? context.variables : Map.of(), context.substitutedVariables);
 
         // Handle Group with Text attribute - create Label child instead
         // Group does not support Text property, so we need to create a Label child
         // Check for both "div" (HTML tag) and "group" (Hytale component name)
         Object groupTextValue = null;
-        boolean isGroupComponent = tagName.equals("group") || tagName.equals("div") || 
-                                 tagName.equals("section") || tagName.equals("article") ||
-                                 tagName.equals("header") || tagName.equals("footer") ||
-                                 tagName.equals("nav") || tagName.equals("main");
+        boolean isGroupComponent = handler.isGroup();
         if (isGroupComponent) {
             String textValue = attributes.get("Text");
-            if (textValue == null) {
-                textValue = attributes.get("text"); // Fallback to lowercase
-            }
             // Check if Text was set as a property (from binding or attribute)
             if (textValue == null || textValue.isEmpty()) {
                 Object textProperty = component.getProperty("Text");
@@ -655,38 +848,30 @@ public class InterfaceBuilder {
 
             // Remove Text from Group (it doesn't support it)
             if (groupTextValue != null) {
-                component.getBuilderVariables().remove("Text");
-                try {
-                    java.lang.reflect.Field propertiesField = component.getClass().getDeclaredField("properties");
-                    propertiesField.setAccessible(true);
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> properties = (Map<String, Object>) propertiesField.get(component);
-                    properties.remove("Text");
-                } catch (Exception e) {
-                    // If reflection fails, ignore
-                }
+                component.removeVariable("Text");
+                component.removeProperty("Text");
             }
         }
 
         // Check if it's a self-closing tag
         // Support both <tag /> and <tag/> formats
         boolean isSelfClosing = (!selfClosingSlash.isEmpty()) || 
-                                attributesStr.trim().endsWith("/") ||
-                                isSelfClosingTag(tagName);
+                                endsWithSlash(attributesStr) ||
+                                handler.isSelfClosing();
 
         if (isSelfClosing) {
             context.position = tagEnd;
-            return component;
+            return new ElementFrame(component, tagName, -1, false);
         }
 
         // Find the closing tag
         int contentStart = tagEnd;
-        int contentEnd = findClosingTag(html, tagName, contentStart);
+        int contentEnd = context.findClosingTag(tagMatcher.start(), tagName, contentStart);
 
         // If no closing tag found, treat as self-closing
         if (contentEnd == -1) {
             context.position = tagEnd;
-            return component;
+            return new ElementFrame(component, tagName, -1, false);
         }
 
         // Parse children
@@ -702,7 +887,7 @@ public class InterfaceBuilder {
         }
 
         // Special handling for <select> - collect options
-        if (tagName.equals("select")) {
+        if (handler == TagHandler.SELECT) {
             List<String> options = new ArrayList<>();
             while (context.position < contentEnd) {
                 int optionStart = context.position;
@@ -730,9 +915,6 @@ public class InterfaceBuilder {
                     
                     // Get option text (from value attribute or text content)
                     String optionValue = optionAttributes.get("Value");
-                    if (optionValue == null) {
-                        optionValue = optionAttributes.get("value");
-                    }
                     if (optionValue == null || optionValue.isEmpty()) {
                         // Get text content between <option> and </option>
                         int optionTextStart = optionMatcher.end();
@@ -756,87 +938,101 @@ public class InterfaceBuilder {
             if (!options.isEmpty()) {
                 component.setProperty("Options", options);
             }
-        } else {
-            // Normal child parsing for other tags
-            StringBuilder textContent = new StringBuilder();
-            List<ComponentBuilder> childComponents = new ArrayList<>();
-            
-            while (context.position < contentEnd) {
-                // Find next tag (opening or closing)
-                int textStart = context.position;
-                int nextTag = html.indexOf('<', textStart);
-                if (nextTag == -1 || nextTag >= contentEnd) {
-                    nextTag = contentEnd;
-                }
-                
-                // Collect text before the next tag (this must happen BEFORE checking for closing tag)
-                if (nextTag > textStart) {
-                    String text = html.substring(textStart, nextTag).trim();
-                    if (!text.isEmpty()) {
-                        if (textContent.length() > 0) {
-                            textContent.append(" ");
-                        }
-                        textContent.append(text);
-                    }
-                }
-                
-                // Move to the tag position
-                context.position = nextTag;
-                
-                // If we've reached the end, break
-                if (context.position >= contentEnd) {
-                    break;
-                }
-                
-                // Check if it's a closing tag - AFTER collecting any text before it
-                if (html.charAt(context.position) == '<' && 
-                    context.position + 1 < html.length() && 
-                    html.charAt(context.position + 1) == '/') {
-                    // Found closing tag - skip it and break
-                    int closingTagEnd = html.indexOf('>', context.position);
-                    if (closingTagEnd != -1) {
-                        context.position = closingTagEnd + 1;
-                    } else {
-                        context.position = contentEnd;
-                    }
-                    break;
-                }
-                
-                // Try to parse an element (opening tag)
-                ComponentBuilder child = parseElement(context);
-                if (child != null) {
-                    childComponents.add(child);
-                    component.appendChild(child);
-                } else {
-                    // parseElement returned null - might be end of content
-                    if (context.position >= contentEnd) {
-                        break;
-                    }
+
+            context.position = contentEnd + tagName.length() + 3; // </tagname>
+            return new ElementFrame(component, tagName, contentEnd, false);
+        }
+
+        // Normal child parsing for other tags (continued by parseElement)
+        ElementFrame frame = new ElementFrame(component, tagName, contentEnd, true);
+        frame.isGroupComponent = isGroupComponent;
+        return frame;
+    }
+
+    /**
+     * Collect the text before the next tag of an open element and move to that tag.
+     * @param context The parsing context.
+     * @param frame The open element.
+     * @return True if an opening tag follows, false if the element's content ended (its closing tag is skipped).
+     */
+    private static boolean scanToNextChild(ParseContext context, ElementFrame frame) {
+        String html = context.html;
+        int contentEnd = frame.contentEnd;
+
+        if (context.position >= contentEnd) {
+            return false;
+        }
+
+        // Find next tag (opening or closing)
+        int textStart = context.position;
+        int nextTag = html.indexOf('<', textStart);
+        if (nextTag == -1 || nextTag >= contentEnd) {
+            nextTag = contentEnd;
+        }
+
+        // Collect text before the next tag (this must happen BEFORE checking for closing tag)
+        if (nextTag > textStart) {
+            String text = html.substring(textStart, nextTag).trim();
+            if (!text.isEmpty()) {
+                if (frame.textContent.length() > 0) {
+                    frame.textContent.append(" ");
                 }
+                frame.textContent.append(text);
             }
-            
-            // If there's text content and no child components, apply text to component's Text property
-            // Otherwise, if there are both text and components, text is ignored (components take priority)
-            String textStr = textContent.toString().trim();
-            if (!textStr.isEmpty() && childComponents.isEmpty()) {
-                // Group does not support Text property - create Label child instead
-                // Check for both "div" (HTML tag) and "group" (Hytale component name)
-                // Reuse isGroupComponent already declared above
-                if (isGroupComponent) {
-                    ComponentBuilder labelChild = ComponentBuilder.create("Label");
-                    labelChild.setProperty("Text", textStr);
-                    component.appendChild(labelChild);
-                } else {
-                    // Only text, no components - apply directly to Text property
-                    // Note: Do NOT substitute variables here - keep them as references (e.g., "@Title")
-                    // Variables can be changed at runtime by the Hytale Custom UI system
-                    component.setProperty("Text", textStr);
-                }
+        }
+
+        // Move to the tag position
+        context.position = nextTag;
+
+        // If we've reached the end, stop
+        if (context.position >= contentEnd) {
+            return false;
+        }
+
+        // Check if it's a closing tag - AFTER collecting any text before it
+        if (html.charAt(context.position) == '<' && 
+            context.position + 1 < html.length() && 
+            html.charAt(context.position + 1) == '/') {
+            // Found closing tag - skip it and stop
+            int closingTagEnd = html.indexOf('>', context.position);
+            if (closingTagEnd != -1) {
+                context.position = closingTagEnd + 1;
+            } else {
+                context.position = contentEnd;
             }
+            return false;
         }
 
-        context.position = contentEnd + tagName.length() + 3; // </tagname>
-        return component;
+        return true;
+    }
+
+    /**
+     * Finish an open element once its children are parsed: apply its text content and move past its closing tag.
+     * @param context The parsing context.
+     * @param frame The open element.
+     */
+    private static void finishElement(ParseContext context, ElementFrame frame) {
+        ComponentBuilder component = frame.component;
+
+        // If there's text content and no child components, apply text to component's Text property
+        // Otherwise, if there are both text and components, text is ignored (components take priority)
+        String textStr = frame.textContent.toString().trim();
+        if (!textStr.isEmpty() && frame.childCount == 0) {
+            // Group does not support Text property - create Label child instead
+            // Check for both "div" (HTML tag) and "group" (Hytale component name)
+            if (frame.isGroupComponent) {
+                ComponentBuilder labelChild = ComponentBuilder.create("Label");
+                labelChild.setProperty("Text", textStr);
+                component.appendChild(labelChild);
+            } else {
+                // Only text, no components - apply directly to Text property
+                // Note: Do NOT substitute variables here - keep them as references (e.g., "@Title")
+                // Variables can be changed at runtime by the Hytale Custom UI system
+                component.setProperty("Text", textStr);
+            }
+        }
+
+        context.position = frame.contentEnd + frame.tagName.length() + 3; // </tagname>
     }
 
     /**
@@ -900,27 +1096,7 @@ public class InterfaceBuilder {
      * @return True if the property is set, false otherwise.
      */
     private static boolean hasStyleProperty(ComponentBuilder component, String propertyName) {
-        try {
-            // Use reflection to access the private styles map
-            java.lang.reflect.Field stylesField = component.getClass().getDeclaredField("styles");
-            stylesField.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            Map<String, String> styles = (Map<String, String>) stylesField.get(component);
-            
-            // Check if the property exists (case-insensitive check)
-            for (String key : styles.keySet()) {
-                if (key.equalsIgnoreCase(propertyName)) {
-                    return true;
-                }
-            }
-            
-            // Also check in properties (in case it was set via setProperty with Style object)
-            // This is a simplified check - in practice, Style would be a Map in properties
-            return false;
-        } catch (Exception e) {
-            // If reflection fails, assume property is not set (safer to add defaults)
-            return false;
-        }
+        return component.getStyleNameIgnoreCase(propertyName) != null;
     }
 
     /**
@@ -946,55 +1122,39 @@ public class InterfaceBuilder {
     /**
      * Apply HTML attributes to a ComponentBuilder.
      * @param component The ComponentBuilder.
-     * @param attributes The HTML attributes.
-     * @param tagName The HTML tag name.
+     * @param attributes The HTML attributes (capitalized keys; lookups ignore case).
+     * @param handler The handler of the HTML tag.
      * @param variables The variables map for substitution in binding attributes.
+     * @param substituted The names of the variables substituted so far, completed with those of the attributes.
      */
-    private static void applyAttributesToComponent(ComponentBuilder component, Map<String, String> attributes, String tagName, Map<String, InterfaceVariable> variables) {
+    private static void applyAttributesToComponent(ComponentBuilder component, Map<String, String> attributes, TagHandler handler, Map<String, InterfaceVariable> variables, Set<String> substituted) {
         // Process binding attributes (starting with `:`) - these are CommonUI code bindings
         // Like Vue `:` binding: <span :text="@Title" /> means text is CommonUI code (variable substitution)
-        Map<String, String> processedBindings = new HashMap<>();
+        // Handle m-show and m-if in the same pass (both convert to Visible property)
+        String mShow = null;
+        String mIf = null;
+
         for (Map.Entry<String, String> entry : attributes.entrySet()) {
-            if (entry.getKey().startsWith(":")) {
-                String attrName = entry.getKey().substring(1); // Remove `:` prefix
-                String attrValue = entry.getValue();
+            String key = entry.getKey();
+            if (key.startsWith(":")) {
+                String attrName = key.substring(1); // Remove `:` prefix
                 // Parse as CommonUI code (objects, variables, etc.)
-                Object parsedValue = parseCommonUICodeFromAttribute(attrValue, variables);
+                Object parsedValue = parseCommonUICodeFromAttribute(entry.getValue(), variables, substituted);
                 component.setProperty(attrName, parsedValue);
-                processedBindings.put(attrName, attrValue);
+                continue;
             }
-        }
 
-        // Apply class as style reference (if needed)
-        String className = attributes.get("Class");
-        if (className == null) {
-            className = attributes.get("class"); // Fallback
-        }
-        if (className != null && !className.isEmpty()) {
-            // Could be used for style references
-            // For now, we'll skip it or add as a comment
+            // capitalizePropertyName transforms: "m-show" → "MShow", "m-if" → "MIf"
+            Directive directive = directiveOf(key);
+            if (directive == Directive.SHOW) {
+                mShow = entry.getValue();
+            } else if (directive == Directive.IF) {
+                mIf = entry.getValue();
+            }
         }
 
-        // Handle m-show and m-if (both convert to Visible property)
         // m-show="true" → Visible: true, m-show="false" → Visible: false
         // m-if="true" → Visible: true, m-if="false" → Visible: false
-        // Note: HTMLAttributeParser capitalizes attributes using capitalizePropertyName,
-        // which transforms "m-if" to "MIf" (removes dash, capitalizes each word)
-        String mShow = null;
-        String mIf = null;
-        
-        // Check all possible variations of m-show and m-if
-        // capitalizePropertyName transforms: "m-show" → "MShow", "m-if" → "MIf"
-        for (String key : attributes.keySet()) {
-            // Normalize key for comparison (remove case and dashes)
-            String normalizedKey = key.toLowerCase().replace("-", "").replace("_", "");
-            if (normalizedKey.equals("mshow")) {
-                mShow = attributes.get(key);
-            } else if (normalizedKey.equals("mif")) {
-                mIf = attributes.get(key);
-            }
-        }
-        
         // Prefer m-show over m-if if both are present
         String visibilityAttr = mShow != null ? mShow : mIf;
         if (visibilityAttr != null && !visibilityAttr.isEmpty()) {
@@ -1004,23 +1164,19 @@ public class InterfaceBuilder {
             if (trimmed.startsWith("@")) {
                 // It's a variable reference (e.g., "@Enabled") - use it directly
                 component.setProperty("Visible", trimmed);
-            } else if (trimmed.startsWith("(") || trimmed.matches("^-?\\d+(\\.\\d+)?$")) {
+            } else if (trimmed.startsWith("(") || NUMBER_PATTERN.matcher(trimmed).matches()) {
                 // It's CommonUI code or a number - parse and use directly
-                Object parsed = parseCommonUICodeFromAttribute(trimmed, variables);
+                Object parsed = parseCommonUICodeFromAttribute(trimmed, variables, substituted);
                 component.setProperty("Visible", parsed);
             } else {
                 // It's a literal boolean string - convert to boolean
-                String lower = trimmed.toLowerCase();
-                boolean isVisible = lower.equals("true") || lower.equals("1") || lower.equals("yes");
+                boolean isVisible = trimmed.equalsIgnoreCase("true") || trimmed.equals("1") || trimmed.equalsIgnoreCase("yes");
                 component.setProperty("Visible", isVisible);
             }
         }
 
         // Apply style attribute (note: "style" is capitalized to "Style")
         String style = attributes.get("Style");
-        if (style == null) {
-            style = attributes.get("style"); // Fallback
-        }
         if (style != null && !style.isEmpty()) {
             CSSStyleParser.applyStyle(component, style);
         }
@@ -1030,189 +1186,86 @@ public class InterfaceBuilder {
         // Only styles explicitly specified in HTML will be applied.
 
         // Apply specific attributes based on tag type
-        // Note: attributes are already capitalized (prop-name -> PropName)
-        // Skip attributes that were already processed as bindings (starting with `:`)
-        switch (tagName) {
-            case "button":
-                // Only apply Text if it wasn't already set as a binding attribute
-                if (!processedBindings.containsKey("Text")) {
-                    String buttonText = attributes.get("Value");
-                    if (buttonText == null || buttonText.isEmpty()) {
-                        buttonText = attributes.get("Text");
-                    }
-                    if (buttonText != null && !buttonText.isEmpty()) {
-                        component.setProperty("Text", buttonText);
-                    }
-                }
-                break;
-
-            case "input":
-                // Check input type first
-                String inputType = attributes.getOrDefault("Type", "text").toLowerCase();
-                if (inputType.equals("checkbox")) {
-                    // Handle checkbox with label support
-                    String label = attributes.get("Label");
-                    if (label == null || label.isEmpty()) {
-                        label = attributes.get("label"); // Try lowercase
-                    }
-                    if (label != null && !label.isEmpty()) {
-                        component.setProperty("Text", label);
-                    }
-
-                    // Handle checked attribute
-                    boolean isChecked = attributes.containsKey("Checked") || 
-                                       attributes.containsKey("checked");
-                    if (isChecked) {
-                        String checkedValue = attributes.get("Checked");
-                        if (checkedValue == null) {
-                            checkedValue = attributes.get("checked");
-                        }
-                        if (checkedValue == null || checkedValue.isEmpty() || 
-                            checkedValue.equalsIgnoreCase("true") || checkedValue.equals("1") ||
-                            checkedValue.equalsIgnoreCase("checked")) {
-                            component.setProperty("Value", true);
-                        }
-                    }
-                } else {
-                    // Handle text inputs, number inputs, etc.
-                    String placeholder = attributes.get("Placeholder");
-                    if (placeholder != null && !placeholder.isEmpty()) {
-                        component.setProperty("PlaceholderText", placeholder);
-                    }
-
-                    String value = attributes.get("Value");
-                    if (value != null && !value.isEmpty()) {
-                        component.setProperty("Value", value);
-                    }
-
-                    String maxLength = attributes.get("Maxlength");
-                    if (maxLength == null || maxLength.isEmpty()) {
-                        maxLength = attributes.get("MaxLength"); // Try already capitalized
-                    }
-                    if (maxLength != null && !maxLength.isEmpty()) {
-                        try {
-                            component.setProperty("MaxLength", Integer.parseInt(maxLength));
-                        } catch (NumberFormatException e) {
-                            // Ignore invalid maxlength
-                        }
-                    }
-
-                    // Handle readonly attribute
-                    // In HTML, readonly attribute is boolean: if present (even without value), it's readonly
-                    boolean isReadonly = attributes.containsKey("Readonly") || 
-                                       attributes.containsKey("ReadOnly") || 
-                                       attributes.containsKey("readonly");
-                    if (isReadonly) {
-                        // Check value if present - if explicitly false, don't set readonly
-                        String readonlyValue = attributes.get("Readonly");
-                        if (readonlyValue == null) {
-                            readonlyValue = attributes.get("ReadOnly");
-                        }
-                        if (readonlyValue == null) {
-                            readonlyValue = attributes.get("readonly");
-                        }
-                        // If value is explicitly "false", don't set readonly
-                        if (readonlyValue == null || readonlyValue.isEmpty() || 
-                            readonlyValue.equalsIgnoreCase("true") || readonlyValue.equals("1") ||
-                            readonlyValue.equalsIgnoreCase("readonly")) {
-                            component.setProperty("ReadOnly", true);
-                        }
-                    }
-                }
-                break;
-
-            case "textarea":
-                String placeholder = attributes.get("Placeholder");
-                if (placeholder != null && !placeholder.isEmpty()) {
-                    component.setProperty("PlaceholderText", placeholder);
-                }
+        handler.applyAttributes(component, attributes);
+    }
 
-                String value = attributes.get("Value");
-                if (value != null && !value.isEmpty()) {
-                    component.setProperty("Value", value);
-                }
+    /**
+     * Get the directive of an attribute key (cached per key, as keys come from a small interned vocabulary).
+     * @param key The capitalized attribute key.
+     * @return The directive, or {@link Directive#NONE}.
+     */
+    private static Directive directiveOf(String key) {
+        Directive directive = DIRECTIVES.get(key);
+        if (directive != null) {
+            return directive;
+        }
 
-                String maxLength = attributes.get("Maxlength");
-                if (maxLength == null || maxLength.isEmpty()) {
-                    maxLength = attributes.get("MaxLength"); // Try already capitalized
-                }
-                if (maxLength != null && !maxLength.isEmpty()) {
-                    try {
-                        component.setProperty("MaxLength", Integer.parseInt(maxLength));
-                    } catch (NumberFormatException e) {
-                        // Ignore invalid maxlength
-                    }
-                }
+        // Normalize key for comparison (remove case, dashes and underscores)
+        String normalizedKey = key.toLowerCase().replace("-", "").replace("_", "");
+        directive = normalizedKey.equals("mshow") ? Directive.SHOW : normalizedKey.equals("mif") ? Directive.IF : Directive.NONE;
 
-                // Handle readonly attribute for textarea
-                boolean isReadonly = attributes.containsKey("Readonly") || 
-                                   attributes.containsKey("ReadOnly") || 
-                                   attributes.containsKey("readonly");
-                if (isReadonly) {
-                    String readonlyValue = attributes.get("Readonly");
-                    if (readonlyValue == null) {
-                        readonlyValue = attributes.get("ReadOnly");
-                    }
-                    if (readonlyValue == null) {
-                        readonlyValue = attributes.get("readonly");
-                    }
-                    if (readonlyValue == null || readonlyValue.isEmpty() || 
-                        readonlyValue.equalsIgnoreCase("true") || readonlyValue.equals("1") ||
-                        readonlyValue.equalsIgnoreCase("readonly")) {
-                        component.setProperty("ReadOnly", true);
-                    }
-                }
-                break;
-
-            case "label":
-            case "p":
-            case "span":
-            case "h1":
-            case "h2":
-            case "h3":
-            case "h4":
-            case "h5":
-            case "h6":
-                // Text content will be set from child text nodes
-                break;
-
-            case "img":
-                String src = attributes.get("Src");
-                if (src != null && !src.isEmpty()) {
-                    component.setProperty("Source", src);
-                }
+        if (DIRECTIVES.size() < MAX_DIRECTIVE_KEYS) {
+            DIRECTIVES.put(key, directive);
+        }
+        return directive;
+    }
 
-                String alt = attributes.get("Alt");
-                if (alt != null && !alt.isEmpty()) {
-                    component.setProperty("Tooltip", alt);
-                }
-                break;
-
-            case "group":
-            case "div":
-            case "section":
-            case "article":
-            case "header":
-            case "footer":
-            case "nav":
-            case "main":
-                // Group does not support Text property directly
-                // If Text is present in attributes, don't apply it here
-                // It will be handled after applyAttributesToComponent in parseElement
-                break;
+    /**
+     * Check whether an attribute string ends with "/" (ignoring trailing whitespace).
+     * @param attributesStr The attribute string.
+     * @return True if the last non-whitespace character is "/".
+     */
+    private static boolean endsWithSlash(String attributesStr) {
+        for (int i = attributesStr.length() - 1; i >= 0; i--) {
+            char c = attributesStr.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '/';
+            }
         }
+        return false;
     }
 
+    /**
+     * Check whether a boolean HTML attribute is set.
+     * In HTML, boolean attributes are set if present (even without value), unless explicitly false.
+     * @param value The attribute value, or null if absent.
+     * @param attributeName The attribute name, accepted as a value (e.g., checked="checked").
+     * @return True if the attribute is set.
+     */
+    private static boolean isBooleanAttributeSet(String value, String attributeName) {
+        return value != null && (value.isEmpty() || value.equalsIgnoreCase("true") || value.equals("1") ||
+            value.equalsIgnoreCase(attributeName));
+    }
 
     /**
-     * Check if a tag is self-closing.
-     * Only tags that are supported by Hytale Custom UI are considered self-closing.
-     * @param tagName The tag name.
-     * @return True if the tag is self-closing.
+     * Apply the attributes shared by text inputs and textareas.
+     * @param component The ComponentBuilder.
+     * @param attributes The HTML attributes.
      */
-    private static boolean isSelfClosingTag(String tagName) {
-        return tagName.equals("img") || 
-               tagName.equals("input");
+    private static void applyTextFieldAttributes(ComponentBuilder component, Map<String, String> attributes) {
+        String placeholder = attributes.get("Placeholder");
+        if (placeholder != null && !placeholder.isEmpty()) {
+            component.setProperty("PlaceholderText", placeholder);
+        }
+
+        String value = attributes.get("Value");
+        if (value != null && !value.isEmpty()) {
+            component.setProperty("Value", value);
+        }
+
+        String maxLength = attributes.get("MaxLength");
+        if (maxLength != null && !maxLength.isEmpty()) {
+            try {
+                component.setProperty("MaxLength", Integer.parseInt(maxLength));
+            } catch (NumberFormatException e) {
+                // Ignore invalid maxlength
+            }
+        }
+
+        // Handle readonly attribute
+        if (isBooleanAttributeSet(attributes.get("ReadOnly"), "readonly")) {
+            component.setProperty("ReadOnly", true);
+        }
     }
 
     /**
@@ -1220,9 +1273,10 @@ public class InterfaceBuilder {
      * Handles objects like (Left: 7), variables like @Title, and literals.
      * @param value The attribute value (may contain variables like @Title).
      * @param variables The variables map for substitution.
+     * @param substituted The names of the substituted variables, completed with those of the value.
      * @return The parsed value (Map for objects, String for variables/literals).
      */
-    private static Object parseCommonUICodeFromAttribute(String value, Map<String, InterfaceVariable> variables) {
+    private static Object parseCommonUICodeFromAttribute(String value, Map<String, InterfaceVariable> variables, Set<String> substituted) {
         if (value == null || value.trim().isEmpty()) {
             return value;
         }
@@ -1235,6 +1289,7 @@ public class InterfaceBuilder {
             InterfaceVariable var = variables.get(varName);
             if (var != null) {
                 // Return the substitution value from the variable
+                substituted.add(varName);
                 return var.getSubstitutionValue();
             }
             // Variable not found, return as string literal
@@ -1243,7 +1298,7 @@ public class InterfaceBuilder {
 
         // If it's an object like (Left: 7) or (Horizontal: 12, Left: 34)
         if (value.startsWith("(") && value.endsWith(")")) {
-            return parseCommonUIObjectFromAttribute(value.substring(1, value.length() - 1), variables);
+            return parseCommonUIObjectFromAttribute(value.substring(1, value.length() - 1), variables, substituted);
         }
 
         // Otherwise, treat as string literal (already substituted if needed)
@@ -1254,9 +1309,10 @@ public class InterfaceBuilder {
      * Parse a CommonUI object from attribute content (without outer parentheses).
      * @param objectContent The object content string.
      * @param variables The variables map for substitution.
+     * @param substituted The names of the substituted variables, completed with those of the object.
      * @return A Map representing the object.
      */
-    private static Map<String, Object> parseCommonUIObjectFromAttribute(String objectContent, Map<String, InterfaceVariable> variables) {
+    private static Map<String, Object> parseCommonUIObjectFromAttribute(String objectContent, Map<String, InterfaceVariable> variables, Set<String> substituted) {
         Map<String, Object> result = new HashMap<>();
         
         if (objectContent == null || objectContent.trim().isEmpty()) {
@@ -1292,7 +1348,7 @@ public class InterfaceBuilder {
             String value = pair.substring(colonIndex + 1).trim();
 
             // Parse value - could be number, boolean, string, variable, or nested object
-            Object parsedValue = parseCommonUIValueFromAttribute(value, variables);
+            Object parsedValue = parseCommonUIValueFromAttribute(value, variables, substituted);
             result.put(key, parsedValue);
         }
 
@@ -1303,9 +1359,10 @@ public class InterfaceBuilder {
      * Parse a single CommonUI value from attribute (number, boolean, string, variable, or object).
      * @param value The value string (may contain @ variable references).
      * @param variables The variables map for substitution.
+     * @param substituted The names of the substituted variables, completed with the one of the value.
      * @return The parsed value.
      */
-    private static Object parseCommonUIValueFromAttribute(String value, Map<String, InterfaceVariable> variables) {
+    private static Object parseCommonUIValueFromAttribute(String value, Map<String, InterfaceVariable> variables, Set<String> substituted) {
         if (value == null || value.isEmpty()) {
             return value;
         }
@@ -1317,15 +1374,16 @@ public class InterfaceBuilder {
             String varName = value.substring(1);
             InterfaceVariable var = variables.get(varName);
             if (var != null) {
+                substituted.add(varName);
                 return var.getSubstitutionValue();
             }
-            // Variable not found, return as string literal
-            return value;
+            // Variable not found, keep the reference
+            return ComponentBuilder.typedValue(value);
         }
 
         // Check if it's a nested object
         if (value.startsWith("(") && value.endsWith(")")) {
-            return parseCommonUIObjectFromAttribute(value.substring(1, value.length() - 1), variables);
+            return parseCommonUIObjectFromAttribute(value.substring(1, value.length() - 1), variables, substituted);
         }
 
         // Check if it's a boolean
@@ -1344,13 +1402,162 @@ public class InterfaceBuilder {
                 return Integer.parseInt(value);
             }
         } catch (NumberFormatException e) {
-            // Not a number, return as string
-            // Remove quotes if present
+            // Not a number, classify the string once (remove quotes if present)
             if ((value.startsWith("\"") && value.endsWith("\"")) || 
                 (value.startsWith("'") && value.endsWith("'"))) {
-                return value.substring(1, value.length() - 1);
+                return ComponentBuilder.typedValue(value.substring(1, value.length() - 1));
             }
-            return value;
+            return ComponentBuilder.typedValue(value);
+        }
+    }
+
+    /**
+     * Attribute directives handled for every tag.
+     */
+    private enum Directive {
+        NONE,
+        SHOW,
+        IF
+    }
+
+    /**
+     * Semantic handling of an HTML tag, resolved once per element from a static table
+     * instead of comparing the tag name in each step.
+     */
+    private enum TagHandler {
+        GROUP,
+        TEXT,
+        BUTTON {
+            @Override
+            void applyAttributes(ComponentBuilder component, Map<String, String> attributes) {
+                // Only apply Text if it wasn't already set as a binding attribute
+                if (attributes.containsKey(":Text")) {
+                    return;
+                }
+
+                String buttonText = attributes.get("Value");
+                if (buttonText == null || buttonText.isEmpty()) {
+                    buttonText = attributes.get("Text");
+                }
+                if (buttonText != null && !buttonText.isEmpty()) {
+                    component.setProperty("Text", buttonText);
+                }
+            }
+        },
+        INPUT {
+            @Override
+            void applyAttributes(ComponentBuilder component, Map<String, String> attributes) {
+                // Check input type first
+                String inputType = attributes.get("Type");
+                if (inputType == null || !inputType.equalsIgnoreCase("checkbox")) {
+                    // Handle text inputs, number inputs, etc.
+                    applyTextFieldAttributes(component, attributes);
+                    return;
+                }
+
+                // Handle checkbox with label support
+                String label = attributes.get("Label");
+                if (label != null && !label.isEmpty()) {
+                    component.setProperty("Text", label);
+                }
+
+                // Handle checked attribute
+                if (isBooleanAttributeSet(attributes.get("Checked"), "checked")) {
+                    component.setProperty("Value", true);
+                }
+            }
+
+            @Override
+            boolean isSelfClosing() {
+                return true;
+            }
+        },
+        TEXTAREA {
+            @Override
+            void applyAttributes(ComponentBuilder component, Map<String, String> attributes) {
+                applyTextFieldAttributes(component, attributes);
+            }
+        },
+        IMG {
+            @Override
+            void applyAttributes(ComponentBuilder component, Map<String, String> attributes) {
+                String src = attributes.get("Src");
+                if (src != null && !src.isEmpty()) {
+                    component.setProperty("Source", src);
+                }
+
+                String alt = attributes.get("Alt");
+                if (alt != null && !alt.isEmpty()) {
+                    component.setProperty("Tooltip", alt);
+                }
+            }
+
+            @Override
+            boolean isSelfClosing() {
+                return true;
+            }
+        },
+        SELECT,
+        OTHER;
+
+        /**
+         * Handlers by lowercase tag name.
+         */
+        private static final Map<String, TagHandler> HANDLERS = new HashMap<>();
+
+        static {
+            // Group does not support Text property directly; it is moved to a Label child in parseElement
+            for (String tag : new String[] { "group", "div", "section", "article", "header", "footer", "nav", "main" }) {
+                HANDLERS.put(tag, GROUP);
+            }
+            // Text content will be set from child text nodes
+            for (String tag : new String[] { "label", "p", "span", "h1", "h2", "h3", "h4", "h5", "h6" }) {
+                HANDLERS.put(tag, TEXT);
+            }
+            HANDLERS.put("button", BUTTON);
+            HANDLERS.put("input", INPUT);
+            HANDLERS.put("textarea", TEXTAREA);
+            HANDLERS.put("img", IMG);
+            HANDLERS.put("select", SELECT);
+        }
+
+        /**
+         * Get the handler of a tag.
+         * @param tagName The lowercase tag name.
+         * @return The handler ({@link #OTHER} for tags without specific handling).
+         */
+        static TagHandler of(String tagName) {
+            return HANDLERS.getOrDefault(tagName, OTHER);
+        }
+
+        /**
+         * Apply the attributes specific to this tag.
+         * @param component The ComponentBuilder.
+         * @param attributes The HTML attributes (capitalized keys; lookups ignore case).
+         */
+        void applyAttributes(ComponentBuilder component, Map<String, String> attributes) {
+        }
+
+        /**
+         * Whether the tag maps to a Group.
+         */
+        boolean isGroup() {
+            return this == GROUP;
+        }
+
+        /**
+         * Whether the tag maps to a Label alias (h1-h6, span, p, label).
+         */
+        boolean isTextTag() {
+            return this == TEXT;
+        }
+
+        /**
+         * Whether the tag is self-closing.
+         * Only tags that are supported by Hytale Custom UI are considered self-closing.
+         */
+        boolean isSelfClosing() {
+            return false;
         }
     }
 
@@ -1365,6 +1572,29 @@ public class InterfaceBuilder {
         Set<String> usedHtmlTags;
         Set<String> usedAliases;
 
+        /**
+         * Names of the variables whose values were substituted into properties (e.g., :text="@Title").
+         */
+        Set<String> substitutedVariables;
+
+        /**
+         * Whether variables bound by attributes are substituted by their values (see {@link #parseWithReferences}).
+         */
+        boolean substitute = true;
+        TreeLimits limits;
+        boolean sharedPrelude;
+        int nodes;
+
+        /**
+         * Start positions of all tags in the HTML, in order (built on first use).
+         */
+        int[] tagStarts;
+
+        /**
+         * Start position of the matching closing tag of each tag in {@link #tagStarts}, or -1.
+         */
+        int[] closingStarts;
+
         ParseContext(String html, Map<String, InterfaceVariable> variables, Map<String, String> customAliases) {
             this.html = html;
             this.position = 0;
@@ -1372,6 +1602,100 @@ public class InterfaceBuilder {
             this.customAliases = customAliases != null ? customAliases : new HashMap<>();
             this.usedHtmlTags = new java.util.HashSet<>();
             this.usedAliases = new java.util.HashSet<>();
+            this.substitutedVariables = new java.util.HashSet<>();
+            this.limits = treeLimits;
+            this.sharedPrelude = InterfaceBuilder.sharedPrelude;
+        }
+
+        /**
+         * Find the closing tag of an opening tag.
+         * <p>
+         * All tags are matched in one pass on first use (same-name tags nest like brackets), so each
+         * lookup is a binary search instead of a scan of the rest of the document.
+         * </p>
+         * @param tagStart The start position of the opening tag.
+         * @param tagName The lowercase tag name.
+         * @param contentStart The position after the opening tag.
+         * @return The position of the closing tag, or -1 if not found.
+         */
+        int findClosingTag(int tagStart, String tagName, int contentStart) {
+            if (this.tagStarts == null) {
+                this.indexTags();
+            }
+
+            int index = java.util.Arrays.binarySearch(this.tagStarts, tagStart);
+            if (index < 0) {
+                // Not a tag boundary of the index (should not happen): scan
+                return InterfaceBuilder.findClosingTag(this.html, tagName, contentStart);
+            }
+
+            return this.closingStarts[index];
+        }
+
+        /**
+         * Match every opening tag with its closing tag.
+         */
+        private void indexTags() {
+            int[] starts = new int[64];
+            int[] closings = new int[64];
+            int count = 0;
+            Map<String, ArrayDeque<Integer>> openTags = new HashMap<>();
+
+            Matcher matcher = TAG_PATTERN.matcher(this.html);
+            while (matcher.find()) {
+                if (count == starts.length) {
+                    starts = java.util.Arrays.copyOf(starts, count * 2);
+                    closings = java.util.Arrays.copyOf(closings, count * 2);
+                }
+
+                String tagName = matcher.group(3).toLowerCase();
+                starts[count] = matcher.start();
+                closings[count] = -1;
+
+                if (matcher.group(1).isEmpty()) {
+                    openTags.computeIfAbsent(tagName, name -> new ArrayDeque<>()).push(count);
+                } else {
+                    ArrayDeque<Integer> open = openTags.get(tagName);
+                    if (open != null && !open.isEmpty()) {
+                        closings[open.pop()] = matcher.start();
+                    }
+                }
+
+                count++;
+            }
+
+            this.tagStarts = java.util.Arrays.copyOf(starts, count);
+            this.closingStarts = java.util.Arrays.copyOf(closings, count);
+        }
+    }
+
+    /**
+     * An element being parsed, whose children follow in the HTML.
+     */
+    private static class ElementFrame {
+        final ComponentBuilder component;
+        final String tagName;
+        final int contentEnd;
+
+        /**
+         * Whether the children still have to be parsed.
+         */
+        final boolean open;
+
+        boolean isGroupComponent;
+        int childCount;
+        final StringBuilder textContent = new StringBuilder();
+
+        ElementFrame(ComponentBuilder component, String tagName, int contentEnd, boolean open) {
+            this.component = component;
+            this.tagName = tagName;
+            this.contentEnd = contentEnd;
+            this.open = open;
+        }
+
+        void addChild(ComponentBuilder child) {
+            this.childCount++;
+            this.component.appendChild(child);
         }
     }
 }
@@ -0,0 +1,567 @@
+package com.machina.minterfacebuilder.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.machina.minterfacebuilder.InterfaceBuilder;
+import com.machina.minterfacebuilder.factory.ComponentFactory;
+import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
+
+/**
+ * Persistent cache of pre-rendered UI, so a server restart doesn't parse and build every template again.
+ * <p>
+ * Each entry holds the UI built from an HTML source, and is keyed by a SHA-256 hash of the source, the
+ * override variables, the settings, parse mode and root directory that change the output, the content of
+ * the library jar and the registered custom components (with the jars defining them): a changed source,
+ * library or component is a miss, never a stale hit. When a jar cannot be read to fingerprint it, the
+ * cache stays off rather than risk serving UI rendered by another build. Entries are files of the cache directory,
+ * memory-mapped and validated (header, key and length) when read, then kept in memory.
+ * </p>
+ * <p>
+ * Override variables can be substituted into the component body when a template is parsed, so each
+ * set of values is its own entry. Both tiers are bounded: the most recently used {@link #MAX_LOADED_ENTRIES}
+ * entries are kept in memory, and once the directory holds more than {@link #setMaxEntries the maximum}
+ * files, the least recently used ones are deleted.
+ * </p>
+ * <p>
+ * Server processes of the same host can also share their renders through a memory-mapped file
+ * (see {@link SharedRenderCache}), looked up before the directory.
+ * </p>
+ * <p>
+ * The cache is off until a directory or a shared cache is set:
+ * </p>
+ * <pre>
+ * CompiledTemplateStore.setDirectory(getDataDirectory().resolve("ui-cache"));
+ * CompiledTemplateStore.setSharedCache(SharedRenderCache.open(Path.of("/dev/shm/mib-render.cache")));
+ * </pre>
+ */
+public final class CompiledTemplateStore {
+    /**
+     * Magic number of the entry files ("MIBC").
+     */
+    private static final int MAGIC = 0x4D494243;
+
+    /**
+     * Version of the entry format.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Extension of the entry files.
+     */
+    private static final String EXTENSION = ".mibc";
+
+    /**
+     * Size of the entry header: magic, format version, key and UI length.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 32 + 4;
+
+    /**
+     * Maximum number of entries kept in memory.
+     */
+    public static final int MAX_LOADED_ENTRIES = 512;
+
+    /**
+     * Default maximum number of entry files in the cache directory.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    /**
+     * Content hashes of the jars and class directories the library and the custom components were loaded
+     * from, by location.
+     */
+    private static final Map<String, String> codeSourceHashes = new ConcurrentHashMap<>();
+
+    /**
+     * The custom component registration count {@link #registryFingerprint} was computed at.
+     */
+    private static volatile int registryCount = -1;
+
+    /**
+     * Fingerprint of the registered custom components, part of every key (null if a jar defining one
+     * cannot be read).
+     */
+    @Nullable
+    private static volatile String registryFingerprint = "";
+
+    /**
+     * Whether the cache being off for lack of a fingerprint was reported.
+     */
+    private static final AtomicBoolean unknownFingerprintReported = new AtomicBoolean();
+
+    /**
+     * The cache directory, or null if the cache is off.
+     */
+    @Nullable
+    private static volatile Path directory = null;
+
+    /**
+     * The render cache shared with the other processes of the host, or null if none.
+     */
+    @Nullable
+    private static volatile SharedRenderCache sharedCache = null;
+
+    /**
+     * The most recently used entries since the directory was set, by key (not kept when a shared
+     * cache holds them).
+     */
+    private static final Map<String, String> loaded = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return this.size() > MAX_LOADED_ENTRIES;
+        }
+    });
+
+    /**
+     * Maximum number of entry files in the cache directory.
+     */
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Number of entry files in the cache directory (counted when it is set, then kept up to date).
+     */
+    private static final AtomicInteger entryCount = new AtomicInteger();
+
+    private CompiledTemplateStore() { }
+
+    /**
+     * Set the cache directory, creating it if needed.
+     * @param cacheDirectory The directory, or null to turn the cache off.
+     * @throws IOException If the directory cannot be created.
+     */
+    public static void setDirectory(@Nullable Path cacheDirectory) throws IOException {
+        int entries = 0;
+        if (cacheDirectory != null) {
+            Files.createDirectories(cacheDirectory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, "*" + EXTENSION)) {
+                for (Path ignored : files) {
+                    entries++;
+                }
+            }
+        }
+        directory = cacheDirectory;
+        entryCount.set(entries);
+        loaded.clear();
+    }
+
+    /**
+     * Set the maximum number of entry files in the cache directory.
+     * @param max The maximum (at least 1).
+     */
+    public static void setMaxEntries(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("Maximum number of entries must be at least 1: " + max);
+        }
+        maxEntries = max;
+    }
+
+    /**
+     * Get the cache directory.
+     * @return The directory, or null if the cache is off.
+     */
+    @Nullable
+    public static Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Set the render cache shared with the other server processes of the host.
+     * @param cache The shared cache, or null to stop sharing (the previous one is not closed).
+     */
+    public static void setSharedCache(@Nullable SharedRenderCache cache) {
+        sharedCache = cache;
+    }
+
+    /**
+     * Get the render cache shared with the other server processes of the host.
+     * @return The shared cache, or null if none.
+     */
+    @Nullable
+    public static SharedRenderCache getSharedCache() {
+        return sharedCache;
+    }
+
+    /**
+     * Check if the cache is on.
+     * @return True if a directory or a shared cache is set and the library build can be fingerprinted.
+     */
+    public static boolean isEnabled() {
+        return (directory != null || sharedCache != null) && LibraryFingerprint.VALUE != null;
+    }
+
+    /**
+     * Get the UI built from an HTML source, rendering and storing it on a miss.
+     * @param html The HTML source.
+     * @param variables The override variables (can be null).
+     * @param settings The settings the UI is built with.
+     * @param renderer The renderer used on a miss (or when the cache is off).
+     * @return The UI.
+     */
+    @Nonnull
+    public static String getOrRender(@Nonnull String html, @Nullable Map<String, String> variables,
+                                     @Nonnull ComponentBuilderSettings settings, @Nonnull Supplier<String> renderer) {
+        Path cacheDirectory = directory;
+        SharedRenderCache shared = sharedCache;
+        if (cacheDirectory == null && shared == null) {
+            return renderer.get();
+        }
+
+        byte[] key = key(html, variables, settings);
+        if (key == null) {
+            // A stale hit could not be told apart from a valid one
+            if (unknownFingerprintReported.compareAndSet(false, true)) {
+                InterfaceBuilder.getLogger().warning("Compiled template cache disabled: the library or a custom component jar cannot be read to fingerprint it");
+            }
+            return renderer.get();
+        }
+
+        // Renders of the other processes
+        if (shared != null) {
+            String ui = shared.get(key);
+            if (ui != null) {
+                return ui;
+            }
+        }
+
+        String ui;
+        if (cacheDirectory != null) {
+            String name = toHex(key);
+            ui = loaded.get(name);
+            if (ui == null) {
+                ui = read(cacheDirectory.resolve(name + EXTENSION), key);
+                if (ui == null) {
+                    ui = renderer.get();
+                    write(cacheDirectory, name, key, ui);
+                }
+                if (shared == null) {
+                    loaded.put(name, ui);
+                }
+            }
+        } else {
+            ui = renderer.get();
+        }
+
+        if (shared != null) {
+            shared.put(key, ui);
+        }
+        return ui;
+    }
+
+    /**
+     * Get the UI built from an HTML file with the page settings, parsing it only on a miss.
+     * @param path The HTML file.
+     * @return The UI.
+     * @throws IOException If the file cannot be read.
+     */
+    @Nonnull
+    public static String render(@Nonnull Path path) throws IOException {
+        String html = Files.readString(path);
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        return getOrRender(html, null, settings, () -> InterfaceBuilder.parse(html).build(settings));
+    }
+
+    /**
+     * Delete all the entries of the cache directory.
+     * @throws IOException If the directory cannot be listed.
+     */
+    public static void clear() throws IOException {
+        loaded.clear();
+
+        Path cacheDirectory = directory;
+        if (cacheDirectory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDirectory, "*" + EXTENSION)) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+        }
+        entryCount.set(0);
+    }
+
+    /**
+     * Compute the key of an entry.
+     * @param html The HTML source.
+     * @param variables The override variables (can be null).
+     * @param settings The settings.
+     * @return The SHA-256 key, or null if the library or a custom component cannot be fingerprinted.
+     */
+    @Nullable
+    private static byte[] key(String html, @Nullable Map<String, String> variables, ComponentBuilderSettings settings) {
+        String library = LibraryFingerprint.VALUE;
+        String registry = registryFingerprint();
+        if (library == null || registry == null) {
+            return null;
+        }
+
+        MessageDigest digest = sha256();
+        digest.update(library.getBytes(StandardCharsets.UTF_8));
+        digest.update(registry.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ((settings.minimal ? 1 : 0) | (settings.hoistValues ? 2 : 0) | (settings.skipMIVariables ? 4 : 0)
+            | (InterfaceBuilder.isSharedPrelude() ? 8 : 0)));
+        // Imports are resolved against the root directory
+        digest.update(String.valueOf(ComponentBuilder.getRootDir()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+
+        // Variables in a stable order, each field terminated so that no two sets hash the same input
+        if (variables != null) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(variables).entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        }
+        digest.update((byte) 1);
+
+        digest.update(html.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /**
+     * Read and validate an entry.
+     * @param file The entry file.
+     * @param key The expected key.
+     * @return The UI, or null if the entry is missing or invalid.
+     */
+    @Nullable
+    private static String read(Path file, byte[] key) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            byte[] storedKey = new byte[key.length];
+            buffer.get(storedKey);
+            int length = buffer.getInt();
+            if (!Arrays.equals(storedKey, key) || length != buffer.remaining()) {
+                return null;
+            }
+
+            String ui = StandardCharsets.UTF_8.decode(buffer).toString();
+
+            // The modification time orders the entries for eviction
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return ui;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write an entry atomically (to a temporary file, then moved in place).
+     * @param cacheDirectory The cache directory.
+     * @param name The entry name.
+     * @param key The key.
+     * @param ui The UI.
+     */
+    private static void write(Path cacheDirectory, String name, byte[] key, String ui) {
+        byte[] bytes = ui.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).put(key).putInt(bytes.length).put(bytes);
+
+        try {
+            Path entry = cacheDirectory.resolve(name + EXTENSION);
+            boolean replaced = Files.exists(entry);
+            Path temp = Files.createTempFile(cacheDirectory, name, ".tmp");
+            try {
+                Files.write(temp, buffer.array());
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            if (!replaced && entryCount.incrementAndGet() > maxEntries) {
+                evict(cacheDirectory);
+            }
+        } catch (IOException e) {
+            // The cache is an optimization: the UI was rendered anyway
+            InterfaceBuilder.getLogger().log(Level.WARNING, "Failed to write compiled template cache entry: " + name, e);
+        }
+    }
+
+    /**
+     * Delete the least recently used entry files, down to three quarters of the maximum (so a full
+     * directory is not listed again on every write).
+     * @param cacheDirectory The cache directory.
+     * @throws IOException If the directory cannot be listed.
+     */
+    private static synchronized void evict(Path cacheDirectory) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, Long> used = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    used.put(file, Files.getLastModifiedTime(file).toMillis());
+                    entries.add(file);
+                } catch (IOException e) {
+                    // Deleted meanwhile
+                }
+            }
+        }
+
+        int target = maxEntries - maxEntries / 4;
+        if (entries.size() > target) {
+            entries.sort(Comparator.comparingLong(used::get));
+            for (Path file : entries.subList(0, entries.size() - target)) {
+                Files.deleteIfExists(file);
+                String name = file.getFileName().toString();
+                loaded.remove(name.substring(0, name.length() - EXTENSION.length()));
+            }
+        }
+        entryCount.set(Math.min(entries.size(), target));
+    }
+
+    /**
+     * Fingerprint of the library build, computed with the first key: the format and library versions and
+     * the content hash of the jar (or class directory) the library was loaded from, so a rebuilt library
+     * (even with the same version) doesn't reuse entries rendered by the previous one. Null if the code
+     * source cannot be read.
+     */
+    private static final class LibraryFingerprint {
+        @Nullable
+        private static final String VALUE;
+
+        static {
+            String version = InterfaceBuilder.class.getPackage().getImplementationVersion();
+            String hash = codeSourceHash(InterfaceBuilder.class);
+            VALUE = hash != null ? FORMAT_VERSION + "/" + (version != null ? version : "dev") + "/" + hash : null;
+        }
+    }
+
+    /**
+     * Get the fingerprint of the registered custom components: each tag with the class defining it and
+     * the content hash of that class's jar, so a changed plugin component is a miss.
+     * @return The fingerprint, computed again after each registration, or null if a jar cannot be read.
+     */
+    @Nullable
+    private static String registryFingerprint() {
+        int count = ComponentFactory.getRegistrationCount();
+        if (count == registryCount) {
+            return registryFingerprint;
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (Map.Entry<String, Class<?>> owner : ComponentFactory.getCustomTagOwners().entrySet()) {
+            String hash = codeSourceHash(owner.getValue());
+            if (hash == null) {
+                fingerprint = null;
+                break;
+            }
+            fingerprint.append(owner.getKey()).append('=').append(owner.getValue().getName())
+                .append('@').append(hash).append(';');
+        }
+
+        registryFingerprint = fingerprint != null ? fingerprint.toString() : null;
+        registryCount = count;
+        return registryFingerprint;
+    }
+
+    /**
+     * Get the content hash of the jar or class directory a class was loaded from.
+     * @param type The class.
+     * @return The hash, or null if the code source cannot be read.
+     */
+    @Nullable
+    private static String codeSourceHash(Class<?> type) {
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            return null;
+        }
+
+        return codeSourceHashes.computeIfAbsent(source.getLocation().toString(), location -> {
+            try {
+                Path path = Path.of(source.getLocation().toURI());
+                MessageDigest digest = sha256();
+                if (Files.isDirectory(path)) {
+                    // Class directories (development builds): every file, by relative path
+                    List<Path> files;
+                    try (Stream<Path> walk = Files.walk(path)) {
+                        files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                    }
+                    for (Path file : files) {
+                        digest.update(path.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update((byte) 0);
+                        digest.update(Files.readAllBytes(file));
+                    }
+                } else {
+                    try (InputStream input = new DigestInputStream(Files.newInputStream(path), digest)) {
+                        input.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+                return toHex(Arrays.copyOf(digest.digest(), 16));
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                // Not stored: the cache stays off
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Get a SHA-256 digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Format bytes as lowercase hexadecimal.
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
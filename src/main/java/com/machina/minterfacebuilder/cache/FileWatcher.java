@@ -1,26 +1,47 @@
 package com.machina.minterfacebuilder.cache;
 
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
-import com.machina.minterfacebuilder.cache.TemplateCache;
+import com.machina.minterfacebuilder.InterfaceBuilder;
 
 /**
  * File watcher for monitoring file changes and automatically reloading templates.
  * <p>
- * This class monitors files using Java's WatchService API and automatically clears
- * the cache when files are modified, allowing templates to be reloaded from disk.
+ * This class monitors files using Java's WatchService API and automatically reloads
+ * cached templates in the background when their files are modified (see {@link TemplateCache#reload}).
+ * </p>
+ * <p>
+ * Each directory is registered once and shared by the files and directory trees watched in it
+ * (the registration is cancelled when the last of them stops watching). Events are debounced:
+ * the changed files are collected until no event arrives for {@link #DEBOUNCE_MILLIS}, then
+ * reloaded in one batch, so the several events an editor emits per save cause a single reload.
+ * A batch is never held longer than {@link #MAX_LATENCY_MILLIS} after its first event, so files
+ * written continuously are still reloaded.
  * </p>
  * <p>
  * <b>Usage:</b>
@@ -29,6 +50,9 @@ import com.machina.minterfacebuilder.cache.TemplateCache;
  * // Start watching a file
  * FileWatcher.watchFile(path);
  *
+ * // Start watching a template folder (recursively, only .html files)
+ * FileWatcher.watchDirectory(folder, "**.html");
+ *
  * // Stop watching a file
  * FileWatcher.stopWatching(path);
  *
@@ -37,39 +61,83 @@ import com.machina.minterfacebuilder.cache.TemplateCache;
  * </pre>
  */
 public class FileWatcher {
+    /**
+     * Quiet period after the last event before the changed files are invalidated.
+     */
+    public static final long DEBOUNCE_MILLIS = 50;
+
+    /**
+     * Longest time a changed file waits for the end of the burst before it is invalidated.
+     */
+    public static final long MAX_LATENCY_MILLIS = 500;
+
+    /**
+     * Lock guarding the watch state (shared by the callers and the watch thread).
+     */
+    private static final Object lock = new Object();
+
     /**
      * WatchService for monitoring file system events.
      */
     private static WatchService watchService = null;
 
     /**
-     * Scheduled executor for running the watch service in a background thread.
+     * Executor running the watch loop in a background thread.
+     */
+    private static ExecutorService executorService = null;
+
+    /**
+     * Map of watched files to the registration of their parent directory.
+     */
+    private static final Map<Path, DirectoryWatch> watchedPaths = new HashMap<>();
+
+    /**
+     * Map of watched directory trees to the matcher of their files (null to match all files).
      */
-    private static ScheduledExecutorService executorService = null;
+    private static final Map<Path, PathMatcher> watchedTrees = new HashMap<>();
 
     /**
-     * Map of watched paths to their WatchKeys.
+     * Map of registered directories to their registration.
      */
-    private static final Map<Path, WatchKey> watchedPaths = new ConcurrentHashMap<>();
+    private static final Map<Path, DirectoryWatch> watchedDirectories = new HashMap<>();
 
     /**
-     * Map of WatchKeys to their parent directories (for reverse lookup).
+     * Map of WatchKeys to their registration (for reverse lookup).
      */
-    private static final Map<WatchKey, Path> watchKeyToParentDir = new ConcurrentHashMap<>();
+    private static final Map<WatchKey, DirectoryWatch> watchKeys = new HashMap<>();
 
     /**
-     * Flag to track if the watcher is initialized.
+     * Listeners notified of each batch of changed files, after the cache is updated.
      */
-    private static boolean initialized = false;
+    private static final List<Consumer<Set<Path>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registration of a directory, shared by the files and trees watched in it.
+     */
+    private static final class DirectoryWatch {
+        private final Path directory;
+        private final WatchKey key;
+
+        /**
+         * Number of watched files in the directory plus the number of watched trees containing it.
+         */
+        private int references;
+
+        private DirectoryWatch(Path directory, WatchKey key) {
+            this.directory = directory;
+            this.key = key;
+        }
+    }
 
     /**
      * Initialize the watch service if not already initialized.
+     * Must be called with the lock held.
      * @throws IOException If the watch service cannot be created.
      */
-    private static synchronized void initialize() throws IOException {
-        if (!initialized) {
-            watchService = FileSystems.getDefault().newWatchService();
-            executorService = Executors.newSingleThreadScheduledExecutor(r -> {
+    private static void initialize() throws IOException {
+        if (watchService == null) {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            executorService = Executors.newSingleThreadExecutor(r -> {
                 Thread t = new Thread(r, "InterfaceBuilder-FileWatcher");
                 t.setDaemon(true);
                 return t;
@@ -78,96 +146,254 @@ public class FileWatcher {
             // Start the watch loop
             executorService.submit(() -> {
                 try {
-                    watchLoop();
+                    watchLoop(service);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
+                } catch (ClosedWatchServiceException e) {
+                    // Stopped by stopAll()
                 }
             });
 
-            initialized = true;
+            watchService = service;
         }
     }
 
     /**
      * Main watch loop that processes file system events.
+     * <p>
+     * Changed files are collected into a batch, which is invalidated once no event has arrived
+     * for {@link #DEBOUNCE_MILLIS}, or {@link #MAX_LATENCY_MILLIS} after its first event.
+     * </p>
+     * @param service The watch service of this loop.
      * @throws InterruptedException If the thread is interrupted.
      */
-    private static void watchLoop() throws InterruptedException {
+    private static void watchLoop(WatchService service) throws InterruptedException {
+        Set<Path> pending = new HashSet<>();
+        long deadline = 0;
+
         while (true) {
-            WatchKey key = watchService.take();
-
-            // Process events for this key
-            for (WatchEvent<?> event : key.pollEvents()) {
-                WatchEvent.Kind<?> kind = event.kind();
-
-                // Handle file modification events
-                if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-                    @SuppressWarnings("unchecked")
-                    WatchEvent<Path> ev = (WatchEvent<Path>) event;
-                    Path filename = ev.context();
-
-                    // Find the watched path that matches this event
-                    Path watchedPath = findWatchedPath(key, filename);
-                    if (watchedPath != null && Files.exists(watchedPath)) {
-                        // Clear cache for this file so it will be reloaded
-                        TemplateCache.remove(watchedPath);
-                    }
-                }
+            // Wait for the first event, then only for the rest of the burst, up to the deadline of the batch
+            WatchKey key;
+            if (pending.isEmpty()) {
+                key = service.take();
+            } else {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                key = remaining > 0 ? service.poll(Math.min(DEBOUNCE_MILLIS, remaining), TimeUnit.MILLISECONDS) : null;
+            }
+
+            if (key == null) {
+                invalidate(pending);
+                pending.clear();
+                continue;
+            }
+
+            boolean first = pending.isEmpty();
+            synchronized (lock) {
+                processEvents(key, pending);
+            }
+            if (first && !pending.isEmpty()) {
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_LATENCY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Process the events of a key, collecting the changed watched files.
+     * Must be called with the lock held.
+     * @param key The watch key.
+     * @param pending The changed files to invalidate.
+     */
+    private static void processEvents(WatchKey key, Set<Path> pending) {
+        DirectoryWatch watch = watchKeys.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (watch == null || kind == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
 
-                // Handle file deletion events
+            @SuppressWarnings("unchecked")
+            WatchEvent<Path> ev = (WatchEvent<Path>) event;
+            Path changedPath = watch.directory.resolve(ev.context());
+
+            // New directories in a watched tree are watched as well
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changedPath, LinkOption.NOFOLLOW_LINKS)) {
+                registerNewDirectory(changedPath);
+                continue;
+            }
+
+            if (watchedPaths.containsKey(changedPath)) {
+                // Clear cache for this file so it will be reloaded
+                pending.add(changedPath);
+
+                // A deleted file is no longer watched
                 if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
-                    @SuppressWarnings("unchecked")
-                    WatchEvent<Path> ev = (WatchEvent<Path>) event;
-                    Path filename = ev.context();
-
-                    // Find the watched path that matches this event
-                    Path watchedPath = findWatchedPath(key, filename);
-                    if (watchedPath != null) {
-                        // Remove from cache and stop watching
-                        TemplateCache.remove(watchedPath);
-                        stopWatching(watchedPath);
-                    }
+                    unwatchFile(changedPath);
                 }
+            } else if (isInWatchedTree(changedPath)) {
+                pending.add(changedPath);
             }
+        }
+
+        // Reset the key to receive further events
+        if (!key.reset() && watch != null) {
+            // Key is no longer valid (directory deleted, etc.)
+            watchKeys.remove(key);
+            watchedDirectories.remove(watch.directory, watch);
+        }
+    }
+
+    /**
+     * Reload a batch of changed files, removing the deleted ones from the cache.
+     * @param paths The changed files.
+     */
+    private static void invalidate(Set<Path> paths) {
+        List<Path> deleted = new ArrayList<>();
+        List<Path> changed = new ArrayList<>();
+        for (Path path : paths) {
+            (Files.exists(path) ? changed : deleted).add(path);
+        }
+
+        // Changed templates are recompiled in the background while readers keep the last version
+        TemplateCache.removeAll(deleted);
+        TemplateCache.reloadAll(changed);
 
-            // Reset the key to receive further events
-            boolean valid = key.reset();
-            if (!valid) {
-                // Key is no longer valid (directory deleted, etc.)
-                break;
+        if (!changeListeners.isEmpty()) {
+            Set<Path> batch = Set.copyOf(paths);
+            for (Consumer<Set<Path>> listener : changeListeners) {
+                try {
+                    listener.accept(batch);
+                } catch (RuntimeException e) {
+                    // A failing listener must not stop the watch loop
+                    InterfaceBuilder.getLogger().log(Level.WARNING, "File change listener failed", e);
+                }
             }
         }
     }
 
     /**
-     * Find the watched path that corresponds to a watch key and filename.
-     * @param key The watch key.
-     * @param filename The filename from the event.
-     * @return The full watched path, or null if not found.
-     */
-    private static Path findWatchedPath(WatchKey key, Path filename) {
-        // Get the parent directory for this watch key
-        Path parentDir = watchKeyToParentDir.get(key);
-        if (parentDir == null) {
-            return null;
+     * Add a listener notified on the watch thread of each batch of changed (or deleted) files.
+     * @param listener The listener, called with the normalized absolute paths of the batch.
+     */
+    public static void addChangeListener(Consumer<Set<Path>> listener) {
+        if (listener != null && !changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    /**
+     * Remove a change listener.
+     * @param listener The listener to remove.
+     */
+    public static void removeChangeListener(Consumer<Set<Path>> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Register a directory, or add a reference to its registration.
+     * Must be called with the lock held.
+     * @param directory The normalized absolute directory.
+     * @return The registration.
+     * @throws IOException If the directory cannot be registered.
+     */
+    private static DirectoryWatch acquireDirectory(Path directory) throws IOException {
+        DirectoryWatch watch = watchedDirectories.get(directory);
+        if (watch == null || !watch.key.isValid()) {
+            initialize();
+
+            // Register the directory for watching
+            WatchKey key = directory.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+            );
+
+            // Registering a directory again returns its existing key, which keeps its references
+            watch = watchKeys.get(key);
+            if (watch == null) {
+                watch = new DirectoryWatch(directory, key);
+                watchKeys.put(key, watch);
+            }
+            watchedDirectories.put(directory, watch);
         }
 
-        // Resolve the full path
-        Path fullPath = parentDir.resolve(filename).normalize().toAbsolutePath();
+        watch.references++;
+        return watch;
+    }
 
-        // Check if this path is being watched
-        if (watchedPaths.containsKey(fullPath)) {
-            return fullPath;
+    /**
+     * Remove a reference to a directory registration, cancelling it when it is no longer used.
+     * Must be called with the lock held.
+     * @param watch The registration.
+     */
+    private static void releaseDirectory(DirectoryWatch watch) {
+        if (--watch.references > 0) {
+            return;
         }
 
-        return null;
+        watch.key.cancel();
+        watchKeys.remove(watch.key);
+        watchedDirectories.remove(watch.directory, watch);
+    }
+
+    /**
+     * Register a directory created inside watched trees (and its subdirectories).
+     * Must be called with the lock held.
+     * @param directory The new directory.
+     */
+    private static void registerNewDirectory(Path directory) {
+        for (Path root : watchedTrees.keySet()) {
+            if (directory.startsWith(root) && !directory.equals(root)) {
+                try {
+                    registerTree(directory);
+                } catch (IOException e) {
+                    // The directory was removed again, or is not accessible
+                }
+            }
+        }
+    }
+
+    /**
+     * Register a directory and all its subdirectories (one reference each).
+     * Must be called with the lock held.
+     * @param root The normalized absolute directory.
+     * @throws IOException If a directory cannot be registered.
+     */
+    private static void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                acquireDirectory(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Check whether a path is matched by a watched directory tree.
+     * Must be called with the lock held.
+     * @param path The normalized absolute path.
+     * @return True if a tree containing the path matches it.
+     */
+    private static boolean isInWatchedTree(Path path) {
+        for (Map.Entry<Path, PathMatcher> tree : watchedTrees.entrySet()) {
+            if (path.startsWith(tree.getKey()) && !path.equals(tree.getKey())) {
+                PathMatcher matcher = tree.getValue();
+                if (matcher == null || matcher.matches(tree.getKey().relativize(path))) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
      * Start watching a file for changes.
      * <p>
-     * When the file is modified, it will be automatically removed from the cache,
-     * causing it to be reloaded from disk on the next parse call.
+     * When the file is modified, its cached template is reloaded from disk in the background
+     * (parse calls keep returning the previous version until the new one is ready).
+     * When the file is deleted, it is removed from the cache.
      * </p>
      * <p>
      * <b>Example:</b>
@@ -189,35 +415,116 @@ public class FileWatcher {
         // Normalize the path
         filePath = filePath.normalize().toAbsolutePath();
 
-        // Check if already watching
-        if (watchedPaths.containsKey(filePath)) {
-            return;
+        synchronized (lock) {
+            // Check if already watching
+            if (watchedPaths.containsKey(filePath)) {
+                return;
+            }
+
+            // Check if file exists
+            if (!Files.exists(filePath)) {
+                throw new IOException("File does not exist: " + filePath);
+            }
+
+            // Get the parent directory to watch
+            Path parentDir = filePath.getParent();
+            if (parentDir == null) {
+                throw new IllegalArgumentException("Cannot watch root directory");
+            }
+
+            watchedPaths.put(filePath, acquireDirectory(parentDir));
         }
+    }
+
+    /**
+     * Start watching all files of a directory tree for changes.
+     * <p>
+     * The directory and its subdirectories (including ones created later) are watched, and any
+     * changed file in them is reloaded (or removed from the cache if deleted).
+     * </p>
+     *
+     * @param directory The directory to watch.
+     * @throws IOException If the directory cannot be watched (e.g., it doesn't exist or is not accessible).
+     */
+    public static void watchDirectory(Path directory) throws IOException {
+        watchDirectory(directory, null);
+    }
 
-        // Check if file exists
-        if (!Files.exists(filePath)) {
-            throw new IOException("File does not exist: " + filePath);
+    /**
+     * Start watching the files of a directory tree that match a glob pattern.
+     * <p>
+     * The pattern is matched against the path relative to the directory, e.g. {@code "*.html"} for the
+     * files of the directory itself and {@code "**.html"} for the files of the whole tree.
+     * </p>
+     * <p>
+     * <b>Example:</b>
+     * </p>
+     * <pre>
+     * FileWatcher.watchDirectory(Path.of("config/templates"), "**.html");
+     * </pre>
+     *
+     * @param directory The directory to watch.
+     * @param glob The glob pattern of the files to invalidate, or null for all files.
+     * @throws IOException If the directory cannot be watched (e.g., it doesn't exist or is not accessible).
+     */
+    public static void watchDirectory(Path directory, String glob) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory path cannot be null");
         }
 
-        // Initialize if needed
-        initialize();
+        // Normalize the path
+        directory = directory.normalize().toAbsolutePath();
+        PathMatcher matcher = glob != null ? directory.getFileSystem().getPathMatcher("glob:" + glob) : null;
+
+        synchronized (lock) {
+            // If already watching, only update the pattern
+            if (watchedTrees.containsKey(directory)) {
+                watchedTrees.put(directory, matcher);
+                return;
+            }
+
+            if (!Files.isDirectory(directory)) {
+                throw new IOException("Directory does not exist: " + directory);
+            }
+
+            watchedTrees.put(directory, matcher);
+            registerTree(directory);
+        }
+    }
 
-        // Get the parent directory to watch
-        Path parentDir = filePath.getParent();
-        if (parentDir == null) {
-            throw new IllegalArgumentException("Cannot watch root directory");
+    /**
+     * Stop watching a directory tree started with {@link #watchDirectory(Path, String)}.
+     * <p>
+     * Files watched individually in the tree keep being watched.
+     * </p>
+     *
+     * @param directory The directory to stop watching.
+     */
+    public static void stopWatchingDirectory(Path directory) {
+        if (directory == null) {
+            return;
         }
 
-        // Register the directory for watching
-        WatchKey key = parentDir.register(
-            watchService,
-            StandardWatchEventKinds.ENTRY_MODIFY,
-            StandardWatchEventKinds.ENTRY_DELETE
-        );
+        // Normalize the path
+        Path root = directory.normalize().toAbsolutePath();
+
+        synchronized (lock) {
+            if (!watchedTrees.containsKey(root)) {
+                return;
+            }
+            watchedTrees.remove(root);
 
-        // Store the mapping
-        watchedPaths.put(filePath, key);
-        watchKeyToParentDir.put(key, parentDir);
+            // Release the directories of the tree (registered once per tree)
+            List<DirectoryWatch> released = new ArrayList<>();
+            for (DirectoryWatch watch : watchedDirectories.values()) {
+                if (watch.directory.startsWith(root)) {
+                    released.add(watch);
+                }
+            }
+            for (DirectoryWatch watch : released) {
+                releaseDirectory(watch);
+            }
+        }
     }
 
     /**
@@ -225,6 +532,7 @@ public class FileWatcher {
      * <p>
      * This will stop monitoring the file, but will not remove it from the cache.
      * The cached template will remain until explicitly removed or cleared.
+     * Other files and trees watched in the same directory are not affected.
      * </p>
      *
      * @param filePath The path to the file to stop watching.
@@ -237,18 +545,27 @@ public class FileWatcher {
         // Normalize the path
         filePath = filePath.normalize().toAbsolutePath();
 
-        // Remove from watched paths
-        WatchKey key = watchedPaths.remove(filePath);
-        if (key != null) {
-            key.cancel();
-            watchKeyToParentDir.remove(key);
+        synchronized (lock) {
+            unwatchFile(filePath);
+        }
+    }
+
+    /**
+     * Stop watching a file, releasing its directory.
+     * Must be called with the lock held.
+     * @param filePath The normalized absolute path.
+     */
+    private static void unwatchFile(Path filePath) {
+        DirectoryWatch watch = watchedPaths.remove(filePath);
+        if (watch != null) {
+            releaseDirectory(watch);
         }
     }
 
     /**
      * Check if a file is currently being watched.
      * @param filePath The path to check.
-     * @return True if the file is being watched, false otherwise.
+     * @return True if the file is being watched (on its own or through a directory tree), false otherwise.
      */
     public static boolean isWatching(Path filePath) {
         if (filePath == null) {
@@ -258,7 +575,9 @@ public class FileWatcher {
         // Normalize the path
         filePath = filePath.normalize().toAbsolutePath();
 
-        return watchedPaths.containsKey(filePath);
+        synchronized (lock) {
+            return watchedPaths.containsKey(filePath) || isInWatchedTree(filePath);
+        }
     }
 
     /**
@@ -268,41 +587,47 @@ public class FileWatcher {
      * The cache will not be cleared, but files will no longer be monitored.
      * </p>
      */
-    public static synchronized void stopAll() {
-        // Cancel all watch keys
-        for (WatchKey key : watchedPaths.values()) {
-            key.cancel();
-        }
+    public static void stopAll() {
+        ExecutorService executor;
 
-        // Clear watched paths and key mappings
-        watchedPaths.clear();
-        watchKeyToParentDir.clear();
+        synchronized (lock) {
+            // Cancel all watch keys
+            for (WatchKey key : watchKeys.keySet()) {
+                key.cancel();
+            }
 
-        // Shutdown executor
-        if (executorService != null) {
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
+            // Clear watched paths and key mappings
+            watchedPaths.clear();
+            watchedTrees.clear();
+            watchedDirectories.clear();
+            watchKeys.clear();
+
+            // Close watch service (this ends the watch loop)
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    // Ignore
                 }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
+                watchService = null;
             }
+
+            executor = executorService;
             executorService = null;
         }
 
-        // Close watch service
-        if (watchService != null) {
+        // Shutdown executor (outside the lock, which the watch loop may be waiting for)
+        if (executor != null) {
+            executor.shutdown();
             try {
-                watchService.close();
-            } catch (IOException e) {
-                // Ignore
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
             }
-            watchService = null;
         }
-
-        initialized = false;
     }
 
     /**
@@ -310,6 +635,18 @@ public class FileWatcher {
      * @return The number of watched files.
      */
     public static int getWatchedFileCount() {
-        return watchedPaths.size();
+        synchronized (lock) {
+            return watchedPaths.size();
+        }
+    }
+
+    /**
+     * Get the number of directories currently registered with the watch service.
+     * @return The number of watched directories.
+     */
+    public static int getWatchedDirectoryCount() {
+        synchronized (lock) {
+            return watchedDirectories.size();
+        }
     }
 }
@@ -0,0 +1,571 @@
+package com.machina.minterfacebuilder.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.machina.minterfacebuilder.InterfaceBuilder;
+
+/**
+ * Render cache shared by the server processes of a host through a memory-mapped file.
+ * <p>
+ * The file holds an index and an append-only log of pre-rendered UI, keyed by the SHA-256 keys of
+ * {@link CompiledTemplateStore}. Processes mapping the same file reuse each other's renders, and the
+ * entries live once in the OS page cache instead of once per process heap.
+ * </p>
+ * <p>
+ * Writers never lock: an entry is appended by reserving its space with a compare-and-set on the log
+ * tail, then published by a compare-and-set of its offset into a free index slot (linear probing).
+ * Readers only see published, complete entries, and ignore offsets outside the log.
+ * </p>
+ * <p>
+ * The file is fixed in size. Once the log or the index is full, the first process to notice creates a
+ * new, empty file of the same size and moves it over the path under the file lock, then marks the full
+ * one as retired: every process maps the new file on its next access, and the space of the old one is
+ * reclaimed once no process maps it anymore. A full file is never written again, so entries being read
+ * are never overwritten. Only the creation and the replacement of the file take a file lock.
+ * </p>
+ * <p>
+ * <b>File layout:</b> a 64-byte header (magic, version, capacity, slot count, log tail, retired flag),
+ * the index (one 8-byte entry offset per slot, 0 if free), then the entries (32-byte key, UI length,
+ * UTF-8 UI), each aligned to 8 bytes.
+ * </p>
+ */
+public final class SharedRenderCache implements Closeable {
+    /**
+     * Magic number of the file ("MIBS").
+     */
+    private static final int MAGIC = 0x4D494253;
+
+    /**
+     * Version of the file layout.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Offset of the capacity in the header.
+     */
+    private static final int CAPACITY_OFFSET = 8;
+
+    /**
+     * Offset of the slot count in the header.
+     */
+    private static final int SLOTS_OFFSET = 16;
+
+    /**
+     * Offset of the log tail in the header.
+     */
+    private static final int TAIL_OFFSET = 24;
+
+    /**
+     * Offset of the retired flag in the header (non-zero once the file was replaced).
+     */
+    private static final int RETIRED_OFFSET = 32;
+
+    /**
+     * Size of an entry key.
+     */
+    private static final int KEY_SIZE = 32;
+
+    /**
+     * Size of an entry header: key and UI length (padded to 8 bytes).
+     */
+    private static final int ENTRY_HEADER_SIZE = KEY_SIZE + 8;
+
+    /**
+     * Default size of the file.
+     */
+    public static final int DEFAULT_CAPACITY = 64 << 20;
+
+    /**
+     * Default number of index slots.
+     */
+    public static final int DEFAULT_SLOTS = 1 << 14;
+
+    /**
+     * Atomic access to the longs of the mapping (shared with the other processes).
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Result of an append.
+     */
+    private enum Append {
+        /** The entry was published. */
+        PUBLISHED,
+        /** The key was already published (or is being published by another writer). */
+        PRESENT,
+        /** The log or the index is full. */
+        FULL
+    }
+
+    /**
+     * The path of the file.
+     */
+    private final Path file;
+
+    /**
+     * The current mapping of the file.
+     */
+    private volatile Mapping mapping;
+
+    /**
+     * Whether the file can be replaced when full (false once a replacement failed, e.g. on file systems
+     * that don't replace files still mapped).
+     */
+    private volatile boolean replaceable = true;
+
+    private SharedRenderCache(Path file, Mapping mapping) {
+        this.file = file;
+        this.mapping = mapping;
+    }
+
+    /**
+     * Map a shared cache file with the default size, creating it if needed.
+     * @param file The file (the same path for all the processes sharing it).
+     * @return The cache.
+     * @throws IOException If the file cannot be created or mapped, or is not a cache file.
+     */
+    @Nonnull
+    public static SharedRenderCache open(@Nonnull Path file) throws IOException {
+        return open(file, DEFAULT_CAPACITY, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Map a shared cache file, creating it if needed.
+     * <p>
+     * The size and slot count only apply when the file is created; an existing file keeps its own.
+     * </p>
+     * @param file The file (the same path for all the processes sharing it).
+     * @param capacity The size of the file in bytes (at most 2 GB).
+     * @param slots The number of index slots (rounded up to a power of two).
+     * @return The cache.
+     * @throws IOException If the file cannot be created or mapped, or is not a cache file.
+     */
+    @Nonnull
+    public static SharedRenderCache open(@Nonnull Path file, int capacity, int slots) throws IOException {
+        int slotCount = Integer.highestOneBit(Math.max(slots, 2) - 1) << 1;
+        if (capacity < dataStart(slotCount) + ENTRY_HEADER_SIZE) {
+            throw new IllegalArgumentException("Capacity too small for " + slotCount + " slots: " + capacity);
+        }
+        return new SharedRenderCache(file, map(file, capacity, slotCount));
+    }
+
+    /**
+     * Map the current file at a path, creating it if needed.
+     * @param file The path of the file.
+     * @param capacity The size of the file if created.
+     * @param slotCount The number of index slots if created (a power of two).
+     * @return The mapping.
+     * @throws IOException If the file cannot be created or mapped, or is not a cache file.
+     */
+    private static Mapping map(Path file, int capacity, int slotCount) throws IOException {
+        // A file replaced between opening and locking it is retired: open the path again
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                MappedByteBuffer buffer;
+
+                // Only the creation is locked, so two processes don't both initialize the file
+                try (FileLock lock = channel.lock()) {
+                    long size = channel.size();
+                    if (isUninitialized(channel, size)) {
+                        // New, or left by a process that stopped before writing the magic (written last)
+                        buffer = initialize(channel, capacity, slotCount);
+                    } else {
+                        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                        buffer.order(ByteOrder.nativeOrder());
+                        if (!isValid(buffer, size)) {
+                            throw new IOException("Not a shared render cache file (or another version): " + file);
+                        }
+                    }
+                }
+
+                Mapping mapping = new Mapping(channel, buffer);
+                if (!mapping.isRetired() || attempt == 8) {
+                    return mapping;
+                }
+                channel.close();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Initialize a file (locked by the caller, or not yet visible to other processes).
+     * @param channel The channel of the file.
+     * @param capacity The size of the file.
+     * @param slotCount The number of index slots (a power of two).
+     * @return The mapped file.
+     * @throws IOException If the file cannot be resized or mapped.
+     */
+    private static MappedByteBuffer initialize(FileChannel channel, int capacity, int slotCount) throws IOException {
+        if (channel.size() != capacity) {
+            channel.truncate(0);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.order(ByteOrder.nativeOrder());
+        buffer.putInt(4, VERSION);
+        buffer.putLong(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SLOTS_OFFSET, slotCount);
+        buffer.putLong(TAIL_OFFSET, dataStart(slotCount));
+        buffer.putLong(RETIRED_OFFSET, 0);
+        for (int slot = 0; slot < slotCount; slot++) {
+            buffer.putLong(slotOffset(slot), 0);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.force();
+        return buffer;
+    }
+
+    /**
+     * Check the header of an initialized file.
+     * @param buffer The mapped file.
+     * @param size The size of the file.
+     * @return True if the header is of this version and consistent with the size.
+     */
+    private static boolean isValid(MappedByteBuffer buffer, long size) {
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(CAPACITY_OFFSET) != size) {
+            return false;
+        }
+        int slotCount = buffer.getInt(SLOTS_OFFSET);
+        return slotCount > 0 && Integer.bitCount(slotCount) == 1 && dataStart(slotCount) + ENTRY_HEADER_SIZE <= size;
+    }
+
+    /**
+     * Check if a file (locked by the caller) was never fully initialized: empty, or without its magic,
+     * which is written last. Files with another magic are not cache files.
+     * @param channel The channel of the file.
+     * @param size The size of the file.
+     * @return True if the file must be initialized.
+     * @throws IOException If the file cannot be read.
+     */
+    private static boolean isUninitialized(FileChannel channel, long size) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate((int) Math.min(size, 4));
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) >= 0) {
+            // Read the whole magic
+        }
+
+        for (int i = 0; i < magic.capacity(); i++) {
+            if (magic.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a published entry.
+     * @param key The SHA-256 key.
+     * @return The UI, or null if not found.
+     */
+    @Nullable
+    String get(byte[] key) {
+        Mapping current = this.current();
+        int mask = current.slots - 1;
+        int start = slotOf(key, mask);
+
+        for (int probe = 0; probe < current.slots; probe++) {
+            long offset = (long) LONGS.getAcquire(current.buffer, slotOffset((start + probe) & mask));
+            if (offset == 0) {
+                return null;
+            }
+            if (current.keyAt(offset, key)) {
+                return current.readEntry((int) offset);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Append and publish an entry, unless the key is already published or the entry is larger than the
+     * file. A full file is replaced by an empty one first.
+     * @param key The SHA-256 key.
+     * @param ui The UI.
+     * @return True if the entry was published by this call.
+     */
+    boolean put(byte[] key, String ui) {
+        byte[] bytes = ui.getBytes(StandardCharsets.UTF_8);
+        int size = align(ENTRY_HEADER_SIZE + bytes.length);
+
+        Mapping current = this.current();
+        if (size > current.capacity - current.dataStart) {
+            // Would not fit in an empty file either
+            return false;
+        }
+
+        Append result = current.append(key, bytes, size);
+        if (result == Append.FULL) {
+            Mapping next = this.replace(current);
+            result = next != null ? next.append(key, bytes, size) : result;
+        }
+        return result == Append.PUBLISHED;
+    }
+
+    /**
+     * Get the number of bytes used by the entries of the current file.
+     * @return The used bytes.
+     */
+    public long getUsedBytes() {
+        Mapping current = this.current();
+        return (long) LONGS.getVolatile(current.buffer, TAIL_OFFSET) - current.dataStart;
+    }
+
+    /**
+     * Get the size of the file.
+     * @return The capacity in bytes.
+     */
+    public int getCapacity() {
+        return this.mapping.capacity;
+    }
+
+    /**
+     * Unmap the file for this process (the mapping is released by the garbage collector).
+     * @throws IOException If the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.mapping.channel.close();
+    }
+
+    /**
+     * Get the current mapping, following a replacement of the file by another process.
+     */
+    private Mapping current() {
+        Mapping current = this.mapping;
+        if (current.isRetired()) {
+            Mapping next = this.replace(current);
+            return next != null ? next : current;
+        }
+        return current;
+    }
+
+    /**
+     * Replace a full file by an empty one (unless another process already did), then map the new file.
+     * @param full The mapping of the full file.
+     * @return The new mapping, or null if the file cannot be replaced.
+     */
+    @Nullable
+    private synchronized Mapping replace(Mapping full) {
+        if (this.mapping != full) {
+            return this.mapping;
+        }
+        if (!this.replaceable && !full.isRetired()) {
+            return null;
+        }
+
+        try {
+            if (!full.isRetired()) {
+                try (FileLock lock = full.channel.lock()) {
+                    if (!full.isRetired()) {
+                        // Initialized aside, so the path always names a complete file
+                        Path temp = this.file.resolveSibling(this.file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+                        try {
+                            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                                initialize(channel, full.capacity, full.slots);
+                            }
+                            Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        } finally {
+                            Files.deleteIfExists(temp);
+                        }
+                        LONGS.setRelease(full.buffer, RETIRED_OFFSET, 1L);
+                    }
+                }
+            }
+
+            Mapping next = map(this.file, full.capacity, full.slots);
+            this.mapping = next;
+            full.channel.close();
+            return next;
+        } catch (OverlappingFileLockException e) {
+            // Another mapping of this process is replacing the file
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // New renders are no longer shared, but still rendered
+            this.replaceable = false;
+            InterfaceBuilder.getLogger().log(Level.WARNING, "Failed to replace full shared render cache: " + this.file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the offset of the first entry.
+     */
+    private static long dataStart(int slotCount) {
+        return HEADER_SIZE + (long) slotCount * 8;
+    }
+
+    /**
+     * Get the first slot of a key.
+     */
+    private static int slotOf(byte[] key, int mask) {
+        int hash = (key[0] & 0xFF) | (key[1] & 0xFF) << 8 | (key[2] & 0xFF) << 16 | (key[3] & 0xFF) << 24;
+        return hash & mask;
+    }
+
+    /**
+     * Get the offset of a slot in the file.
+     */
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * 8;
+    }
+
+    /**
+     * Round a size up to a multiple of 8.
+     */
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * A mapping of one file (replaced files keep theirs until the next access).
+     */
+    private static final class Mapping {
+        /**
+         * The channel of the file.
+         */
+        final FileChannel channel;
+
+        /**
+         * The mapped file.
+         */
+        final MappedByteBuffer buffer;
+
+        /**
+         * Number of index slots (a power of two).
+         */
+        final int slots;
+
+        /**
+         * Size of the file.
+         */
+        final int capacity;
+
+        /**
+         * Offset of the first entry.
+         */
+        final long dataStart;
+
+        Mapping(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = (int) buffer.getLong(CAPACITY_OFFSET);
+            this.slots = buffer.getInt(SLOTS_OFFSET);
+            this.dataStart = dataStart(this.slots);
+        }
+
+        /**
+         * Check if the file was replaced.
+         */
+        boolean isRetired() {
+            return (long) LONGS.getAcquire(this.buffer, RETIRED_OFFSET) != 0;
+        }
+
+        /**
+         * Append and publish an entry.
+         */
+        Append append(byte[] key, byte[] bytes, int size) {
+            int mask = this.slots - 1;
+            int start = slotOf(key, mask);
+
+            // Look for the key first, so a render already shared is not appended again
+            int probe = 0;
+            for (; probe < this.slots; probe++) {
+                long offset = (long) LONGS.getAcquire(this.buffer, slotOffset((start + probe) & mask));
+                if (offset == 0) {
+                    break;
+                }
+                if (this.keyAt(offset, key)) {
+                    return Append.PRESENT;
+                }
+            }
+            if (probe == this.slots) {
+                return Append.FULL;
+            }
+
+            // Reserve the space of the entry
+            long offset;
+            do {
+                offset = (long) LONGS.getVolatile(this.buffer, TAIL_OFFSET);
+                if (offset < this.dataStart || offset + size > this.capacity) {
+                    return Append.FULL;
+                }
+            } while (!LONGS.compareAndSet(this.buffer, TAIL_OFFSET, offset, offset + size));
+
+            // Write the entry (absolute writes on a view, so concurrent writers don't share a position)
+            ByteBuffer entry = this.buffer.duplicate().order(ByteOrder.nativeOrder());
+            entry.position((int) offset);
+            entry.put(key).putInt(bytes.length).putInt(0).put(bytes);
+
+            // Publish it into the first free slot (the compare-and-set releases the writes above)
+            for (; probe < this.slots; probe++) {
+                int slot = slotOffset((start + probe) & mask);
+                if (LONGS.compareAndSet(this.buffer, slot, 0L, offset)) {
+                    return Append.PUBLISHED;
+                }
+
+                // Another writer took the slot, possibly for the same key
+                long other = (long) LONGS.getAcquire(this.buffer, slot);
+                if (this.keyAt(other, key)) {
+                    return Append.PRESENT;
+                }
+            }
+            return Append.FULL;
+        }
+
+        /**
+         * Check the key of an entry (false for an offset outside the log, e.g. of a corrupted index).
+         */
+        boolean keyAt(long offset, byte[] key) {
+            if (offset < this.dataStart || offset + ENTRY_HEADER_SIZE > this.capacity) {
+                return false;
+            }
+            for (int i = 0; i < KEY_SIZE; i++) {
+                if (this.buffer.get((int) offset + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Read the UI of an entry whose key was checked.
+         */
+        @Nullable
+        String readEntry(int offset) {
+            int length = this.buffer.getInt(offset + KEY_SIZE);
+            int start = offset + ENTRY_HEADER_SIZE;
+            if (length < 0 || (long) start + length > this.capacity) {
+                return null;
+            }
+
+            ByteBuffer payload = this.buffer.duplicate();
+            payload.position(start).limit(start + length);
+            return StandardCharsets.UTF_8.decode(payload).toString();
+        }
+    }
+}
@@ -1,20 +1,93 @@
 package com.machina.minterfacebuilder.cache;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
 
+import com.machina.minterfacebuilder.InterfaceBuilder;
 import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
 
 /**
  * Cache manager for parsed Custom UI templates.
  * Provides thread-safe caching of templates by file path.
+ * <p>
+ * Each cached template is a version. Reads never block: they return the current version, which a
+ * reload replaces with a single atomic swap once the new version is compiled in the background
+ * (if the reload fails, the last good version stays and the failure is logged). Concurrent misses
+ * for the same path share one in-flight load instead of each parsing the file. Removing or putting
+ * a template discards the load in flight for its path, so a load that read the file before cannot
+ * publish it again.
+ * </p>
  */
 public class TemplateCache {
     /**
-     * Cache storage for parsed templates by Path.
+     * Loader of a template from its path.
      */
-    private static final Map<Path, HTMLCustomUITemplate> cache = new ConcurrentHashMap<>();
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Load the template.
+         * @param path The file path.
+         * @return The parsed template.
+         * @throws IOException If the file cannot be read.
+         */
+        HTMLCustomUITemplate load(Path path) throws IOException;
+    }
+
+    /**
+     * A published version of a template.
+     */
+    private static final class Version {
+        private final HTMLCustomUITemplate template;
+
+        /**
+         * The version (1 for the first load, incremented by each reload).
+         */
+        private final long version;
+
+        /**
+         * The loader used to reload the template, or null if it was put directly.
+         */
+        private final Loader loader;
+
+        private Version(HTMLCustomUITemplate template, long version, Loader loader) {
+            this.template = template;
+            this.version = version;
+            this.loader = loader;
+        }
+    }
+
+    /**
+     * Cache storage for the current version of templates by Path.
+     */
+    private static final Map<Path, Version> cache = new ConcurrentHashMap<>();
+
+    /**
+     * In-flight loads and reloads by Path.
+     */
+    private static final Map<Path, CompletableFuture<HTMLCustomUITemplate>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Paths changed again while they were loading, to be reloaded once the load completes.
+     */
+    private static final Set<Path> reloadAgain = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Executor compiling reloads in the background.
+     */
+    private static final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "InterfaceBuilder-TemplateReload");
+        t.setDaemon(true);
+        return t;
+    });
 
     /**
      * Get a cached template by path.
@@ -22,7 +95,207 @@ public class TemplateCache {
      * @return The cached template, or null if not found.
      */
     public static HTMLCustomUITemplate get(Path path) {
-        return cache.get(path);
+        Version current = cache.get(path);
+        return current != null ? current.template : null;
+    }
+
+    /**
+     * Get a cached template by path, loading it on a miss.
+     * <p>
+     * Threads missing the same path at once wait for a single load. The loader is kept to reload the
+     * template in the background when it changes (see {@link #reload(Path)}).
+     * </p>
+     * @param path The file path.
+     * @param loader The loader to use on a miss.
+     * @return The template.
+     * @throws IOException If the loader fails to read the file.
+     */
+    public static HTMLCustomUITemplate getOrLoad(Path path, Loader loader) throws IOException {
+        Version current = cache.get(path);
+        if (current != null) {
+            return current.template;
+        }
+
+        CompletableFuture<HTMLCustomUITemplate> future = new CompletableFuture<>();
+        CompletableFuture<HTMLCustomUITemplate> inFlight = loading.putIfAbsent(path, future);
+
+        // Another thread is loading (or reloading) the path: share its result
+        if (inFlight != null) {
+            try {
+                HTMLCustomUITemplate template = inFlight.join();
+                return template != null ? template : getOrLoad(path, loader);
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        // A load may have been published between the cache miss and taking the in-flight slot
+        current = cache.get(path);
+        if (current != null) {
+            finishLoad(path, future, current.template, null);
+            return current.template;
+        }
+
+        // Load on this thread
+        try {
+            HTMLCustomUITemplate template = loader.load(path);
+            publish(path, future, template, loader);
+            finishLoad(path, future, template, null);
+            return template;
+        } catch (IOException | RuntimeException | Error e) {
+            finishLoad(path, future, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reload a cached template in the background.
+     * <p>
+     * Readers keep getting the current version until the new one is published. If the template was put
+     * directly (without a loader), it is removed instead, to be loaded again on the next access.
+     * </p>
+     * @param path The file path.
+     */
+    public static void reload(Path path) {
+        Version current = cache.get(path);
+        if (current == null) {
+            // A load in flight may have read the file before the change
+            if (loading.containsKey(path)) {
+                reloadAgain.add(path);
+            }
+            return;
+        }
+        if (current.loader == null) {
+            cache.remove(path, current);
+            return;
+        }
+
+        CompletableFuture<HTMLCustomUITemplate> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(path, future) != null) {
+            reloadAgain.add(path);
+            return;
+        }
+
+        reloadExecutor.execute(() -> {
+            try {
+                HTMLCustomUITemplate template = current.loader.load(path);
+                publish(path, future, template, current.loader);
+                finishLoad(path, future, template, null);
+            } catch (Exception e) {
+                // Keep the last good version
+                InterfaceBuilder.getLogger().log(Level.WARNING, "Failed to reload template: " + path, e);
+                finishLoad(path, future, get(path), null);
+            } finally {
+                // An error is left to the thread, but must not leave the waiting threads blocked
+                if (!future.isDone()) {
+                    finishLoad(path, future, get(path), null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait for the in-flight load or reload of a template, if any (including the reloads it triggers).
+     * @param path The file path.
+     * @return The current template, or null if not cached.
+     */
+    public static HTMLCustomUITemplate await(Path path) {
+        CompletableFuture<HTMLCustomUITemplate> inFlight;
+        while ((inFlight = loading.get(path)) != null) {
+            try {
+                inFlight.join();
+            } catch (CompletionException e) {
+                // The failure is reported to the loading thread
+            }
+        }
+        return get(path);
+    }
+
+    /**
+     * Reload several cached templates in the background (see {@link #reload(Path)}).
+     * @param paths The file paths.
+     */
+    public static void reloadAll(Collection<Path> paths) {
+        for (Path path : paths) {
+            reload(path);
+        }
+    }
+
+    /**
+     * Publish the result of a load with an atomic swap, unless the load was discarded meanwhile
+     * (see {@link #remove(Path)}).
+     * @param path The file path.
+     * @param load The future of the load.
+     * @param template The new template.
+     * @param loader The loader of the template.
+     */
+    private static void publish(Path path, CompletableFuture<HTMLCustomUITemplate> load, HTMLCustomUITemplate template, Loader loader) {
+        // Checked and published under the lock of the in-flight entry, which remove() takes first
+        loading.computeIfPresent(path, (key, inFlight) -> {
+            if (inFlight == load) {
+                cache.compute(path, (k, current) -> new Version(template, current != null ? current.version + 1 : 1, loader));
+            }
+            return inFlight;
+        });
+    }
+
+    /**
+     * Discard the load in flight for a path, if any (its waiting threads still get its result).
+     * @param path The file path.
+     */
+    private static void discardLoad(Path path) {
+        reloadAgain.remove(path);
+        loading.remove(path);
+    }
+
+    /**
+     * Complete an in-flight load and start the reload requested meanwhile, if any.
+     * @param path The file path.
+     * @param future The future of the load.
+     * @param template The loaded template (or null on failure).
+     * @param error The failure to pass to the waiting threads, or null.
+     */
+    private static void finishLoad(Path path, CompletableFuture<HTMLCustomUITemplate> future, HTMLCustomUITemplate template, Throwable error) {
+        loading.remove(path, future);
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(template);
+        }
+
+        if (reloadAgain.remove(path)) {
+            reload(path);
+        }
+    }
+
+    /**
+     * Unwrap the failure of a shared load.
+     * @param e The completion exception.
+     * @return The exception to rethrow.
+     * @throws IOException If the load failed to read the file.
+     */
+    private static RuntimeException unwrap(CompletionException e) throws IOException {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /**
+     * Get the version of a cached template.
+     * @param path The file path.
+     * @return The version (1 for the first load, incremented by each reload), or 0 if not cached.
+     */
+    public static long getVersion(Path path) {
+        Version current = cache.get(path);
+        return current != null ? current.version : 0;
     }
 
     /**
@@ -32,7 +305,8 @@ public class TemplateCache {
      */
     public static void put(Path path, HTMLCustomUITemplate template) {
         if (path != null && template != null) {
-            cache.put(path, template);
+            discardLoad(path);
+            cache.compute(path, (key, current) -> new Version(template, current != null ? current.version + 1 : 1, null));
         }
     }
 
@@ -50,13 +324,26 @@ public class TemplateCache {
      * @param path The Path to remove from cache.
      */
     public static void remove(Path path) {
+        discardLoad(path);
         cache.remove(path);
     }
 
+    /**
+     * Remove several paths from the cache at once.
+     * @param paths The Paths to remove from cache.
+     */
+    public static void removeAll(Collection<Path> paths) {
+        for (Path path : paths) {
+            remove(path);
+        }
+    }
+
     /**
      * Clear all cached templates.
      */
     public static void clear() {
+        reloadAgain.clear();
+        loading.clear();
         cache.clear();
     }
 
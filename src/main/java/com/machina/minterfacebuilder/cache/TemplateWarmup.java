@@ -0,0 +1,273 @@
+package com.machina.minterfacebuilder.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.machina.minterfacebuilder.InterfaceBuilder;
+import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
+import com.machina.minterfacebuilder.util.PluginAsset;
+import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
+
+/**
+ * Warm-up of the template cache, meant to be run at plugin start.
+ * <p>
+ * The HTML templates of a directory (or of a plugin's AssetPack) are parsed, validated and pre-rendered
+ * in parallel, so the first player to open a page doesn't pay for reading, parsing and the first build.
+ * Templates are cached by the path they were found at, i.e. the path {@link InterfaceBuilder#parse(Path)}
+ * and the file pages ({@code HTMLCustomUIPage.fromFile}) are later called with (e.g.,
+ * {@code PluginAsset.of(plugin, "Common/UI/Test.html")}). When the {@link CompiledTemplateStore} is on,
+ * their UI is stored there as well.
+ * </p>
+ * <p>
+ * <b>Usage:</b>
+ * </p>
+ * <pre>
+ * TemplateWarmup.Report report = TemplateWarmup.warmUp(this);
+ * for (TemplateWarmup.Entry failure : report.getFailures()) {
+ *     getLogger().warning("Template failed: " + failure.getPath() + ": " + failure.getError().getMessage());
+ * }
+ * </pre>
+ */
+public final class TemplateWarmup {
+    /**
+     * Glob matching the HTML templates of a directory tree.
+     */
+    public static final String HTML_GLOB = "**.html";
+
+    /**
+     * Result of the warm-up of one template.
+     */
+    public static final class Entry {
+        private final Path path;
+
+        /**
+         * Time taken to read and parse the template, in nanoseconds.
+         */
+        private final long parseNanos;
+
+        /**
+         * Time taken by the first build, in nanoseconds.
+         */
+        private final long buildNanos;
+
+        /**
+         * Length of the built UI, or -1 if the template failed.
+         */
+        private final int uiLength;
+
+        @Nullable
+        private final Exception error;
+
+        private Entry(Path path, long parseNanos, long buildNanos, int uiLength, @Nullable Exception error) {
+            this.path = path;
+            this.parseNanos = parseNanos;
+            this.buildNanos = buildNanos;
+            this.uiLength = uiLength;
+            this.error = error;
+        }
+
+        /**
+         * Get the path of the template.
+         * @return The path.
+         */
+        public Path getPath() {
+            return this.path;
+        }
+
+        /**
+         * Get the time taken to read and parse the template.
+         * @return The time in nanoseconds.
+         */
+        public long getParseNanos() {
+            return this.parseNanos;
+        }
+
+        /**
+         * Get the time taken by the first build of the template.
+         * @return The time in nanoseconds (0 if the template failed to parse).
+         */
+        public long getBuildNanos() {
+            return this.buildNanos;
+        }
+
+        /**
+         * Get the length of the built UI.
+         * @return The length in characters, or -1 if the template failed.
+         */
+        public int getUiLength() {
+            return this.uiLength;
+        }
+
+        /**
+         * Get the failure of the template.
+         * @return The exception, or null if the template was warmed up.
+         */
+        @Nullable
+        public Exception getError() {
+            return this.error;
+        }
+    }
+
+    /**
+     * Report of a warm-up.
+     */
+    public static final class Report {
+        private final List<Entry> entries;
+
+        /**
+         * Wall-clock time of the warm-up, in nanoseconds.
+         */
+        private final long totalNanos;
+
+        private Report(List<Entry> entries, long totalNanos) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * Get the results of all the templates, in path order.
+         * @return The entries.
+         */
+        public List<Entry> getEntries() {
+            return this.entries;
+        }
+
+        /**
+         * Get the results of the templates that failed.
+         * @return The failed entries.
+         */
+        public List<Entry> getFailures() {
+            return this.entries.stream().filter(entry -> entry.error != null).collect(Collectors.toList());
+        }
+
+        /**
+         * Get the wall-clock time of the warm-up.
+         * @return The time in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            long size = 0;
+            for (Entry entry : this.entries) {
+                size += Math.max(entry.uiLength, 0);
+            }
+            return String.format("Warmed up %d templates (%d failed, %d chars of UI) in %d ms",
+                this.entries.size(), this.getFailures().size(), size, this.totalNanos / 1_000_000);
+        }
+    }
+
+    private TemplateWarmup() { }
+
+    /**
+     * Warm up the HTML templates of a plugin's AssetPack.
+     * @param plugin The JavaPlugin instance (see {@link PluginAsset#of(Object)}).
+     * @return The report.
+     * @throws IOException If the AssetPack is not found or cannot be walked.
+     */
+    @Nonnull
+    public static Report warmUp(@Nonnull Object plugin) throws IOException {
+        Path packRoot = PluginAsset.of(plugin);
+        if (packRoot == null) {
+            throw new IOException("AssetPack not found for plugin: " + plugin.getClass().getName());
+        }
+
+        return warmUp(packRoot, HTML_GLOB);
+    }
+
+    /**
+     * Warm up the templates of a directory tree.
+     * @param directory The directory.
+     * @param glob The glob matching the templates, relative to the directory (null for {@link #HTML_GLOB}).
+     * @return The report.
+     * @throws IOException If the directory cannot be walked.
+     */
+    @Nonnull
+    public static Report warmUp(@Nonnull Path directory, @Nullable String glob) throws IOException {
+        long start = System.nanoTime();
+        List<Path> templates = discover(directory, glob != null ? glob : HTML_GLOB);
+        if (templates.isEmpty()) {
+            return new Report(new ArrayList<>(), System.nanoTime() - start);
+        }
+
+        int parallelism = Math.min(templates.size(), Runtime.getRuntime().availableProcessors());
+        ForkJoinPool pool = new ForkJoinPool(parallelism, owner -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(owner);
+            t.setName("InterfaceBuilder-Warmup-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+
+        try {
+            List<Entry> entries = pool.submit(() -> templates.parallelStream()
+                .map(TemplateWarmup::warmUpTemplate)
+                .collect(Collectors.toList())).join();
+            return new Report(entries, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Find the templates of a directory tree.
+     * @param directory The directory.
+     * @param glob The glob matching the templates, relative to the directory.
+     * @return The templates, sorted by path.
+     * @throws IOException If the directory cannot be walked.
+     */
+    private static List<Path> discover(Path directory, String glob) throws IOException {
+        PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> matcher.matches(directory.relativize(file)))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Parse, cache and build a template.
+     * @param path The template file.
+     * @return The result.
+     */
+    private static Entry warmUpTemplate(Path path) {
+        long start = System.nanoTime();
+        HTMLCustomUITemplate template;
+        try {
+            template = InterfaceBuilder.parse(path);
+        } catch (IOException | RuntimeException e) {
+            return new Entry(path, System.nanoTime() - start, 0, -1, e);
+        }
+
+        long parsed = System.nanoTime();
+        try {
+            // Same settings as the pages, so their first build reuses the cached output
+            ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+            String ui = template.build(settings);
+
+            // Pages that read their UI from the persistent cache find it there
+            if (CompiledTemplateStore.isEnabled()) {
+                CompiledTemplateStore.getOrRender(Files.readString(path), null, settings, () -> ui);
+            }
+            return new Entry(path, parsed - start, System.nanoTime() - parsed, ui.length(), null);
+        } catch (IOException | RuntimeException e) {
+            return new Entry(path, parsed - start, System.nanoTime() - parsed, -1, e);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.machina.minterfacebuilder.compiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.lang.model.SourceVersion;
+
+import com.machina.minterfacebuilder.InterfaceBuilder;
+import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
+import com.machina.minterfacebuilder.model.InterfaceVariable;
+import com.machina.minterfacebuilder.model.PrecompiledTemplate;
+import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
+
+/**
+ * Build-time compiler of HTML templates, so that production servers parse no HTML.
+ * <p>
+ * Every {@code .html} file of a source tree is parsed and built with the page settings, then written as:
+ * </p>
+ * <ul>
+ *   <li>a static {@code .ui} asset at the same relative path (e.g., {@code Common/UI/Login.ui});</li>
+ *   <li>optionally, a {@link PrecompiledTemplate} class (e.g., {@code LoginTemplate}) holding the UI around
+ *   its variables section, a typed setter per variable and the event data codec, built once.</li>
+ * </ul>
+ * <p>
+ * Variables bound by attributes (e.g., {@code :text="@Title"}) are kept as references instead of being
+ * substituted, so their setters change what the UI shows like those of any other variable.
+ * </p>
+ * <p>
+ * A template that fails to compile fails the whole run, listing every failure, so a broken template
+ * breaks the build instead of a player's page.
+ * </p>
+ * <p>
+ * <b>Usage</b> (from the build of a plugin, before its sources are compiled):
+ * </p>
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *     &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;&lt;execution&gt;
+ *         &lt;phase&gt;generate-sources&lt;/phase&gt;
+ *         &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *         &lt;configuration&gt;
+ *             &lt;mainClass&gt;com.machina.minterfacebuilder.compiler.TemplateCompiler&lt;/mainClass&gt;
+ *             &lt;arguments&gt;
+ *                 &lt;argument&gt;${project.basedir}/src/main/resources&lt;/argument&gt;
+ *                 &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *                 &lt;argument&gt;${project.build.directory}/generated-sources/templates&lt;/argument&gt;
+ *                 &lt;argument&gt;com.example.ui&lt;/argument&gt;
+ *             &lt;/arguments&gt;
+ *         &lt;/configuration&gt;
+ *     &lt;/execution&gt;&lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * <p>
+ * The generated sources directory is then added with {@code build-helper-maven-plugin} ({@code add-source}).
+ * </p>
+ */
+public final class TemplateCompiler {
+    /**
+     * Maximum number of characters of a string literal of the generated sources (a class file constant
+     * holds at most 65535 bytes of modified UTF-8, i.e. 3 bytes per character at worst).
+     */
+    private static final int LITERAL_CHUNK = 16 * 1024;
+
+    private TemplateCompiler() { }
+
+    /**
+     * Compile the templates of a source tree.
+     * <p>
+     * Arguments: the source directory, the UI output directory, then optionally the Java output
+     * directory and the package of the generated classes.
+     * </p>
+     * @param args The arguments.
+     * @throws IOException If a template cannot be read or compiled, or an output cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 4) {
+            throw new IllegalArgumentException(
+                "Usage: TemplateCompiler <source directory> <ui output directory> [<java output directory> <package>]");
+        }
+
+        List<Path> written = compile(Path.of(args[0]), Path.of(args[1]),
+            args.length == 4 ? Path.of(args[2]) : null, args.length == 4 ? args[3] : null);
+        System.out.println("Compiled " + written.size() + " template outputs from " + args[0]);
+    }
+
+    /**
+     * Compile the templates of a source tree.
+     * @param sourceDirectory The directory of the HTML templates (walked recursively).
+     * @param uiDirectory The directory the {@code .ui} assets are written to.
+     * @param javaDirectory The directory the generated sources are written to (null for none).
+     * @param packageName The package of the generated classes (subpackages follow the template directories).
+     * @return The written files.
+     * @throws IOException If a template cannot be read or compiled, or an output cannot be written.
+     */
+    @Nonnull
+    public static List<Path> compile(@Nonnull Path sourceDirectory, @Nonnull Path uiDirectory,
+                                     @Nullable Path javaDirectory, @Nullable String packageName) throws IOException {
+        List<Path> templates;
+        try (Stream<Path> files = Files.walk(sourceDirectory)) {
+            templates = files
+                .filter(Files::isRegularFile)
+                .filter(file -> file.getFileName().toString().endsWith(".html"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        List<Path> written = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+
+        for (Path file : templates) {
+            Path relative = sourceDirectory.relativize(file);
+            String name = relative.getFileName().toString();
+            String baseName = name.substring(0, name.length() - ".html".length());
+
+            String preamble;
+            String body;
+            Map<String, InterfaceVariable> variables;
+            try {
+                // Not through the template cache: each template is compiled once. Variables bound by attributes
+                // stay references, so the setters change them without the component tree
+                HTMLCustomUITemplate template = InterfaceBuilder.parseWithReferences(Files.readString(file));
+                preamble = template.buildPreamble(settings);
+                body = template.buildBody(settings);
+                variables = new LinkedHashMap<>(template.getVariables());
+            } catch (RuntimeException e) {
+                failures.add(relative + ": " + e.getMessage());
+                continue;
+            }
+
+            Path uiFile = uiDirectory.resolve(relative).resolveSibling(baseName + ".ui");
+            write(uiFile, preamble + HTMLCustomUITemplate.formatVariables(variables) + body);
+            written.add(uiFile);
+
+            if (javaDirectory != null) {
+                String packageOf = packageOf(packageName, relative.getParent());
+                String className = toPascalCase(baseName) + "Template";
+                String uiPath = toSlashes(relative.resolveSibling(baseName + ".ui"));
+
+                Path javaFile = javaDirectory;
+                if (!packageOf.isEmpty()) {
+                    javaFile = javaFile.resolve(packageOf.replace('.', '/'));
+                }
+                javaFile = javaFile.resolve(className + ".java");
+
+                write(javaFile, generateSource(packageOf, className, toSlashes(relative), uiPath, preamble, variables, body));
+                written.add(javaFile);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new IOException(failures.size() + " template(s) failed to compile:\n  " + String.join("\n  ", failures));
+        }
+        return written;
+    }
+
+    /**
+     * Generate the source of a compiled template class.
+     * @param packageName The package (empty for the default package).
+     * @param className The class name.
+     * @param sourcePath The path of the HTML template, relative to the source directory.
+     * @param uiPath The path of the UI asset, relative to the UI directory.
+     * @param preamble The UI before the variables section.
+     * @param variables The default variables, in output order.
+     * @param body The UI after the variables section.
+     * @return The source.
+     */
+    static String generateSource(String packageName, String className, String sourcePath, String uiPath,
+                                 String preamble, Map<String, InterfaceVariable> variables, String body) {
+        String variableType = InterfaceVariable.class.getName();
+        String codecType = "com.hypixel.hytale.codec.builder.BuilderCodec<" + HTMLCustomUITemplate.DynamicEventData.class.getCanonicalName() + ">";
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("/**\n * Template compiled from ").append(sourcePath).append(".\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(TemplateCompiler.class.getName()).append("\")\n");
+        source.append("public final class ").append(className).append(" extends ").append(PrecompiledTemplate.class.getName()).append(" {\n");
+
+        source.append("    /**\n     * Path of the UI asset, relative to the UI output directory.\n     */\n");
+        source.append("    public static final String UI_PATH = ").append(literal(uiPath)).append(";\n\n");
+
+        source.append("    /**\n     * Event data codec of the template.\n     */\n");
+        source.append("    public static final ").append(codecType).append(" EVENT_CODEC =\n");
+        source.append("        ").append(HTMLCustomUITemplate.class.getName()).append(".buildEventDataCodec(defaults());\n\n");
+
+        source.append("    private static final String PREAMBLE = ").append(chunkedLiteral(preamble)).append(";\n\n");
+        source.append("    private static final String BODY = ").append(chunkedLiteral(body)).append(";\n\n");
+
+        source.append("    public ").append(className).append("() {\n");
+        source.append("        super(PREAMBLE, defaults(), BODY);\n");
+        source.append("    }\n\n");
+
+        source.append("    private static java.util.Map<String, ").append(variableType).append("> defaults() {\n");
+        source.append("        java.util.Map<String, ").append(variableType).append("> variables = new java.util.LinkedHashMap<>();\n");
+        for (Map.Entry<String, InterfaceVariable> entry : variables.entrySet()) {
+            source.append("        variables.put(").append(literal(entry.getKey())).append(", ").append(variableType).append('.')
+                .append(factoryOf(entry.getValue().getType())).append('(').append(literal(entry.getValue().getValue())).append("));\n");
+        }
+        source.append("        return variables;\n");
+        source.append("    }\n");
+
+        for (Map.Entry<String, InterfaceVariable> entry : variables.entrySet()) {
+            String name = entry.getKey();
+            InterfaceVariable.Type type = entry.getValue().getType();
+            boolean isBoolean = type == InterfaceVariable.Type.BOOLEAN;
+
+            source.append("\n    /**\n     * Set @").append(name).append(" (").append(type.name().toLowerCase()).append(").\n");
+            source.append("     * @param value The value.\n     * @return This template.\n     */\n");
+            source.append("    public ").append(className).append(" set").append(toPascalCase(name))
+                .append('(').append(isBoolean ? "boolean" : "String").append(" value) {\n");
+            source.append("        this.set(").append(literal(name)).append(", ").append(variableType).append('.')
+                .append(factoryOf(type)).append("(value));\n");
+            source.append("        return this;\n");
+            source.append("    }\n");
+        }
+
+        source.append("\n    @Override\n");
+        source.append("    public ").append(codecType).append(" getEventDataCodec() {\n");
+        source.append("        return EVENT_CODEC;\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        return source.toString();
+    }
+
+    /**
+     * Get the InterfaceVariable factory of a variable type.
+     */
+    private static String factoryOf(InterfaceVariable.Type type) {
+        switch (type) {
+            case BOOLEAN:
+                return "booleanValue";
+            case COLOR:
+                return "colorValue";
+            case LITERAL:
+                return "literalValue";
+            case STRING:
+            default:
+                return "stringValue";
+        }
+    }
+
+    /**
+     * Get the package of a template from its directory (e.g., "Common/UI" in "com.example" gives "com.example.common.ui").
+     */
+    private static String packageOf(@Nullable String packageName, @Nullable Path directory) {
+        StringBuilder result = new StringBuilder(packageName != null ? packageName : "");
+        if (directory != null) {
+            for (Path segment : directory) {
+                if (result.length() > 0) {
+                    result.append('.');
+                }
+                result.append(toIdentifier(segment.toString().toLowerCase()));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Convert a name to PascalCase (e.g., "login-page" gives "LoginPage").
+     */
+    private static String toPascalCase(String name) {
+        StringBuilder result = new StringBuilder();
+        boolean upper = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                upper = true;
+                continue;
+            }
+            result.append(upper ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        return toIdentifier(result.toString());
+    }
+
+    /**
+     * Make a name a valid Java identifier.
+     */
+    private static String toIdentifier(String name) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            result.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (result.length() == 0 || !Character.isJavaIdentifierStart(result.charAt(0))) {
+            result.insert(0, '_');
+        }
+        if (SourceVersion.isKeyword(result)) {
+            result.append('_');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Join the segments of a relative path with slashes, whatever the platform.
+     */
+    private static String toSlashes(Path path) {
+        StringBuilder result = new StringBuilder();
+        for (Path segment : path) {
+            if (result.length() > 0) {
+                result.append('/');
+            }
+            result.append(segment);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Format a string as a Java literal, short enough for a class file constant.
+     */
+    private static String chunkedLiteral(String value) {
+        if (value.length() <= LITERAL_CHUNK) {
+            return literal(value);
+        }
+
+        // Joined at class initialization: constant expressions would be folded into one oversized constant
+        StringBuilder result = new StringBuilder("String.join(\"\"");
+        int start = 0;
+        while (start < value.length()) {
+            int end = Math.min(start + LITERAL_CHUNK, value.length());
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end--;
+            }
+            result.append(",\n        ").append(literal(value.substring(start, end)));
+            start = end;
+        }
+        return result.append(')').toString();
+    }
+
+    /**
+     * Format a string as a Java literal (ASCII only, so the sources don't depend on an encoding).
+     */
+    private static String literal(@Nullable String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': result.append("\\\""); break;
+                case '\\': result.append("\\\\"); break;
+                case '\n': result.append("\\n"); break;
+                case '\r': result.append("\\r"); break;
+                case '\t': result.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7E) {
+                        result.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        result.append(c);
+                    }
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    /**
+     * Write a file, creating its directory.
+     */
+    private static void write(Path file, String content) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -1,12 +1,22 @@
 package com.machina.minterfacebuilder.factory;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.components.base.Tagless;
+import com.machina.minterfacebuilder.util.customui.registry.ComponentRegistry;
 import com.machina.minterfacebuilder.util.customui.registry.HComponentRegistry;
 
 /**
@@ -14,21 +24,100 @@ import com.machina.minterfacebuilder.util.customui.registry.HComponentRegistry;
  * Handles custom component registration and default tag mappings.
  */
 public class ComponentFactory {
+    /**
+     * Known unsupported HTML tags that should always throw exception.
+     * These tags don't have Hytale equivalents and should fail explicitly.
+     */
+    private static final Set<String> UNSUPPORTED_TAGS = Set.of(
+        "br", "hr", "video", "audio", "iframe", "canvas", "svg",
+        "table", "thead", "tbody", "tr", "td", "th", "form",
+        "script", "style", "meta", "link", "head", "body"
+    );
+
     /**
      * Registry of custom component tags.
      * Maps tag name to a factory function that creates a ComponentBuilder from attributes.
      */
     private static final Map<String, Function<Map<String, String>, ComponentBuilder>> customComponents = new ConcurrentHashMap<>();
 
+    /**
+     * Classes defining the custom component tags, by tag: the component class, the generated registry or
+     * the class whose code registered the factory.
+     */
+    private static final Map<String, Class<?>> customComponentOwners = new ConcurrentHashMap<>();
+
+    /**
+     * Number of registrations, so that what depends on the registered tags can tell it changed.
+     */
+    private static volatile int registrationCount = 0;
+
+    /**
+     * Lookup table over the custom component tags, rebuilt on registration.
+     */
+    private static volatile TagTable<Function<Map<String, String>, ComponentBuilder>> customComponentTable = TagTable.empty();
+
+    /**
+     * No-argument constructors of component classes, resolved once per class.
+     */
+    private static final ClassValue<Supplier<ComponentBuilder>> noArgConstructors = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Supplier<ComponentBuilder> computeValue(Class<?> componentClass) {
+            try {
+                return bindConstructor((Class<? extends ComponentBuilder>) componentClass, Supplier.class, MethodType.methodType(void.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return () -> {
+                    throw new RuntimeException("Failed to create component: " + componentClass.getName(), e);
+                };
+            }
+        }
+    };
+
+    /**
+     * Name of the registry generated for the library's own @CustomTag components (set by the
+     * {@code minterfacebuilder.registry} processor option of the build).
+     */
+    static final String BUILTIN_REGISTRY = "com.machina.minterfacebuilder.util.customui.components.CustomTagRegistry";
+
     /**
      * Static initializer to register default custom components.
      */
     static {
-        // Register QRCode component by default
-        registerCustomTag("qrcode", com.machina.minterfacebuilder.util.customui.components.QRCodeComponent.class);
-        
-        // Register all H components automatically
-        registerAllHComponents();
+        // Register the @CustomTag registries generated at compile time (direct constructor calls)
+        boolean generated = false;
+        for (ComponentRegistry registry : ServiceLoader.load(ComponentRegistry.class, ComponentFactory.class.getClassLoader())) {
+            registerComponents(registry);
+            generated |= registry.getClass().getName().equals(BUILTIN_REGISTRY);
+        }
+
+        // Built without annotation processing: register the built-in components from their classes
+        if (!generated) {
+            // Register QRCode component by default
+            registerCustomTag("qrcode", com.machina.minterfacebuilder.util.customui.components.QRCodeComponent.class);
+
+            // Register all H components automatically
+            registerAllHComponents();
+        }
+    }
+
+    /**
+     * Register all tags of a component registry (e.g., the one generated for a plugin's @CustomTag classes).
+     * Components are created by the registry, so their classes are only loaded when first used.
+     * @param registry The component registry.
+     */
+    public static void registerComponents(ComponentRegistry registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Registry cannot be null", new NullPointerException("registry is null"));
+        }
+
+        synchronized (customComponents) {
+            for (String tagName : registry.getTagNames()) {
+                customComponents.put(tagName.toLowerCase(), attributes -> registry.create(tagName, attributes));
+                customComponentOwners.put(tagName.toLowerCase(), registry.getClass());
+            }
+            customComponentTable = new TagTable<>(customComponents);
+            registrationCount++;
+        }
     }
     
     /**
@@ -67,24 +156,85 @@ public class ComponentFactory {
             );
         }
 
-        registerCustomTag(tagName, attributes -> {
+        // Resolve the constructor once; instances are then created without reflection
+        Function<Map<String, String>, ComponentBuilder> factory;
+        try {
+            factory = bindConstructor(componentClass, Function.class, MethodType.methodType(void.class, Map.class));
+        } catch (NoSuchMethodException e) {
+            // No attributes constructor: use the default constructor
+            Supplier<ComponentBuilder> constructor = noArgConstructors.get(componentClass);
+            factory = attributes -> constructor.get();
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Constructor of " + componentClass.getName() + " is not accessible", e);
+        }
+
+        register(tagName, factory, componentClass);
+    }
+
+    /**
+     * Bind a public constructor of a component class to a functional interface.
+     * <p>
+     * The constructor is spun into an implementation of the interface with LambdaMetafactory, so calling
+     * it costs the same as calling the constructor directly. Classes from another class loader (which the
+     * generated class could not link against) are invoked through the constructor's MethodHandle instead.
+     * </p>
+     * @param componentClass The component class.
+     * @param interfaceClass Function (for a Map constructor) or Supplier (for a no-argument constructor).
+     * @param constructorType The constructor type.
+     * @return The interface implementation.
+     * @throws NoSuchMethodException If the class has no public constructor of this type.
+     * @throws IllegalAccessException If the constructor is not accessible.
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> F bindConstructor(Class<? extends ComponentBuilder> componentClass, Class<?> interfaceClass, MethodType constructorType)
+        throws NoSuchMethodException, IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle constructor = lookup.findConstructor(componentClass, constructorType);
+        boolean function = interfaceClass == Function.class;
+
+        if (componentClass.getClassLoader() == ComponentFactory.class.getClassLoader()) {
             try {
-                // Try to find a constructor that accepts Map<String, String>
-                java.lang.reflect.Constructor<? extends ComponentBuilder> constructor =
-                    componentClass.getConstructor(Map.class);
-                return constructor.newInstance(attributes);
-            } catch (Exception e) {
-                // If no such constructor, try default constructor and set attributes manually
+                CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    function ? "apply" : "get",
+                    MethodType.methodType(interfaceClass),
+                    function ? MethodType.methodType(Object.class, Object.class) : MethodType.methodType(Object.class),
+                    constructor,
+                    constructor.type()
+                );
+                return (F) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // Fall back to the method handle below
+            }
+        }
+
+        MethodHandle handle = constructor.asType(function
+            ? MethodType.methodType(ComponentBuilder.class, Map.class)
+            : MethodType.methodType(ComponentBuilder.class));
+
+        if (function) {
+            Function<Map<String, String>, ComponentBuilder> factory = attributes -> {
                 try {
-                    ComponentBuilder instance = componentClass.getConstructor().newInstance();
-                    // Apply attributes to the instance if possible
-                    // This is a simplified approach - full implementation would parse all attributes
-                    return instance;
-                } catch (Exception e2) {
-                    throw new RuntimeException("Failed to create custom component instance: " + componentClass.getName(), e2);
+                    return (ComponentBuilder) handle.invokeExact(attributes);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new RuntimeException("Failed to create custom component instance: " + componentClass.getName(), e);
                 }
+            };
+            return (F) factory;
+        }
+
+        Supplier<ComponentBuilder> supplier = () -> {
+            try {
+                return (ComponentBuilder) handle.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to create component: " + componentClass.getName(), e);
             }
-        });
+        };
+        return (F) supplier;
     }
 
     /**
@@ -100,7 +250,41 @@ public class ComponentFactory {
             );
         }
 
-        customComponents.put(tagName.toLowerCase(), factory);
+        // Lambdas and nested classes are defined by their enclosing class
+        register(tagName, factory, factory.getClass().getNestHost());
+    }
+
+    /**
+     * Register a custom component tag with the class defining it.
+     * @param tagName The HTML tag name to register (case-insensitive).
+     * @param factory A function that creates a ComponentBuilder from attributes.
+     * @param owner The class defining the component.
+     */
+    private static void register(String tagName, Function<Map<String, String>, ComponentBuilder> factory, Class<?> owner) {
+        synchronized (customComponents) {
+            customComponents.put(tagName.toLowerCase(), factory);
+            customComponentOwners.put(tagName.toLowerCase(), owner);
+            customComponentTable = new TagTable<>(customComponents);
+            registrationCount++;
+        }
+    }
+
+    /**
+     * Get the classes defining the custom component tags (e.g., to tell which code renders a tag).
+     * @return The classes, by lowercase tag name, sorted by tag.
+     */
+    public static Map<String, Class<?>> getCustomTagOwners() {
+        synchronized (customComponents) {
+            return Collections.unmodifiableMap(new TreeMap<>(customComponentOwners));
+        }
+    }
+
+    /**
+     * Get the number of custom component registrations so far.
+     * @return The count, which changes with every registration.
+     */
+    public static int getRegistrationCount() {
+        return registrationCount;
     }
 
     /**
@@ -109,12 +293,9 @@ public class ComponentFactory {
      * @param attributes The attributes.
      * @return The ComponentBuilder.
      */
+    @SuppressWarnings("unchecked")
     public static <T extends ComponentBuilder> T create(Class<T> componentClass) {
-        try {
-            return componentClass.getConstructor().newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create component: " + componentClass.getName(), e);
-        }
+        return (T) noArgConstructors.get(componentClass).get();
     }
 
     /**
@@ -191,7 +372,7 @@ public class ComponentFactory {
      */
     public static ComponentBuilder createFromTag(String tagName, String tagNameOriginal, Map<String, String> attributes, String commonPrefix, Map<String, String> customAliases) {
         // Check for custom component first
-        Function<Map<String, String>, ComponentBuilder> customFactory = customComponents.get(tagName.toLowerCase());
+        Function<Map<String, String>, ComponentBuilder> customFactory = customComponentTable.get(tagName);
         if (customFactory != null) {
             return customFactory.apply(attributes);
         }
@@ -267,6 +448,11 @@ public class ComponentFactory {
                         renderProperties.put("SkipWhite", true);
                     }
 
+                    String renderMode = attributes.get("rendermode");
+                    if (renderMode != null && !renderMode.isEmpty()) {
+                        renderProperties.put("RenderMode", renderMode);
+                    }
+
                     return com.machina.minterfacebuilder.util.ImageRenderer.renderImage(src, renderProperties);
 
                 default:
@@ -341,15 +527,7 @@ public class ComponentFactory {
                 return ComponentBuilder.create("Label");
 
             default:
-                // List of known unsupported HTML tags that should always throw exception
-                // These tags don't have Hytale equivalents and should fail explicitly
-                Set<String> unsupportedTags = Set.of(
-                    "br", "hr", "video", "audio", "iframe", "canvas", "svg", 
-                    "table", "thead", "tbody", "tr", "td", "th", "form", 
-                    "script", "style", "meta", "link", "head", "body"
-                );
-                
-                if (unsupportedTags.contains(tagName.toLowerCase())) {
+                if (UNSUPPORTED_TAGS.contains(tagName.toLowerCase())) {
                     // Known unsupported tag - always throw exception
                     throw new UnsupportedHTMLTagException(tagName);
                 }
@@ -0,0 +1,143 @@
+package com.machina.minterfacebuilder.factory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable case-insensitive lookup table for tag names.
+ * <p>
+ * Keys are lowercased once when the table is built. A hash seed is searched so that every key
+ * lands in its own slot, so lookups hash the tag (folding case on the fly, without allocating)
+ * and compare one key. If no collision-free seed is found, the table falls back to linear probing.
+ * </p>
+ * @param <V> The value type.
+ */
+final class TagTable<V> {
+    /**
+     * Number of seeds tried before falling back to linear probing.
+     */
+    private static final int MAX_SEED_ATTEMPTS = 64;
+
+    /**
+     * Empty table.
+     */
+    private static final TagTable<?> EMPTY = new TagTable<>(Map.of());
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int seed;
+
+    /**
+     * Build a table from a map of tag names.
+     * @param entries The entries (keys in any case; later entries win over earlier ones differing only in case).
+     */
+    TagTable(Map<String, V> entries) {
+        Map<String, V> lowercaseEntries = new LinkedHashMap<>();
+        for (Map.Entry<String, V> entry : entries.entrySet()) {
+            lowercaseEntries.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+        }
+
+        String[] lowercaseKeys = lowercaseEntries.keySet().toArray(new String[0]);
+        Object[] entryValues = lowercaseEntries.values().toArray();
+
+        // At least four slots per key keeps a collision-free seed easy to find
+        int capacity = Integer.highestOneBit(Math.max(lowercaseKeys.length, 1) * 4 - 1) << 1;
+
+        this.mask = capacity - 1;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.seed = findSeed(lowercaseKeys, capacity);
+
+        for (int i = 0; i < lowercaseKeys.length; i++) {
+            int slot = this.slotOf(lowercaseKeys[i]);
+            this.keys[slot] = lowercaseKeys[i];
+            this.values[slot] = entryValues[i];
+        }
+    }
+
+    /**
+     * Get the empty table.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> TagTable<V> empty() {
+        return (TagTable<V>) EMPTY;
+    }
+
+    /**
+     * Find a seed for which no two keys share a slot.
+     * @return The seed, or 0 if none was found (lookups then probe).
+     */
+    private static int findSeed(String[] keys, int capacity) {
+        boolean[] used = new boolean[capacity];
+
+        for (int seed = 1; seed <= MAX_SEED_ATTEMPTS; seed++) {
+            Arrays.fill(used, false);
+            boolean collision = false;
+
+            for (String key : keys) {
+                int slot = hash(key, seed) & (capacity - 1);
+                if (used[slot]) {
+                    collision = true;
+                    break;
+                }
+                used[slot] = true;
+            }
+
+            if (!collision) {
+                return seed;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Hash a tag name, folding it to lowercase.
+     */
+    private static int hash(String tag, int seed) {
+        int h = seed * 0x9E3779B9;
+        for (int i = 0; i < tag.length(); i++) {
+            h = (h ^ Character.toLowerCase(tag.charAt(i))) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get the slot of a key that is in the table or being inserted.
+     */
+    private int slotOf(String key) {
+        int slot = hash(key, this.seed) & this.mask;
+        while (this.keys[slot] != null && !this.keys[slot].equals(key)) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the value of a tag name, ignoring case.
+     * @param tag The tag name.
+     * @return The value, or null if the tag is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    V get(String tag) {
+        int slot = hash(tag, this.seed) & this.mask;
+
+        while (this.keys[slot] != null) {
+            String key = this.keys[slot];
+            if (key.length() == tag.length() && key.regionMatches(true, 0, tag, 0, tag.length())) {
+                return (V) this.values[slot];
+            }
+
+            // With a collision-free seed, each key is in its hashed slot
+            if (this.seed != 0) {
+                return null;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        return null;
+    }
+}
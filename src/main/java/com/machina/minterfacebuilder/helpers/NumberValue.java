@@ -0,0 +1,60 @@
+package com.machina.minterfacebuilder.helpers;
+
+import com.machina.minterfacebuilder.model.LiteralValue;
+
+public class NumberValue extends LiteralValue {
+    /**
+     * Create a number literal.
+     * @param number The number as written (e.g., "12", "-0.5").
+     * @return A NumberValue instance.
+     */
+    public static NumberValue of(String number) {
+        if (!isNumber(number)) {
+            throw new IllegalArgumentException("Not a number: " + number);
+        }
+
+        return new NumberValue(number);
+    }
+
+    /**
+     * Check whether a string is an integer or decimal number (e.g., "12", "-0.5"), without a regex.
+     * @param value The string to check.
+     * @return True if the string is a number.
+     */
+    public static boolean isNumber(String value) {
+        int length = value.length();
+        int i = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == length) {
+            return true;
+        }
+
+        // A decimal point must be followed by at least one digit
+        if (value.charAt(i++) != '.' || i == length) {
+            return false;
+        }
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+        }
+        return i == length;
+    }
+
+    /**
+     * Check whether a character is an ASCII digit (as \d matches).
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    protected NumberValue(String number) {
+        super(number);
+    }
+}
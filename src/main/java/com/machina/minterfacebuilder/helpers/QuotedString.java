@@ -0,0 +1,32 @@
+package com.machina.minterfacebuilder.helpers;
+
+import com.machina.minterfacebuilder.model.LiteralValue;
+
+public class QuotedString extends LiteralValue {
+    /**
+     * The text without quotes.
+     */
+    private final String text;
+
+    /**
+     * Create a quoted string literal.
+     * @param text The text (quotes are added once, here).
+     * @return A QuotedString instance.
+     */
+    public static QuotedString of(String text) {
+        return new QuotedString(text);
+    }
+
+    protected QuotedString(String text) {
+        super('"' + text + '"');
+        this.text = text;
+    }
+
+    /**
+     * Get the text without quotes.
+     * @return The text.
+     */
+    public String getText() {
+        return this.text;
+    }
+}
@@ -0,0 +1,23 @@
+package com.machina.minterfacebuilder.helpers;
+
+import com.machina.minterfacebuilder.model.LiteralValue;
+
+public class VarRef extends LiteralValue {
+    /**
+     * Create a variable reference.
+     * @param name The variable name (with or without the @ prefix).
+     * @return A VarRef instance.
+     */
+    public static VarRef of(String name) {
+        // If the name doesn't start with an @, add it
+        if (!name.startsWith("@")) {
+            name = "@" + name;
+        }
+
+        return new VarRef(name);
+    }
+
+    protected VarRef(String reference) {
+        super(reference);
+    }
+}
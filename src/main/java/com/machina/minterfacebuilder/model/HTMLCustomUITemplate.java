@@ -3,10 +3,9 @@ package com.machina.minterfacebuilder.model;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,12 +18,32 @@ import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
+import com.machina.minterfacebuilder.util.customui.DataBindings;
 
 /**
  * Represents a parsed Custom UI template with support for variables and file persistence.
  * Extends ComponentBuilder - the template itself IS the component builder.
+ * <p>
+ * Builds and variable changes take the lock of the template, so a template shared by pages (e.g., through
+ * the {@link com.machina.minterfacebuilder.cache.TemplateCache}) can be built from several world threads.
+ * </p>
  */
 public class HTMLCustomUITemplate extends ComponentBuilder {
+    /**
+     * Alias of the shared prelude asset in the templates that import it.
+     */
+    public static final String SHARED_PRELUDE_ALIAS = "$MIB";
+
+    /**
+     * Document path of the shared prelude asset, holding the @MIB definitions of the text tags.
+     */
+    public static final String SHARED_PRELUDE_DOCUMENT = "Pages/MInterfaceBuilder_Prelude.ui";
+
+    /**
+     * Path of the shared prelude asset relative to the pages (like "../Common.ui").
+     */
+    private static final String SHARED_PRELUDE_FILE = "MInterfaceBuilder_Prelude.ui";
+
     /**
      * The variables defined in the template (e.g., @Valor = "Sim").
      */
@@ -45,6 +64,27 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      */
     private Map<String, String> customAliasesMap;
 
+    /**
+     * Whether the text tags reference the shared prelude asset instead of definitions of the template.
+     */
+    private boolean sharedPrelude = false;
+
+    /**
+     * The HTML the template was parsed from, or null if it was not parsed (see {@link #getSource()}).
+     */
+    @Nullable
+    private String source;
+
+    /**
+     * The variables the template was parsed with.
+     */
+    private Map<String, String> sourceVariables = Map.of();
+
+    /**
+     * Names of the variables whose values were substituted into properties while parsing (e.g., :text="@Title").
+     */
+    private Set<String> substitutedVariables = Set.of();
+
     /**
      * Default path for saving/loading template files (e.g., config/templates/).
      */
@@ -52,23 +92,57 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
     private Path defaultPath;
 
     /**
-     * Cached build result to avoid recompiling on multiple calls.
+     * Cached prelude (alias declarations and @MIB tag definitions), which only depends on the used aliases and tags.
      */
     @Nullable
-    private String cachedBuildResult;
+    private String cachedPrelude;
 
     /**
-     * Settings used for the cached build result (to ensure cache is invalidated if settings change).
+     * Cached variables section (format: @VariableName = value;).
      */
     @Nullable
-    private ComponentBuilderSettings cachedBuildSettings;
+    private String cachedVariables;
+
+    /**
+     * Cached output segments per settings variant (see {@link #variantOf}).
+     */
+    private final BuildSegments[] cachedSegments = new BuildSegments[4];
 
     /**
-     * Flag to indicate if the template has been modified since the last build.
-     * When true, the cache is invalidated.
+     * Version of the prelude and variables sections, incremented when either is rebuilt.
+     */
+    private int headerVersion;
+
+    /**
+     * Version of the component tree, incremented when a build finds it changed.
+     */
+    private int treeVersion;
+
+    /**
+     * Flag to indicate if the template variables have been modified since the last build.
+     * When true, only the variables section is rebuilt (changes to the components are tracked by the
+     * components, which keep their memoized output across variable changes).
      */
     private boolean dirty = false;
 
+    /**
+     * Bindings of the variables, or null if not found yet (see {@link #getDataBindings()}).
+     */
+    @Nullable
+    private DataBindings cachedBindings;
+
+    /**
+     * Version of the component tree the bindings were found in.
+     */
+    private int bindingsTreeVersion;
+
+    /**
+     * Hoisted values of the last build, reused while they are unchanged so that the memoized
+     * component outputs (which are keyed by them) stay valid.
+     */
+    @Nullable
+    private Map<String, String> lastHoistedValues;
+
     /**
      * Create a new HTMLCustomUITemplate from a ComponentBuilder.
      * The ComponentBuilder becomes this instance (we copy its properties).
@@ -89,7 +163,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param usedHtmlTags The HTML tags used in the template that need aliases.
      */
     public HTMLCustomUITemplate(ComponentBuilder componentBuilder, Map<String, InterfaceVariable> variables, Set<String> usedHtmlTags) {
-        super(getComponentType(componentBuilder));
+        super(componentBuilder.getComponent());
         
         // Copy all properties from the component builder
         this.copyFrom(componentBuilder);
@@ -106,90 +180,76 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param usedAliases Set of alias names used in the template (e.g., "Common", "C").
      * @param customAliasesMap Map of alias names to their paths (e.g., "Common" -> "../Common.ui").
      */
-    public void setUsedAliases(Set<String> usedAliases, Map<String, String> customAliasesMap) {
+    public synchronized void setUsedAliases(Set<String> usedAliases, Map<String, String> customAliasesMap) {
         this.usedAliases = usedAliases != null ? new HashSet<>(usedAliases) : new HashSet<>();
         this.customAliasesMap = customAliasesMap != null ? new HashMap<>(customAliasesMap) : new HashMap<>();
+        this.cachedPrelude = null;
     }
 
     /**
-     * Get the component type from a ComponentBuilder using reflection.
-     * @param builder The ComponentBuilder.
-     * @return The component type string.
+     * Set whether the text tags of the template reference the shared prelude asset
+     * ({@value #SHARED_PRELUDE_DOCUMENT}) instead of definitions of its own.
+     * @param sharedPrelude True if the template was parsed in shared prelude mode.
      */
-    private static String getComponentType(ComponentBuilder builder) {
-        try {
-            java.lang.reflect.Field componentField = ComponentBuilder.class.getDeclaredField("component");
-            componentField.setAccessible(true);
-            return (String) componentField.get(builder);
-        } catch (Exception e) {
-            // Fallback to "Group" if we can't get the component type
-            return "Group";
-        }
+    public synchronized void setSharedPrelude(boolean sharedPrelude) {
+        this.sharedPrelude = sharedPrelude;
+        this.cachedPrelude = null;
     }
 
     /**
-     * Copy properties from another ComponentBuilder to this instance using reflection.
-     * @param other The ComponentBuilder to copy from.
+     * Check if the text tags of the template reference the shared prelude asset.
+     * @return True if the template was parsed in shared prelude mode.
      */
-    @SuppressWarnings("unchecked")
-    private void copyFrom(ComponentBuilder other) {
-        try {
-            // Use reflection to copy all fields from the other ComponentBuilder
-            java.lang.reflect.Field idField = ComponentBuilder.class.getDeclaredField("id");
-            idField.setAccessible(true);
-            Object id = idField.get(other);
-            if (id != null) {
-                idField.set(this, id);
-            }
+    public boolean isSharedPrelude() {
+        return this.sharedPrelude;
+    }
 
-            java.lang.reflect.Field propertiesField = ComponentBuilder.class.getDeclaredField("properties");
-            propertiesField.setAccessible(true);
-            Map<String, Object> props = (Map<String, Object>) propertiesField.get(other);
-            if (props != null && !props.isEmpty()) {
-                Map<String, Object> thisProps = (Map<String, Object>) propertiesField.get(this);
-                thisProps.putAll(props);
-            }
+    /**
+     * Set the HTML the template was parsed from, so a private copy can be parsed again (e.g., by a page
+     * showing a template shared through the {@link com.machina.minterfacebuilder.cache.TemplateCache}).
+     * @param source The HTML.
+     * @param variables The variables it was parsed with (can be null).
+     */
+    public void setSource(@Nonnull String source, @Nullable Map<String, String> variables) {
+        this.source = source;
+        this.sourceVariables = variables != null && !variables.isEmpty() ? Map.copyOf(variables) : Map.of();
+    }
 
-            java.lang.reflect.Field stylesField = ComponentBuilder.class.getDeclaredField("styles");
-            stylesField.setAccessible(true);
-            Map<String, String> styles = (Map<String, String>) stylesField.get(other);
-            if (styles != null && !styles.isEmpty()) {
-                Map<String, String> thisStyles = (Map<String, String>) stylesField.get(this);
-                thisStyles.putAll(styles);
-            }
+    /**
+     * Get the HTML the template was parsed from.
+     * @return The HTML, or null if the template was not parsed from HTML.
+     */
+    @Nullable
+    public String getSource() {
+        return this.source;
+    }
 
-            java.lang.reflect.Field childrenField = ComponentBuilder.class.getDeclaredField("children");
-            childrenField.setAccessible(true);
-            List<Object> children = (List<Object>) childrenField.get(other);
-            if (children != null && !children.isEmpty()) {
-                List<Object> thisChildren = (List<Object>) childrenField.get(this);
-                thisChildren.addAll(children);
-            }
+    /**
+     * Get the variables the template was parsed with.
+     * @return The variables, by name (unmodifiable).
+     */
+    @Nonnull
+    public Map<String, String> getSourceVariables() {
+        return this.sourceVariables;
+    }
 
-            java.lang.reflect.Field variablesField = ComponentBuilder.class.getDeclaredField("variables");
-            variablesField.setAccessible(true);
-            Map<String, String> variables = (Map<String, String>) variablesField.get(other);
-            // #region agent log - copyFrom variables
-            if (variables != null) {
-                java.util.List<String> miVars = variables.keySet().stream().filter(k -> k.startsWith("_MI_")).collect(java.util.stream.Collectors.toList());
-                System.err.println("[DEBUG-D] copyFrom copying variables | total=" + variables.size() + " | miVars=" + miVars);
-            }
-            // #endregion
-            if (variables != null && !variables.isEmpty()) {
-                Map<String, String> thisVariables = (Map<String, String>) variablesField.get(this);
-                thisVariables.putAll(variables);
-            }
+    /**
+     * Set the variables whose values were substituted into properties while parsing: the output has their
+     * values instead of references, so a change of their values needs the template to be parsed again.
+     * @param variables The variable names (without @).
+     */
+    public void setSubstitutedVariables(@Nonnull Set<String> variables) {
+        this.substitutedVariables = Set.copyOf(variables);
+        this.cachedBindings = null;
+    }
 
-            java.lang.reflect.Field commentsField = ComponentBuilder.class.getDeclaredField("comments");
-            commentsField.setAccessible(true);
-            List<String> comments = (List<String>) commentsField.get(other);
-            if (comments != null && !comments.isEmpty()) {
-                List<String> thisComments = (List<String>) commentsField.get(this);
-                thisComments.addAll(comments);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to copy ComponentBuilder properties", e);
-        }
+    /**
+     * Get the variables whose values were substituted into properties while parsing.
+     * @return The variable names (unmodifiable).
+     */
+    @Nonnull
+    public Set<String> getSubstitutedVariables() {
+        return this.substitutedVariables;
     }
 
     /**
@@ -323,7 +383,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * Get the variables map.
      * @return The variables map (InterfaceVariable instances).
      */
-    public Map<String, InterfaceVariable> getVariables() {
+    public synchronized Map<String, InterfaceVariable> getVariables() {
         return new HashMap<>(this.variables);
     }
 
@@ -333,7 +393,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param value The variable value (String - will be converted to InterfaceVariable.stringValue).
      * @return This instance for chaining.
      */
-    public HTMLCustomUITemplate setVariable(String name, String value) {
+    public synchronized HTMLCustomUITemplate setVariable(String name, String value) {
         // Remove @ prefix if present
         String varName = name.startsWith("@") ? name.substring(1) : name;
         this.variables.put(varName, InterfaceVariable.stringValue(value));
@@ -347,7 +407,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param variable The InterfaceVariable instance.
      * @return This instance for chaining.
      */
-    public HTMLCustomUITemplate setVariable(String name, InterfaceVariable variable) {
+    public synchronized HTMLCustomUITemplate setVariable(String name, InterfaceVariable variable) {
         // Remove @ prefix if present
         String varName = name.startsWith("@") ? name.substring(1) : name;
         this.variables.put(varName, variable);
@@ -359,7 +419,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * Set multiple variable values.
      * @param variables The variables map (String values - will be converted to InterfaceVariable.stringValue).
      */
-    public void setVariables(Map<String, String> variables) {
+    public synchronized void setVariables(Map<String, String> variables) {
         for (Map.Entry<String, String> entry : variables.entrySet()) {
             this.setVariable(entry.getKey(), entry.getValue());
         }
@@ -369,7 +429,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * Set multiple variable values with types.
      * @param variables The variables map (InterfaceVariable instances).
      */
-    public void setVariablesTyped(Map<String, InterfaceVariable> variables) {
+    public synchronized void setVariablesTyped(Map<String, InterfaceVariable> variables) {
         for (Map.Entry<String, InterfaceVariable> entry : variables.entrySet()) {
             this.setVariable(entry.getKey(), entry.getValue());
         }
@@ -380,7 +440,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param name The variable name (without @ prefix).
      * @return The variable value as string, or null if not found.
      */
-    public String getVariable(String name) {
+    public synchronized String getVariable(String name) {
         // Remove @ prefix if present
         String varName = name.startsWith("@") ? name.substring(1) : name;
         InterfaceVariable var = this.variables.get(varName);
@@ -392,7 +452,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param name The variable name (without @ prefix).
      * @return The InterfaceVariable instance, or null if not found.
      */
-    public InterfaceVariable getVariableTyped(String name) {
+    public synchronized InterfaceVariable getVariableTyped(String name) {
         // Remove @ prefix if present
         String varName = name.startsWith("@") ? name.substring(1) : name;
         return this.variables.get(varName);
@@ -415,13 +475,22 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @return A BuilderCodec that can handle all variables in this template.
      */
     public BuilderCodec<DynamicEventData> buildEventDataCodec() {
+        return buildEventDataCodec(this.variables);
+    }
+
+    /**
+     * Build a dynamic BuilderCodec for a set of variables (see {@link #buildEventDataCodec()}).
+     * @param variables The variables, by name.
+     * @return A BuilderCodec that can handle all the variables.
+     */
+    public static BuilderCodec<DynamicEventData> buildEventDataCodec(Map<String, InterfaceVariable> variables) {
         BuilderCodec.Builder<DynamicEventData> builder = BuilderCodec.<DynamicEventData>builder(
             DynamicEventData.class,
             DynamicEventData::new
         );
 
         // Add a field for each variable in the template
-        for (Map.Entry<String, InterfaceVariable> entry : this.variables.entrySet()) {
+        for (Map.Entry<String, InterfaceVariable> entry : variables.entrySet()) {
             String varName = entry.getKey();
             InterfaceVariable var = entry.getValue();
             String key = "@" + varName; // Use @ prefix for variable keys
@@ -471,50 +540,169 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
         return commandBuilder;
     }
 
+    /**
+     * Build the template.
+     * <p>
+     * The output is cached in segments: the prelude (aliases and tag definitions), the variables section,
+     * and per settings variant the hoisted values and the component body. A variable change only rebuilds
+     * the variables section, and a component change only rebuilds the segments of the variant being built.
+     * </p>
+     */
     @Override
-    public String build(ComponentBuilderSettings settings) {
-        // If template is dirty or cache is invalid, rebuild
-        // Compare settings by value (not reference) to properly use cache
-        boolean settingsChanged = settings == null ? 
-            this.cachedBuildSettings != null :
-            this.cachedBuildSettings == null || 
-            this.cachedBuildSettings.minimal != settings.minimal;
-        
-        if (this.dirty || this.cachedBuildResult == null || settingsChanged) {
-            // Build and cache the result
-            String result = buildWithAliasesAndVariables(settings);
-            this.cachedBuildResult = result;
-            this.cachedBuildSettings = settings; // Store reference (can be null)
-            this.dirty = false; // Clear dirty flag after rebuild
-            return result;
+    public synchronized String build(ComponentBuilderSettings settings) {
+        ComponentBuilderSettings effectiveSettings = settings != null ? settings : this.getSettings();
+        this.updateHeader();
+
+        // The component tree is dirty if any component changed since the last build
+        if (this.isDirty()) {
+            this.treeVersion++;
+        }
+
+        int variant = variantOf(effectiveSettings);
+        BuildSegments segments = this.cachedSegments[variant];
+        if (segments == null || segments.treeVersion != this.treeVersion) {
+            segments = this.buildSegments(effectiveSettings);
+            this.cachedSegments[variant] = segments;
+        }
+
+        if (segments.result == null || segments.headerVersion != this.headerVersion) {
+            StringBuilder output = new StringBuilder(this.cachedPrelude.length() + segments.hoistedValues.length()
+                + this.cachedVariables.length() + segments.body.length());
+            output.append(this.cachedPrelude).append(segments.hoistedValues).append(this.cachedVariables).append(segments.body);
+
+            segments.result = output.toString();
+            segments.headerVersion = this.headerVersion;
+        }
+
+        return segments.result;
+    }
+
+    /**
+     * Build the template with other values for some of its variables, leaving the template unchanged
+     * (e.g., a page showing a cached template with data of its own).
+     * @param settings The settings to build with.
+     * @param values The values, by variable name (values of variables the template does not have are ignored).
+     * @return The UI.
+     */
+    public synchronized String build(ComponentBuilderSettings settings, Map<String, InterfaceVariable> values) {
+        if (values.isEmpty()) {
+            return this.build(settings);
+        }
+        return this.buildPreamble(settings) + formatVariables(this.variablesWith(values)) + this.buildBody(settings);
+    }
+
+    /**
+     * Build the header of the template: the prelude (aliases and tag definitions) and the variables section.
+     * <p>
+     * UI fragments appended on their own (e.g., a re-rendered subtree) need it to resolve their references.
+     * </p>
+     * @return The header (empty if the template has no aliases, tags or variables).
+     */
+    public synchronized String buildHeader() {
+        this.updateHeader();
+        return this.cachedPrelude + this.cachedVariables;
+    }
+
+    /**
+     * Build the header of the template with other values for some of its variables (see {@link #build(ComponentBuilderSettings, Map)}).
+     * @param values The values, by variable name.
+     * @return The header.
+     */
+    public synchronized String buildHeader(Map<String, InterfaceVariable> values) {
+        if (values.isEmpty()) {
+            return this.buildHeader();
+        }
+        this.updateHeader();
+        return this.cachedPrelude + formatVariables(this.variablesWith(values));
+    }
+
+    /**
+     * Build what comes before the variables section: the prelude and the hoisted values.
+     * <p>
+     * With {@link #buildBody}, this lets the UI be assembled with other variable values without the
+     * component tree (see {@link PrecompiledTemplate}).
+     * </p>
+     * @param settings The settings to build with.
+     * @return The prelude and the hoisted values.
+     */
+    public synchronized String buildPreamble(ComponentBuilderSettings settings) {
+        ComponentBuilderSettings effectiveSettings = settings != null ? settings : this.getSettings();
+        this.build(effectiveSettings);
+        return this.cachedPrelude + this.cachedSegments[variantOf(effectiveSettings)].hoistedValues;
+    }
+
+    /**
+     * Build what comes after the variables section: the component body.
+     * @param settings The settings to build with.
+     * @return The component body.
+     */
+    public synchronized String buildBody(ComponentBuilderSettings settings) {
+        ComponentBuilderSettings effectiveSettings = settings != null ? settings : this.getSettings();
+        this.build(effectiveSettings);
+        return this.cachedSegments[variantOf(effectiveSettings)].body;
+    }
+
+    /**
+     * Get where the variables are shown, so they can be refreshed by property updates instead of
+     * sending the page again (see {@link DataBindings}).
+     * @return The bindings, found again when the component tree changes.
+     */
+    public synchronized DataBindings getDataBindings() {
+        // Reused without building while the tree is unchanged (a changed tree is dirty until its next build)
+        if (this.cachedBindings != null && this.bindingsTreeVersion == this.treeVersion && !this.isDirty()) {
+            return this.cachedBindings;
+        }
+
+        // All references are counted in the body without hoisted values
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        settings.hoistValues = false;
+        String body = this.buildBody(settings);
+
+        if (this.cachedBindings == null || this.bindingsTreeVersion != this.treeVersion) {
+            this.cachedBindings = DataBindings.of(this, this.variables.keySet(), this.substitutedVariables, body);
+            this.bindingsTreeVersion = this.treeVersion;
+        }
+        return this.cachedBindings;
+    }
+
+    /**
+     * Rebuild the cached prelude and variables section if they changed.
+     */
+    private void updateHeader() {
+        if (this.cachedPrelude == null) {
+            this.cachedPrelude = this.buildPrelude();
+            this.headerVersion++;
+        }
+        if (this.dirty || this.cachedVariables == null) {
+            this.cachedVariables = this.buildVariables();
+            this.dirty = false;
+            this.headerVersion++;
         }
-        
-        // Return cached result
-        return this.cachedBuildResult;
     }
 
     @Override
-    public String build() {
+    public synchronized String build() {
         // Delegate to build(null) to use the same caching logic
         return build(null);
     }
 
-    /**
-     * Build the UI with aliases and variables at the top.
-     * @param settings The settings to use (can be null).
-     * @return The UI as a string with aliases and variables at the top.
-     */
     /**
      * Enum for supported HTML tags that can be aliased to UI components.
      */
     private enum HTMLTag {
-        H1("h1"), H2("h2"), H3("h3"), H4("h4"), H5("h5"), H6("h6"),
-        SPAN("span"), P("p"), LABEL("label");
+        H1("h1", 28), H2("h2", 24), H3("h3", 20), H4("h4", 18), H5("h5", 16), H6("h6", 14),
+        SPAN("span", 0), P("p", 0), LABEL("label", 0);
         
         private final String tagName;
+
+        /**
+         * Definition of the @MIB alias of the tag (e.g., @MIBH1 = Label { Style: (...) };), built once.
+         */
+        private final String definition;
         
-        HTMLTag(String tagName) {
+        HTMLTag(String tagName, int fontSize) {
             this.tagName = tagName;
+            this.definition = buildDefinition(tagName, fontSize);
         }
         
         public String getTagName() {
@@ -529,9 +717,81 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
             }
             return null;
         }
+
+        /**
+         * Build the definition of the @MIB alias of a tag (all text tags map to Label).
+         * @param tagName The tag name.
+         * @param fontSize The default font size of a heading, or 0.
+         * @return The definition.
+         */
+        private static String buildDefinition(String tagName, int fontSize) {
+            // Convert tag to PascalCase (e.g., "h1" -> "H1", "p" -> "P")
+            String pascalTag = Character.toUpperCase(tagName.charAt(0)) + tagName.substring(1);
+
+            StringBuilder output = new StringBuilder();
+            output.append("@MIB").append(pascalTag).append(" = Label {\n");
+
+            // Add default styles for headings (h1-h6)
+            if (fontSize > 0) {
+                output.append("  Style: (\n");
+                output.append("    FontSize: ").append(fontSize).append(",\n");
+                output.append("    RenderBold: true\n");
+                output.append("  );\n");
+            } else if (tagName.equals("p")) {
+                // Add default margin-bottom for paragraphs
+                output.append("  Anchor: (\n");
+                output.append("    Bottom: 8\n");
+                output.append("  );\n");
+            }
+
+            output.append("};\n\n");
+            return output.toString();
+        }
     }
     
-    private String buildWithAliasesAndVariables(ComponentBuilderSettings settings) {
+    /**
+     * Output segments of one settings variant.
+     */
+    private static final class BuildSegments {
+        /**
+         * Version of the component tree the segments were built from.
+         */
+        private int treeVersion;
+
+        /**
+         * Hoisted values section (format: @MIBc0 = value;).
+         */
+        private String hoistedValues;
+
+        /**
+         * Component body.
+         */
+        private String body;
+
+        /**
+         * Header version of the assembled result.
+         */
+        private int headerVersion;
+
+        /**
+         * Assembled result, or null if not assembled yet.
+         */
+        @Nullable
+        private String result;
+    }
+
+    /**
+     * Get the cache variant of settings (the settings that change the output).
+     */
+    private static int variantOf(ComponentBuilderSettings settings) {
+        return (settings.minimal ? 1 : 0) | (settings.hoistValues ? 2 : 0);
+    }
+
+    /**
+     * Build the alias declarations and the @MIB tag definitions.
+     * @return The prelude (empty if no aliases or tags are used).
+     */
+    private String buildPrelude() {
         StringBuilder output = new StringBuilder();
 
         // Build alias declarations for used aliases (e.g., $Common = "../Common.ui";)
@@ -557,30 +817,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
 
         // Build aliases for HTML tags that map to Label (h1-h6, span, p, label)
         // Format: @MIBH1 = Label { Style: (...) }
-        Map<HTMLTag, Object> tagToComponentMap = Map.of(
-            HTMLTag.H1, "Label",
-            HTMLTag.H2, "Label",
-            HTMLTag.H3, "Label",
-            HTMLTag.H4, "Label",
-            HTMLTag.H5, "Label",
-            HTMLTag.H6, "Label",
-            HTMLTag.SPAN, "Label",
-            HTMLTag.P, "Label",
-            HTMLTag.LABEL, "Label"
-        );
-
-        // Default font sizes for headings (h1 = largest, h6 = smallest)
-        Map<HTMLTag, Object> headingFontSizes = Map.of(
-            HTMLTag.H1, 28,
-            HTMLTag.H2, 24,
-            HTMLTag.H3, 20,
-            HTMLTag.H4, 18,
-            HTMLTag.H5, 16,
-            HTMLTag.H6, 14
-        );
-
-        // Generate aliases for used HTML tags (use TreeSet to ensure consistent ordering and no duplicates)
-        // Convert all tags to lowercase first to normalize them
+        // Generate aliases for used HTML tags (LinkedHashSet to ensure consistent ordering and no duplicates)
         Set<HTMLTag> usedTagsSet = new java.util.LinkedHashSet<>();
         
         for (String tag : this.usedHtmlTags) {
@@ -589,211 +826,150 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
                 usedTagsSet.add(htmlTag);
             }
         }
-        
-        for (HTMLTag htmlTag : usedTagsSet) {
-            Object component = tagToComponentMap.get(htmlTag);
-            if (component != null) {
-                String tag = htmlTag.getTagName();
-                // Convert tag to PascalCase (e.g., "h1" -> "H1", "p" -> "P")
-                String pascalTag = tag.isEmpty() ? tag : Character.toUpperCase(tag.charAt(0)) + (tag.length() > 1 ? tag.substring(1) : "");
-                String varName = "@MIB" + pascalTag;
-                
-                output.append(varName).append(" = ").append(component).append(" {\n");
-                
-                // Add default styles for headings (h1-h6)
-                Object fontSize = headingFontSizes.get(htmlTag);
-                if (fontSize != null) {
-                    output.append("  Style: (\n");
-                    output.append("    FontSize: ").append(fontSize).append(",\n");
-                    output.append("    RenderBold: true\n");
-                    output.append("  );\n");
-                } else if (htmlTag == HTMLTag.P) {
-                    // Add default margin-bottom for paragraphs
-                    output.append("  Anchor: (\n");
-                    output.append("    Bottom: 8\n");
-                    output.append("  );\n");
-                }
-                
-                output.append("};\n\n");
+
+        if (this.sharedPrelude) {
+            // The text tags reference the definitions of the shared prelude asset
+            if (!usedTagsSet.isEmpty()) {
+                output.append(SHARED_PRELUDE_ALIAS).append(" = \"").append(SHARED_PRELUDE_FILE).append("\";\n\n");
             }
+        } else {
+            for (HTMLTag htmlTag : usedTagsSet) {
+                output.append(htmlTag.definition);
+            }
+        }
+
+        return output.toString();
+    }
+
+    /**
+     * Build the shared prelude asset: the @MIB definitions of all the text tags
+     * (shipped as {@value #SHARED_PRELUDE_DOCUMENT}).
+     * @return The content of the asset.
+     */
+    public static String buildSharedPrelude() {
+        StringBuilder output = new StringBuilder();
+        for (HTMLTag htmlTag : HTMLTag.values()) {
+            output.append(htmlTag.definition);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Build the variables section from the script block (format: @VariableName = value;).
+     * @return The variables section (empty if there are no variables).
+     */
+    private String buildVariables() {
+        return formatVariables(this.variables);
+    }
+
+    /**
+     * Get the variables with other values for some of them, in the order of the variables section.
+     */
+    private Map<String, InterfaceVariable> variablesWith(Map<String, InterfaceVariable> values) {
+        Map<String, InterfaceVariable> variables = new LinkedHashMap<>(this.variables);
+        for (Map.Entry<String, InterfaceVariable> entry : values.entrySet()) {
+            variables.replace(entry.getKey(), entry.getValue());
+        }
+        return variables;
+    }
+
+    /**
+     * Format a variables section (format: @VariableName = value;).
+     * @param variables The variables, by name.
+     * @return The variables section (empty if there are no variables).
+     */
+    public static String formatVariables(Map<String, InterfaceVariable> variables) {
+        if (variables.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder output = new StringBuilder();
+        for (Map.Entry<String, InterfaceVariable> entry : variables.entrySet()) {
+            String varName = entry.getKey();
+            InterfaceVariable var = entry.getValue();
+            String varValue = var.getValue();
+
+            // Format the value (add quotes if it's a string literal)
+            String formattedValue = formatVariableValue(varValue, var.getType());
+
+            output.append("@").append(varName).append(" = ").append(formattedValue).append(";\n");
         }
+        output.append("\n");
+
+        return output.toString();
+    }
 
-        // Build variables from script block (format: @VariableName = value;)
-        if (!this.variables.isEmpty()) {
-            for (Map.Entry<String, InterfaceVariable> entry : this.variables.entrySet()) {
-                String varName = entry.getKey();
-                InterfaceVariable var = entry.getValue();
-                String varValue = var.getValue();
-                
-                // Format the value (add quotes if it's a string literal)
-                String formattedValue = formatVariableValue(varValue, var.getType());
-                
-                output.append("@").append(varName).append(" = ").append(formattedValue).append(";\n");
+    /**
+     * Build the hoisted values section and the component body for a settings variant.
+     * @param settings The settings to use.
+     * @return The segments, tagged with the current tree version.
+     */
+    private BuildSegments buildSegments(ComponentBuilderSettings settings) {
+        BuildSegments segments = new BuildSegments();
+        segments.treeVersion = this.treeVersion;
+        segments.hoistedValues = "";
+
+        // Copy the settings so the hoisted values don't leak into the caller's settings
+        ComponentBuilderSettings buildSettings = new ComponentBuilderSettings(settings);
+        buildSettings.hoistedValues = null;
+
+        // Hoist repeated property values into variables (format: @MIBc0 = value;)
+        if (buildSettings.hoistValues) {
+            Map<String, String> hoistedValues = this.collectHoistableValues();
+            if (hoistedValues.equals(this.lastHoistedValues)) {
+                hoistedValues = this.lastHoistedValues;
+            }
+            this.lastHoistedValues = hoistedValues;
+
+            if (!hoistedValues.isEmpty()) {
+                StringBuilder output = new StringBuilder();
+                for (Map.Entry<String, String> entry : hoistedValues.entrySet()) {
+                    output.append("@").append(entry.getValue()).append(" = ").append(entry.getKey()).append(";\n");
+                }
+                output.append("\n");
+
+                segments.hoistedValues = output.toString();
+                buildSettings.hoistedValues = hoistedValues;
             }
-            output.append("\n");
         }
 
         // Build the component structure WITHOUT calling build() to avoid recursion
         // We directly build the component part (without variables section) to avoid infinite loop
         ComponentBuilderSettings oldSettings = this.getSettings();
-        if (settings != null) {
-            this.setSettings(settings);
-        }
-        
-        String componentOutput = buildComponentWithoutVariables();
-        
+        this.setSettings(buildSettings);
+
+        segments.body = buildComponentWithoutVariables();
+
         // Restore old settings
         this.setSettings(oldSettings);
-        
-        output.append(componentOutput);
-        
-        return output.toString();
+
+        return segments;
     }
 
     /**
      * Build the component structure without variables to avoid recursion.
-     * This replicates ComponentBuilder.build() logic but skips the variables section
-     * and doesn't call build() on children (which would cause recursion).
+     * Children are built normally; nested templates build their body only (see {@link #buildAsChild}).
      */
     private String buildComponentWithoutVariables() {
-        // Use reflection to access private methods from ComponentBuilder
-        try {
-            java.lang.reflect.Method getIndentMethod = ComponentBuilder.class.getDeclaredMethod("getComponentBlockIndentLevel");
-            getIndentMethod.setAccessible(true);
-            int componentIndent = (Integer) getIndentMethod.invoke(this);
-            
-            java.lang.reflect.Method indentMethod = ComponentBuilder.class.getDeclaredMethod("indent", int.class);
-            indentMethod.setAccessible(true);
-            
-            java.lang.reflect.Field componentField = ComponentBuilder.class.getDeclaredField("component");
-            componentField.setAccessible(true);
-            String component = (String) componentField.get(this);
-            
-            java.lang.reflect.Field idField = ComponentBuilder.class.getDeclaredField("id");
-            idField.setAccessible(true);
-            String id = (String) idField.get(this);
-            
-            java.lang.reflect.Field propertiesField = ComponentBuilder.class.getDeclaredField("properties");
-            propertiesField.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> properties = (Map<String, Object>) propertiesField.get(this);
-            
-            java.lang.reflect.Field stylesField = ComponentBuilder.class.getDeclaredField("styles");
-            stylesField.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            Map<String, String> styles = (Map<String, String>) stylesField.get(this);
-            
-            java.lang.reflect.Field childrenField = ComponentBuilder.class.getDeclaredField("children");
-            childrenField.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            List<Object> children = (List<Object>) childrenField.get(this);
-            
-            java.lang.reflect.Method formatStyleMethod = ComponentBuilder.class.getDeclaredMethod("formatStylePropertyValue", String.class);
-            formatStyleMethod.setAccessible(true);
-            
-            java.lang.reflect.Method formatPropMethod = ComponentBuilder.class.getDeclaredMethod("formatPropertyValue", String.class, String.class);
-            formatPropMethod.setAccessible(true);
-            
-            StringBuilder builder = new StringBuilder();
-            
-            // Component header (no variables section)
-            String indentStr = (String) indentMethod.invoke(this, componentIndent);
-            builder.append(indentStr);
-            builder.append(component);
-            
-            if (id != null) {
-                builder.append(" #").append(id);
-            }
-            builder.append(" {\n");
-            
-            // Build Style map
-            Map<String, Object> styleMap = new HashMap<>();
-            String stylesFromProps = (String) properties.get("Styles");
-            if (stylesFromProps != null) {
-                String[] stylesArray = stylesFromProps.split(",");
-                for (String style : stylesArray) {
-                    style = style.trim();
-                    if (style.isEmpty()) continue;
-                    int colonIndex = style.indexOf(':');
-                    if (colonIndex != -1) {
-                        String key = style.substring(0, colonIndex).trim();
-                        String value = style.substring(colonIndex + 1).trim();
-                        if (value.startsWith("\"") && value.endsWith("\"")) {
-                            value = value.substring(1, value.length() - 1);
-                        }
-                        styleMap.put(key, value);
-                    }
-                }
-            }
-            for (Map.Entry<String, String> entry : styles.entrySet()) {
-                String value = entry.getValue();
-                if (value.startsWith("\"") && value.endsWith("\"")) {
-                    value = value.substring(1, value.length() - 1);
-                }
-                styleMap.put(entry.getKey(), value);
-            }
-            if (!styleMap.isEmpty()) {
-                properties.put("Style", styleMap);
-            }
-            
-            // Properties
-            List<String> propertiesOutput = new ArrayList<>();
-            for (Map.Entry<String, Object> entry : properties.entrySet()) {
-                String value;
-                if (entry.getValue() instanceof Map<?, ?>) {
-                    value = "(\n";
-                    List<String> valueContent = new ArrayList<>();
-                    boolean isStyle = entry.getKey().equals("Style");
-                    for (Map.Entry<?, ?> subEntry : ((Map<?, ?>) entry.getValue()).entrySet()) {
-                        String subValue = isStyle ?
-                            (String) formatStyleMethod.invoke(null, subEntry.getValue().toString()) :
-                            (String) formatPropMethod.invoke(null, subEntry.getValue().toString(), entry.getKey());
-                        valueContent.add((String) indentMethod.invoke(this, componentIndent + 2) + subEntry.getKey() + ": " + subValue);
-                    }
-                    value += String.join(",\n", valueContent) + "\n" + indentMethod.invoke(this, componentIndent + 1) + ")";
-                } else {
-                    value = (String) formatPropMethod.invoke(null, entry.getValue().toString(), entry.getKey());
-                }
-                propertiesOutput.add(entry.getKey() + ": " + value);
-            }
-            
-            String propertiesContent = String.join(";\n" + indentMethod.invoke(this, componentIndent + 1), propertiesOutput);
-            if (!propertiesContent.isBlank()) {
-                builder.append(indentMethod.invoke(this, componentIndent + 1)).append(propertiesContent).append(";\n");
-            }
-            
-            // Children - process recursively but avoid calling build() by using buildComponentWithoutVariables
-            if (!children.isEmpty() && (!propertiesContent.isBlank() || !styles.isEmpty())) {
-                builder.append("\n");
-            }
-            
-            int childIndex = 0;
-            for (Object child : children) {
-                childIndex++;
-                if (child instanceof String) {
-                    builder.append(indentMethod.invoke(this, componentIndent + 1)).append(((String) child).trim()).append("\n");
-                } else if (child instanceof HTMLCustomUITemplate) {
-                    // For HTMLCustomUITemplate children, also avoid recursion
-                    builder.append(((HTMLCustomUITemplate) child).buildComponentWithoutVariables()).append("\n");
-                } else if (child instanceof ComponentBuilder) {
-                    // For other ComponentBuilder children, we need to build them, but this could cause recursion
-                    // The issue is that ComponentBuilder.build() may call methods on children that are HTMLCustomUITemplate
-                    // For now, we'll need to handle this carefully - but children should not be HTMLCustomUITemplate instances
-                    builder.append(((ComponentBuilder) child).build(this.getSettings())).append("\n");
-                }
-                if (childIndex < children.size()) {
-                    builder.append("\n");
-                }
-            }
-            
-            builder.append(indentMethod.invoke(this, componentIndent)).append("}");
-            return builder.toString();
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to build component without variables", e);
-        }
+        return this.buildComponent();
     }
 
+    /**
+     * Build the template as the child of another component.
+     * Nested templates only output their component body; their aliases and variables are not repeated.
+     * @param settings The settings of the parent (can be null).
+     * @return The component as a string.
+     */
+    @Override
+    protected synchronized String buildAsChild(ComponentBuilderSettings settings) {
+        // Building cleans the tree, so record the change for the cached segments
+        if (this.isDirty()) {
+            this.treeVersion++;
+        }
+
+        this.setSettings(settings);
+        return this.buildComponentWithoutVariables();
+    }
 
     /**
      * Format a variable value for output.
@@ -801,7 +977,7 @@ public class HTMLCustomUITemplate extends ComponentBuilder {
      * @param type The variable type.
      * @return The formatted value string.
      */
-    private String formatVariableValue(String value, InterfaceVariable.Type type) {
+    private static String formatVariableValue(String value, InterfaceVariable.Type type) {
         if (value == null) {
             return "null";
         }
@@ -0,0 +1,124 @@
+package com.machina.minterfacebuilder.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.machina.minterfacebuilder.model.HTMLCustomUITemplate.DynamicEventData;
+
+/**
+ * Template compiled at build time, so that showing it parses no HTML.
+ * <p>
+ * The UI is kept as the text around its variables section: changing a variable only formats that section
+ * again. Subclasses are generated by {@link com.machina.minterfacebuilder.compiler.TemplateCompiler},
+ * one per HTML template, with a typed setter per variable:
+ * </p>
+ * <pre>
+ * String ui = new LoginTemplate().setTitle("Welcome").setShowHelp(false).build();
+ * </pre>
+ */
+public abstract class PrecompiledTemplate implements Cloneable {
+    /**
+     * The UI before the variables section (prelude and hoisted values).
+     */
+    private final String preamble;
+
+    /**
+     * The UI after the variables section (component body).
+     */
+    private final String body;
+
+    /**
+     * The variables, in output order.
+     */
+    private Map<String, InterfaceVariable> variables;
+
+    /**
+     * The built UI, or null if a variable changed since the last build.
+     */
+    private String cachedUi;
+
+    /**
+     * Create a template.
+     * @param preamble The UI before the variables section.
+     * @param variables The default variables, in output order.
+     * @param body The UI after the variables section.
+     */
+    protected PrecompiledTemplate(@Nonnull String preamble, @Nonnull Map<String, InterfaceVariable> variables, @Nonnull String body) {
+        this.preamble = preamble;
+        this.variables = new LinkedHashMap<>(variables);
+        this.body = body;
+    }
+
+    /**
+     * Set a variable (only the variables of the template can be set).
+     * @param name The variable name (without @).
+     * @param value The value.
+     * @throws IllegalArgumentException If the template has no such variable.
+     */
+    protected final void set(@Nonnull String name, @Nonnull InterfaceVariable value) {
+        if (!this.variables.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown template variable: " + name);
+        }
+        if (!value.equals(this.variables.put(name, value))) {
+            this.cachedUi = null;
+        }
+    }
+
+    /**
+     * Get a copy of the template with other values for some of its variables. The template is unchanged,
+     * so it can be shared (e.g., by the pages showing it).
+     * @param values The values, by variable name (without @).
+     * @return The copy.
+     * @throws IllegalArgumentException If the template has no such variable.
+     */
+    @Nonnull
+    public PrecompiledTemplate with(@Nonnull Map<String, InterfaceVariable> values) {
+        PrecompiledTemplate copy;
+        try {
+            copy = (PrecompiledTemplate) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+
+        copy.variables = new LinkedHashMap<>(this.variables);
+        for (Map.Entry<String, InterfaceVariable> entry : values.entrySet()) {
+            copy.set(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    /**
+     * Get the variables.
+     * @return The variables, by name (unmodifiable).
+     */
+    @Nonnull
+    public Map<String, InterfaceVariable> getVariables() {
+        return Collections.unmodifiableMap(this.variables);
+    }
+
+    /**
+     * Build the UI with the current variables.
+     * @return The UI.
+     */
+    @Nonnull
+    public String build() {
+        String ui = this.cachedUi;
+        if (ui == null) {
+            ui = this.preamble + HTMLCustomUITemplate.formatVariables(this.variables) + this.body;
+            this.cachedUi = ui;
+        }
+        return ui;
+    }
+
+    /**
+     * Get the event data codec of the template (see {@link HTMLCustomUITemplate#buildEventDataCodec()}).
+     * Generated templates return a codec built once, when the class is loaded.
+     * @return The codec.
+     */
+    @Nonnull
+    public abstract BuilderCodec<DynamicEventData> getEventDataCodec();
+}
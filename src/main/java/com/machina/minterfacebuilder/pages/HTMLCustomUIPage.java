@@ -3,7 +3,12 @@ package com.machina.minterfacebuilder.pages;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -18,8 +23,12 @@ import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.machina.minterfacebuilder.InterfaceBuilder;
+import com.machina.minterfacebuilder.cache.CompiledTemplateStore;
 import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
+import com.machina.minterfacebuilder.model.InterfaceVariable;
+import com.machina.minterfacebuilder.model.PrecompiledTemplate;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
+import com.machina.minterfacebuilder.util.customui.TreeDiff;
 
 /**
  * A Custom UI Page that builds its UI directly from HTML using the InterfaceBuilder parser.
@@ -86,12 +95,25 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
     @Nullable
     private HTMLCustomUITemplate cachedTemplate;
 
+    /**
+     * Whether the template is shared with other pages (cached or live reloaded): the page only builds it,
+     * and parses a private copy before handing it out (see {@link #parseHTML()}).
+     */
+    private boolean sharedTemplate;
+
     /**
      * Variables to override template variables.
      */
     @Nullable
     private Map<String, String> overrideVariables;
 
+    /**
+     * Values the page shows instead of those of its template, set by {@link #updateVariables}
+     * (the template may be cached and shown by other pages, so it is never changed).
+     */
+    @Nullable
+    private Map<String, InterfaceVariable> variableValues;
+
     /**
      * Output path for the HTML template file (user-customizable location).
      * This is the full path to the output file (including filename).
@@ -115,6 +137,49 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
     @Nullable
     private Path uiOutputPath;
 
+    /**
+     * The file the template was read from, re-rendered by {@link LiveReload} when it changes.
+     */
+    @Nullable
+    private Path templatePath;
+
+    /**
+     * The HTML read from the template file, parsed on first use when the UI may come from the
+     * persistent cache (see {@link CompiledTemplateStore}).
+     */
+    @Nullable
+    private String sourceHtml;
+
+    /**
+     * The template compiled at build time, shown without parsing (see {@link #fromPrecompiled}).
+     */
+    @Nullable
+    private PrecompiledTemplate precompiledTemplate;
+
+    /**
+     * Whether a page class builds its template with the default {@link #parseHTML()}, so its UI can
+     * come from the persistent cache without parsing.
+     */
+    private static final ClassValue<Boolean> DEFAULT_PARSE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> current = type; current != HTMLCustomUIPage.class; current = current.getSuperclass()) {
+                for (java.lang.reflect.Method method : current.getDeclaredMethods()) {
+                    if (method.getName().equals("parseHTML") && method.getParameterCount() == 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
+
+    /**
+     * The entity store of the player the page was last built for (its world runs the live reloads).
+     */
+    @Nullable
+    private Store<EntityStore> store;
+
     /**
      * Create a new HTMLCustomUIPage from a HTML file.
      * 
@@ -126,11 +191,15 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         this(playerRef, CustomPageLifetime.CanDismiss, eventDataCodec);
 
         try {
-            // Read HTML content from file
-            String html = Files.readString(htmlPath);
-            
-            // Parse HTML and cache the template
-            this.cachedTemplate = InterfaceBuilder.parse(html);
+            // Parse on first use if the UI may be cached on disk, otherwise through the template cache
+            // (where a warm-up may already have parsed the file)
+            if (CompiledTemplateStore.isEnabled()) {
+                this.sourceHtml = Files.readString(htmlPath);
+            } else {
+                this.cachedTemplate = InterfaceBuilder.parse(htmlPath);
+                this.sharedTemplate = true;
+            }
+            this.templatePath = htmlPath;
         } catch (IOException e) {
             throw new RuntimeException("Failed to read HTML file", e);
         }
@@ -389,16 +458,22 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
                         java.lang.reflect.Field outputPathField = HTMLCustomUIPage.class.getDeclaredField("outputPath");
                         java.lang.reflect.Field inputPathField = HTMLCustomUIPage.class.getDeclaredField("inputPath");
                         java.lang.reflect.Field cachedTemplateField = HTMLCustomUIPage.class.getDeclaredField("cachedTemplate");
+                        java.lang.reflect.Field templatePathField = HTMLCustomUIPage.class.getDeclaredField("templatePath");
+                        java.lang.reflect.Field sharedTemplateField = HTMLCustomUIPage.class.getDeclaredField("sharedTemplate");
                         
                         // Make fields accessible
                         outputPathField.setAccessible(true);
                         inputPathField.setAccessible(true);
                         cachedTemplateField.setAccessible(true);
+                        templatePathField.setAccessible(true);
+                        sharedTemplateField.setAccessible(true);
                         
                         // Copy values from temp instance to new instance
                         outputPathField.set(newInstance, outputPathField.get(tempInstance));
                         inputPathField.set(newInstance, inputPathField.get(tempInstance));
                         cachedTemplateField.set(newInstance, cachedTemplateField.get(tempInstance));
+                        templatePathField.set(newInstance, templatePathField.get(tempInstance));
+                        sharedTemplateField.set(newInstance, sharedTemplateField.get(tempInstance));
                     } catch (Exception ex2) {
                         // If we can't copy fields, just return new instance
                     }
@@ -421,8 +496,7 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
      */
     @Nonnull
     public static String build(@Nonnull String html) {
-        HTMLCustomUITemplate template = InterfaceBuilder.parse(html);
-        return template.build(new ComponentBuilderSettings(false));
+        return build(html, null);
     }
 
     /**
@@ -434,10 +508,15 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
      */
     @Nonnull
     public static String build(@Nonnull String html, @Nullable Map<String, String> variables) {
-        HTMLCustomUITemplate template = variables != null && !variables.isEmpty()
-            ? InterfaceBuilder.parse(html, variables)
-            : InterfaceBuilder.parse(html);
-        return template.build(new ComponentBuilderSettings(false));
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+
+        // Served from the persistent cache when it is on
+        return CompiledTemplateStore.getOrRender(html, variables, settings, () -> {
+            HTMLCustomUITemplate template = variables != null && !variables.isEmpty()
+                ? InterfaceBuilder.parse(html, variables)
+                : InterfaceBuilder.parse(html);
+            return template.build(settings);
+        });
     }
 
     /**
@@ -448,7 +527,7 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
      */
     @Nonnull
     public String buildInstance() {
-        HTMLCustomUITemplate template = this.parseHTML();
+        HTMLCustomUITemplate template = this.template();
         return template.build(new ComponentBuilderSettings(false));
     }
 
@@ -464,6 +543,8 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         this.outputPath = outputPath;
         // Clear cached template so it will be reloaded
         this.cachedTemplate = null;
+        this.sharedTemplate = false;
+        this.sourceHtml = null;
         return this;
     }
 
@@ -481,6 +562,8 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         this.inputPath = inputPath;
         // Clear cached template so it will be reloaded
         this.cachedTemplate = null;
+        this.sharedTemplate = false;
+        this.sourceHtml = null;
         return this;
     }
 
@@ -507,12 +590,51 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
      */
     @Nonnull
     protected HTMLCustomUITemplate parseHTML() {
+        this.loadTemplate();
+        return this.ownTemplate();
+    }
+
+    /**
+     * Get the loaded template as a template of this page only, parsing a private copy if it is shared
+     * (changes of the caller must not reach the other pages of the template).
+     */
+    private HTMLCustomUITemplate ownTemplate() {
+        HTMLCustomUITemplate template = this.cachedTemplate;
+        if (template != null && this.sharedTemplate) {
+            String html = template.getSource();
+            if (html == null) {
+                throw new IllegalStateException("The shared template has no HTML source to copy");
+            }
+            template = InterfaceBuilder.parse(html, template.getSourceVariables());
+            this.cachedTemplate = template;
+            this.sharedTemplate = false;
+        }
+        return template;
+    }
+
+    /**
+     * Get the template the page builds: the one of {@link #parseHTML()}, or with the default parsing the
+     * loaded template, which may be shared with other pages and is then only built.
+     */
+    private HTMLCustomUITemplate template() {
+        return DEFAULT_PARSE.get(this.getClass()) ? this.loadTemplate() : this.parseHTML();
+    }
+
+    /**
+     * Load the template of the page (see {@link #parseHTML()}), through the template cache if it is read
+     * from a file without override variables.
+     */
+    private HTMLCustomUITemplate loadTemplate() {
         if (this.cachedTemplate != null) {
             return this.cachedTemplate;
         }
 
         String html;
         
+        // Use the HTML read from the template file at construction, if any
+        if (this.sourceHtml != null) {
+            html = this.sourceHtml;
+        } else
         // Use HTMLCustomUITemplate.loadFromFile() if paths are set
         // This method handles: if output exists, use it; if not, copy from input to output and use output
         if (this.outputPath != null || this.inputPath != null) {
@@ -536,6 +658,7 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
                 }
                 
                 html = HTMLCustomUITemplate.loadFromFile(filename, outputDir, this.inputPath);
+                this.templatePath = this.outputPath != null ? this.outputPath : this.inputPath;
             } catch (java.io.FileNotFoundException e) {
                 String filename = this.outputPath != null ? this.outputPath.getFileName().toString() : "unknown";
                 throw new IllegalStateException("HTML template file not found: " + filename + 
@@ -550,10 +673,20 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
             throw new IllegalStateException("HTML template not configured. Call withOutputPath() and/or withInputPath() before using this page.");
         }
         
-        // Parse HTML with override variables if provided
-        HTMLCustomUITemplate template = this.overrideVariables != null && !this.overrideVariables.isEmpty()
-            ? InterfaceBuilder.parse(html, this.overrideVariables)
-            : InterfaceBuilder.parse(html);
+        // Parse HTML with override variables if provided (a template file without them through the template cache)
+        HTMLCustomUITemplate template;
+        if (this.overrideVariables != null && !this.overrideVariables.isEmpty()) {
+            template = InterfaceBuilder.parse(html, this.overrideVariables);
+        } else if (this.sourceHtml != null && this.templatePath != null) {
+            try {
+                template = InterfaceBuilder.parse(this.templatePath);
+                this.sharedTemplate = true;
+            } catch (IOException e) {
+                template = InterfaceBuilder.parse(html);
+            }
+        } else {
+            template = InterfaceBuilder.parse(html);
+        }
 
         // Cache the result
         this.cachedTemplate = template;
@@ -564,8 +697,25 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
     @Override
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
         // Parse HTML and get the UI string
-        HTMLCustomUITemplate template = this.parseHTML();
-        String uiString = template.build(new ComponentBuilderSettings(false));
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        String uiString;
+        if (this.cachedTemplate == null && this.precompiledTemplate != null) {
+            // Compiled at build time: no HTML to parse
+            uiString = this.precompiledTemplate.build();
+        } else if (this.cachedTemplate == null && this.sourceHtml != null && DEFAULT_PARSE.get(this.getClass())) {
+            // Pre-rendered UI from the persistent cache: the template is only parsed on a miss
+            uiString = CompiledTemplateStore.getOrRender(this.sourceHtml, this.overrideVariables, settings, () -> this.template().build(settings));
+        } else if (this.variableValues != null) {
+            uiString = this.template().build(settings, this.variableValues);
+        } else {
+            uiString = this.template().build(settings);
+        }
+
+        // Track the open page to re-render it when its template file changes
+        this.store = store;
+        if (this.templatePath != null) {
+            LiveReload.register(this, this.templatePath);
+        }
 
         // Limit UI string to 4MB to prevent server overload
         final long MAX_UI_SIZE = 4L * 1024 * 1024; // 4MB in bytes
@@ -604,8 +754,8 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         // Create empty Group #MIBRoot first (required for HTMLCustomUIPage to display)
         commandBuilder.append("Pages/MInterfaceBuilder_Dummy.ui");
         
-        // Append the UI inline to the #MIBRoot group
-        commandBuilder.appendInline("#MIBRoot", uiString);
+        // Append the UI to the #MIBRoot group (by reference if it is a static asset, see StaticUIAssets)
+        StaticUIAssets.append(commandBuilder, "#MIBRoot", uiString);
 
         // Allow subclasses to add custom bindings or modifications
         this.buildCustom(ref, commandBuilder, eventBuilder, store);
@@ -624,14 +774,203 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         // Default: do nothing, subclasses can override
     }
 
+    @Override
+    public void onDismiss(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        super.onDismiss(ref, store);
+        LiveReload.unregister(this);
+    }
+
+    /**
+     * Show a new version of the template (called by {@link LiveReload} on the world thread).
+     * <p>
+     * Only the children of the components that changed are sent (see {@link TreeDiff}). The page is
+     * rebuilt instead when the aliases or variables changed, or when the root itself changed.
+     * Event bindings added by {@link #buildCustom} to elements inside a replaced subtree may need
+     * a {@link #rebuild()}.
+     * </p>
+     * @param template The new template.
+     */
+    void reloadTemplate(@Nonnull HTMLCustomUITemplate template) {
+        HTMLCustomUITemplate previous = this.cachedTemplate;
+        this.cachedTemplate = template;
+        this.sharedTemplate = true;
+        if (previous == template) {
+            return;
+        }
+        if (previous == null) {
+            // Shown from the persistent cache: there is no tree to diff
+            this.rebuild();
+            return;
+        }
+
+        Map<String, InterfaceVariable> values = this.variableValues != null ? this.variableValues : Map.of();
+        String header = template.buildHeader(values);
+        List<TreeDiff.Fragment> fragments = previous.buildHeader(values).equals(header)
+            ? TreeDiff.diff(previous, template, header, new ComponentBuilderSettings(false))
+            : null;
+
+        if (fragments == null) {
+            this.rebuild();
+            return;
+        }
+
+        if (!fragments.isEmpty()) {
+            UICommandBuilder commandBuilder = new UICommandBuilder();
+            for (TreeDiff.Fragment fragment : fragments) {
+                commandBuilder.clear(fragment.getSelector());
+                commandBuilder.appendInline(fragment.getSelector(), fragment.getUi());
+            }
+            this.sendUpdate(commandBuilder);
+        }
+    }
+
+    /**
+     * Refresh variables of the open page.
+     * <p>
+     * Only the data is sent: the client keeps the page structure it shows, and each element showing a
+     * changed variable gets a property update (see {@link com.machina.minterfacebuilder.util.customui.DataBindings}).
+     * If a changed variable is also shown where no property update reaches it, the page is sent again, as is a
+     * page compiled at build time. The value of a variable substituted while parsing (e.g., {@code :text="@Title"})
+     * is in the component tree itself, so a change of it has the page parsed again with the new values.
+     * The values are kept by the page: its template, which may be shared with other pages, is left unchanged.
+     * </p>
+     * @param values The new values, by variable name (with or without @), converted to the type of the variable.
+     * @throws IllegalArgumentException If the template has no such variable.
+     */
+    public void updateVariables(@Nonnull Map<String, String> values) {
+        // Compiled at build time: the page shows a copy of the template with the new values
+        if (this.cachedTemplate == null && this.precompiledTemplate != null) {
+            Map<String, InterfaceVariable> changed = changedVariables(values, this.precompiledTemplate.getVariables()::get);
+            if (!changed.isEmpty()) {
+                this.precompiledTemplate = this.precompiledTemplate.with(changed);
+                this.rebuild();
+            }
+            return;
+        }
+
+        HTMLCustomUITemplate template = this.template();
+        Map<String, InterfaceVariable> shown = this.variableValues != null ? this.variableValues : Map.of();
+        Map<String, InterfaceVariable> changed = changedVariables(values, name -> {
+            InterfaceVariable variable = template.getVariableTyped(name);
+            return variable != null ? shown.getOrDefault(name, variable) : null;
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // Kept by the page instead of written to the template, which may be cached and shown by other pages
+        Map<String, InterfaceVariable> pageValues = new HashMap<>(shown);
+        pageValues.putAll(changed);
+        this.variableValues = pageValues;
+
+        // Keep the overrides in sync, so a live reload shows the same data
+        Map<String, String> overrides = this.overrideVariables != null ? new HashMap<>(this.overrideVariables) : new HashMap<>();
+        for (Map.Entry<String, InterfaceVariable> entry : changed.entrySet()) {
+            overrides.put(entry.getKey(), entry.getValue().getValue());
+        }
+        this.overrideVariables = overrides;
+
+        // Values substituted while parsing (e.g., :text="@Title") are in the component tree: the page is sent
+        // again with a template of its own parsed with the new values
+        if (!Collections.disjoint(changed.keySet(), template.getSubstitutedVariables())) {
+            String html = template.getSource();
+            if (html == null) {
+                throw new IllegalStateException("The template has no HTML source to parse with the new values");
+            }
+            Map<String, String> variables = new HashMap<>(template.getSourceVariables());
+            variables.putAll(overrides);
+            this.cachedTemplate = InterfaceBuilder.parse(html, variables);
+            this.sharedTemplate = false;
+            this.rebuild();
+            return;
+        }
+
+        UICommandBuilder commandBuilder = new UICommandBuilder();
+        if (template.getDataBindings().apply(commandBuilder, changed)) {
+            this.sendUpdate(commandBuilder);
+        } else {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Convert new values to the types of the variables they replace, keeping the ones that change.
+     * @param values The new values, by variable name (with or without @).
+     * @param current The shown variables, by name (null if there is no such variable).
+     * @return The changed variables, by name (without @).
+     * @throws IllegalArgumentException If there is no such variable.
+     */
+    private static Map<String, InterfaceVariable> changedVariables(Map<String, String> values, Function<String, InterfaceVariable> current) {
+        Map<String, InterfaceVariable> changed = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String name = entry.getKey().startsWith("@") ? entry.getKey().substring(1) : entry.getKey();
+            InterfaceVariable shown = current.apply(name);
+            if (shown == null) {
+                throw new IllegalArgumentException("Unknown template variable: " + name);
+            }
+
+            InterfaceVariable variable = withValue(shown.getType(), entry.getValue());
+            if (!variable.equals(shown)) {
+                changed.put(name, variable);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Create a variable of a given type from its text.
+     */
+    private static InterfaceVariable withValue(InterfaceVariable.Type type, String value) {
+        switch (type) {
+            case BOOLEAN:
+                return InterfaceVariable.booleanValue(value);
+            case COLOR:
+                return InterfaceVariable.colorValue(value);
+            case LITERAL:
+                return InterfaceVariable.literalValue(value);
+            case STRING:
+            default:
+                return InterfaceVariable.stringValue(value);
+        }
+    }
+
+    /**
+     * Get the file the template was read from.
+     * @return The template path, or null if the template was not read from a file.
+     */
+    @Nullable
+    public Path getTemplatePath() {
+        return this.templatePath;
+    }
+
+    /**
+     * Get the variables overriding the template variables.
+     * @return The override variables, or null if none.
+     */
+    @Nullable
+    Map<String, String> getOverrideVariables() {
+        return this.overrideVariables;
+    }
+
+    /**
+     * Get the entity store of the player the page was last built for.
+     * @return The store, or null if the page was not built yet.
+     */
+    @Nullable
+    Store<EntityStore> getStore() {
+        return this.store;
+    }
+
     /**
      * Get the parsed template (useful for accessing variables or components).
+     * The values set by {@link #updateVariables} are kept by the page, not in the template, and a template
+     * shared with other pages is copied first, so changes to it only affect this page.
      * 
      * @return The parsed Custom UI template, or null if not yet parsed.
      */
     @Nullable
     public HTMLCustomUITemplate getParsedTemplate() {
-        return this.cachedTemplate;
+        return this.ownTemplate();
     }
 
     /**
@@ -643,7 +982,10 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
      */
     @Nonnull
     public BuilderCodec<HTMLCustomUITemplate.DynamicEventData> buildEventDataCodec() {
-        HTMLCustomUITemplate template = this.parseHTML();
+        if (this.cachedTemplate == null && this.precompiledTemplate != null) {
+            return this.precompiledTemplate.getEventDataCodec();
+        }
+        HTMLCustomUITemplate template = this.template();
         return template.buildEventDataCodec();
     }
 
@@ -677,6 +1019,35 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         return page;
     }
 
+    /**
+     * Create a new HTMLCustomUIPage from a template compiled at build time, with default lifetime (CanDismiss).
+     * 
+     * @param <T> The event data type.
+     * @param eventDataCodec The event data codec (e.g., {@link PrecompiledTemplate#getEventDataCodec()}).
+     * @param template The compiled template (its variables can still be set until the page is built).
+     * @return A new HTMLCustomUIPage instance.
+     */
+    @Nonnull
+    public static <T> HTMLCustomUIPage<T> fromPrecompiled(@Nonnull PlayerRef playerRef, @Nonnull BuilderCodec<T> eventDataCodec, @Nonnull PrecompiledTemplate template) {
+        return fromPrecompiled(playerRef, null, eventDataCodec, template);
+    }
+
+    /**
+     * Create a new HTMLCustomUIPage from a template compiled at build time.
+     * 
+     * @param <T> The event data type.
+     * @param lifetime The page lifetime (defaults to CanDismiss if null).
+     * @param eventDataCodec The event data codec (e.g., {@link PrecompiledTemplate#getEventDataCodec()}).
+     * @param template The compiled template (its variables can still be set until the page is built).
+     * @return A new HTMLCustomUIPage instance.
+     */
+    @Nonnull
+    public static <T> HTMLCustomUIPage<T> fromPrecompiled(@Nonnull PlayerRef playerRef, @Nullable CustomPageLifetime lifetime, @Nonnull BuilderCodec<T> eventDataCodec, @Nonnull PrecompiledTemplate template) {
+        HTMLCustomUIPage<T> page = new HTMLCustomUIPage<T>(playerRef, lifetime, eventDataCodec);
+        page.precompiledTemplate = template;
+        return page;
+    }
+
     /**
      * Create a new HTMLCustomUIPage from HTML string with variables and default lifetime (CanDismiss).
      * 
@@ -739,11 +1110,15 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
     public static <T> HTMLCustomUIPage<T> fromFile(@Nonnull PlayerRef playerRef, @Nullable CustomPageLifetime lifetime, @Nonnull BuilderCodec<T> eventDataCodec, @Nonnull Path htmlPath) {
         HTMLCustomUIPage<T> page = new HTMLCustomUIPage<T>(playerRef, lifetime, eventDataCodec);
         try {
-            // Read HTML content from file
-            String html = Files.readString(htmlPath);
-            
-            // Parse HTML immediately and cache it
-            page.cachedTemplate = InterfaceBuilder.parse(html);
+            // Parse on first use if the UI may be cached on disk, otherwise through the template cache
+            // (where a warm-up may already have parsed the file)
+            if (CompiledTemplateStore.isEnabled()) {
+                page.sourceHtml = Files.readString(htmlPath);
+            } else {
+                page.cachedTemplate = InterfaceBuilder.parse(htmlPath);
+                page.sharedTemplate = true;
+            }
+            page.templatePath = htmlPath;
         } catch (IOException e) {
             throw new RuntimeException("Failed to read HTML file: " + htmlPath, e);
         }
@@ -779,13 +1154,14 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
     public static <T> HTMLCustomUIPage<T> fromFile(@Nonnull PlayerRef playerRef, @Nullable CustomPageLifetime lifetime, @Nonnull BuilderCodec<T> eventDataCodec, @Nonnull Path htmlPath, @Nullable Map<String, String> variables) {
         HTMLCustomUIPage<T> page = new HTMLCustomUIPage<T>(playerRef, lifetime, eventDataCodec, variables);
         try {
-            // Read HTML content from file
-            String html = Files.readString(htmlPath);
-            
-            // Parse HTML immediately and cache it (with variables if provided)
-            page.cachedTemplate = variables != null && !variables.isEmpty()
-                ? InterfaceBuilder.parse(html, variables)
-                : InterfaceBuilder.parse(html);
+            // Parse HTML immediately and cache it (with variables if provided, through the template cache otherwise)
+            if (CompiledTemplateStore.isEnabled()) {
+                page.sourceHtml = Files.readString(htmlPath);
+            } else {
+                page.cachedTemplate = InterfaceBuilder.parse(htmlPath, variables);
+                page.sharedTemplate = variables == null || variables.isEmpty();
+            }
+            page.templatePath = htmlPath;
         } catch (IOException e) {
             throw new RuntimeException("Failed to read HTML file: " + htmlPath, e);
         }
@@ -821,6 +1197,7 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
         try {
             // Parse asset immediately and cache it
             page.cachedTemplate = InterfaceBuilder.parseAsset(assetPath);
+            page.sharedTemplate = true;
         } catch (java.io.IOException e) {
             throw new RuntimeException("Failed to parse asset: " + assetPath, e);
         }
@@ -860,6 +1237,7 @@ public class HTMLCustomUIPage<T> extends InteractiveCustomUIPage<T> {
             page.cachedTemplate = variables != null && !variables.isEmpty()
                 ? InterfaceBuilder.parseAsset(assetPath, variables)
                 : InterfaceBuilder.parseAsset(assetPath);
+            page.sharedTemplate = variables == null || variables.isEmpty();
         } catch (java.io.IOException e) {
             throw new RuntimeException("Failed to parse asset: " + assetPath, e);
         }
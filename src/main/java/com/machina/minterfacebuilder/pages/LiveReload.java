@@ -0,0 +1,224 @@
+package com.machina.minterfacebuilder.pages;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.machina.minterfacebuilder.InterfaceBuilder;
+import com.machina.minterfacebuilder.cache.FileWatcher;
+import com.machina.minterfacebuilder.cache.TemplateCache;
+import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
+
+/**
+ * Live reload of the open HTML pages when their template file changes.
+ * <p>
+ * Open pages whose template was read from a file (e.g., {@link HTMLCustomUIPage#fromFile}) are tracked
+ * by path. When the file changes, only the pages showing it are updated: each one is sent the subtrees
+ * that changed (see {@link HTMLCustomUIPage#reloadTemplate}), and the updates of a batch of changes run in
+ * one task per world. Pages without override variables are diffed against the version the template cache
+ * reloads; the others against one compiled per set of override variables.
+ * </p>
+ * <p>
+ * Pages built in code ({@link com.machina.minterfacebuilder.util.customui.PageBuilder}) have no template
+ * file and are not tracked. Live reload is meant for development and is off until {@link #enable()} is called.
+ * </p>
+ */
+public final class LiveReload {
+    /**
+     * Lock guarding the open pages.
+     */
+    private static final Object lock = new Object();
+
+    /**
+     * Open pages by normalized template path (weakly held, in case a page is never dismissed).
+     */
+    private static final Map<Path, Set<HTMLCustomUIPage<?>>> openPages = new HashMap<>();
+
+    /**
+     * Listener of the file watcher.
+     */
+    private static final Consumer<Set<Path>> listener = LiveReload::reload;
+
+    /**
+     * Whether live reload is enabled.
+     */
+    private static volatile boolean enabled = false;
+
+    private LiveReload() { }
+
+    /**
+     * Enable live reload, watching the templates of the open pages.
+     */
+    public static void enable() {
+        synchronized (lock) {
+            if (enabled) {
+                return;
+            }
+            enabled = true;
+
+            FileWatcher.addChangeListener(listener);
+            for (Path path : openPages.keySet()) {
+                watch(path);
+            }
+        }
+    }
+
+    /**
+     * Disable live reload. The open pages are still tracked, to be watched again by {@link #enable()}.
+     */
+    public static void disable() {
+        synchronized (lock) {
+            enabled = false;
+            FileWatcher.removeChangeListener(listener);
+        }
+    }
+
+    /**
+     * Check if live reload is enabled.
+     * @return True if enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Track an open page.
+     * @param page The page.
+     * @param templatePath The file its template was read from.
+     */
+    static void register(HTMLCustomUIPage<?> page, Path templatePath) {
+        Path path = templatePath.normalize().toAbsolutePath();
+
+        synchronized (lock) {
+            boolean watched = openPages.containsKey(path);
+            openPages.computeIfAbsent(path, key -> Collections.newSetFromMap(new WeakHashMap<>())).add(page);
+
+            if (enabled && !watched) {
+                watch(path);
+            }
+        }
+    }
+
+    /**
+     * Stop tracking a page.
+     * @param page The page.
+     */
+    static void unregister(HTMLCustomUIPage<?> page) {
+        Path templatePath = page.getTemplatePath();
+        if (templatePath == null) {
+            return;
+        }
+        Path path = templatePath.normalize().toAbsolutePath();
+
+        synchronized (lock) {
+            Set<HTMLCustomUIPage<?>> pages = openPages.get(path);
+            if (pages != null && pages.remove(page) && pages.isEmpty()) {
+                openPages.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Get the number of open pages showing a template.
+     * @param templatePath The template file.
+     * @return The number of tracked pages.
+     */
+    public static int getOpenPageCount(Path templatePath) {
+        synchronized (lock) {
+            Set<HTMLCustomUIPage<?>> pages = openPages.get(templatePath.normalize().toAbsolutePath());
+            return pages != null ? pages.size() : 0;
+        }
+    }
+
+    /**
+     * Watch a template file.
+     * Must be called with the lock held.
+     * @param path The normalized absolute path.
+     */
+    private static void watch(Path path) {
+        try {
+            FileWatcher.watchFile(path);
+        } catch (IOException e) {
+            InterfaceBuilder.getLogger().log(Level.WARNING, "Failed to watch template for live reload: " + path, e);
+        }
+    }
+
+    /**
+     * Re-render the open pages of a batch of changed files (called on the watch thread).
+     * @param changed The changed files.
+     */
+    private static void reload(Set<Path> changed) {
+        Map<World, List<Runnable>> updates = new LinkedHashMap<>();
+
+        for (Path path : changed) {
+            List<HTMLCustomUIPage<?>> pages;
+            synchronized (lock) {
+                Set<HTMLCustomUIPage<?>> open = openPages.get(path);
+                if (open == null || open.isEmpty()) {
+                    continue;
+                }
+                pages = new ArrayList<>(open);
+            }
+
+            if (!Files.exists(path)) {
+                // Deleted: the pages keep showing the last version
+                continue;
+            }
+
+            // The file watcher already reloads the cached template: wait for it rather than parse the file again
+            TemplateCache.await(path);
+
+            // Compile once per set of override variables (those without any come from the template cache)
+            Map<Map<String, String>, HTMLCustomUITemplate> compiled = new HashMap<>();
+            try {
+                for (HTMLCustomUIPage<?> page : pages) {
+                    Store<EntityStore> store = page.getStore();
+                    World world = store != null ? store.getExternalData().getWorld() : null;
+                    if (world == null) {
+                        continue;
+                    }
+
+                    Map<String, String> variables = page.getOverrideVariables() != null ? page.getOverrideVariables() : Map.of();
+                    HTMLCustomUITemplate template = compiled.get(variables);
+                    if (template == null) {
+                        template = InterfaceBuilder.parse(path, variables);
+                        compiled.put(variables, template);
+                    }
+                    HTMLCustomUITemplate reloaded = template;
+
+                    updates.computeIfAbsent(world, key -> new ArrayList<>()).add(() -> page.reloadTemplate(reloaded));
+                }
+            } catch (IOException | RuntimeException e) {
+                // Unreadable or not compiling: the pages keep showing the last version
+                InterfaceBuilder.getLogger().log(Level.WARNING, "Failed to compile template for live reload: " + path, e);
+            }
+        }
+
+        // One task per world for the whole batch
+        for (Map.Entry<World, List<Runnable>> entry : updates.entrySet()) {
+            List<Runnable> pageUpdates = entry.getValue();
+            entry.getKey().execute(() -> {
+                for (Runnable update : pageUpdates) {
+                    try {
+                        update.run();
+                    } catch (RuntimeException e) {
+                        InterfaceBuilder.getLogger().log(Level.WARNING, "Failed to live reload page", e);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.machina.minterfacebuilder.pages;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.machina.minterfacebuilder.util.PluginAsset;
+
+/**
+ * Static-asset page mode: pages whose UI is an asset of the plugin's AssetPack are opened by reference
+ * instead of sending the whole UI inline on every open.
+ * <p>
+ * Assets are named by the hash of their content ({@code Common/UI/Custom/Pages/MIB_<hash>.ui}), so a
+ * changed UI is a new asset and never a stale one. A page whose UI is not an asset (e.g., other variable
+ * values) is sent inline as before, and updates after the page is open (e.g., {@link LiveReload}) are
+ * sent inline either way.
+ * </p>
+ * <p>
+ * Clients receive the AssetPack when they join, so assets are registered at plugin start (or shipped in the
+ * pack, where {@link #setAssetPack} finds them), never when a page is opened. Assets are never overwritten,
+ * so the ones of UIs that changed since an earlier start stay in the pack until {@link #prune()} deletes
+ * the assets not registered since the pack was set:
+ * </p>
+ * <pre>
+ * StaticUIAssets.enable(this);
+ * StaticUIAssets.register(new LoginTemplate().build());
+ * StaticUIAssets.prune();
+ * </pre>
+ */
+public final class StaticUIAssets {
+    /**
+     * Directory of the assets in the AssetPack (the root of UI document paths is Common/UI/Custom).
+     */
+    private static final String ASSET_DIRECTORY = "Common/UI/Custom/Pages";
+
+    /**
+     * Prefix of the asset names.
+     */
+    private static final String PREFIX = "MIB_";
+
+    /**
+     * Number of bytes of the content hash in the asset names.
+     */
+    private static final int HASH_BYTES = 16;
+
+    /**
+     * Number of UIs whose asset name is remembered (a power of two).
+     */
+    private static final int NAME_CACHE_SIZE = 64;
+
+    /**
+     * The asset directory of the AssetPack, or null if the mode is off.
+     */
+    @Nullable
+    private static volatile Path directory = null;
+
+    /**
+     * Names of the assets of the AssetPack (found or registered), by name.
+     */
+    private static final Set<String> assets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Names of the assets registered since the AssetPack was set (kept by {@link #prune()}).
+     */
+    private static final Set<String> registered = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Lengths of the UIs of the assets, so a UI of another length is not hashed.
+     */
+    private static final Set<Integer> lengths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Asset names of the last UIs looked up, by identity hash of the UI: a page shows the same UI
+     * instance on every open (its template caches the output), which is then hashed once.
+     */
+    private static final AtomicReferenceArray<NamedUI> names = new AtomicReferenceArray<>(NAME_CACHE_SIZE);
+
+    /**
+     * A UI with its asset name (the UI is not kept alive by the cache).
+     */
+    private static final class NamedUI extends WeakReference<String> {
+        private final String name;
+
+        private NamedUI(String ui, String name) {
+            super(ui);
+            this.name = name;
+        }
+    }
+
+    private StaticUIAssets() { }
+
+    /**
+     * Enable the static-asset mode with the AssetPack of a plugin.
+     * @param plugin The JavaPlugin instance (see {@link PluginAsset#of(Object)}).
+     * @throws IOException If the AssetPack is not found or its assets cannot be read.
+     */
+    public static void enable(@Nonnull Object plugin) throws IOException {
+        Path packRoot = PluginAsset.of(plugin);
+        if (packRoot == null) {
+            throw new IOException("AssetPack not found for plugin: " + plugin.getClass().getName());
+        }
+        setAssetPack(packRoot);
+    }
+
+    /**
+     * Set the AssetPack the assets are registered in, registering the assets it already holds.
+     * @param packRoot The root of the AssetPack, or null to turn the mode off.
+     * @throws IOException If the asset directory cannot be created or read.
+     */
+    public static synchronized void setAssetPack(@Nullable Path packRoot) throws IOException {
+        directory = null;
+        assets.clear();
+        registered.clear();
+        lengths.clear();
+        if (packRoot == null) {
+            return;
+        }
+
+        Path assetDirectory = Files.createDirectories(packRoot.resolve(ASSET_DIRECTORY));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(assetDirectory, PREFIX + "*.ui")) {
+            for (Path asset : files) {
+                String ui = Files.readString(asset, StandardCharsets.UTF_8);
+
+                // Only assets whose name matches their content, so an edited asset is not referenced
+                String name = asset.getFileName().toString();
+                if (name.equals(assetName(ui))) {
+                    lengths.add(ui.length());
+                    assets.add(name);
+                }
+            }
+        }
+        directory = assetDirectory;
+    }
+
+    /**
+     * Check if the static-asset mode is on.
+     * @return True if an AssetPack is set.
+     */
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Register a UI as an asset of the AssetPack, writing it if needed.
+     * @param ui The UI.
+     * @return The document path of the asset (e.g., "Pages/MIB_0123abcd.ui").
+     * @throws IllegalStateException If the mode is off.
+     * @throws IOException If the asset cannot be written.
+     */
+    @Nonnull
+    public static String register(@Nonnull String ui) throws IOException {
+        Path assetDirectory = directory;
+        if (assetDirectory == null) {
+            throw new IllegalStateException("Static UI assets are not enabled. Call StaticUIAssets.enable() first.");
+        }
+
+        String name = cachedAssetName(ui);
+        registered.add(name);
+        if (assets.contains(name)) {
+            return documentPath(name);
+        }
+
+        Path asset = assetDirectory.resolve(name);
+        if (!Files.isRegularFile(asset)) {
+            // Written to a temporary file, then moved in place, so the asset is never seen half-written
+            Path temp = Files.createTempFile(assetDirectory, name, ".tmp");
+            try {
+                Files.writeString(temp, ui, StandardCharsets.UTF_8);
+                Files.move(temp, asset, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        lengths.add(ui.length());
+        assets.add(name);
+        return documentPath(name);
+    }
+
+    /**
+     * Delete the assets of the AssetPack that were not registered since it was set (e.g., the UIs of an
+     * earlier version of the plugin). Call it once every UI of the plugin is registered.
+     * @return The number of deleted assets.
+     * @throws IllegalStateException If the mode is off.
+     * @throws IOException If the asset directory cannot be read or an asset cannot be deleted.
+     */
+    public static synchronized int prune() throws IOException {
+        Path assetDirectory = directory;
+        if (assetDirectory == null) {
+            throw new IllegalStateException("Static UI assets are not enabled. Call StaticUIAssets.enable() first.");
+        }
+
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(assetDirectory, PREFIX + "*.ui")) {
+            for (Path asset : files) {
+                String name = asset.getFileName().toString();
+                if (!registered.contains(name)) {
+                    assets.remove(name);
+                    Files.deleteIfExists(asset);
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Get the document path of a registered UI.
+     * @param ui The UI.
+     * @return The document path, or null if the UI is not an asset (or the mode is off).
+     */
+    @Nullable
+    public static String getDocumentPath(@Nonnull String ui) {
+        if (directory == null || assets.isEmpty() || !lengths.contains(ui.length())) {
+            return null;
+        }
+
+        String name = cachedAssetName(ui);
+        return assets.contains(name) ? documentPath(name) : null;
+    }
+
+    /**
+     * Append a UI to the root group of a page: by reference if it is an asset, inline otherwise.
+     * @param commandBuilder The command builder of the page.
+     * @param selector The root group (e.g., "#MIBRoot").
+     * @param ui The UI.
+     */
+    public static void append(@Nonnull UICommandBuilder commandBuilder, @Nonnull String selector, @Nonnull String ui) {
+        String document = getDocumentPath(ui);
+        if (document != null) {
+            commandBuilder.append(selector, document);
+        } else {
+            commandBuilder.appendInline(selector, ui);
+        }
+    }
+
+    /**
+     * Get the asset name of a UI, hashing each UI instance once while it is among the last ones looked up.
+     */
+    private static String cachedAssetName(String ui) {
+        int slot = System.identityHashCode(ui) & (NAME_CACHE_SIZE - 1);
+        NamedUI cached = names.get(slot);
+        if (cached != null && cached.get() == ui) {
+            return cached.name;
+        }
+
+        String name = assetName(ui);
+        names.set(slot, new NamedUI(ui, name));
+        return name;
+    }
+
+    /**
+     * Get the asset name of a UI (its content hash).
+     */
+    private static String assetName(String ui) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] hash = digest.digest(ui.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder name = new StringBuilder(PREFIX);
+        for (int i = 0; i < HASH_BYTES; i++) {
+            name.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return name.append(".ui").toString();
+    }
+
+    /**
+     * Get the document path of an asset.
+     */
+    private static String documentPath(String name) {
+        return "Pages/" + name;
+    }
+}
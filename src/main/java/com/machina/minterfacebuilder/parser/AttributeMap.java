@@ -0,0 +1,72 @@
+package com.machina.minterfacebuilder.parser;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.machina.minterfacebuilder.util.customui.PropertyKeys;
+
+/**
+ * Attribute map returned by {@link HTMLAttributeParser}.
+ * <p>
+ * Keys are stored as parsed (capitalized and interned, e.g. "Text", "MaxLength"), and lookups fall back
+ * to a case-insensitive match through {@link PropertyKeys}, so "text", "maxlength" and "MaxLength" all
+ * resolve to the same attribute without building temporary strings. This lets components written
+ * against lowercase HTML names (e.g. custom tags reading "data" or "text") see parsed attributes.
+ * </p>
+ */
+final class AttributeMap extends AbstractMap<String, String> {
+    private final Map<String, String> entries = new HashMap<>();
+
+    /**
+     * Resolve a key to the stored spelling.
+     * @return The stored key, or null if not present.
+     */
+    private String resolve(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        if (this.entries.containsKey(key)) {
+            return (String) key;
+        }
+        return PropertyKeys.findIgnoreCase(this.entries, (String) key);
+    }
+
+    @Override
+    public String get(Object key) {
+        String value = this.entries.get(key);
+        if (value != null) {
+            return value;
+        }
+
+        String stored = this.resolve(key);
+        return stored != null ? this.entries.get(stored) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.resolve(key) != null;
+    }
+
+    @Override
+    public String put(String key, String value) {
+        return this.entries.put(key, value);
+    }
+
+    @Override
+    public String remove(Object key) {
+        String stored = this.resolve(key);
+        return stored != null ? this.entries.remove(stored) : null;
+    }
+
+    @Override
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return this.entries.entrySet();
+    }
+}
@@ -8,6 +8,7 @@ import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 import com.machina.minterfacebuilder.helpers.Alignment;
+import com.machina.minterfacebuilder.helpers.FontSize;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 
@@ -141,7 +142,7 @@ public class CSSStyleParser {
             case "color":
                 // Convert color value (RGB/RGBA to HEX/RGB(opacity))
                 String convertedColor = convertColorValue(value);
-                component.setStyle("TextColor", convertedColor);
+                component.setStyle("TextColor", typedValue(convertedColor));
                 break;
 
             case "background-color":
@@ -155,7 +156,7 @@ public class CSSStyleParser {
                         !backgroundValue.contains("://")) {
                         backgroundValue = convertColorValue(backgroundValue);
                     }
-                    component.setProperty("Background", backgroundValue);
+                    component.setProperty("Background", typedValue(backgroundValue));
                 }
                 break;
 
@@ -332,7 +333,7 @@ public class CSSStyleParser {
 
             case "font-weight":
                 if (value.equals("bold") || value.equals("700") || value.equals("800") || value.equals("900")) {
-                    component.setStyle("RenderBold", "true");
+                    component.setStyle("RenderBold", true);
                 }
                 break;
 
@@ -340,7 +341,7 @@ public class CSSStyleParser {
                 // Parse font size (e.g., "16px", "1.2em", "12")
                 try {
                     int fontSizeValue = parseSize(value);
-                    component.setStyle("FontSize", String.valueOf(fontSizeValue));
+                    component.setStyle("FontSize", FontSize.of(fontSizeValue));
                 } catch (NumberFormatException e) {
                     // Ignore invalid font-size
                 }
@@ -416,11 +417,23 @@ public class CSSStyleParser {
             case "text-outline-color":
                 // Text outline color - convert RGB/RGBA to HEX/RGB(opacity)
                 String convertedOutlineColor = convertColorValue(value);
-                component.setStyle("OutlineColor", convertedOutlineColor);
+                component.setStyle("OutlineColor", typedValue(convertedOutlineColor));
                 break;
         }
     }
 
+    /**
+     * Classify a converted value once (see {@link ComponentBuilder#typedValue(String)}), so builds don't re-classify it.
+     * @param value The converted value.
+     * @return The typed value, or the value itself if it is blank.
+     */
+    private static Object typedValue(String value) {
+        if (value == null || value.isBlank()) {
+            return value;
+        }
+        return ComponentBuilder.typedValue(value);
+    }
+
     /**
      * Parse a size value (e.g., "100px", "50%", "100").
      * @param sizeStr The size string.
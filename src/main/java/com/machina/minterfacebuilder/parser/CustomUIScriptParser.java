@@ -4,11 +4,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.machina.minterfacebuilder.model.InterfaceVariable;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+import com.machina.minterfacebuilder.util.customui.PropertyKeys;
 
 /**
  * Parser for script content inside &lt;script type="text/customui"&gt;&lt;/script&gt; tags.
@@ -20,6 +22,16 @@ import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
  * </p>
  */
 public class CustomUIScriptParser {
+    /**
+     * Capitalized (and interned) property names by raw attribute or property name.
+     */
+    private static final Map<String, String> CAPITALIZED_NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of cached capitalized names.
+     */
+    private static final int MAX_CAPITALIZED_NAMES = 4096;
+
     /**
      * Pattern to match custom alias assignments (starting with $).
      * Format: $Alias = "path" or $Alias = path
@@ -190,24 +202,44 @@ public class CustomUIScriptParser {
             return propertyName;
         }
 
-        // Handle kebab-case (prop-name)
-        if (propertyName.contains("-")) {
-            StringBuilder result = new StringBuilder();
-            String[] parts = propertyName.split("-");
-            for (String part : parts) {
-                if (!part.isEmpty()) {
-                    // Capitalize first letter, lowercase rest
-                    result.append(Character.toUpperCase(part.charAt(0)));
-                    if (part.length() > 1) {
-                        result.append(part.substring(1).toLowerCase());
-                    }
-                }
-            }
-            return result.toString();
+        // Attribute names repeat across elements, so each one is converted and interned once
+        String capitalized = CAPITALIZED_NAMES.get(propertyName);
+        if (capitalized != null) {
+            return capitalized;
+        }
+
+        capitalized = PropertyKeys.intern(toPascalCase(propertyName));
+        if (CAPITALIZED_NAMES.size() < MAX_CAPITALIZED_NAMES) {
+            CAPITALIZED_NAMES.put(propertyName, capitalized);
         }
 
+        return capitalized;
+    }
+
+    /**
+     * Convert a property name to PascalCase (see {@link #capitalizePropertyName(String)}).
+     * @param propertyName The property name (not empty).
+     * @return The PascalCase property name.
+     */
+    private static String toPascalCase(String propertyName) {
         // Handle camelCase or simple names
         // Capitalize first letter
-        return Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+        if (propertyName.indexOf('-') < 0) {
+            return Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+        }
+
+        // Handle kebab-case (prop-name): capitalize first letter of each part, lowercase rest
+        StringBuilder result = new StringBuilder(propertyName.length());
+        boolean partStart = true;
+        for (int i = 0; i < propertyName.length(); i++) {
+            char c = propertyName.charAt(i);
+            if (c == '-') {
+                partStart = true;
+            } else {
+                result.append(partStart ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                partStart = false;
+            }
+        }
+        return result.toString();
     }
 }
@@ -1,6 +1,5 @@
 package com.machina.minterfacebuilder.parser;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -70,10 +69,10 @@ public class HTMLAttributeParser {
      *
      * @param attributesStr The attribute string.
      * @param variables The variables map for substitution.
-     * @return A map of attribute names to values.
+     * @return A map of attribute names to values (lookups ignore case, e.g. "text" finds "Text").
      */
     public static Map<String, String> parseAttributes(String attributesStr, Map<String, InterfaceVariable> variables) {
-        Map<String, String> attributes = new HashMap<>();
+        Map<String, String> attributes = new AttributeMap();
 
         // Parse quoted attributes
         Matcher attrMatcher = ATTRIBUTE_PATTERN.matcher(attributesStr);
@@ -0,0 +1,266 @@
+package com.machina.minterfacebuilder.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that generates a {@code ComponentRegistry} for the {@code @CustomTag} classes of a compilation.
+ * <p>
+ * The generated class maps each lowercase tag name to a direct constructor call in a string switch, and is
+ * listed in {@code META-INF/services} for {@code ComponentFactory} to pick up. It is named
+ * {@code CustomTagRegistry} and placed in the package of the first annotated class (by name), unless the
+ * {@code minterfacebuilder.registry} option gives a fully qualified name.
+ * </p>
+ */
+@SupportedAnnotationTypes(CustomTagProcessor.CUSTOM_TAG)
+@SupportedOptions(CustomTagProcessor.REGISTRY_OPTION)
+public class CustomTagProcessor extends AbstractProcessor {
+    /**
+     * The annotation processed.
+     */
+    static final String CUSTOM_TAG = "com.machina.minterfacebuilder.util.customui.registry.CustomTag";
+
+    /**
+     * The generated registry interface.
+     */
+    private static final String COMPONENT_REGISTRY = "com.machina.minterfacebuilder.util.customui.registry.ComponentRegistry";
+
+    /**
+     * The component base class.
+     */
+    private static final String COMPONENT_BUILDER = "com.machina.minterfacebuilder.util.customui.ComponentBuilder";
+
+    /**
+     * Option to set the fully qualified name of the generated registry.
+     */
+    static final String REGISTRY_OPTION = "minterfacebuilder.registry";
+
+    /**
+     * Whether the registry was generated (it is generated once per compilation).
+     */
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement customTag = this.processingEnv.getElementUtils().getTypeElement(CUSTOM_TAG);
+        if (this.generated || customTag == null) {
+            return false;
+        }
+
+        // Constructor calls by lowercase tag name, in a stable order
+        Map<String, String> constructors = new TreeMap<>();
+        String firstClass = null;
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(customTag)) {
+            String tagName = this.getTagName(element, customTag);
+            String constructor = this.getConstructorCall(element);
+            if (tagName == null || constructor == null) {
+                continue;
+            }
+
+            String qualifiedName = ((TypeElement) element).getQualifiedName().toString();
+            String previous = constructors.put(tagName.toLowerCase(Locale.ROOT), constructor);
+            if (previous != null) {
+                this.error(element, "Duplicate @CustomTag \"" + tagName + "\"");
+            }
+
+            if (firstClass == null || qualifiedName.compareTo(firstClass) < 0) {
+                firstClass = qualifiedName;
+            }
+        }
+
+        if (constructors.isEmpty()) {
+            return false;
+        }
+
+        String registryName = this.processingEnv.getOptions().get(REGISTRY_OPTION);
+        if (registryName == null || registryName.isBlank()) {
+            int lastDot = firstClass.lastIndexOf('.');
+            registryName = (lastDot > 0 ? firstClass.substring(0, lastDot + 1) : "") + "CustomTagRegistry";
+        }
+
+        try {
+            this.writeRegistry(registryName, constructors);
+            this.writeServiceFile(registryName);
+            this.generated = true;
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate " + registryName + ": " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the tag name of an annotated element.
+     * @return The tag name, or null if it is invalid (an error is reported).
+     */
+    private String getTagName(Element element, TypeElement customTag) {
+        for (var mirror : element.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(customTag)) {
+                continue;
+            }
+
+            for (var entry : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    String tagName = String.valueOf(entry.getValue().getValue());
+                    if (!tagName.matches("[A-Za-z_][A-Za-z0-9_.:-]*")) {
+                        this.error(element, "Invalid @CustomTag name \"" + tagName + "\"");
+                        return null;
+                    }
+                    return tagName;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the constructor call of an annotated class.
+     * @return The call (e.g., "new com.example.MyComponent(attributes)"), or null if the class is invalid (an error is reported).
+     */
+    private String getConstructorCall(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            this.error(element, "@CustomTag can only be used on classes");
+            return null;
+        }
+
+        TypeElement type = (TypeElement) element;
+        boolean nested = type.getEnclosingElement().getKind() != ElementKind.PACKAGE;
+        if (!type.getModifiers().contains(Modifier.PUBLIC) || type.getModifiers().contains(Modifier.ABSTRACT)
+            || (nested && !type.getModifiers().contains(Modifier.STATIC))) {
+            this.error(element, "@CustomTag class must be public, static if nested, and not abstract");
+            return null;
+        }
+
+        TypeElement componentBuilder = this.processingEnv.getElementUtils().getTypeElement(COMPONENT_BUILDER);
+        if (componentBuilder != null && !this.processingEnv.getTypeUtils().isAssignable(type.asType(), componentBuilder.asType())) {
+            this.error(element, "@CustomTag class must extend ComponentBuilder");
+            return null;
+        }
+
+        TypeMirror mapType = this.processingEnv.getTypeUtils().erasure(
+            this.processingEnv.getElementUtils().getTypeElement("java.util.Map").asType()
+        );
+        boolean attributesConstructor = false;
+        boolean defaultConstructor = false;
+
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+
+            if (constructor.getParameters().isEmpty()) {
+                defaultConstructor = true;
+            } else if (constructor.getParameters().size() == 1) {
+                TypeMirror parameter = this.processingEnv.getTypeUtils().erasure(constructor.getParameters().get(0).asType());
+                if (this.processingEnv.getTypeUtils().isSameType(parameter, mapType)) {
+                    attributesConstructor = true;
+                }
+            }
+        }
+
+        String className = type.getQualifiedName().toString();
+        if (attributesConstructor) {
+            return "new " + className + "(attributes)";
+        }
+        if (defaultConstructor) {
+            return "new " + className + "()";
+        }
+
+        this.error(element, "@CustomTag class needs a public (Map<String, String>) or no-argument constructor");
+        return null;
+    }
+
+    /**
+     * Write the registry source.
+     */
+    private void writeRegistry(String registryName, Map<String, String> constructors) throws IOException {
+        int lastDot = registryName.lastIndexOf('.');
+        String packageName = lastDot > 0 ? registryName.substring(0, lastDot) : null;
+        String simpleName = registryName.substring(lastDot + 1);
+
+        StringBuilder source = new StringBuilder();
+        if (packageName != null) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("/**\n * Custom tags of this module, generated from its @CustomTag classes.\n */\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(CustomTagProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(simpleName).append(" implements ").append(COMPONENT_REGISTRY).append(" {\n");
+
+        source.append("    private static final java.util.Set<String> TAG_NAMES = java.util.Set.of(\n");
+        int index = 0;
+        for (String tagName : constructors.keySet()) {
+            source.append("        \"").append(tagName).append("\"").append(++index < constructors.size() ? ",\n" : "\n");
+        }
+        source.append("    );\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public java.util.Set<String> getTagNames() {\n");
+        source.append("        return TAG_NAMES;\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public ").append(COMPONENT_BUILDER).append(" create(String tagName, java.util.Map<String, String> attributes) {\n");
+        source.append("        switch (tagName) {\n");
+        for (Map.Entry<String, String> entry : constructors.entrySet()) {
+            source.append("            case \"").append(entry.getKey()).append("\":\n");
+            source.append("                return ").append(entry.getValue()).append(";\n");
+        }
+        source.append("            default:\n");
+        source.append("                return null;\n");
+        source.append("        }\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(registryName).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * Write the service file listing the registry.
+     */
+    private void writeServiceFile(String registryName) throws IOException {
+        Filer filer = this.processingEnv.getFiler();
+        FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + COMPONENT_REGISTRY);
+
+        try (Writer writer = file.openWriter()) {
+            writer.write(registryName + "\n");
+        }
+    }
+
+    /**
+     * Report an error on an element.
+     */
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
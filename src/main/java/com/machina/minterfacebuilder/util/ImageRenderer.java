@@ -2,17 +2,32 @@ package com.machina.minterfacebuilder.util;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
 
+import com.machina.minterfacebuilder.model.LiteralValue;
+import com.machina.minterfacebuilder.util.customui.AnchorMap;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+import com.machina.minterfacebuilder.util.customui.ComponentPrototype;
+import com.machina.minterfacebuilder.util.customui.FlyweightComponent;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
 
 /**
@@ -45,8 +60,19 @@ import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
  *   <li><b>MaxWidth</b> (Integer): Maximum width before downscaling (default: 96)</li>
  *   <li><b>MaxHeight</b> (Integer): Maximum height before downscaling (default: 96)</li>
  *   <li><b>SkipWhite</b> (Boolean): Whether to skip white pixels (default: false)</li>
+ *   <li><b>RenderMode</b> (String): "Pixels" to emit one square per pixel, or "Texture" to write the
+ *       image once as a PNG asset and emit a single textured Group (default: "Pixels")</li>
  * </ul>
  * <p>
+ * <b>Texture mode:</b> the resized image is written to the directory configured with
+ * {@link #setTextureOutput(Path, String)}, named after its content hash, so identical images
+ * are only written once and every page referencing them shares the same asset.
+ * </p>
+ * <pre>
+ * ImageRenderer.setTextureOutput(PluginAsset.of(plugin, "Common/UI/Custom/MIB/Images"), "MIB/Images");
+ * ComponentBuilder image = ImageRenderer.renderImage("logo.png", Map.of("RenderMode", "Texture"));
+ * </pre>
+ * <p>
  * <b>Note:</b> Large images will be automatically downscaled by skipping pixels when they exceed
  * the maximum width or height. The downscaling algorithm maintains the aspect ratio by calculating
  * skip factors.
@@ -70,6 +96,68 @@ public class ImageRenderer {
      */
     private static final int DEFAULT_MAX_HEIGHT = 96;
 
+    /**
+     * Render mode that emits one colored square per pixel.
+     */
+    public static final String RENDER_MODE_PIXELS = "Pixels";
+
+    /**
+     * Render mode that writes the image as a PNG asset and emits a single textured Group.
+     */
+    public static final String RENDER_MODE_TEXTURE = "Texture";
+
+    /**
+     * Properties consumed by the renderer that must not be copied to the output component.
+     */
+    private static final Set<String> RENDER_OPTION_KEYS = Set.of(
+        "BlockSize", "MaxWidth", "MaxHeight", "SkipWhite", "RenderMode"
+    );
+
+    /**
+     * Directory where texture mode writes generated PNG files (e.g., the plugin's asset pack UI folder).
+     */
+    @Nullable
+    private static Path textureOutputDirectory = null;
+
+    /**
+     * Texture path prefix used in the generated Background, relative to the UI asset root.
+     */
+    private static String textureAssetPath = "MInterfaceBuilder/Images";
+
+    /**
+     * Content hashes of the textures already written by this process.
+     */
+    private static final Set<String> writtenTextures = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Configure where texture mode writes generated PNG files.
+     * <p>
+     * The directory is created on first write if it does not exist. The asset path is the
+     * path the client uses to resolve the same directory (e.g., "MyPlugin/Images").
+     * </p>
+     *
+     * @param outputDirectory The directory to write generated textures to.
+     * @param assetPath The texture path prefix used in the generated Background.
+     */
+    public static void setTextureOutput(@Nonnull Path outputDirectory, @Nonnull String assetPath) {
+        if (outputDirectory == null || assetPath == null) {
+            throw new IllegalArgumentException("Output directory and asset path cannot be null");
+        }
+
+        textureOutputDirectory = outputDirectory;
+        textureAssetPath = assetPath.endsWith("/") ? assetPath.substring(0, assetPath.length() - 1) : assetPath;
+        writtenTextures.clear();
+    }
+
+    /**
+     * Get the directory where texture mode writes generated PNG files.
+     * @return The texture output directory, or null if not configured.
+     */
+    @Nullable
+    public static Path getTextureOutputDirectory() {
+        return textureOutputDirectory;
+    }
+
     /**
      * Render an image pixel by pixel into a Custom UI ComponentBuilder using default properties.
      * <p>
@@ -112,6 +200,8 @@ public class ImageRenderer {
      *       Images taller than this will have pixels skipped vertically.</li>
      *   <li><b>SkipWhite</b> (Boolean): Whether to skip white pixels (default: false).
      *       When true, pixels with RGB values all above 240 are not rendered, creating transparency effects.</li>
+     *   <li><b>RenderMode</b> (String): "Pixels" (default) or "Texture".
+     *       Texture mode writes the image once as a PNG asset and emits a single Group referencing it.</li>
      * </ul>
      * <p>
      * <b>Example:</b>
@@ -269,6 +359,7 @@ public class ImageRenderer {
      *   <li><b>MaxWidth</b> (Integer): Maximum width in pixels before downscaling (default: 96)</li>
      *   <li><b>MaxHeight</b> (Integer): Maximum height in pixels before downscaling (default: 96)</li>
      *   <li><b>SkipWhite</b> (Boolean): Whether to skip white pixels, RGB >= 240 (default: false)</li>
+     *   <li><b>RenderMode</b> (String): "Pixels" (default) or "Texture"</li>
      * </ul>
      *
      * @param image The BufferedImage to render. Must not be null.
@@ -288,6 +379,7 @@ public class ImageRenderer {
         int maxWidth = properties.get("MaxWidth") != null ? (int) properties.get("MaxWidth") : DEFAULT_MAX_WIDTH;
         int maxHeight = properties.get("MaxHeight") != null ? (int) properties.get("MaxHeight") : DEFAULT_MAX_HEIGHT;
         boolean skipWhite = properties.get("SkipWhite") != null ? (boolean) properties.get("SkipWhite") : false;
+        String renderMode = properties.get("RenderMode") != null ? properties.get("RenderMode").toString() : RENDER_MODE_PIXELS;
 
         // Calculate downscaling if needed
         int originalWidth = image.getWidth();
@@ -308,11 +400,24 @@ public class ImageRenderer {
             renderHeight = originalHeight / skipY;
         }
 
+        // Texture mode: write the image once and reference it
+        if (renderMode.equalsIgnoreCase(RENDER_MODE_TEXTURE)) {
+            BufferedImage resized = resizeImage(image, renderWidth, renderHeight, skipX, skipY, skipWhite);
+            return renderTexture(resized, blockSize, properties);
+        }
+
+        // Copy the properties without the render mode
+        Map<String, Object> groupProperties = new HashMap<>(properties);
+        groupProperties.remove("RenderMode");
+
         // Create a new group for the image
         ComponentBuilder group = ComponentBuilder.create("Group")
-            .setProperties(properties)
+            .setProperties(groupProperties)
             .setSettings(new ComponentBuilderSettings(true));
 
+        // Pixels of the same color share one prototype
+        Map<Integer, ComponentPrototype> pixelPrototypes = new HashMap<>();
+
         // Iterate over the image pixels (with skipping for downscaling)
         for (int renderY = 0; renderY < renderHeight; renderY++) {
             int sourceY = renderY * skipY;
@@ -334,18 +439,16 @@ public class ImageRenderer {
                     continue;
                 }
 
-                // Convert color to hex string
-                String colorHex = colorToHex(pixelColor);
+                // Get the shared square for this color
+                ComponentPrototype prototype = pixelPrototypes.computeIfAbsent(
+                    rgb,
+                    key -> new ComponentPrototype("Group", Map.of("Background", colorToHex(pixelColor)))
+                );
 
-                // Create a square component for this pixel
-                ComponentBuilder square = ComponentBuilder.create("Group")
-                    .setProperty("Background", colorHex)
-                    .setProperty("Anchor", Map.of(
-                        "Top", renderY * blockSize,
-                        "Left", renderX * blockSize,
-                        "Width", blockSize,
-                        "Height", blockSize
-                    ));
+                // Create a square for this pixel, only storing its position
+                FlyweightComponent square = prototype.instance("Anchor", AnchorMap.of(
+                    renderX * blockSize, renderY * blockSize, blockSize, blockSize
+                ));
 
                 // Append the square to the group
                 group.appendChild(square);
@@ -355,6 +458,161 @@ public class ImageRenderer {
         return group;
     }
 
+    /**
+     * Sample the image into a new ARGB image of the render size.
+     * <p>
+     * Uses the same pixel skipping as pixel mode, so both modes produce the same picture.
+     * White pixels are made transparent when SkipWhite is enabled.
+     * </p>
+     *
+     * @param image The source image.
+     * @param renderWidth The output width in pixels.
+     * @param renderHeight The output height in pixels.
+     * @param skipX The horizontal skip factor.
+     * @param skipY The vertical skip factor.
+     * @param skipWhite Whether white pixels should become transparent.
+     * @return The resized image.
+     */
+    private static BufferedImage resizeImage(BufferedImage image, int renderWidth, int renderHeight, int skipX, int skipY, boolean skipWhite) {
+        BufferedImage resized = new BufferedImage(renderWidth, renderHeight, BufferedImage.TYPE_INT_ARGB);
+
+        for (int renderY = 0; renderY < renderHeight; renderY++) {
+            for (int renderX = 0; renderX < renderWidth; renderX++) {
+                int rgb = image.getRGB(renderX * skipX, renderY * skipY);
+
+                // Clear white pixels if requested
+                if (skipWhite && isWhite(new Color(rgb, true))) {
+                    rgb = 0;
+                }
+
+                resized.setRGB(renderX, renderY, rgb);
+            }
+        }
+
+        return resized;
+    }
+
+    /**
+     * Write the image as a PNG texture and create a single Group that displays it.
+     * <p>
+     * The file is named after the SHA-256 hash of its PNG bytes. If a texture with the same
+     * content was already written, the existing file is reused.
+     * </p>
+     *
+     * @param image The resized image to write.
+     * @param blockSize The size of each pixel in Custom UI units.
+     * @param properties The properties to copy to the Group.
+     * @return The ComponentBuilder with the texture as Background.
+     * @throws IllegalStateException If no texture output directory is configured.
+     */
+    private static ComponentBuilder renderTexture(BufferedImage image, int blockSize, Map<String, Object> properties) {
+        if (textureOutputDirectory == null) {
+            throw new IllegalStateException("No texture output directory set. Call ImageRenderer.setTextureOutput() before using texture mode.");
+        }
+
+        byte[] png;
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", outputStream);
+            png = outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode image texture", e);
+        }
+
+        String hash = hashBytes(png);
+        String fileName = hash + ".png";
+
+        // Write the texture only once per content hash
+        if (!writtenTextures.contains(hash)) {
+            Path filePath = textureOutputDirectory.resolve(fileName);
+
+            try {
+                // Create parent directories if they don't exist
+                Files.createDirectories(filePath.getParent());
+
+                if (!Files.exists(filePath)) {
+                    Files.write(filePath, png);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write image texture: " + filePath, e);
+            }
+
+            writtenTextures.add(hash);
+        }
+
+        // Copy the properties without the renderer options
+        Map<String, Object> groupProperties = new HashMap<>(properties);
+        groupProperties.keySet().removeAll(RENDER_OPTION_KEYS);
+
+        return ComponentBuilder.create("Group")
+            .setProperties(groupProperties)
+            .setProperty("Anchor", textureAnchor(groupProperties, image.getWidth() * blockSize, image.getHeight() * blockSize))
+            .setProperty(
+                "Background",
+                LiteralValue.of("PatchStyle(TexturePath: \"" + textureAssetPath + "/" + fileName + "\")")
+            );
+    }
+
+    /**
+     * Get the Anchor of a texture Group: the caller's Anchor with the size of the texture, unless it
+     * sets its own Width or Height.
+     * <p>
+     * An Anchor that is neither a map nor a string (e.g., a variable reference) is kept as is.
+     * </p>
+     *
+     * @param properties The properties of the Group (the caller's Anchor is taken out of them).
+     * @param width The width of the texture in Custom UI units.
+     * @param height The height of the texture in Custom UI units.
+     * @return The Anchor.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object textureAnchor(Map<String, Object> properties, int width, int height) {
+        Object existing = null;
+        for (String key : properties.keySet()) {
+            if (key.equalsIgnoreCase("Anchor")) {
+                existing = properties.remove(key);
+                break;
+            }
+        }
+
+        Map<String, Object> anchor = new LinkedHashMap<>();
+        if (existing instanceof Map<?, ?>) {
+            anchor.putAll((Map<String, Object>) existing);
+        } else if (existing instanceof String) {
+            String value = ((String) existing).trim();
+            if (value.startsWith("(") && value.endsWith(")")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            anchor.putAll(StyleStringParser.parseKeyValuePairs(value));
+        } else if (existing != null) {
+            return existing;
+        }
+
+        anchor.putIfAbsent("Height", height);
+        anchor.putIfAbsent("Width", width);
+        return anchor;
+    }
+
+    /**
+     * Hash a byte array with SHA-256.
+     * @param bytes The bytes to hash.
+     * @return The lowercase hex digest.
+     */
+    private static String hashBytes(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     /**
      * Convert a Color to a hexadecimal string representation.
      * <p>
@@ -0,0 +1,97 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable Anchor value (Left, Top, Width, Height) backed by four ints.
+ * <p>
+ * Generated leaves (QR code modules, image pixels) each need their own Anchor. A regular map
+ * costs a table, four entries and boxed integers per leaf; this keeps only the ints and creates
+ * the entries while the anchor is being formatted.
+ * </p>
+ */
+public final class AnchorMap extends AbstractMap<String, Object> {
+    /**
+     * The anchor keys, in output order.
+     */
+    private static final String[] KEYS = { "Left", "Top", "Width", "Height" };
+
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+
+    private AnchorMap(int left, int top, int width, int height) {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Create an anchor.
+     * @param left The left offset.
+     * @param top The top offset.
+     * @param width The width.
+     * @param height The height.
+     * @return The anchor map.
+     */
+    public static AnchorMap of(int left, int top, int width, int height) {
+        return new AnchorMap(left, top, width, height);
+    }
+
+    /**
+     * Get a value by index, in the order of {@link #KEYS}.
+     */
+    private int valueAt(int index) {
+        switch (index) {
+            case 0: return this.left;
+            case 1: return this.top;
+            case 2: return this.width;
+            default: return this.height;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.index < KEYS.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(KEYS[this.index], valueAt(this.index));
+                        this.index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return KEYS.length;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return KEYS.length;
+    }
+}
@@ -0,0 +1,268 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Insertion-ordered map with String keys, stored in a flat array while it is small.
+ * <p>
+ * Most components only set a handful of properties, for which a HashMap's table and entry
+ * objects cost several times more than the data. Up to {@link #MAX_COMPACT_SIZE} entries are
+ * kept as alternating keys and values in one array and looked up linearly; beyond that the
+ * entries move to a LinkedHashMap. Keys are interned through {@link PropertyKeys}, so lookups of
+ * interned names hit on identity.
+ * </p>
+ * @param <V> The value type.
+ */
+final class CompactMap<V> extends AbstractMap<String, V> {
+    /**
+     * Maximum number of entries kept in the flat array.
+     */
+    static final int MAX_COMPACT_SIZE = 8;
+
+    /**
+     * Alternating keys and values, or null while empty or after overflowing.
+     */
+    private Object[] table;
+
+    /**
+     * Number of entries in the table.
+     */
+    private int size;
+
+    /**
+     * The entries once the map grows beyond the compact size.
+     */
+    private Map<String, V> overflow;
+
+    /**
+     * Find the table index of a key.
+     * @return The index of the key, or -1 if not present.
+     */
+    private int indexOf(Object key) {
+        for (int i = 0; i < this.size * 2; i += 2) {
+            if (this.table[i] == key || this.table[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (this.overflow != null) {
+            return this.overflow.get(key);
+        }
+
+        int index = this.indexOf(key);
+        return index >= 0 ? (V) this.table[index + 1] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (this.overflow != null) {
+            return this.overflow.containsKey(key);
+        }
+
+        return this.indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null");
+        }
+
+        // Share one key instance per spelling (see PropertyKeys)
+        key = PropertyKeys.intern(key);
+
+        if (this.overflow != null) {
+            return this.overflow.put(key, value);
+        }
+
+        // Replace an existing value
+        int index = this.indexOf(key);
+        if (index >= 0) {
+            V previous = (V) this.table[index + 1];
+            this.table[index + 1] = value;
+            return previous;
+        }
+
+        // Move to a hash map once the compact size is exceeded
+        if (this.size == MAX_COMPACT_SIZE) {
+            this.overflow = new LinkedHashMap<>();
+            for (int i = 0; i < this.size * 2; i += 2) {
+                this.overflow.put((String) this.table[i], (V) this.table[i + 1]);
+            }
+            this.table = null;
+            this.size = 0;
+            return this.overflow.put(key, value);
+        }
+
+        // Grow the table (2 entries, then doubling)
+        if (this.table == null) {
+            this.table = new Object[4];
+        } else if (this.size * 2 == this.table.length) {
+            this.table = Arrays.copyOf(this.table, Math.min(this.table.length * 2, MAX_COMPACT_SIZE * 2));
+        }
+
+        this.table[this.size * 2] = key;
+        this.table[this.size * 2 + 1] = value;
+        this.size++;
+
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (this.overflow != null) {
+            return this.overflow.remove(key);
+        }
+
+        int index = this.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        V previous = (V) this.table[index + 1];
+        this.removeAt(index);
+        return previous;
+    }
+
+    /**
+     * Remove the entry at a table index, keeping the order of the others.
+     */
+    private void removeAt(int index) {
+        System.arraycopy(this.table, index + 2, this.table, index, this.size * 2 - index - 2);
+        this.size--;
+        this.table[this.size * 2] = null;
+        this.table[this.size * 2 + 1] = null;
+    }
+
+    @Override
+    public void clear() {
+        this.table = null;
+        this.size = 0;
+        this.overflow = null;
+    }
+
+    @Override
+    public int size() {
+        return this.overflow != null ? this.overflow.size() : this.size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        if (this.overflow != null) {
+            return this.overflow.entrySet();
+        }
+
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new TableIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size;
+            }
+        };
+    }
+
+    /**
+     * Iterator over the table entries, supporting removal.
+     */
+    private final class TableIterator implements Iterator<Map.Entry<String, V>> {
+        private int next = 0;
+        private int last = -1;
+        private final Object[] expectedTable = CompactMap.this.table;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < CompactMap.this.size * 2;
+        }
+
+        @Override
+        public Map.Entry<String, V> next() {
+            if (CompactMap.this.table != this.expectedTable) {
+                throw new ConcurrentModificationException();
+            }
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            this.last = this.next;
+            this.next += 2;
+            return new TableEntry(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+
+            CompactMap.this.removeAt(this.last);
+            this.next = this.last;
+            this.last = -1;
+        }
+    }
+
+    /**
+     * Entry that reads and writes through to the table.
+     */
+    private final class TableEntry implements Map.Entry<String, V> {
+        private final int index;
+
+        private TableEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return (String) CompactMap.this.table[this.index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) CompactMap.this.table[this.index + 1];
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = this.getValue();
+            CompactMap.this.table[this.index + 1] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry<?, ?> other)) {
+                return false;
+            }
+            return this.getKey().equals(other.getKey()) && java.util.Objects.equals(this.getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.getKey().hashCode() ^ java.util.Objects.hashCode(this.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return this.getKey() + "=" + this.getValue();
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package com.machina.minterfacebuilder.util.customui;
 
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.machina.minterfacebuilder.helpers.Color;
 import com.machina.minterfacebuilder.helpers.FnCall;
+import com.machina.minterfacebuilder.helpers.NumberValue;
+import com.machina.minterfacebuilder.helpers.QuotedString;
+import com.machina.minterfacebuilder.helpers.TranslationKey;
+import com.machina.minterfacebuilder.helpers.VarRef;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.SerializationUtil;
 import com.machina.minterfacebuilder.util.StyleStringParser;
 import com.machina.shared.util.ObjectUtil;
 
-public class ComponentBuilder {
+public class ComponentBuilder extends ComponentNode {
     /**
      * Root directory path used for UI file imports.
      * Default value: "../"
@@ -24,6 +33,11 @@ public class ComponentBuilder {
      */
     public static final String INDENT = "  ";
 
+    /**
+     * Prefix of the variables that replace hoisted property values (e.g., @MIBc0).
+     */
+    public static final String HOISTED_VALUE_PREFIX = "MIBc";
+
     /**
      * Normalize the selector.
      * @param selector The selector to normalize.
@@ -49,30 +63,35 @@ public class ComponentBuilder {
      */
     private String id;
 
+    /*
+     * Collections are shared empty instances until the first write, so leaves that only set
+     * a property or two don't pay for empty maps and lists. Use the writable*() methods to write.
+     */
+
     /**
      * The properties of the component.
      */
-    private Map<String, Object> properties = new HashMap<>();
+    private Map<String, Object> properties = Collections.emptyMap();
 
     /**
      * The styles of the component.
      */
-    private Map<String, Object> styles = new HashMap<>();
+    private Map<String, Object> styles = Collections.emptyMap();
 
     /**
      * The children of the component.
      */
-    private List<Object> children = new ArrayList<>();
+    private List<ComponentNode> children = Collections.emptyList();
 
     /**
      * The comments of the component.
      */
-    private List<String> comments = new ArrayList<>();
+    private List<String> comments = Collections.emptyList();
 
     /**
      * The variables of the component.
      */
-    private Map<String, String> variables = new HashMap<>();
+    private Map<String, String> variables = Collections.emptyMap();
 
     /**
      * The parent of the component.
@@ -80,9 +99,75 @@ public class ComponentBuilder {
     private ComponentBuilder parent;
 
     /**
-     * The settings of the component builder.
+     * The settings of the component builder, or null for the defaults.
+     */
+    private ComponentBuilderSettings settings;
+
+    /**
+     * Whether the component or one of its descendants changed since the component was last built.
+     * If a component is dirty, so are its ancestors, so marking stops at the first dirty ancestor.
+     */
+    private boolean dirty = true;
+
+    /**
+     * Memoized output of the component block (without its variables section), reused while the
+     * component is not dirty and is built at the same indent level with the same output settings.
+     */
+    private String memoOutput;
+
+    /**
+     * Indent level of the memoized output.
      */
-    private ComponentBuilderSettings settings = new ComponentBuilderSettings();
+    private int memoIndent;
+
+    /**
+     * Number of nodes and height of the memoized subtree, for the tree limits.
+     */
+    private int memoNodes;
+    private int memoHeight;
+
+    /**
+     * Whether the memoized output is minimal.
+     */
+    private boolean memoMinimal;
+
+    /**
+     * Hoisted values the memoized output was built with.
+     */
+    private Map<String, String> memoHoistedValues;
+
+    /**
+     * Memoized hoist keys of the component's own properties, in property order followed by the merged
+     * style map (null for the values that are not counted or cannot be hoisted), or null if they must be
+     * recomputed. Shared by the counting and the writing of the properties, so each value is formatted
+     * once for hoisting.
+     */
+    private String[] memoHoistKeys;
+
+    /**
+     * Deepest indent level whose output is memoized; deeper subtrees are re-serialized with their
+     * ancestors, which bounds the memory taken by nested memoized outputs in very deep trees.
+     */
+    private static final int MAX_MEMO_DEPTH = 64;
+
+    /**
+     * Whether instances of a class can be written inline by the iterative serializer,
+     * i.e. the class does not customize how it builds.
+     */
+    private static final ClassValue<Boolean> STREAMABLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> current = type; current != ComponentBuilder.class; current = current.getSuperclass()) {
+                for (java.lang.reflect.Method method : current.getDeclaredMethods()) {
+                    String name = method.getName();
+                    if (name.equals("build") || name.equals("buildAsChild") || name.equals("buildChild")) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
 
     /**
      * Create a new component builder.
@@ -134,19 +219,112 @@ public class ComponentBuilder {
 
     /**
      * Get the children of the component.
-     * @return The children of the component.
+     * @return A read-only view of the children (component builders, flyweight leaves and raw UI strings).
      */
     public List<Object> getChildren() {
-        return this.children;
+        return new AbstractList<>() {
+            @Override
+            public Object get(int index) {
+                return ComponentBuilder.this.children.get(index).unwrap();
+            }
+
+            @Override
+            public int size() {
+                return ComponentBuilder.this.children.size();
+            }
+        };
     }
 
     /**
      * Clear the children of the component.
      */
     public void clearChildren() {
-        this.children.clear();
+        this.invalidate();
+        this.children = Collections.emptyList();
     }
 
+    /**
+     * Mark the component as changed, so it and its ancestors are serialized again on the next build
+     * (unchanged siblings reuse their memoized output).
+     * <p>
+     * The setters call this. Call it after changing a value in place, e.g. a map returned by
+     * {@link #getProperty(String)}.
+     * </p>
+     */
+    public void invalidate() {
+        this.memoHoistKeys = null;
+
+        for (ComponentBuilder node = this; node != null && !node.dirty; node = node.parent) {
+            node.dirty = true;
+            node.memoOutput = null;
+        }
+    }
+
+    /**
+     * Whether the component or one of its descendants changed since the component was last built.
+     * @return True if the component must be serialized again.
+     */
+    protected final boolean isDirty() {
+        return this.dirty;
+    }
+
+    //#region Storage
+    /**
+     * Get the properties for writing, allocating them on first use.
+     */
+    private Map<String, Object> writableProperties() {
+        this.invalidate();
+
+        if (!(this.properties instanceof CompactMap)) {
+            this.properties = new CompactMap<>();
+        }
+        return this.properties;
+    }
+
+    /**
+     * Get the styles for writing, allocating them on first use.
+     */
+    private Map<String, Object> writableStyles() {
+        this.invalidate();
+
+        if (!(this.styles instanceof CompactMap)) {
+            this.styles = new CompactMap<>();
+        }
+        return this.styles;
+    }
+
+    /**
+     * Get the variables for writing, allocating them on first use.
+     */
+    private Map<String, String> writableVariables() {
+        this.invalidate();
+
+        if (!(this.variables instanceof CompactMap)) {
+            this.variables = new CompactMap<>();
+        }
+        return this.variables;
+    }
+
+    /**
+     * Get the children for writing, allocating them on first use.
+     */
+    private List<ComponentNode> writableChildren() {
+        this.invalidate();
+
+        if (!(this.children instanceof ArrayList)) {
+            this.children = new ArrayList<>(4);
+        }
+        return this.children;
+    }
+
+    /**
+     * Whether the output should be minimal.
+     */
+    private boolean isMinimal() {
+        return this.settings != null && this.settings.minimal;
+    }
+    //#endregion
+
     /**
      * Build the component.
      * @return The component as a string.
@@ -154,29 +332,235 @@ public class ComponentBuilder {
     public String build() {
         StringBuilder builder = new StringBuilder();
 
-        int componentIndent = getComponentBlockIndentLevel();
-
         //#region Variables
+        this.writeVariables(builder, getComponentBlockIndentLevel());
+        //#endregion
+
+        this.writeTree(builder);
+
+        return builder.toString();
+    }
+
+    /**
+     * Build the component block (comments, header, properties and children), without the
+     * variables section.
+     * <p>
+     * Subclasses that emit their own variables (e.g., templates) build their body with this.
+     * </p>
+     * @return The component block as a string.
+     */
+    protected final String buildComponent() {
+        StringBuilder out = new StringBuilder();
+        this.writeTree(out);
+        return out.toString();
+    }
+
+    /**
+     * A component whose children are being written.
+     */
+    private static final class BuildFrame {
+        private final ComponentBuilder node;
+        private final int indent;
+        private final int start;
+        private int childIndex;
+
+        /**
+         * Number of nodes and height of the subtree written so far.
+         */
+        private int nodes = 1;
+        private int height = 1;
+
+        /**
+         * Whether the subtree has a component that customizes its build: its state may change without
+         * {@link #invalidate()} (e.g., fields applied in its build()), so the subtree can't be memoized.
+         */
+        private boolean custom;
+
+        private BuildFrame(ComponentBuilder node, int indent, int start) {
+            this.node = node;
+            this.indent = indent;
+            this.start = start;
+        }
+
+        private void addSubtree(int subtreeNodes, int subtreeHeight) {
+            this.nodes += subtreeNodes;
+            this.height = Math.max(this.height, subtreeHeight + 1);
+        }
+    }
+
+    /**
+     * Write the component block and its descendants.
+     * <p>
+     * The tree is walked with an explicit stack, so the nesting depth is bounded by the
+     * {@link TreeLimits} of the settings rather than by the call stack. Children that
+     * customize their own build (e.g., templates, or subclasses overriding {@link #build()})
+     * are built through {@link ComponentNode#buildChild} as before.
+     * </p>
+     * <p>
+     * Components that did not change since their last build (see {@link #invalidate()}) append
+     * their memoized output instead of being serialized again, so after a change only the path
+     * from the changed component to the root is rebuilt. The ancestors of a child that customizes its
+     * build are never memoized, so its build runs every time.
+     * </p>
+     * @param out The output.
+     */
+    private void writeTree(StringBuilder out) {
+        TreeLimits limits = this.settings != null && this.settings.limits != null ? this.settings.limits : TreeLimits.DEFAULT;
+        boolean memoize = this.settings == null || this.settings.memoize;
+
+        int rootIndent = this.getComponentBlockIndentLevel();
+        if (this.appendMemo(out, rootIndent)) {
+            limits.checkNodes(this.memoNodes);
+            limits.checkDepth(this.memoHeight);
+            limits.checkOutputLength(out.length());
+            return;
+        }
+
+        ArrayDeque<BuildFrame> stack = new ArrayDeque<>();
+        int nodes = 1;
+
+        stack.push(new BuildFrame(this, rootIndent, out.length()));
+        this.writeOpening(out, rootIndent);
+
+        while (!stack.isEmpty()) {
+            BuildFrame frame = stack.peek();
+            ComponentBuilder node = frame.node;
+
+            if (frame.childIndex < node.children.size()) {
+                ComponentNode child = node.children.get(frame.childIndex++);
+
+                if (child instanceof ComponentBuilder && STREAMABLE.get(child.getClass())) {
+                    ComponentBuilder component = (ComponentBuilder) child;
+
+                    // Same as build(settings): the child builds with its parent's settings
+                    component.settings = node.settings;
+
+                    int indent = component.parent == node ? frame.indent + 1 : component.getComponentBlockIndentLevel();
+                    component.writeVariables(out, indent);
+
+                    if (component.appendMemo(out, indent)) {
+                        nodes += component.memoNodes;
+                        limits.checkNodes(nodes);
+                        limits.checkDepth(stack.size() + component.memoHeight);
+                        frame.addSubtree(component.memoNodes, component.memoHeight);
+                        endChild(out, frame);
+                    } else {
+                        limits.checkNodes(++nodes);
+                        limits.checkDepth(stack.size() + 1);
+                        stack.push(new BuildFrame(component, indent, out.length()));
+                        component.writeOpening(out, indent);
+                    }
+                } else {
+                    if (child instanceof ComponentBuilder) {
+                        frame.custom = true;
+                    }
+                    limits.checkNodes(++nodes);
+                    frame.addSubtree(1, 1);
+                    out.append(child.buildChild(node, frame.indent + 1));
+                    endChild(out, frame);
+                }
+            } else {
+                out.append(node.indent(frame.indent)).append('}');
+                stack.pop();
+                node.storeMemo(out, frame, memoize);
+
+                if (!stack.isEmpty()) {
+                    stack.peek().custom |= frame.custom;
+                    stack.peek().addSubtree(frame.nodes, frame.height);
+                    endChild(out, stack.peek());
+                }
+            }
+
+            limits.checkOutputLength(out.length());
+        }
+    }
+
+    /**
+     * Append the memoized output of the component if it is still valid.
+     * @param out The output.
+     * @param indent The indent level the component is built at.
+     * @return True if the memoized output was appended.
+     */
+    private boolean appendMemo(StringBuilder out, int indent) {
+        if (this.dirty || this.memoOutput == null || this.memoIndent != indent || this.memoMinimal != this.isMinimal()) {
+            return false;
+        }
+
+        Map<String, String> hoistedValues = this.settings != null ? this.settings.hoistedValues : null;
+        if (this.memoHoistedValues != hoistedValues && (this.memoHoistedValues == null || !this.memoHoistedValues.equals(hoistedValues))) {
+            return false;
+        }
+
+        out.append(this.memoOutput);
+        return true;
+    }
+
+    /**
+     * Mark the component as built, memoizing the output written for it.
+     * @param out The output.
+     * @param frame The frame of the component.
+     * @param memoize Whether outputs are memoized.
+     */
+    private void storeMemo(StringBuilder out, BuildFrame frame, boolean memoize) {
+        // A subtree with a custom build can't tell whether it changed, so it stays dirty
+        this.dirty = frame.custom;
+
+        if (!memoize || frame.custom || frame.indent > MAX_MEMO_DEPTH) {
+            this.memoOutput = null;
+            return;
+        }
+
+        this.memoOutput = out.substring(frame.start);
+        this.memoNodes = frame.nodes;
+        this.memoHeight = frame.height;
+        this.memoIndent = frame.indent;
+        this.memoMinimal = this.isMinimal();
+        this.memoHoistedValues = this.settings != null ? this.settings.hoistedValues : null;
+    }
+
+    /**
+     * Write the separator after a child: a new line, and a blank line if it is not the last child.
+     */
+    private static void endChild(StringBuilder out, BuildFrame parent) {
+        out.append('\n');
+
+        if (parent.childIndex < parent.node.children.size()) {
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Write the variables section of the component.
+     * @param out The output.
+     * @param componentIndent The indent level of the component.
+     */
+    private void writeVariables(StringBuilder out, int componentIndent) {
         for (Map.Entry<String, String> entry : this.variables.entrySet()) {
-            builder.append(indent(componentIndent) + "@" + entry.getKey() + " = " + entry.getValue() + ";\n");
+            out.append(indent(componentIndent) + "@" + entry.getKey() + " = " + entry.getValue() + ";\n");
         }
 
         if (!this.variables.isEmpty()) {
-            builder.append("\n");
+            out.append("\n");
         }
-        //#endregion
+    }
 
+    /**
+     * Write the comments, header and properties of the component, up to its children.
+     * @param out The output.
+     * @param componentIndent The indent level of the component.
+     */
+    private void writeOpening(StringBuilder out, int componentIndent) {
         //#region Component comments
-        if (!this.settings.minimal) {
+        if (!this.isMinimal()) {
             for (String comment : this.comments) {
-                builder.append(indent(componentIndent) + "// " + comment + "\n");
+                out.append(indent(componentIndent) + "// " + comment + "\n");
             }
         }
         //#endregion
 
         //#region Component header
         // Root component has no indent
-        builder.append(indent(componentIndent));
+        out.append(indent(componentIndent));
 
         // Get the id of the component
         String propId = this.getPropertyIgnoreCase("Id");
@@ -185,34 +569,36 @@ public class ComponentBuilder {
         // If the component is blank and the id is not null
         if (this.component.isBlank() && id != null) {
             // Add the id
-            builder.append("#" + id);
+            out.append("#" + id);
         } else {
             // Add the component
-            builder.append(this.component);
+            out.append(this.component);
 
             // If the id is not null, add it
             if (id != null) {
-                builder.append(" #" + id);
+                out.append(" #" + id);
             }
         }
 
-        builder.append(" {\n");
+        out.append(" {\n");
         //#endregion
 
-        // Copy the properties
-        Map<String, Object> propertiesCopy = new HashMap<>(this.properties);
-
-        // Remove the id from the properties
-        propertiesCopy.remove(getPropertyNameIgnoreCase("Id"));
+        // Hoist keys of the properties, as computed when the values were counted
+        boolean hoisting = this.isHoisting();
+        String[] hoistKeys = hoisting ? this.getOwnHoistKeys() : null;
 
         //#region Component styles
         Object styleMap = parseStyles();
 
         // If the style map is not empty, add it to the properties
         if (styleMap != null) {
-            // If the style map is a map, format it
+            // If the style map is a map, format it (or reference its hoisted variable)
             if (styleMap instanceof Map<?, ?>) {
-                styleMap = formatNestedMap((Map<?, ?>) styleMap, componentIndent + 1, NestingStyle.PARENTHESIS);
+                String hoistKey = !hoisting ? null
+                    : this.hasStyleMap() ? hoistKeys[hoistKeys.length - 1]
+                    : getHoistKey(styleMap);
+                String hoisted = this.getHoistedReference(hoistKey);
+                styleMap = hoisted != null ? hoisted : formatNestedMap((Map<?, ?>) styleMap, componentIndent + 1, NestingStyle.PARENTHESIS);
             } else
             // If it's a string
             if (styleMap instanceof String) {
@@ -222,9 +608,9 @@ public class ComponentBuilder {
                 }
             }
 
-            // If the style map is not null, add it to the properties
+            // If the style map is not null, it replaces the Style property
             if (styleMap != null) {
-                propertiesCopy.put("Style", LiteralValue.of(styleMap));
+                styleMap = LiteralValue.of(styleMap);
             }
         }
 
@@ -232,80 +618,450 @@ public class ComponentBuilder {
 
         //#region Component properties
         List<String> propertiesOutput = new ArrayList<>();
+        String idProperty = getPropertyNameIgnoreCase("Id");
+        boolean styleWritten = false;
 
-        // Add the properties to the list
-        for (Map.Entry<String, Object> entry : propertiesCopy.entrySet()) {
-            Object valueObj = entry.getValue();
+        // Add the properties to the list (keeping their order), without the id
+        int index = 0;
+        for (Map.Entry<String, Object> entry : this.properties.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            String hoistKey = hoistKeys != null ? hoistKeys[index] : null;
+            index++;
 
-            // Group does not support Text property - skip it (it should be converted to Label child)
-            if (entry.getKey().equals("Text") && this.component.equalsIgnoreCase("Group")) {
+            if (key.equals(idProperty)) {
                 continue;
             }
-
-            String value;
-
-            // If the value is a map, format it
-            if (valueObj instanceof Map<?, ?>) {
-                // Format the nested map
-                value = formatNestedMap(
-                    (Map<?, ?>) valueObj, componentIndent + 1, NestingStyle.PARENTHESIS
-                );
-            } else {
-                value = formatPropertyValue(valueObj, componentIndent + 1);
+            if (key.equals("Style") && styleMap != null) {
+                value = styleMap;
+                styleWritten = true;
+            }
+            if (hoisting && !this.isHoistCounted(key)) {
+                hoistKey = getHoistKey(value);
             }
 
-            // If the value is blank, skip it
-            if (ObjectUtil.isBlank(value)) {
-                continue;
+            String property = this.formatProperty(this.component, key, value, hoistKey, componentIndent);
+            if (property != null) {
+                propertiesOutput.add(property);
             }
+        }
 
-            propertiesOutput.add(
-                entry.getKey()
-                + ": "
-                + value
-            );
+        // The merged style map of a component without a Style property comes last
+        if (styleMap != null && !styleWritten) {
+            String property = this.formatProperty(this.component, "Style", styleMap, hoisting ? getHoistKey(styleMap) : null, componentIndent);
+            if (property != null) {
+                propertiesOutput.add(property);
+            }
         }
 
         String propertiesContent = String.join(";\n" + indent(componentIndent + 1), propertiesOutput);
         if (!propertiesContent.isBlank()) {
-            builder.append(indent(componentIndent + 1) + propertiesContent + ";\n");
+            out.append(indent(componentIndent + 1) + propertiesContent + ";\n");
         }
         //#endregion
 
         // If there are children, add a new line
-        if (!this.children.isEmpty() && (!propertiesContent.isBlank() || !this.styles.isEmpty()) && !this.settings.minimal) {
-            builder.append("\n");
+        if (!this.children.isEmpty() && (!propertiesContent.isBlank() || !this.styles.isEmpty()) && !this.isMinimal()) {
+            out.append("\n");
         }
+    }
+
+    /**
+     * Collect the property values that repeat often enough in this tree that a variable
+     * reference is shorter than repeating them.
+     * <p>
+     * Values are compared by their formatted text, so equal maps built separately (e.g., the
+     * same button style on many components) are recognized as one value. A value is only
+     * hoisted when the bytes saved by its references exceed the size of its definition.
+     * </p>
+     * @return The hoisted values by formatted text, mapped to their variable names (without @),
+     *         in order of first appearance.
+     */
+    public Map<String, String> collectHoistableValues() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        this.countHoistableValues(counts);
 
-        int childIndex = 0;
+        Map<String, String> hoisted = new LinkedHashMap<>();
 
-        //#region Component children
-        for (Object child : this.children) {
-            childIndex++;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            int count = entry.getValue();
+            if (count < 2) {
+                continue;
+            }
 
-            String value;
+            String name = HOISTED_VALUE_PREFIX + hoisted.size();
+            int valueLength = entry.getKey().length();
+            int referenceLength = name.length() + 1;
 
-            // If the child is a string, add it to the list
-            if (child instanceof String) {
-                value = indent(componentIndent + 1) + ((String) child).trim();
-            } else
-            // If the child is a component builder, add it to the list
-            if (child instanceof ComponentBuilder) {
-                value = ((ComponentBuilder) child).build(this.settings);
+            // Bytes saved by the references minus the definition line (@Name = value;\n)
+            int saved = count * (valueLength - referenceLength) - (referenceLength + valueLength + 5);
+            if (saved > 0) {
+                hoisted.put(entry.getKey(), name);
+            }
+        }
+
+        return hoisted;
+    }
+
+    @Override
+    String buildChild(ComponentBuilder parent, int componentIndent) {
+        return this.buildAsChild(parent.settings);
+    }
+
+    /**
+     * Build the component as the child of another component.
+     * @param settings The settings of the parent (can be null).
+     * @return The component as a string.
+     */
+    protected String buildAsChild(ComponentBuilderSettings settings) {
+        return this.build(settings);
+    }
+
+    /**
+     * Build the component without its children (variables, comments, header and properties).
+     * Two versions of a component with the same shell only differ in their children.
+     * @param settings The settings to use.
+     * @return The shell.
+     */
+    String buildShell(ComponentBuilderSettings settings) {
+        ComponentBuilderSettings previous = this.settings;
+        this.settings = settings;
+
+        StringBuilder out = new StringBuilder();
+        int indent = this.getComponentBlockIndentLevel();
+        this.writeVariables(out, indent);
+        this.writeOpening(out, indent);
+
+        this.settings = previous;
+        return out.toString();
+    }
+
+    /**
+     * Build each child of the component, as the serializer writes it.
+     * @param settings The settings to use.
+     * @return The children as strings, in order.
+     */
+    List<String> buildChildren(ComponentBuilderSettings settings) {
+        this.settings = settings;
+
+        int indent = this.getComponentBlockIndentLevel() + 1;
+        List<String> outputs = new ArrayList<>(this.children.size());
+        for (ComponentNode child : this.children) {
+            outputs.add(child.buildChild(this, indent));
+        }
+
+        return outputs;
+    }
+
+    /**
+     * Get the children of the component as stored.
+     * @return The children.
+     */
+    List<ComponentNode> getChildNodes() {
+        return this.children;
+    }
+
+    /**
+     * Get the properties of the component as stored.
+     * @return The properties.
+     */
+    Map<String, Object> getPropertyMap() {
+        return this.properties;
+    }
+
+    /**
+     * Get the id the component is addressed by in the client ("Id" property, or id).
+     * @return The normalized id, or null if the component has none.
+     */
+    String getElementId() {
+        String propId = this.getPropertyIgnoreCase("Id");
+        return normalizeId(propId != null ? propId.toString() : this.id);
+    }
+
+    /**
+     * Whether the component is written by the iterative serializer, i.e. its children are written
+     * as they are and can be replaced in the client without the rest of the component.
+     * @return True if the class does not customize how it builds.
+     */
+    boolean isStreamable() {
+        return STREAMABLE.get(this.getClass());
+    }
+
+    /**
+     * Copy the id, properties, styles, variables and comments of another component into this one,
+     * and move its children here.
+     * <p>
+     * Values are written through the setters, so subclasses see them as regular writes.
+     * </p>
+     * @param other The component to copy from.
+     */
+    protected void copyFrom(ComponentBuilder other) {
+        if (other.id != null) {
+            this.invalidate();
+            this.id = other.id;
+        }
+
+        if (!other.properties.isEmpty()) {
+            this.setProperties(other.properties);
+        }
+
+        if (!other.styles.isEmpty()) {
+            this.setStyle(other.styles);
+        }
+
+        // Re-parent the children to this component
+        this.appendChild(other.getChildren());
+
+        if (!other.variables.isEmpty()) {
+            this.setVariable(other.variables);
+        }
+
+        for (String comment : other.comments) {
+            this.addComment(comment);
+        }
+    }
+
+    /**
+     * Count the hoistable property values of this component and its descendants.
+     * @param counts The counts by formatted value.
+     */
+    @Override
+    void countHoistableValues(Map<String, Integer> counts) {
+        // Walk the tree in document order with an explicit stack (children pushed in reverse)
+        ArrayDeque<ComponentNode> stack = new ArrayDeque<>();
+        stack.push(this);
+
+        while (!stack.isEmpty()) {
+            ComponentNode node = stack.pop();
+
+            if (!(node instanceof ComponentBuilder)) {
+                node.countHoistableValues(counts);
+                continue;
+            }
+
+            ComponentBuilder component = (ComponentBuilder) node;
+            for (String key : component.getOwnHoistKeys()) {
+                if (key != null) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+
+            for (int i = component.children.size() - 1; i >= 0; i--) {
+                stack.push(component.children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Get the hoist keys of the property values of this component, without its descendants.
+     * They are memoized until the component changes.
+     * @return The hoist keys, in property order.
+     */
+    private String[] getOwnHoistKeys() {
+        if (this.memoHoistKeys == null) {
+            String[] keys = new String[this.properties.size() + 1];
+
+            int index = 0;
+            for (Map.Entry<String, Object> entry : this.properties.entrySet()) {
+                if (this.isHoistCounted(entry.getKey())) {
+                    keys[index] = getHoistKey(entry.getValue());
+                }
+                index++;
+            }
+
+            // The merged style map
+            if (this.hasStyleMap()) {
+                Object styleMap = this.parseStyles();
+                if (styleMap instanceof Map<?, ?>) {
+                    keys[index] = getHoistKey(styleMap);
+                }
+            }
+
+            this.memoHoistKeys = keys;
+        }
+
+        return this.memoHoistKeys;
+    }
+
+    /**
+     * Check if the value of a property is counted for hoisting.
+     * @param property The property name.
+     * @return False for the id, the Style property (counted as the merged style map) and the Text of a
+     *         Group (not written).
+     */
+    private boolean isHoistCounted(String property) {
+        if (property.equalsIgnoreCase("Id") || property.equals("Style")) {
+            return false;
+        }
+        return !(property.equals("Text") && this.component.equalsIgnoreCase("Group"));
+    }
+
+    /**
+     * Check if the component has a Style property or styles, merged into one style map.
+     * @return True if the style map is counted for hoisting.
+     */
+    private boolean hasStyleMap() {
+        return this.properties.containsKey("Style") || !this.styles.isEmpty();
+    }
+
+    /**
+     * Count a single hoistable property value.
+     * @param counts The counts by formatted value.
+     * @param value The property value.
+     */
+    static void countHoistableValue(Map<String, Integer> counts, Object value) {
+        String key = getHoistKey(value);
+        if (key != null) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Check if values are hoisted in this build.
+     * @return True if the settings hold hoisted values.
+     */
+    private boolean isHoisting() {
+        return this.settings != null && this.settings.hoistedValues != null && !this.settings.hoistedValues.isEmpty();
+    }
+
+    /**
+     * Get the variable reference of a hoisted value.
+     * @param hoistKey The hoist key of the value (see {@link #getHoistKey}), or null.
+     * @return The reference (e.g., @MIBc0), or null if the value is not hoisted.
+     */
+    private String getHoistedReference(String hoistKey) {
+        if (hoistKey == null || !this.isHoisting()) {
+            return null;
+        }
+
+        String name = this.settings.hoistedValues.get(hoistKey);
+        return name != null ? "@" + name : null;
+    }
+
+    /**
+     * Get the formatted text a value is compared by when hoisting.
+     * @param value The property value.
+     * @return The formatted value, or null if the value cannot be hoisted.
+     */
+    private static String getHoistKey(Object value) {
+        // Function calls are formatted for their position in the tree
+        if (value == null || value instanceof FnCall) {
+            return null;
+        }
+
+        String key;
+
+        if (value instanceof Map<?, ?>) {
+            key = formatNestedMap((Map<?, ?>) value, 0, NestingStyle.PARENTHESIS);
+        } else if (value instanceof LiteralValue || SerializationUtil.isSerializable(value)) {
+            key = stringifyValue(value);
+        } else {
+            return null;
+        }
+
+        // Variables are already references
+        if (key.isBlank() || key.startsWith("@")) {
+            return null;
+        }
+
+        return key;
+    }
+
+    /**
+     * Format a property as "Key: value".
+     * @param component The component type the property belongs to.
+     * @param key The property name.
+     * @param valueObj The property value.
+     * @param componentIndent The indent level of the component.
+     * @return The formatted property, or null if it must be skipped.
+     */
+    private String formatProperty(String component, String key, Object valueObj, int componentIndent) {
+        return this.formatProperty(component, key, valueObj, this.isHoisting() ? getHoistKey(valueObj) : null, componentIndent);
+    }
+
+    /**
+     * Format a property as "Key: value", with the hoist key of its value already computed.
+     * @param component The component type the property belongs to.
+     * @param key The property name.
+     * @param valueObj The property value.
+     * @param hoistKey The hoist key of the value, or null if it is not hoisted.
+     * @param componentIndent The indent level of the component.
+     * @return The formatted property, or null if it must be skipped.
+     */
+    private String formatProperty(String component, String key, Object valueObj, String hoistKey, int componentIndent) {
+        // Group does not support Text property - skip it (it should be converted to Label child)
+        if (key.equals("Text") && component.equalsIgnoreCase("Group")) {
+            return null;
+        }
+
+        // If the value was hoisted, reference its variable
+        String value = this.getHoistedReference(hoistKey);
+
+        if (value == null) {
+            // If the value is a map, format it
+            if (valueObj instanceof Map<?, ?>) {
+                // Format the nested map
+                value = formatNestedMap(
+                    (Map<?, ?>) valueObj, componentIndent + 1, NestingStyle.PARENTHESIS
+                );
             } else {
-                throw new IllegalArgumentException("Child is not a string or component builder: " + child.getClass().getName());
+                value = formatPropertyValue(valueObj, componentIndent + 1);
             }
+        }
+
+        // If the value is blank, skip it
+        if (ObjectUtil.isBlank(value)) {
+            return null;
+        }
 
-            builder.append(value + "\n");
+        return key + ": " + value;
+    }
 
-            // Jump two lines between children if not the last child
-            if (childIndex < this.children.size()) {
-                builder.append("\n");
+    /**
+     * Build a flyweight leaf as a child of this component.
+     * <p>
+     * Produces the same output as an equivalent ComponentBuilder leaf, using this component's settings.
+     * </p>
+     * @param node The flyweight leaf.
+     * @param componentIndent The indent level of the leaf.
+     * @return The leaf as a string.
+     */
+    protected String buildFlyweight(FlyweightComponent node, int componentIndent) {
+        ComponentPrototype prototype = node.getPrototype();
+        Map<String, Object> delta = node.getDelta();
+
+        List<String> propertiesOutput = new ArrayList<>();
+
+        // Shared properties, unless overridden by the instance
+        for (Map.Entry<String, Object> entry : prototype.getProperties().entrySet()) {
+            if (delta.containsKey(entry.getKey())) {
+                continue;
+            }
+
+            String property = this.formatProperty(prototype.getComponent(), entry.getKey(), entry.getValue(), componentIndent);
+            if (property != null) {
+                propertiesOutput.add(property);
             }
         }
 
-        builder.append(indent(componentIndent) + "}");
-        //#endregion
+        // Instance properties
+        for (Map.Entry<String, Object> entry : delta.entrySet()) {
+            String property = this.formatProperty(prototype.getComponent(), entry.getKey(), entry.getValue(), componentIndent);
+            if (property != null) {
+                propertiesOutput.add(property);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(indent(componentIndent)).append(prototype.getComponent()).append(" {\n");
+
+        if (!propertiesOutput.isEmpty()) {
+            builder.append(indent(componentIndent + 1))
+                .append(String.join(";\n" + indent(componentIndent + 1), propertiesOutput))
+                .append(";\n");
+        }
+
+        builder.append(indent(componentIndent)).append("}");
 
         return builder.toString();
     }
@@ -321,7 +1077,7 @@ public class ComponentBuilder {
             return this;
         }
 
-        this.children.add(child);
+        this.writableChildren().add(new TextNode(child));
         return this;
     }
 
@@ -336,15 +1092,30 @@ public class ComponentBuilder {
             return this;
         }
 
-        this.children.add(child);
+        this.writableChildren().add(child);
         child.setParent(this);
 
         return this;
     }
 
+    /**
+     * Append a flyweight leaf to the component.
+     * @param child The flyweight leaf to append.
+     * @return The builder instance.
+     */
+    public ComponentBuilder appendChild(FlyweightComponent child) {
+        // Ignore if the child is null
+        if (child == null) {
+            return this;
+        }
+
+        this.writableChildren().add(child);
+        return this;
+    }
+
     /**
      * Append children to the component.
-     * @param children The children to append.
+     * @param children The children to append (component builders, flyweight leaves or raw UI strings).
      * @return The builder instance.
      */
     public ComponentBuilder appendChild(List<Object> children) {
@@ -353,7 +1124,18 @@ public class ComponentBuilder {
             return this;
         }
 
-        this.children.addAll(children);
+        for (Object child : children) {
+            if (child instanceof String) {
+                this.appendChild((String) child);
+            } else if (child instanceof ComponentBuilder) {
+                this.appendChild((ComponentBuilder) child);
+            } else if (child instanceof FlyweightComponent) {
+                this.appendChild((FlyweightComponent) child);
+            } else if (child != null) {
+                throw new IllegalArgumentException("Child is not a string or component builder: " + child.getClass().getName());
+            }
+        }
+
         return this;
     }
 
@@ -395,7 +1177,7 @@ public class ComponentBuilder {
             System.err.println("[DEBUG-B] setVariable called with _MI_ | var=" + cleanVar + " | value=" + value + " | caller=" + caller);
         }
         // #endregion
-        this.variables.put(cleanVar, value);
+        this.writableVariables().put(cleanVar, value);
         return this;
     }
 
@@ -415,16 +1197,36 @@ public class ComponentBuilder {
             }
         }
         // #endregion
-        this.variables.putAll(variables);
+        this.writableVariables().putAll(variables);
         return this;
     }
     
+    /**
+     * Remove a variable of the component.
+     * @param variable The variable to remove (with or without @).
+     * @return The builder instance.
+     */
+    public ComponentBuilder removeVariable(String variable) {
+        String cleanVar = variable.replaceFirst("^@", "");
+        if (this.variables.containsKey(cleanVar)) {
+            this.writableVariables().remove(cleanVar);
+        }
+        return this;
+    }
+
     // #region agent log - temporary getters
+    /**
+     * Get the variables of the component (reading them leaves the memoized output valid).
+     * @return The variables, by name (unmodifiable; see {@link #setVariable} and {@link #removeVariable}).
+     */
     public Map<String, String> getBuilderVariables() {
-        return this.variables;
+        return Collections.unmodifiableMap(this.variables);
     }
     
     public ComponentBuilderSettings getSettings() {
+        if (this.settings == null) {
+            this.settings = new ComponentBuilderSettings();
+        }
         return this.settings;
     }
     // #endregion
@@ -446,7 +1248,7 @@ public class ComponentBuilder {
      * @return The builder instance.
      */
     public ComponentBuilder setStyle(String style, Object value) {
-        this.styles.put(style, value);
+        this.writableStyles().put(style, value);
         return this;
     }
 
@@ -456,7 +1258,7 @@ public class ComponentBuilder {
      * @return The builder instance.
      */
     public ComponentBuilder setStyle(Map<String, Object> styles) {
-        this.styles.putAll(styles);
+        this.writableStyles().putAll(styles);
         return this;
     }
 
@@ -478,6 +1280,7 @@ public class ComponentBuilder {
             );
         }
 
+        this.invalidate();
         this.id = pascalId;
         return this;
     }
@@ -611,7 +1414,7 @@ public class ComponentBuilder {
                 }
 
                 // Numbers (integer or decimal) - no quotes
-                if (trimmed.matches("-?\\d+(\\.\\d+)?")) {
+                if (NumberValue.isNumber(trimmed)) {
                     return trimmed;
                 }
 
@@ -635,6 +1438,37 @@ public class ComponentBuilder {
         throw new IllegalArgumentException("Value is not a serializable type: " + value.getClass().getName());
     }
 
+    /**
+     * Classify a string value once, formatted as {@link #stringifyValue(Object)} formats it.
+     * <p>
+     * Parsers store the result instead of the string, so each build appends the precomputed text
+     * instead of classifying the string again.
+     * </p>
+     * @param value The string value.
+     * @return The typed value (TranslationKey, VarRef, NumberValue, Color, QuotedString, or a LiteralValue for booleans).
+     */
+    public static LiteralValue typedValue(String value) {
+        String trimmed = value.trim();
+
+        if (trimmed.startsWith("%")) {
+            return TranslationKey.of(toCamelCaseI18nPath(trimmed));
+        }
+        if (trimmed.startsWith("@")) {
+            return VarRef.of(trimmed);
+        }
+        if (NumberValue.isNumber(trimmed)) {
+            return NumberValue.of(trimmed);
+        }
+        if (trimmed.equals("true") || trimmed.equals("false")) {
+            return LiteralValue.of(trimmed);
+        }
+        if (trimmed.startsWith("#")) {
+            return Color.of(expandHexColor(trimmed));
+        }
+
+        return QuotedString.of(trimmed);
+    }
+
     /**
      * Convert a string to PascalCase.
      * Handles snake_case, kebab-case, and camelCase conversions.
@@ -662,6 +1496,22 @@ public class ComponentBuilder {
         return result.toString();
     }
 
+    /**
+     * Get the component type.
+     * @return The component type (e.g., "Group", "Label").
+     */
+    public String getComponent() {
+        return this.component;
+    }
+
+    /**
+     * Get the id of the component.
+     * @return The id (already in PascalCase), or null if not set.
+     */
+    public String getId() {
+        return this.id;
+    }
+
     /**
      * Get a property for the component.
      * @param property The property to get.
@@ -708,13 +1558,16 @@ public class ComponentBuilder {
      * @return The name of the property.
      */
     public String getPropertyNameIgnoreCase(String property) {
-        for (Map.Entry<String, Object> entry : this.properties.entrySet()) {
-            if (entry.getKey().equalsIgnoreCase(property)) {
-                return entry.getKey();
-            }
-        }
+        return PropertyKeys.findIgnoreCase(this.properties, property);
+    }
 
-        return null;
+    /**
+     * Get the name of a style for the component.
+     * @param style The style to get.
+     * @return The name of the style, or null if it is not set.
+     */
+    public String getStyleNameIgnoreCase(String style) {
+        return PropertyKeys.findIgnoreCase(this.styles, style);
     }
 
     /**
@@ -724,13 +1577,7 @@ public class ComponentBuilder {
      * @return The builder instance.
      */
     public ComponentBuilder setProperty(String property, Object value) {
-        // If the property is "id", set the id of the component
-        if (property.toLowerCase() == "id") {
-            this.setId(value.toString());
-            return this;
-        }
-
-        this.properties.put(property, value);
+        this.writableProperties().put(property, value);
         return this;
     }
 
@@ -748,6 +1595,20 @@ public class ComponentBuilder {
         return this;
     }
 
+    /**
+     * Remove a property from the component.
+     * @param property The property to remove.
+     * @return The builder instance.
+     */
+    public ComponentBuilder removeProperty(String property) {
+        if (this.properties.containsKey(property)) {
+            this.invalidate();
+            this.properties.remove(property);
+        }
+
+        return this;
+    }
+
     /**
      * Set a property for the component.
      * @param property The property to set.
@@ -776,7 +1637,7 @@ public class ComponentBuilder {
                 merged.putAll((Map<String, Object>) current);
                 merged.putAll(value);
 
-                this.properties.put(property, merged);
+                this.writableProperties().put(property, merged);
                 return this;
             }
         }
@@ -925,6 +1786,12 @@ public class ComponentBuilder {
      * @return The builder instance.
      */
     public ComponentBuilder addComment(String comment) {
+        this.invalidate();
+
+        if (!(this.comments instanceof ArrayList)) {
+            this.comments = new ArrayList<>(1);
+        }
+
         this.comments.add(comment);
         return this;
     }
@@ -960,9 +1827,9 @@ public class ComponentBuilder {
      * @param level The number of indent characters to generate.
      * @return A string consisting of 'level' indent characters.
      */
-    private String indent(int level) {
+    String indent(int level) {
         // If the settings are set to minimal, return an empty string
-        if (this.settings != null && this.settings.minimal) {
+        if (this.isMinimal()) {
             return "";
         }
 
@@ -987,51 +1854,77 @@ public class ComponentBuilder {
     }
 
     /**
-     * Format a nested Map recursively.
+     * A map whose entries are being formatted.
+     */
+    private static final class MapFrame {
+        private final java.util.Iterator<? extends Map.Entry<?, ?>> entries;
+        private final int indentLevel;
+        private final String nestingClose;
+        private boolean first = true;
+
+        private MapFrame(Map<?, ?> map, int indentLevel, String nestingClose) {
+            this.entries = map.entrySet().iterator();
+            this.indentLevel = indentLevel;
+            this.nestingClose = nestingClose;
+        }
+    }
+
+    /**
+     * Format a nested Map.
+     * Nested maps are walked with an explicit stack, so their depth is not bounded by the call stack.
      * @param map The map to format.
      * @param indentLevel The indentation level.
      * @param nestingStyle The nesting style to use.
-     * @return The formatted map string.
+     * @return The formatted map string (empty for an empty map).
      */
     public static String formatNestedMap(Map<?, ?> map, int indentLevel, NestingStyle nestingStyle) {
+        if (map.isEmpty()) {
+            return "";
+        }
+
         StringBuilder builder = new StringBuilder();
 
         // Get the nesting open and close characters
         String nestingOpen = nestingStyle == NestingStyle.PARENTHESIS ? "(" : "{";
         String nestingClose = nestingStyle == NestingStyle.PARENTHESIS ? ")" : "}";
 
-        List<String> valueContent = new ArrayList<>();
-        String indentStr = INDENT.repeat(indentLevel + 1);
+        ArrayDeque<MapFrame> stack = new ArrayDeque<>();
+        builder.append(nestingOpen).append('\n');
+        stack.push(new MapFrame(map, indentLevel, nestingClose));
 
-        for (Map.Entry<?, ?> subEntry : map.entrySet()) {
-            String subValue;
-            Object subValueObj = subEntry.getValue();
+        while (!stack.isEmpty()) {
+            MapFrame frame = stack.peek();
 
+            // Close the map after its last value
+            if (!frame.entries.hasNext()) {
+                builder.append('\n').append(INDENT.repeat(frame.indentLevel)).append(frame.nestingClose);
+                stack.pop();
+                continue;
+            }
+
+            Map.Entry<?, ?> subEntry = frame.entries.next();
+
+            // Join the values with a comma and a new line
+            if (!frame.first) {
+                builder.append(",\n");
+            }
+            frame.first = false;
+
+            builder.append(INDENT.repeat(frame.indentLevel + 1)).append(subEntry.getKey()).append(": ");
+
+            Object subValueObj = subEntry.getValue();
             if (subValueObj instanceof Map<?, ?>) {
-                // Recursively format nested maps
-                // Children will always be formatted with parenthesis
-                subValue = formatNestedMap(
-                    (Map<?, ?>) subValueObj,
-                    indentLevel + 1,
-                    NestingStyle.PARENTHESIS
-                );
+                // Nested maps are always formatted with parenthesis (empty maps output nothing)
+                Map<?, ?> subMap = (Map<?, ?>) subValueObj;
+                if (!subMap.isEmpty()) {
+                    builder.append("(\n");
+                    stack.push(new MapFrame(subMap, frame.indentLevel + 1, ")"));
+                }
             } else {
                 // Other Map properties use normal formatting
                 // This will be formatted with quotes if needed
-                subValue = formatPropertyValue(subValueObj, indentLevel + 1);
+                builder.append(formatPropertyValue(subValueObj, frame.indentLevel + 1));
             }
-
-            valueContent.add(indentStr + subEntry.getKey() + ": " + subValue);
-        }
-
-        // Join the values with a comma and a new line
-        String valuesContent = String.join(",\n", valueContent);
-
-        // If there are values, add the nesting open and close characters
-        if (!valuesContent.isBlank()) {
-            builder.append(nestingOpen + "\n");
-            builder.append(valuesContent);
-            builder.append("\n" + INDENT.repeat(indentLevel) + nestingClose);
         }
 
         return builder.toString();
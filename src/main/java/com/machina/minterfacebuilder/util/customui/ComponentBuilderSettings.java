@@ -1,5 +1,7 @@
 package com.machina.minterfacebuilder.util.customui;
 
+import java.util.Map;
+
 public class ComponentBuilderSettings {
     /**
      * Whether to use minimal formatting for the component.
@@ -11,6 +13,27 @@ public class ComponentBuilderSettings {
      * Useful when the parent class already generates them with custom styles.
      */
     public boolean skipMIVariables = false;
+
+    /**
+     * Whether to hoist repeated property values into @MIBc variable definitions in the template header.
+     */
+    public boolean hoistValues = true;
+
+    /**
+     * The hoisted property values, by their formatted text, mapped to the variable that replaces them.
+     * Filled by the template while building; null when nothing is hoisted.
+     */
+    public Map<String, String> hoistedValues = null;
+
+    /**
+     * The depth, node and output limits applied while building.
+     */
+    public TreeLimits limits = TreeLimits.DEFAULT;
+
+    /**
+     * Whether components memoize their output, so unchanged subtrees are not serialized again.
+     */
+    public boolean memoize = true;
     
     /**
      * Constructor for the component builder settings with default values.
@@ -35,6 +58,19 @@ public class ComponentBuilderSettings {
         this.skipMIVariables = skipMIVariables;
     }
 
+    /**
+     * Constructor that copies the given settings.
+     * @param other The settings to copy.
+     */
+    public ComponentBuilderSettings(ComponentBuilderSettings other) {
+        this.minimal = other.minimal;
+        this.skipMIVariables = other.skipMIVariables;
+        this.hoistValues = other.hoistValues;
+        this.hoistedValues = other.hoistedValues;
+        this.limits = other.limits;
+        this.memoize = other.memoize;
+    }
+
     /**
      * Constructor for the component builder settings with the given settings.
      * @param minimal Whether to use minimal formatting for the component.
@@ -0,0 +1,39 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.Map;
+
+/**
+ * A child of a {@link ComponentBuilder}: a component builder, a flyweight leaf or raw UI text.
+ * <p>
+ * Children are stored in a typed list and build themselves, so the parent needs no
+ * type checks while serializing.
+ * </p>
+ */
+public abstract class ComponentNode {
+    /**
+     * Only the node types of this package can extend this class directly.
+     */
+    ComponentNode() { }
+
+    /**
+     * Build the node as a child of a component.
+     * @param parent The parent component, whose settings are used.
+     * @param componentIndent The indent level of the node.
+     * @return The node as a string.
+     */
+    abstract String buildChild(ComponentBuilder parent, int componentIndent);
+
+    /**
+     * Count the hoistable property values of the node and its descendants.
+     * @param counts The counts by formatted value.
+     */
+    abstract void countHoistableValues(Map<String, Integer> counts);
+
+    /**
+     * Get the node as it is exposed by {@link ComponentBuilder#getChildren()}.
+     * @return The node, or its text for raw UI text.
+     */
+    Object unwrap() {
+        return this;
+    }
+}
@@ -0,0 +1,82 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The shared, immutable part of many identical leaf components.
+ * <p>
+ * Generated subtrees (QR code modules, image pixels, separators) contain thousands of leaves
+ * that only differ in a property or two, usually their Anchor. A prototype holds the component
+ * type and the common properties once; each leaf is a {@link FlyweightComponent} that only
+ * stores its own properties.
+ * </p>
+ * <pre>
+ * ComponentPrototype dark = new ComponentPrototype("Group", Map.of("Background", "#000000"));
+ * group.appendChild(dark.instance("Anchor", AnchorMap.of(0, 0, 6, 6)));
+ * </pre>
+ * <p>
+ * Prototypes are immutable and can be shared between templates and threads.
+ * </p>
+ */
+public final class ComponentPrototype {
+    /**
+     * The component type.
+     */
+    private final String component;
+
+    /**
+     * The shared properties.
+     */
+    private final Map<String, Object> properties;
+
+    /**
+     * Create a prototype.
+     * @param component The component type (e.g., "Group").
+     * @param properties The properties shared by every instance; copied.
+     */
+    public ComponentPrototype(String component, Map<String, Object> properties) {
+        if (component == null || component.isBlank()) {
+            throw new IllegalArgumentException("Component type cannot be null or blank");
+        }
+
+        this.component = component;
+        this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties != null ? properties : Map.of()));
+    }
+
+    /**
+     * Create a leaf from this prototype.
+     * @param delta The properties of this leaf, added to or overriding the shared ones.
+     * @return The flyweight leaf.
+     */
+    public FlyweightComponent instance(Map<String, Object> delta) {
+        return new FlyweightComponent(this, delta);
+    }
+
+    /**
+     * Create a leaf from this prototype that only differs in one property.
+     * @param property The property name (e.g., "Anchor").
+     * @param value The property value.
+     * @return The flyweight leaf.
+     */
+    public FlyweightComponent instance(String property, Object value) {
+        return new FlyweightComponent(this, property, value);
+    }
+
+    /**
+     * Get the component type.
+     * @return The component type.
+     */
+    public String getComponent() {
+        return this.component;
+    }
+
+    /**
+     * Get the shared properties.
+     * @return The shared properties (unmodifiable).
+     */
+    public Map<String, Object> getProperties() {
+        return this.properties;
+    }
+}
@@ -0,0 +1,195 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.machina.minterfacebuilder.model.InterfaceVariable;
+import com.machina.minterfacebuilder.model.LiteralValue;
+
+/**
+ * Where the variables of a component tree are shown, as the property selectors a refresh can set
+ * (e.g., "#Gold.Text" for {@code <p id="gold">@Gold</p>}).
+ * <p>
+ * This splits a page into a skeleton, sent once (or shipped as a static asset), and its data: a
+ * refresh sends one property update per reference instead of the whole page. A variable is only
+ * bound if every one of its references can be set that way, i.e. is a property of an element with
+ * an id. References in styles, in elements without id or inside text are not, nor are variables
+ * substituted while parsing (e.g., {@code <span :text="@Title" />}, whose value is in the output instead
+ * of a reference), and a change of such a variable needs the page to be sent again.
+ * </p>
+ */
+public final class DataBindings {
+    /**
+     * Property selectors of the bound variables, by variable name (without @).
+     */
+    private final Map<String, List<String>> selectors;
+
+    /**
+     * Variables with references that no property update reaches.
+     */
+    private final Set<String> unbound;
+
+    private DataBindings(Map<String, List<String>> selectors, Set<String> unbound) {
+        this.selectors = selectors;
+        this.unbound = unbound;
+    }
+
+    /**
+     * Find the bindings of the variables of a component tree.
+     * @param root The root component.
+     * @param variables The names of the variables (without @).
+     * @param substituted The names of the variables substituted while parsing (never bound).
+     * @param body The output of the tree without hoisted values, where all the references are counted.
+     * @return The bindings.
+     */
+    public static DataBindings of(ComponentBuilder root, Set<String> variables, Set<String> substituted, String body) {
+        Map<String, List<String>> selectors = new LinkedHashMap<>();
+
+        // Property references of the elements with an id
+        Deque<ComponentBuilder> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            ComponentBuilder component = pending.pop();
+
+            String id = component.getElementId();
+            if (id != null) {
+                for (Map.Entry<String, Object> property : component.getPropertyMap().entrySet()) {
+                    String variable = variableOf(property.getValue());
+                    if (variable != null && variables.contains(variable)) {
+                        selectors.computeIfAbsent(variable, key -> new ArrayList<>()).add("#" + id + "." + property.getKey());
+                    }
+                }
+            }
+
+            List<ComponentNode> children = component.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                if (children.get(i) instanceof ComponentBuilder) {
+                    pending.push((ComponentBuilder) children.get(i));
+                }
+            }
+        }
+
+        // A variable referenced more often than bound has references no update reaches, and the value of a
+        // substituted variable is in the output instead of a reference
+        Set<String> unbound = new HashSet<>();
+        for (String variable : variables) {
+            if (substituted.contains(variable)) {
+                unbound.add(variable);
+                selectors.remove(variable);
+                continue;
+            }
+
+            Matcher references = Pattern.compile("@" + Pattern.quote(variable) + "(?![A-Za-z0-9_])").matcher(body);
+            int count = 0;
+            while (references.find()) {
+                count++;
+            }
+
+            List<String> bound = selectors.get(variable);
+            if (count > (bound != null ? bound.size() : 0)) {
+                unbound.add(variable);
+                selectors.remove(variable);
+            }
+        }
+
+        return new DataBindings(selectors, unbound);
+    }
+
+    /**
+     * Get the property selectors of the bound variables.
+     * @return The selectors, by variable name (unused variables are not listed).
+     */
+    public Map<String, List<String>> getSelectors() {
+        return Collections.unmodifiableMap(this.selectors);
+    }
+
+    /**
+     * Get the variables that can't be refreshed by property updates.
+     * @return The variable names.
+     */
+    public Set<String> getUnboundVariables() {
+        return Collections.unmodifiableSet(this.unbound);
+    }
+
+    /**
+     * Add the property updates of changed variables.
+     * @param commandBuilder The command builder to add the updates to.
+     * @param values The new values, by variable name (without @).
+     * @return False if a variable can't be refreshed by property updates (the page must be sent again).
+     */
+    public boolean apply(UICommandBuilder commandBuilder, Map<String, InterfaceVariable> values) {
+        for (String variable : values.keySet()) {
+            if (this.unbound.contains(variable)) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, InterfaceVariable> entry : values.entrySet()) {
+            List<String> bound = this.selectors.get(entry.getKey());
+            if (bound == null) {
+                continue;
+            }
+            for (String selector : bound) {
+                set(commandBuilder, selector, entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the variable a property value references.
+     * @return The variable name (without @), or null if the value is not a reference.
+     */
+    private static String variableOf(Object value) {
+        String text = value instanceof LiteralValue ? ((LiteralValue) value).getValue()
+            : value instanceof String ? (String) value : null;
+        return text != null && text.length() > 1 && text.charAt(0) == '@' ? text.substring(1) : null;
+    }
+
+    /**
+     * Add the update of a property, typed after the variable.
+     */
+    private static void set(UICommandBuilder commandBuilder, String selector, InterfaceVariable variable) {
+        String value = variable.getValue();
+        if (value == null) {
+            return;
+        }
+
+        switch (variable.getType()) {
+            case BOOLEAN:
+                commandBuilder.set(selector, Boolean.parseBoolean(value));
+                break;
+            case LITERAL:
+                // Numbers keep their type; other literals are sent as text
+                try {
+                    commandBuilder.set(selector, Integer.parseInt(value));
+                } catch (NumberFormatException notInteger) {
+                    try {
+                        commandBuilder.set(selector, Double.parseDouble(value));
+                    } catch (NumberFormatException notNumber) {
+                        commandBuilder.set(selector, value);
+                    }
+                }
+                break;
+            case COLOR:
+            case STRING:
+            default:
+                // Quoted values are written as is in the variables section, so the quotes are not part of the text
+                if (value.length() > 1 && (value.startsWith("\"") && value.endsWith("\"") || value.startsWith("'") && value.endsWith("'"))) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                commandBuilder.set(selector, value);
+                break;
+        }
+    }
+}
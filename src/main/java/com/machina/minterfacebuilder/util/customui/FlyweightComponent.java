@@ -0,0 +1,109 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.Map;
+
+/**
+ * A leaf component that shares its type and common properties with a {@link ComponentPrototype}
+ * and only stores its own properties.
+ * <p>
+ * Flyweights are appended with {@link ComponentBuilder#appendChild(FlyweightComponent)} and
+ * build exactly like an equivalent ComponentBuilder leaf. They have no id, children, styles,
+ * comments or variables; use a ComponentBuilder when any of those are needed.
+ * </p>
+ */
+public final class FlyweightComponent extends ComponentNode {
+    /**
+     * The shared part of the component.
+     */
+    private final ComponentPrototype prototype;
+
+    /**
+     * The properties of this instance, or null if it has a single property.
+     */
+    private final Map<String, Object> delta;
+
+    /**
+     * The name of the single instance property (e.g., Anchor), or null.
+     */
+    private final String property;
+
+    /**
+     * The value of the single instance property, or null.
+     */
+    private final Object value;
+
+    /**
+     * Create a flyweight leaf.
+     * @param prototype The shared part of the component.
+     * @param delta The properties of this instance; not copied, so it must not be modified afterwards.
+     */
+    FlyweightComponent(ComponentPrototype prototype, Map<String, Object> delta) {
+        this.prototype = prototype;
+        this.delta = delta != null ? delta : Map.of();
+        this.property = null;
+        this.value = null;
+    }
+
+    /**
+     * Create a flyweight leaf with a single instance property, without allocating a map.
+     * @param prototype The shared part of the component.
+     * @param property The property name.
+     * @param value The property value.
+     */
+    FlyweightComponent(ComponentPrototype prototype, String property, Object value) {
+        this.prototype = prototype;
+        this.delta = null;
+        this.property = property;
+        this.value = value;
+    }
+
+    /**
+     * Get the shared part of the component.
+     * @return The prototype.
+     */
+    public ComponentPrototype getPrototype() {
+        return this.prototype;
+    }
+
+    /**
+     * Get the properties of this instance.
+     * @return The instance properties.
+     */
+    public Map<String, Object> getDelta() {
+        return this.delta != null ? this.delta : Map.of(this.property, this.value);
+    }
+
+    /**
+     * Get a property, looking at the instance properties first.
+     * @param property The property to get.
+     * @return The value of the property, or null if not set.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getProperty(String property) {
+        Object value = this.delta != null
+            ? this.delta.get(property)
+            : (property.equals(this.property) ? this.value : null);
+
+        return (T) (value != null ? value : this.prototype.getProperties().get(property));
+    }
+
+    @Override
+    String buildChild(ComponentBuilder parent, int componentIndent) {
+        return parent.buildFlyweight(this, componentIndent);
+    }
+
+    @Override
+    void countHoistableValues(Map<String, Integer> counts) {
+        Map<String, Object> delta = this.getDelta();
+
+        for (Map.Entry<String, Object> entry : this.prototype.getProperties().entrySet()) {
+            if (!delta.containsKey(entry.getKey())) {
+                ComponentBuilder.countHoistableValue(counts, entry.getValue());
+            }
+        }
+
+        for (Object value : delta.values()) {
+            ComponentBuilder.countHoistableValue(counts, value);
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
 import com.machina.minterfacebuilder.model.HTMLCustomUITemplate.DynamicEventData;
+import com.machina.minterfacebuilder.pages.StaticUIAssets;
 import com.machina.shared.util.PlayerUtil;
 
 public class PageBuilder extends ComponentBuilder {
@@ -303,8 +304,8 @@ public class PageBuilder extends ComponentBuilder {
                     e.printStackTrace();
                 }
 
-                // Append the UI inline to the #MIBRoot group
-                commandBuilder.appendInline("#MIBRoot", pageContents);
+                // Append the UI to the #MIBRoot group (by reference if it is a static asset)
+                StaticUIAssets.append(commandBuilder, "#MIBRoot", pageContents);
 
                 // Register the events
                 for (EventListener eventListener : self.eventListeners) {
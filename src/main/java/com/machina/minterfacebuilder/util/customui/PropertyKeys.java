@@ -0,0 +1,318 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global symbol table of property names.
+ * <p>
+ * Every property, style and variable key stored by a {@link ComponentBuilder} is interned here once,
+ * so nodes share one String instance per spelling and compare keys by identity. Each spelling gets a
+ * small integer id, and spellings that only differ in case share a fold class, which makes
+ * case-insensitive resolution a single hash lookup instead of a scan over the node's keys.
+ * </p>
+ * <p>
+ * The canonical Custom UI property names are registered first, so they are the preferred spelling
+ * of their fold class (e.g. "anchor" resolves to "Anchor").
+ * </p>
+ * <p>
+ * The table is bounded by {@link #MAX_SYMBOLS}: parsed templates may bring any number of names, and
+ * symbols are never released. Once it is full, new spellings are used as is and case-insensitive
+ * lookups fall back to comparing the keys of the searched map.
+ * </p>
+ */
+public final class PropertyKeys {
+    /**
+     * Canonical Custom UI property names, registered before any parsed key.
+     */
+    private static final String[] CANONICAL_NAMES = {
+        "Id", "Anchor", "Style", "Text", "Visible", "Background", "Padding", "LayoutMode", "FlexWeight",
+        "Left", "Top", "Right", "Bottom", "Width", "Height", "Full", "Horizontal", "Vertical",
+        "Value", "Min", "Max", "Step", "Checked", "Disabled", "ReadOnly", "MaxLength", "PasswordChar",
+        "PlaceholderText", "PlaceholderStyle", "Tooltip", "Options", "Source", "TexturePath",
+        "Frame", "FramesPerSecond", "Decoration", "ExpandedWidth", "CollapsedWidth",
+        "FontSize", "FontName", "TextColor", "OutlineColor", "LetterSpacing", "Wrap",
+        "RenderBold", "RenderItalics", "RenderUppercase", "RenderUnderlined",
+        "HorizontalAlignment", "VerticalAlignment", "Alignment", "Color"
+    };
+
+    /**
+     * A case-insensitive class of spellings.
+     */
+    private static final class FoldClass {
+        /**
+         * The interned spellings in registration order; the first one is the preferred spelling.
+         */
+        private volatile String[] spellings;
+
+        private FoldClass(String spelling) {
+            this.spellings = new String[] { spelling };
+        }
+    }
+
+    /**
+     * A registered spelling.
+     */
+    private static final class Symbol {
+        private final int id;
+        private final String name;
+        private final FoldClass fold;
+
+        private Symbol(int id, String name, FoldClass fold) {
+            this.id = id;
+            this.name = name;
+            this.fold = fold;
+        }
+    }
+
+    /**
+     * Symbols by exact spelling.
+     */
+    private static final Map<String, Symbol> SYMBOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Fold classes by lowercase spelling.
+     */
+    private static final Map<String, FoldClass> FOLDS = new ConcurrentHashMap<>();
+
+    /**
+     * Fold classes by any spelling that was looked up, so repeated case-insensitive queries do not lowercase.
+     */
+    private static final Map<String, FoldClass> LOOKUPS = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of cached lookup spellings.
+     */
+    private static final int MAX_LOOKUPS = 4096;
+
+    /**
+     * Maximum number of registered spellings.
+     */
+    private static final int MAX_SYMBOLS = 4096;
+
+    /**
+     * Whether a spelling was refused because the table is full, so some stored keys are not registered.
+     */
+    private static volatile boolean saturated;
+
+    /**
+     * Names by symbol id.
+     */
+    private static volatile String[] names = new String[64];
+
+    /**
+     * Number of registered symbols.
+     */
+    private static int count;
+
+    static {
+        for (String name : CANONICAL_NAMES) {
+            intern(name);
+        }
+    }
+
+    private PropertyKeys() {
+    }
+
+    /**
+     * Register a spelling (called with the table lock held by {@link #symbol(String)}).
+     */
+    private static Symbol register(String name) {
+        FoldClass fold = FOLDS.get(name.toLowerCase(Locale.ROOT));
+
+        if (fold == null) {
+            fold = new FoldClass(name);
+            FOLDS.put(name.toLowerCase(Locale.ROOT), fold);
+        } else {
+            String[] spellings = Arrays.copyOf(fold.spellings, fold.spellings.length + 1);
+            spellings[spellings.length - 1] = name;
+            fold.spellings = spellings;
+        }
+
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+        }
+
+        Symbol symbol = new Symbol(count, name, fold);
+        names[count++] = name;
+        SYMBOLS.put(name, symbol);
+
+        return symbol;
+    }
+
+    /**
+     * Get the symbol of a spelling, registering it if needed.
+     * @return The symbol, or null if the spelling is not registered and the table is full.
+     */
+    private static Symbol symbol(String name) {
+        Symbol symbol = SYMBOLS.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+
+        synchronized (PropertyKeys.class) {
+            symbol = SYMBOLS.get(name);
+            if (symbol != null) {
+                return symbol;
+            }
+            if (count >= MAX_SYMBOLS) {
+                saturated = true;
+                return null;
+            }
+            return register(name);
+        }
+    }
+
+    /**
+     * Get the fold class of a spelling without registering it.
+     * @return The fold class, or null if no spelling of the name is registered.
+     */
+    private static FoldClass foldOf(String name) {
+        Symbol symbol = SYMBOLS.get(name);
+        if (symbol != null) {
+            return symbol.fold;
+        }
+
+        FoldClass fold = LOOKUPS.get(name);
+        if (fold == null) {
+            fold = FOLDS.get(name.toLowerCase(Locale.ROOT));
+            if (fold != null && LOOKUPS.size() < MAX_LOOKUPS) {
+                LOOKUPS.put(name, fold);
+            }
+        }
+
+        return fold;
+    }
+
+    /**
+     * Intern a property name.
+     * @param name The property name.
+     * @return The shared instance of this exact spelling, or the name itself if the table is full.
+     */
+    public static String intern(String name) {
+        Symbol symbol = name == null ? null : symbol(name);
+        return symbol != null ? symbol.name : name;
+    }
+
+    /**
+     * Get the symbol id of a property name, registering it if needed.
+     * @param name The property name.
+     * @return The symbol id, or -1 if the name is not registered and the table is full.
+     */
+    public static int idOf(String name) {
+        Symbol symbol = symbol(name);
+        return symbol != null ? symbol.id : -1;
+    }
+
+    /**
+     * Get the property name of a symbol id.
+     * @param id The symbol id.
+     * @return The property name.
+     */
+    public static String nameOf(int id) {
+        String[] table = names;
+        if (id < 0 || id >= table.length || table[id] == null) {
+            throw new IllegalArgumentException("Unknown property symbol: " + id);
+        }
+        return table[id];
+    }
+
+    /**
+     * Resolve a property name case-insensitively to its preferred spelling.
+     * @param name The property name in any case.
+     * @return The preferred registered spelling, or null if no spelling is registered.
+     */
+    public static String canonicalIgnoreCase(String name) {
+        FoldClass fold = name == null ? null : foldOf(name);
+        return fold != null ? fold.spellings[0] : null;
+    }
+
+    /**
+     * Get all registered spellings of a property name, ignoring case.
+     * @param name The property name in any case.
+     * @return The registered spellings (empty if none).
+     */
+    static String[] spellingsIgnoreCase(String name) {
+        FoldClass fold = name == null ? null : foldOf(name);
+        return fold != null ? fold.spellings : new String[0];
+    }
+
+    /**
+     * Find the key stored in a map that matches a property name, ignoring case.
+     * The map keys must have been interned (as all ComponentBuilder and parsed attribute keys are).
+     * @param map The map to search.
+     * @param name The property name in any case.
+     * @return The stored key, or null if not present.
+     */
+    public static String findIgnoreCase(Map<String, ?> map, String name) {
+        if (name == null || map.isEmpty()) {
+            return null;
+        }
+
+        if (map.containsKey(name)) {
+            return intern(name);
+        }
+
+        for (String spelling : spellingsIgnoreCase(name)) {
+            if (map.containsKey(spelling)) {
+                return spelling;
+            }
+        }
+
+        // Keys stored once the table was full have no fold class
+        if (saturated) {
+            for (String key : map.keySet()) {
+                if (key.equalsIgnoreCase(name)) {
+                    return key;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the number of registered symbols.
+     * @return The number of symbols.
+     */
+    public static int size() {
+        synchronized (PropertyKeys.class) {
+            return count;
+        }
+    }
+
+    /**
+     * Forget the spellings registered after the first ones (used by tests to restore the table they filled).
+     * Keys still stored under a forgotten spelling are registered again when stored anew.
+     * @param size The number of symbols to keep (e.g. a previous {@link #size()}).
+     */
+    static void truncate(int size) {
+        synchronized (PropertyKeys.class) {
+            for (int id = count - 1; id >= size; id--) {
+                String name = names[id];
+                names[id] = null;
+                Symbol symbol = SYMBOLS.remove(name);
+
+                // Drop the spelling from its fold class, and the class once empty
+                String[] spellings = symbol.fold.spellings;
+                if (spellings.length == 1) {
+                    FOLDS.remove(name.toLowerCase(Locale.ROOT));
+                } else {
+                    symbol.fold.spellings = Arrays.stream(spellings).filter(spelling -> spelling != name).toArray(String[]::new);
+                }
+            }
+
+            if (size < count) {
+                count = size;
+                LOOKUPS.clear();
+
+                // A table that was not full before kept every stored key registered
+                if (size < MAX_SYMBOLS) {
+                    saturated = false;
+                }
+            }
+        }
+    }
+}
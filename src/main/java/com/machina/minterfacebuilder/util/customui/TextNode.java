@@ -0,0 +1,32 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.Map;
+
+/**
+ * Raw UI text appended as a child (e.g., a component written by hand).
+ */
+final class TextNode extends ComponentNode {
+    /**
+     * The UI text, trimmed.
+     */
+    private final String text;
+
+    TextNode(String text) {
+        this.text = text.trim();
+    }
+
+    @Override
+    String buildChild(ComponentBuilder parent, int componentIndent) {
+        return parent.indent(componentIndent) + this.text;
+    }
+
+    @Override
+    void countHoistableValues(Map<String, Integer> counts) {
+        // Raw text is not parsed
+    }
+
+    @Override
+    Object unwrap() {
+        return this.text;
+    }
+}
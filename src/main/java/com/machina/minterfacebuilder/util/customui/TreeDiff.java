@@ -0,0 +1,139 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Difference between two versions of a component tree, as the fragments to send to a client that
+ * shows the old version.
+ * <p>
+ * Children are compared by their output. When a component with an id kept its shell (everything but
+ * its children) and its child count, only its changed children are looked into; otherwise all the
+ * children of the component are replaced. Components that customize how they build are replaced as
+ * a whole by their closest ancestor.
+ * </p>
+ */
+public final class TreeDiff {
+    /**
+     * Replacement of the children of an element.
+     */
+    public static final class Fragment {
+        /**
+         * The selector of the element (e.g., "#Panel").
+         */
+        private final String selector;
+
+        /**
+         * The new children of the element, with the header they need.
+         */
+        private final String ui;
+
+        private Fragment(String selector, String ui) {
+            this.selector = selector;
+            this.ui = ui;
+        }
+
+        /**
+         * Get the selector of the element whose children are replaced.
+         * @return The selector (e.g., "#Panel").
+         */
+        public String getSelector() {
+            return this.selector;
+        }
+
+        /**
+         * Get the new children of the element.
+         * @return The UI to append to the element once cleared.
+         */
+        public String getUi() {
+            return this.ui;
+        }
+    }
+
+    private TreeDiff() { }
+
+    /**
+     * Diff two versions of a component tree.
+     * <p>
+     * Values are not hoisted while diffing, since each fragment is appended on its own.
+     * </p>
+     * @param oldRoot The root the client shows.
+     * @param newRoot The new root.
+     * @param header The definitions the fragments need (e.g., aliases and variables), prepended to each one.
+     * @param settings The settings to build with.
+     * @return The fragments (empty if both trees build the same), or null if the whole tree must be replaced.
+     */
+    public static List<Fragment> diff(ComponentBuilder oldRoot, ComponentBuilder newRoot, String header, ComponentBuilderSettings settings) {
+        ComponentBuilderSettings diffSettings = new ComponentBuilderSettings(settings != null ? settings : new ComponentBuilderSettings());
+        diffSettings.hoistValues = false;
+        diffSettings.hoistedValues = null;
+
+        ComponentBuilderSettings oldSettings = oldRoot.getSettings();
+        ComponentBuilderSettings newSettings = newRoot.getSettings();
+        try {
+            List<Fragment> fragments = new ArrayList<>();
+            return diffComponent(oldRoot, newRoot, header, diffSettings, fragments) ? fragments : null;
+        } finally {
+            oldRoot.setSettings(oldSettings);
+            newRoot.setSettings(newSettings);
+        }
+    }
+
+    /**
+     * Diff two versions of a component.
+     * @param oldComponent The version the client shows.
+     * @param newComponent The new version.
+     * @param header The header of the fragments.
+     * @param settings The settings to build with.
+     * @param fragments The fragments to add to.
+     * @return False if the component can't be updated by replacing children (the caller must replace it).
+     */
+    private static boolean diffComponent(ComponentBuilder oldComponent, ComponentBuilder newComponent, String header,
+                                         ComponentBuilderSettings settings, List<Fragment> fragments) {
+        String id = newComponent.getElementId();
+        if (id == null || oldComponent.getClass() != newComponent.getClass()
+            || !oldComponent.buildShell(settings).equals(newComponent.buildShell(settings))) {
+            return false;
+        }
+
+        List<String> oldOutputs = oldComponent.buildChildren(settings);
+        List<String> newOutputs = newComponent.buildChildren(settings);
+
+        // Same child count: look into the changed children only
+        if (oldOutputs.size() == newOutputs.size()) {
+            List<ComponentNode> oldChildren = oldComponent.getChildNodes();
+            List<ComponentNode> newChildren = newComponent.getChildNodes();
+            List<Fragment> nested = new ArrayList<>();
+            boolean replace = false;
+
+            for (int i = 0; i < newOutputs.size() && !replace; i++) {
+                if (oldOutputs.get(i).equals(newOutputs.get(i))) {
+                    continue;
+                }
+
+                ComponentNode oldChild = oldChildren.get(i);
+                ComponentNode newChild = newChildren.get(i);
+                replace = !(oldChild instanceof ComponentBuilder && newChild instanceof ComponentBuilder
+                    && ((ComponentBuilder) newChild).isStreamable()
+                    && diffComponent((ComponentBuilder) oldChild, (ComponentBuilder) newChild, header, settings, nested));
+            }
+
+            if (!replace) {
+                fragments.addAll(nested);
+                return true;
+            }
+        }
+
+        // Replace all the children
+        StringBuilder ui = new StringBuilder(header);
+        for (int i = 0; i < newOutputs.size(); i++) {
+            ui.append(newOutputs.get(i)).append('\n');
+            if (i + 1 < newOutputs.size()) {
+                ui.append('\n');
+            }
+        }
+
+        fragments.add(new Fragment("#" + id, ui.toString()));
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.machina.minterfacebuilder.util.customui;
+
+/**
+ * Exception thrown when a component tree exceeds one of its {@link TreeLimits} while parsing or building.
+ */
+public class TreeLimitExceededException extends RuntimeException {
+    /**
+     * The exceeded limit (e.g., "depth").
+     */
+    private final String limit;
+
+    /**
+     * The value of the exceeded limit.
+     */
+    private final int maxValue;
+
+    /**
+     * Constructor.
+     * @param limit The exceeded limit (e.g., "depth").
+     * @param maxValue The value of the exceeded limit.
+     */
+    public TreeLimitExceededException(String limit, int maxValue) {
+        super("Component tree " + limit + " exceeds the limit of " + maxValue + " (see TreeLimits).");
+        this.limit = limit;
+        this.maxValue = maxValue;
+    }
+
+    /**
+     * Get the exceeded limit.
+     * @return The limit name (e.g., "depth", "node count", "output length").
+     */
+    public String getLimit() {
+        return limit;
+    }
+
+    /**
+     * Get the value of the exceeded limit.
+     * @return The maximum value.
+     */
+    public int getMaxValue() {
+        return maxValue;
+    }
+}
@@ -0,0 +1,98 @@
+package com.machina.minterfacebuilder.util.customui;
+
+/**
+ * Size limits applied while parsing and serializing component trees.
+ * <p>
+ * Parsing and building walk the tree with an explicit stack, so deep trees cannot overflow the
+ * call stack; these limits make oversized input (e.g. a runaway generated template) fail fast
+ * with a {@link TreeLimitExceededException} instead of exhausting memory.
+ * </p>
+ */
+public final class TreeLimits {
+    /**
+     * Default limits: 4096 levels, 1,048,576 nodes and 256 MiB of output.
+     */
+    public static final TreeLimits DEFAULT = new TreeLimits(4096, 1 << 20, 256 << 20);
+
+    /**
+     * No limits.
+     */
+    public static final TreeLimits UNLIMITED = new TreeLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final int maxDepth;
+    private final int maxNodes;
+    private final int maxOutputLength;
+
+    /**
+     * Constructor.
+     * @param maxDepth The maximum nesting depth (the root is at depth 1).
+     * @param maxNodes The maximum number of nodes in a tree.
+     * @param maxOutputLength The maximum length of the serialized output, in characters.
+     */
+    public TreeLimits(int maxDepth, int maxNodes, int maxOutputLength) {
+        if (maxDepth < 1 || maxNodes < 1 || maxOutputLength < 1) {
+            throw new IllegalArgumentException("Tree limits must be positive");
+        }
+
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxOutputLength = maxOutputLength;
+    }
+
+    /**
+     * Get the maximum nesting depth.
+     * @return The maximum depth.
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * Get the maximum number of nodes.
+     * @return The maximum number of nodes.
+     */
+    public int getMaxNodes() {
+        return this.maxNodes;
+    }
+
+    /**
+     * Get the maximum output length.
+     * @return The maximum output length, in characters.
+     */
+    public int getMaxOutputLength() {
+        return this.maxOutputLength;
+    }
+
+    /**
+     * Check a nesting depth.
+     * @param depth The depth reached.
+     * @throws TreeLimitExceededException If the depth exceeds the limit.
+     */
+    public void checkDepth(int depth) {
+        if (depth > this.maxDepth) {
+            throw new TreeLimitExceededException("depth", this.maxDepth);
+        }
+    }
+
+    /**
+     * Check a node count.
+     * @param nodes The number of nodes reached.
+     * @throws TreeLimitExceededException If the count exceeds the limit.
+     */
+    public void checkNodes(int nodes) {
+        if (nodes > this.maxNodes) {
+            throw new TreeLimitExceededException("node count", this.maxNodes);
+        }
+    }
+
+    /**
+     * Check an output length.
+     * @param length The output length reached, in characters.
+     * @throws TreeLimitExceededException If the length exceeds the limit.
+     */
+    public void checkOutputLength(int length) {
+        if (length > this.maxOutputLength) {
+            throw new TreeLimitExceededException("output length", this.maxOutputLength);
+        }
+    }
+}
@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H ActionButtonContainer component with inline expanded styles.
  * Based on @ActionButtonContainer from Common.ui (line 563-566).
  */
+@CustomTag(HActionButtonContainer.TAG_NAME)
 public class HActionButtonContainer extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HActionButtonContainer";
 
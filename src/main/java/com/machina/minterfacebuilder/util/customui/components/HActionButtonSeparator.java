@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H ActionButtonSeparator component with inline expanded styles.
  * Based on @ActionButtonSeparator from Common.ui (line 568-570).
  */
+@CustomTag(HActionButtonSeparator.TAG_NAME)
 public class HActionButtonSeparator extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HActionButtonSeparator";
 
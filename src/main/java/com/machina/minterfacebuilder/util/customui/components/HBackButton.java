@@ -5,11 +5,13 @@ import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Back Button component (Group container).
  * Based on @BackButton from Common.ui (line 832-837).
  */
+@CustomTag(HBackButton.TAG_NAME)
 public class HBackButton extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HBackButton";
 
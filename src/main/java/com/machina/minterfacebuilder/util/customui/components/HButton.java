@@ -11,11 +11,13 @@ import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.Button;
 import com.machina.minterfacebuilder.util.customui.components.base.Group;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Button component with inline expanded styles.
  * Based on @Button from Common.ui (line 182-194).
  */
+@CustomTag(HButton.TAG_NAME)
 public class HButton extends Button {
     public static final String TAG_NAME = "HButton";
     
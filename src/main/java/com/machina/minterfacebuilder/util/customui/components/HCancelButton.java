@@ -7,11 +7,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.Button;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Cancel Button component with inline expanded styles.
  * Based on @CancelButton from Common.ui (line 211-223).
  */
+@CustomTag(HCancelButton.TAG_NAME)
 public class HCancelButton extends Button {
     public static final String TAG_NAME = "HCancelButton";
 
@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Cancel TextButton component with inline expanded styles.
  * Based on @CancelTextButton from Common.ui (line 196-209).
  */
+@CustomTag(HCancelTextButton.TAG_NAME)
 public class HCancelTextButton extends TextButton {
     public static final String TAG_NAME = "HCancelTextButton";
 
@@ -5,11 +5,13 @@ import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H CheckBox component with inline expanded styles.
  * Based on @CheckBox from Common.ui (line 390-395).
  */
+@CustomTag(HCheckBox.TAG_NAME)
 public class HCheckBox extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HCheckBox";
 
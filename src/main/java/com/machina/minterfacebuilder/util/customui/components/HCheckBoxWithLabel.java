@@ -6,11 +6,13 @@ import java.util.Map;
 import com.machina.minterfacebuilder.helpers.Alignment;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H CheckBoxWithLabel component (Group with CheckBox + Label).
  * Based on @CheckBoxWithLabel from Common.ui (line 397-414).
  */
+@CustomTag(HCheckBoxWithLabel.TAG_NAME)
 public class HCheckBoxWithLabel extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HCheckBoxWithLabel";
 
@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Close Button component with inline expanded styles.
  * Based on @CloseButton from Common.ui (line 338-346).
  */
+@CustomTag(HCloseButton.TAG_NAME)
 public class HCloseButton extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HCloseButton";
 
@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H ColorPicker component with inline expanded styles.
  * Based on @DefaultColorPickerStyle from Common.ui (line 314-325).
  */
+@CustomTag(HColorPicker.TAG_NAME)
 public class HColorPicker extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HColorPicker";
 
@@ -6,11 +6,13 @@ import java.util.Map;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Container component (Group with Title + Content + CloseButton).
  * Based on @Container from Common.ui (line 750-777).
  */
+@CustomTag(HContainer.TAG_NAME)
 public class HContainer extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HContainer";
 
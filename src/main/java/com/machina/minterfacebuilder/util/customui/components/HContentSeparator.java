@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H ContentSeparator component with inline expanded styles.
  * Based on @ContentSeparator from Common.ui (line 548-553).
  */
+@CustomTag(HContentSeparator.TAG_NAME)
 public class HContentSeparator extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HContentSeparator";
 
@@ -10,11 +10,13 @@ import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
 import com.machina.minterfacebuilder.util.customui.components.base.Button;
 import com.machina.minterfacebuilder.util.customui.components.base.Group;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H DecoratedContainer component (Group with Title + Content + decorations + CloseButton).
  * Based on @DecoratedContainer from Common.ui (line 779-816).
  */
+@CustomTag(HDecoratedContainer.TAG_NAME)
 public class HDecoratedContainer extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HDecoratedContainer";
 
@@ -7,11 +7,13 @@ import com.machina.minterfacebuilder.helpers.Alignment;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H DropdownBox component with inline expanded styles.
  * Based on @DropdownBox from Common.ui (line 479-484).
  */
+@CustomTag(HDropdownBox.TAG_NAME)
 public class HDropdownBox extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HDropdownBox";
 
@@ -5,11 +5,13 @@ import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H HeaderSearch component (Group with CompactTextField).
  * Based on @HeaderSearch from Common.ui (line 662-682).
  */
+@CustomTag(HHeaderSearch.TAG_NAME)
 public class HHeaderSearch extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HHeaderSearch";
 
@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H HeaderSeparator component with inline expanded styles.
  * Based on @HeaderSeparator from Common.ui (line 697-700).
  */
+@CustomTag(HHeaderSeparator.TAG_NAME)
 public class HHeaderSeparator extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HHeaderSeparator";
 
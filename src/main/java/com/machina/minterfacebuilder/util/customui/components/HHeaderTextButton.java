@@ -7,11 +7,13 @@ import com.machina.minterfacebuilder.helpers.Alignment;
 import com.machina.minterfacebuilder.helpers.Color;
 import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Header TextButton component with inline expanded styles.
  * Based on @HeaderTextButton from Common.ui (line 692-695).
  */
+@CustomTag(HHeaderTextButton.TAG_NAME)
 public class HHeaderTextButton extends TextButton {
     public static final String TAG_NAME = "HHeaderTextButton";
 
@@ -5,11 +5,13 @@ import java.util.Map;
 
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H NumberField component with inline expanded styles.
  * Based on @NumberField from Common.ui (line 434-442).
  */
+@CustomTag(HNumberField.TAG_NAME)
 public class HNumberField extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HNumberField";
 
@@ -3,11 +3,13 @@ package com.machina.minterfacebuilder.util.customui.components;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H PageOverlay component with inline expanded styles.
  * Based on @PageOverlay from Common.ui (line 818-820).
  */
+@CustomTag(HPageOverlay.TAG_NAME)
 public class HPageOverlay extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HPageOverlay";
 
@@ -3,11 +3,13 @@ package com.machina.minterfacebuilder.util.customui.components;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Panel component with inline expanded styles.
  * Based on @Panel from Common.ui (line 4-6).
  */
+@CustomTag(HPanel.TAG_NAME)
 public class HPanel extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HPanel";
 
@@ -5,11 +5,13 @@ import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H PanelSeparatorFancy component (Group with 3 children).
  * Based on @PanelSeparatorFancy from Common.ui (line 725-745).
  */
+@CustomTag(HPanelSeparatorFancy.TAG_NAME)
 public class HPanelSeparatorFancy extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HPanelSeparatorFancy";
 
@@ -7,11 +7,13 @@ import com.machina.minterfacebuilder.helpers.Alignment;
 import com.machina.minterfacebuilder.helpers.Color;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H PanelTitle component (Group with Label + separator).
  * Based on @PanelTitle from Common.ui (line 702-718).
  */
+@CustomTag(HPanelTitle.TAG_NAME)
 public class HPanelTitle extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HPanelTitle";
 
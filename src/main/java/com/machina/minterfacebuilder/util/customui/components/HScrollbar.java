@@ -4,12 +4,14 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Scrollbar component with inline expanded styles.
  * Based on @DefaultScrollbarStyle from Common.ui (line 348-355).
  * Note: This is a Style only, typically used as PanelScrollbarStyle in other components.
  */
+@CustomTag(HScrollbar.TAG_NAME)
 public class HScrollbar extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HScrollbar";
 
@@ -7,11 +7,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.Button;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Secondary Button component with inline expanded styles.
  * Based on @SecondaryButton from Common.ui (line 270-282).
  */
+@CustomTag(HSecondaryButton.TAG_NAME)
 public class HSecondaryButton extends Button {
     public static final String TAG_NAME = "HSecondaryButton";
 
@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Secondary TextButton component with inline expanded styles.
  * Based on @SecondaryTextButton from Common.ui (line 255-268).
  */
+@CustomTag(HSecondaryTextButton.TAG_NAME)
 public class HSecondaryTextButton extends TextButton {
     public static final String TAG_NAME = "HSecondaryTextButton";
 
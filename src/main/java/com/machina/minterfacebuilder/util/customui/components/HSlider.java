@@ -5,11 +5,13 @@ import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Slider component with inline expanded styles.
  * Based on @DefaultSliderStyle from Common.ui (line 822-830).
  */
+@CustomTag(HSlider.TAG_NAME)
 public class HSlider extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HSlider";
 
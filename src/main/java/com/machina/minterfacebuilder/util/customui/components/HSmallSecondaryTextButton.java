@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Small Secondary TextButton component with inline expanded styles.
  * Based on @SmallSecondaryTextButton from Common.ui (line 225-238).
  */
+@CustomTag(HSmallSecondaryTextButton.TAG_NAME)
 public class HSmallSecondaryTextButton extends TextButton {
     public static final String TAG_NAME = "HSmallSecondaryTextButton";
 
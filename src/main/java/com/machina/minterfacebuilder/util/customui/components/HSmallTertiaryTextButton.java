@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Small Tertiary TextButton component with inline expanded styles.
  * Based on @SmallTertiaryTextButton from Common.ui (line 240-253).
  */
+@CustomTag(HSmallTertiaryTextButton.TAG_NAME)
 public class HSmallTertiaryTextButton extends TextButton {
     public static final String TAG_NAME = "HSmallTertiaryTextButton";
 
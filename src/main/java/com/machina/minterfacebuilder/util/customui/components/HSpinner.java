@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Spinner component with inline expanded styles.
  * Based on @DefaultSpinner from Common.ui (line 555-561).
  */
+@CustomTag(HSpinner.TAG_NAME)
 public class HSpinner extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HSpinner";
 
@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Subtitle component with inline expanded styles.
  * Based on @Subtitle from Common.ui (line 578-582).
  */
+@CustomTag(HSubtitle.TAG_NAME)
 public class HSubtitle extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HSubtitle";
 
@@ -7,11 +7,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.Button;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Tertiary Button component with inline expanded styles.
  * Based on @TertiaryButton from Common.ui (line 299-311).
  */
+@CustomTag(HTertiaryButton.TAG_NAME)
 public class HTertiaryButton extends Button {
     public static final String TAG_NAME = "HTertiaryButton";
 
@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Tertiary TextButton component with inline expanded styles.
  * Based on @TertiaryTextButton from Common.ui (line 284-297).
  */
+@CustomTag(HTertiaryTextButton.TAG_NAME)
 public class HTertiaryTextButton extends TextButton {
     public static final String TAG_NAME = "HTertiaryTextButton";
 
@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextButton;
 import com.machina.minterfacebuilder.util.customui.helpers.SoundsHelper;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H TextButton component with inline expanded styles.
  * Based on @TextButton from Common.ui (line 167-180).
  */
+@CustomTag(HTextButton.TAG_NAME)
 public class HTextButton extends TextButton {
     public static final String TAG_NAME = "HTextButton";
 
@@ -6,11 +6,13 @@ import java.util.Map;
 import com.machina.minterfacebuilder.helpers.FnCall;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H TextField component with inline expanded styles.
  * Based on @TextField from Common.ui (line 424-432).
  */
+@CustomTag(HTextField.TAG_NAME)
 public class HTextField extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HTextField";
 
@@ -6,11 +6,13 @@ import java.util.Map;
 import com.machina.minterfacebuilder.helpers.Alignment;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.components.base.TextableComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H Title component with inline expanded styles.
  * Based on @Title from Common.ui (line 594-604).
  */
+@CustomTag(HTitle.TAG_NAME)
 public class HTitle extends TextableComponent {
     public static final String TAG_NAME = "HTitle";
 
@@ -9,11 +9,13 @@ import com.machina.minterfacebuilder.helpers.Alignment;
 import com.machina.minterfacebuilder.model.LiteralValue;
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
 import com.machina.minterfacebuilder.util.customui.components.base.Label;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H TitleLabel component with inline expanded styles.
  * Based on @TitleLabel from Common.ui (line 8-10).
  */
+@CustomTag(HTitleLabel.TAG_NAME)
 public class HTitleLabel extends Label {
     public static final String TAG_NAME = "HTitleLabel";
 
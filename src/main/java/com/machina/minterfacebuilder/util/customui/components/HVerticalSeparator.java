@@ -4,11 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.HytaleCustomUIComponent;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * H VerticalSeparator component with inline expanded styles.
  * Based on @VerticalSeparator from Common.ui (line 720-723).
  */
+@CustomTag(HVerticalSeparator.TAG_NAME)
 public class HVerticalSeparator extends HytaleCustomUIComponent {
     public static final String TAG_NAME = "HVerticalSeparator";
 
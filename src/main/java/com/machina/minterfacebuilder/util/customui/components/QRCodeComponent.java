@@ -1,24 +1,90 @@
 package com.machina.minterfacebuilder.util.customui.components;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.machina.minterfacebuilder.util.customui.AnchorMap;
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+import com.machina.minterfacebuilder.util.customui.ComponentPrototype;
+import com.machina.minterfacebuilder.util.customui.registry.CustomTag;
 
 /**
  * Custom component for rendering QR codes in Custom UI.
  * Requires the 'data' attribute to specify the QR code content.
+ * <p>
+ * The matrix is generated at its natural module size (one matrix cell per module) and
+ * dark modules are merged into rectangles, so a QR code costs a few dozen components
+ * instead of one per module.
+ * </p>
+ * <p>
+ * Rendered layouts are kept in an LRU cache keyed by data, block size, error correction
+ * level and margin, so pages that re-render the same code skip the encoding entirely.
+ * </p>
  */
+@CustomTag("qrcode")
 public class QRCodeComponent extends ComponentBuilder {
     /**
      * Default block size for QR code squares.
      */
     private static final int DEFAULT_BLOCK_SIZE = 6;
 
+    /**
+     * Default quiet zone around the QR code, in modules.
+     */
+    private static final int DEFAULT_MARGIN = 1;
+
+    /**
+     * Default error correction level.
+     */
+    private static final ErrorCorrectionLevel DEFAULT_ERROR_CORRECTION = ErrorCorrectionLevel.L;
+
+    /**
+     * Maximum number of layouts kept in the cache.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * Shared dark module; every rectangle only stores its Anchor.
+     */
+    private static final ComponentPrototype DARK_MODULE = new ComponentPrototype("Group", Map.of("Background", "#000000"));
+
+    /**
+     * Properties consumed by the generator that must not be copied to the output component.
+     */
+    private static final Set<String> GENERATOR_KEYS = Set.of("ErrorCorrection", "Margin");
+
+    /**
+     * Attributes consumed by the generator that must not be copied to the output component.
+     */
+    private static final Set<String> GENERATOR_ATTRIBUTES = Set.of(
+        "data", "value", "blocksize", "block-size", "id", "errorcorrection", "error-correction", "margin"
+    );
+
+    /**
+     * Cache of rendered layouts, least recently used first.
+     */
+    private static final Map<LayoutKey, QRCodeLayout> layoutCache = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LayoutKey, QRCodeLayout> eldest) {
+                return this.size() > CACHE_SIZE;
+            }
+        }
+    );
+
     /**
      * Create a QRCodeComponent from HTML attributes.
      * @param attributes The HTML attributes map.
@@ -55,6 +121,23 @@ public class QRCodeComponent extends ComponentBuilder {
             }
         }
 
+        // Get error correction level from attributes
+        String errorCorrection = safeAttributes.get("errorcorrection");
+        if (errorCorrection == null || errorCorrection.isEmpty()) {
+            errorCorrection = safeAttributes.get("error-correction");
+        }
+
+        // Get margin from attributes
+        int margin = DEFAULT_MARGIN;
+        String marginStr = safeAttributes.get("margin");
+        if (marginStr != null && !marginStr.isEmpty()) {
+            try {
+                margin = Integer.parseInt(marginStr);
+            } catch (NumberFormatException e) {
+                // Use default
+            }
+        }
+
         // Copy other properties
         String id = safeAttributes.get("id");
         if (id != null && !id.isEmpty()) {
@@ -62,24 +145,26 @@ public class QRCodeComponent extends ComponentBuilder {
         }
 
         // Generate QR code
-        this.generateQRCode(data, blockSize, safeAttributes);
+        this.generateQRCode(data, blockSize, parseErrorCorrection(errorCorrection), margin, safeAttributes);
     }
 
     /**
      * Generate QR code squares.
      * @param data The data to encode.
      * @param blockSize The size of each block.
+     * @param errorCorrection The error correction level.
+     * @param margin The quiet zone, in modules.
      * @param attributes Additional attributes.
      */
-    private void generateQRCode(String data, int blockSize, Map<String, String> attributes) {
+    private void generateQRCode(String data, int blockSize, ErrorCorrectionLevel errorCorrection, int margin, Map<String, String> attributes) {
         // Build properties map from attributes
         Map<String, Object> props = new java.util.HashMap<>();
         props.put("BlockSize", blockSize);
-        
+
         // Copy other properties from attributes
         for (Map.Entry<String, String> entry : attributes.entrySet()) {
             String key = entry.getKey().toLowerCase();
-            if (!key.equals("data") && !key.equals("value") && !key.equals("blocksize") && !key.equals("block-size") && !key.equals("id")) {
+            if (!GENERATOR_ATTRIBUTES.contains(key)) {
                 try {
                     // Try to parse as number
                     props.put(key, Integer.parseInt(entry.getValue()));
@@ -95,46 +180,17 @@ public class QRCodeComponent extends ComponentBuilder {
             this.setProperties(props);
         }
 
-        // Get the matrix
-        BitMatrix matrix = generateMatrix(data);
+        // Get the layout
+        QRCodeLayout layout = getLayout(new LayoutKey(data, blockSize, errorCorrection, margin));
 
-        // If the matrix is null, create a placeholder comment
-        if (matrix == null) {
+        // If the layout is null, create a placeholder comment
+        if (layout == null) {
             this.addComment("QR Code component - data: " + data + " (generation failed)");
             return;
         }
 
-        // Iterate over the matrix rows
-        for (int y = 0; y < matrix.getHeight(); y++) {
-            // Iterate over the matrix columns
-            for (int x = 0; x < matrix.getWidth(); x++) {
-                String color = matrix.get(x, y) ? "black" : "white";
-
-                // If the color is white, skip the square
-                if (color.equals("white")) {
-                    continue;
-                }
-
-                SquareCustomUIComponent square = new SquareCustomUIComponent(color, blockSize, blockSize);
-
-                // Get the anchor property
-                var anchor = square.<Map<String, Object>>getProperty("Anchor");
-
-                // Set the X and Y anchor position
-                anchor.put("Top", y * blockSize);
-                anchor.put("Left", x * blockSize);
-
-                // Append the square to this component
-                this.appendChild(square);
-            }
-
-            // Add one white square at the end of each line
-            SquareCustomUIComponent whiteSquare = new SquareCustomUIComponent("white", blockSize, blockSize);
-            var anchor = whiteSquare.<Map<String, Object>>getProperty("Anchor");
-            anchor.put("Top", y * blockSize);
-            anchor.put("Left", (matrix.getWidth() - 1) * blockSize);
-            this.appendChild(whiteSquare);
-        }
+        // Append the dark modules as merged rectangles
+        appendModules(this, layout);
     }
 
     /**
@@ -148,79 +204,326 @@ public class QRCodeComponent extends ComponentBuilder {
 
     /**
      * Generate a custom UI QR code from the given data.
+     * <p>
+     * Besides the component properties, the map accepts:
+     * <ul>
+     *   <li><b>BlockSize</b> (Integer): The size of each module (default: 6)</li>
+     *   <li><b>ErrorCorrection</b> (String or ErrorCorrectionLevel): L, M, Q or H (default: L)</li>
+     *   <li><b>Margin</b> (Integer): The quiet zone, in modules (default: 1)</li>
+     * </ul>
+     * </p>
      * @param data The data to encode.
      * @param properties The properties to use for the QR code.
      * @return The custom UI QR code component builder.
      */
     public static ComponentBuilder generateCustomUIQRCode(String data, Map<String, Object> properties) {
+        // Get the layout
+        QRCodeLayout layout = getLayout(layoutKey(data, properties));
+
+        // If the layout is null, return null
+        if (layout == null) {
+            return null;
+        }
+
+        return createGroup(layout, properties);
+    }
+
+    /**
+     * Generate custom UI QR codes for many payloads at once.
+     * <p>
+     * The payloads are encoded in parallel on the common ForkJoin pool, which suits pages
+     * listing many codes (e.g., leaderboards or invite lists). Payloads already in the cache
+     * are not encoded again.
+     * </p>
+     * @param data The data to encode, one QR code per entry.
+     * @param properties The properties to use for every QR code (see {@link #generateCustomUIQRCode(String, Map)}).
+     * @return The QR code component builders, in the order of the data. Entries that could not be encoded are null.
+     */
+    public static List<ComponentBuilder> generateCustomUIQRCodes(List<String> data, Map<String, Object> properties) {
+        return generateCustomUIQRCodes(data, properties, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generate custom UI QR codes for many payloads at once on the given pool.
+     * @param data The data to encode, one QR code per entry.
+     * @param properties The properties to use for every QR code (see {@link #generateCustomUIQRCode(String, Map)}).
+     * @param pool The pool to encode on.
+     * @return The QR code component builders, in the order of the data. Entries that could not be encoded are null.
+     */
+    public static List<ComponentBuilder> generateCustomUIQRCodes(List<String> data, Map<String, Object> properties, ForkJoinPool pool) {
+        // Encode the layouts in parallel
+        List<QRCodeLayout> layouts = pool.submit(
+            () -> data.parallelStream()
+                .map(entry -> getLayout(layoutKey(entry, properties)))
+                .toList()
+        ).join();
+
+        // Components are cheap to create from a layout, so do it on the calling thread
+        List<ComponentBuilder> result = new ArrayList<>(layouts.size());
+        for (QRCodeLayout layout : layouts) {
+            result.add(layout != null ? createGroup(layout, properties) : null);
+        }
+
+        return result;
+    }
+
+    /**
+     * Clear the layout cache.
+     */
+    public static void clearCache() {
+        layoutCache.clear();
+    }
+
+    /**
+     * Create the cache key for the given data and properties.
+     * @param data The data to encode.
+     * @param properties The QR code properties.
+     * @return The cache key.
+     */
+    private static LayoutKey layoutKey(String data, Map<String, Object> properties) {
         // Get the BlockSize property from the properties map
         int blockSize = properties.get("BlockSize") != null ? (int) properties.get("BlockSize") : DEFAULT_BLOCK_SIZE;
 
+        // Get the Margin property from the properties map
+        int margin = properties.get("Margin") != null ? (int) properties.get("Margin") : DEFAULT_MARGIN;
+
+        // Get the ErrorCorrection property from the properties map
+        Object errorCorrection = properties.get("ErrorCorrection");
+        ErrorCorrectionLevel level = errorCorrection instanceof ErrorCorrectionLevel
+            ? (ErrorCorrectionLevel) errorCorrection
+            : parseErrorCorrection(errorCorrection != null ? errorCorrection.toString() : null);
+
+        return new LayoutKey(data, blockSize, level, margin);
+    }
+
+    /**
+     * Create a QR code group from a layout.
+     * @param layout The layout.
+     * @param properties The properties to use for the group.
+     * @return The group.
+     */
+    private static ComponentBuilder createGroup(QRCodeLayout layout, Map<String, Object> properties) {
+        // Copy the properties without the generator options
+        Map<String, Object> groupProperties = new HashMap<>(properties);
+        groupProperties.keySet().removeAll(GENERATOR_KEYS);
+
         // Create a new group for the QR code
         ComponentBuilder group = ComponentBuilder.create("Group")
-            .setProperties(properties);
+            .setProperties(groupProperties);
+
+        // Append the dark modules as merged rectangles
+        appendModules(group, layout);
+
+        return group;
+    }
+
+    /**
+     * Parse an error correction level, falling back to the default.
+     * @param value The level name (L, M, Q or H).
+     * @return The error correction level.
+     */
+    private static ErrorCorrectionLevel parseErrorCorrection(String value) {
+        if (value == null || value.isEmpty()) {
+            return DEFAULT_ERROR_CORRECTION;
+        }
+
+        try {
+            return ErrorCorrectionLevel.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_ERROR_CORRECTION;
+        }
+    }
+
+    /**
+     * Get the layout for a key, generating and caching it if needed.
+     * @param key The layout key.
+     * @return The layout, or null if the data could not be encoded.
+     */
+    private static QRCodeLayout getLayout(LayoutKey key) {
+        QRCodeLayout layout = layoutCache.get(key);
+        if (layout != null) {
+            return layout;
+        }
 
         // Get the matrix
-        BitMatrix matrix = generateMatrix(data);
+        BitMatrix matrix = generateMatrix(key.data, key.errorCorrection, key.margin);
 
-        // If the matrix is null, return null
+        // Failures are not cached
         if (matrix == null) {
             return null;
         }
 
-        // Iterate over the matrix rows
-        for (int y = 0; y < matrix.getHeight(); y++) {
-            // Iterate over the matrix columns
-            for (int x = 0; x < matrix.getWidth(); x++) {
-                String color = matrix.get(x, y) ? "black" : "white";
+        layout = createLayout(matrix, key.blockSize);
+        layoutCache.put(key, layout);
+
+        return layout;
+    }
+
+    /**
+     * Append the rectangles of a layout to the target.
+     * <p>
+     * The quiet zone and light modules are covered by a white background on the target,
+     * sized to the whole matrix.
+     * </p>
+     * @param target The component to append the rectangles to.
+     * @param layout The layout.
+     */
+    private static void appendModules(ComponentBuilder target, QRCodeLayout layout) {
+        for (int[] rectangle : layout.rectangles) {
+            target.appendChild(DARK_MODULE.instance("Anchor", AnchorMap.of(
+                rectangle[0], rectangle[1], rectangle[2], rectangle[3]
+            )));
+        }
+
+        // Paint the light modules and quiet zone unless a background was given
+        if (target.getPropertyIgnoreCase("Background") == null) {
+            target.setProperty("Background", "#ffffff");
+        }
+
+        // Size the group to the matrix, keeping any anchor values the caller set
+        String anchorName = target.getPropertyNameIgnoreCase("Anchor");
+        Object existingAnchor = anchorName != null ? target.getProperty(anchorName) : null;
+
+        if (existingAnchor == null || existingAnchor instanceof Map<?, ?>) {
+            Map<String, Object> anchor = new HashMap<>();
+
+            if (existingAnchor instanceof Map<?, ?> existing) {
+                for (Map.Entry<?, ?> entry : existing.entrySet()) {
+                    anchor.put(entry.getKey().toString(), entry.getValue());
+                }
+            }
+
+            anchor.putIfAbsent("Width", layout.width);
+            anchor.putIfAbsent("Height", layout.height);
+            target.setProperty(anchorName != null ? anchorName : "Anchor", (Object) anchor);
+        }
+    }
 
-                // If the color is white, skip the square
-                if (color.equals("white")) {
+    /**
+     * Merge the dark modules of the matrix into rectangles.
+     * <p>
+     * Modules are scanned row by row. Each dark module not yet covered starts a rectangle,
+     * grown both as a horizontal run extended downwards and as a vertical run extended to
+     * the right; the candidate covering more uncovered modules wins. Rectangles may overlap
+     * since they are all the same color, which lets them grow through covered modules.
+     * </p>
+     * @param matrix The QR code matrix.
+     * @param blockSize The size of each module.
+     * @return The layout, in Custom UI units.
+     */
+    private static QRCodeLayout createLayout(BitMatrix matrix, int blockSize) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        // Rectangles as {left, top, width, height}, in scan order
+        List<int[]> rectangles = new ArrayList<>();
+        boolean[][] covered = new boolean[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y) || covered[y][x]) {
                     continue;
                 }
 
-                SquareCustomUIComponent square = new SquareCustomUIComponent(color, blockSize, blockSize);
+                // Horizontal run first, then as many rows as the run fits in
+                int runWidth = darkRunWidth(matrix, x, y, width);
+                int[] wide = { x, y, runWidth, darkRowCount(matrix, x, y, runWidth, height) };
 
-                // Get the anchor property
-                var anchor = square.<Map<String, Object>>getProperty("Anchor");
+                // Vertical run first, then as many columns as the run fits in
+                int runHeight = darkRowCount(matrix, x, y, 1, height);
+                int[] tall = { x, y, darkColumnCount(matrix, x, y, runHeight, width), runHeight };
 
-                // Set the X and Y anchor position
-                anchor.put("Top", y * blockSize);
-                anchor.put("Left", x * blockSize);
+                int[] rectangle = uncoveredCount(covered, tall) > uncoveredCount(covered, wide) ? tall : wide;
 
-                // Append the square to the group
-                group.appendChild(square);
+                for (int dy = 0; dy < rectangle[3]; dy++) {
+                    for (int dx = 0; dx < rectangle[2]; dx++) {
+                        covered[y + dy][x + dx] = true;
+                    }
+                }
+
+                rectangles.add(rectangle);
             }
+        }
 
-            // Add one white square at the end of each line
-            SquareCustomUIComponent whiteSquare = new SquareCustomUIComponent("white", blockSize, blockSize);
-            var anchor = whiteSquare.<Map<String, Object>>getProperty("Anchor");
-            anchor.put("Top", y * blockSize);
-            anchor.put("Left", (matrix.getWidth() - 1) * blockSize);
-            group.appendChild(whiteSquare);
+        // Scale to Custom UI units
+        for (int[] rectangle : rectangles) {
+            for (int i = 0; i < rectangle.length; i++) {
+                rectangle[i] *= blockSize;
+            }
         }
 
-        return group;
+        return new QRCodeLayout(width * blockSize, height * blockSize, rectangles);
+    }
+
+    /**
+     * Count the dark modules to the right of a position, including it.
+     */
+    private static int darkRunWidth(BitMatrix matrix, int x, int y, int width) {
+        int end = x;
+        while (end < width && matrix.get(end, y)) {
+            end++;
+        }
+        return end - x;
+    }
+
+    /**
+     * Count the rows, starting at a position, whose modules in the given columns are all dark.
+     */
+    private static int darkRowCount(BitMatrix matrix, int x, int y, int runWidth, int height) {
+        int rows = 0;
+        while (y + rows < height && darkRunWidth(matrix, x, y + rows, x + runWidth) == runWidth) {
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Count the columns, starting at a position, whose modules in the given rows are all dark.
+     */
+    private static int darkColumnCount(BitMatrix matrix, int x, int y, int runHeight, int width) {
+        int columns = 0;
+        while (x + columns < width && darkRowCount(matrix, x + columns, y, 1, y + runHeight) == runHeight) {
+            columns++;
+        }
+        return columns;
+    }
+
+    /**
+     * Count the modules of a rectangle that are not covered yet.
+     */
+    private static int uncoveredCount(boolean[][] covered, int[] rectangle) {
+        int count = 0;
+        for (int dy = 0; dy < rectangle[3]; dy++) {
+            for (int dx = 0; dx < rectangle[2]; dx++) {
+                if (!covered[rectangle[1] + dy][rectangle[0] + dx]) {
+                    count++;
+                }
+            }
+        }
+        return count;
     }
 
     /**
      * Generate a matrix from the given data.
      * @param data The data to encode.
+     * @param errorCorrection The error correction level.
+     * @param margin The quiet zone, in modules.
      * @return The matrix.
      */
-    private static BitMatrix generateMatrix(String data) {
+    private static BitMatrix generateMatrix(String data, ErrorCorrectionLevel errorCorrection, int margin) {
         QRCodeWriter writer = new QRCodeWriter();
         BitMatrix matrix;
 
         try {
-            // Encode the data into a QR code
+            // Encode the data into a QR code at its natural size (one cell per module)
             matrix = writer.encode(
                 data,
                 BarcodeFormat.QR_CODE,
-                40,
-                40,
+                0,
+                0,
                 Map.of(
-                    EncodeHintType.MARGIN, 1
+                    EncodeHintType.MARGIN, margin,
+                    EncodeHintType.ERROR_CORRECTION, errorCorrection
                 )
             );
         } catch (WriterException e) {
@@ -230,4 +533,58 @@ public class QRCodeComponent extends ComponentBuilder {
 
         return matrix;
     }
+
+    /**
+     * Cache key of a rendered layout.
+     */
+    private static final class LayoutKey {
+        private final String data;
+        private final int blockSize;
+        private final ErrorCorrectionLevel errorCorrection;
+        private final int margin;
+
+        private LayoutKey(String data, int blockSize, ErrorCorrectionLevel errorCorrection, int margin) {
+            this.data = data;
+            this.blockSize = blockSize;
+            this.errorCorrection = errorCorrection;
+            this.margin = margin;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LayoutKey other)) {
+                return false;
+            }
+            return this.blockSize == other.blockSize
+                && this.margin == other.margin
+                && this.errorCorrection == other.errorCorrection
+                && this.data.equals(other.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.data, this.blockSize, this.errorCorrection, this.margin);
+        }
+    }
+
+    /**
+     * Immutable rendered QR code: the group size and the dark rectangles, in Custom UI units.
+     * <p>
+     * Shared between every component created for the same key; never modified after creation.
+     * </p>
+     */
+    private static final class QRCodeLayout {
+        private final int width;
+        private final int height;
+        private final List<int[]> rectangles;
+
+        private QRCodeLayout(int width, int height, List<int[]> rectangles) {
+            this.width = width;
+            this.height = height;
+            this.rectangles = Collections.unmodifiableList(rectangles);
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.machina.minterfacebuilder.util.customui.components;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
@@ -8,14 +9,27 @@ public class SquareCustomUIComponent extends ComponentBuilder {
     public SquareCustomUIComponent(String color) {
         super("Group");
 
-        this.setProperty("Background", color == "white" ? "#ffffff" : "#000000");
+        this.setProperty("Background", "white".equals(color) ? "#ffffff" : "#000000");
         this.addComment("SquareUIComponent");
     }
 
     public SquareCustomUIComponent(String color, int width, int height) {
         super("Group");
 
-        this.setProperty("Background", color == "white" ? "#ffffff" : "#000000");
-        this.setProperty("Anchor", Map.of("Width", width, "Height", height));
+        this.setProperty("Background", "white".equals(color) ? "#ffffff" : "#000000");
+
+        // Mutable so callers can add the position
+        Map<String, Object> anchor = new HashMap<>();
+        anchor.put("Width", width);
+        anchor.put("Height", height);
+        this.setProperty("Anchor", anchor);
+    }
+
+    public SquareCustomUIComponent(String color, int left, int top, int width, int height) {
+        this(color, width, height);
+
+        Map<String, Object> anchor = this.getProperty("Anchor");
+        anchor.put("Left", left);
+        anchor.put("Top", top);
     }
 }
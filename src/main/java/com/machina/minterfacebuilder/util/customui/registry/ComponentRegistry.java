@@ -0,0 +1,29 @@
+package com.machina.minterfacebuilder.util.customui.registry;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+
+/**
+ * A table of custom tags and their component constructors.
+ * <p>
+ * Implementations are generated from {@link CustomTag} classes at compile time and discovered through
+ * {@link java.util.ServiceLoader}. Components are only loaded when their tag is first created.
+ * </p>
+ */
+public interface ComponentRegistry {
+    /**
+     * Get the tag names of this registry.
+     * @return The tag names (lowercase).
+     */
+    Set<String> getTagNames();
+
+    /**
+     * Create the component of a tag.
+     * @param tagName The tag name (lowercase, one of {@link #getTagNames()}).
+     * @param attributes The tag attributes.
+     * @return The component, or null if the tag is not in this registry.
+     */
+    ComponentBuilder create(String tagName, Map<String, String> attributes);
+}
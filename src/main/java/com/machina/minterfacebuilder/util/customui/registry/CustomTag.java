@@ -0,0 +1,40 @@
+package com.machina.minterfacebuilder.util.customui.registry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a ComponentBuilder class as a custom HTML tag at compile time.
+ * <p>
+ * The annotation processor shipped with MInterfaceBuilder collects the annotated classes of a
+ * compilation into a generated {@link ComponentRegistry} that creates each component with a direct
+ * constructor call, and lists it in META-INF/services so {@code ComponentFactory} registers the tags
+ * on startup without reflection.
+ * </p>
+ * <p>
+ * The class must be public and have a public constructor taking {@code Map<String, String>} attributes
+ * or a public no-argument constructor.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * <pre>
+ * &#64;CustomTag("MyComponent")
+ * public class MyComponent extends ComponentBuilder {
+ *     public MyComponent(Map&lt;String, String&gt; attributes) { ... }
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface CustomTag {
+    /**
+     * The HTML tag name (case-insensitive).
+     * @return The tag name.
+     */
+    String value();
+}
@@ -1,6 +1,5 @@
 package com.machina.minterfacebuilder.util.customui.registry;
 
-import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,55 +22,55 @@ public class HComponentRegistry {
      */
     static {
         // Buttons (13 components)
-        registerComponent(HTextButton.class);
-        registerComponent(HButton.class);
-        registerComponent(HCancelTextButton.class);
-        registerComponent(HCancelButton.class);
-        registerComponent(HSecondaryTextButton.class);
-        registerComponent(HSecondaryButton.class);
-        registerComponent(HTertiaryTextButton.class);
-        registerComponent(HTertiaryButton.class);
-        registerComponent(HSmallSecondaryTextButton.class);
-        registerComponent(HSmallTertiaryTextButton.class);
-        registerComponent(HCloseButton.class);
-        registerComponent(HHeaderTextButton.class);
-        registerComponent(HBackButton.class);
+        registerComponent(HTextButton.TAG_NAME, HTextButton.class);
+        registerComponent(HButton.TAG_NAME, HButton.class);
+        registerComponent(HCancelTextButton.TAG_NAME, HCancelTextButton.class);
+        registerComponent(HCancelButton.TAG_NAME, HCancelButton.class);
+        registerComponent(HSecondaryTextButton.TAG_NAME, HSecondaryTextButton.class);
+        registerComponent(HSecondaryButton.TAG_NAME, HSecondaryButton.class);
+        registerComponent(HTertiaryTextButton.TAG_NAME, HTertiaryTextButton.class);
+        registerComponent(HTertiaryButton.TAG_NAME, HTertiaryButton.class);
+        registerComponent(HSmallSecondaryTextButton.TAG_NAME, HSmallSecondaryTextButton.class);
+        registerComponent(HSmallTertiaryTextButton.TAG_NAME, HSmallTertiaryTextButton.class);
+        registerComponent(HCloseButton.TAG_NAME, HCloseButton.class);
+        registerComponent(HHeaderTextButton.TAG_NAME, HHeaderTextButton.class);
+        registerComponent(HBackButton.TAG_NAME, HBackButton.class);
 
         // Inputs (4 components)
-        registerComponent(HTextField.class);
-        registerComponent(HNumberField.class);
-        registerComponent(HDropdownBox.class);
-        registerComponent(HHeaderSearch.class);
+        registerComponent(HTextField.TAG_NAME, HTextField.class);
+        registerComponent(HNumberField.TAG_NAME, HNumberField.class);
+        registerComponent(HDropdownBox.TAG_NAME, HDropdownBox.class);
+        registerComponent(HHeaderSearch.TAG_NAME, HHeaderSearch.class);
 
         // Checkboxes (2 components)
-        registerComponent(HCheckBox.class);
-        registerComponent(HCheckBoxWithLabel.class);
+        registerComponent(HCheckBox.TAG_NAME, HCheckBox.class);
+        registerComponent(HCheckBoxWithLabel.TAG_NAME, HCheckBoxWithLabel.class);
 
         // Containers (4 components)
-        registerComponent(HPanel.class);
-        registerComponent(HContainer.class);
-        registerComponent(HDecoratedContainer.class);
-        registerComponent(HPageOverlay.class);
+        registerComponent(HPanel.TAG_NAME, HPanel.class);
+        registerComponent(HContainer.TAG_NAME, HContainer.class);
+        registerComponent(HDecoratedContainer.TAG_NAME, HDecoratedContainer.class);
+        registerComponent(HPageOverlay.TAG_NAME, HPageOverlay.class);
 
         // Labels (4 components)
-        registerComponent(HTitleLabel.class);
-        registerComponent(HTitle.class);
-        registerComponent(HSubtitle.class);
-        registerComponent(HPanelTitle.class);
+        registerComponent(HTitleLabel.TAG_NAME, HTitleLabel.class);
+        registerComponent(HTitle.TAG_NAME, HTitle.class);
+        registerComponent(HSubtitle.TAG_NAME, HSubtitle.class);
+        registerComponent(HPanelTitle.TAG_NAME, HPanelTitle.class);
 
         // Others (7 components)
-        registerComponent(HColorPicker.class);
-        registerComponent(HScrollbar.class);
-        registerComponent(HSpinner.class);
-        registerComponent(HSlider.class);
-        registerComponent(HContentSeparator.class);
-        registerComponent(HVerticalSeparator.class);
-        registerComponent(HPanelSeparatorFancy.class);
+        registerComponent(HColorPicker.TAG_NAME, HColorPicker.class);
+        registerComponent(HScrollbar.TAG_NAME, HScrollbar.class);
+        registerComponent(HSpinner.TAG_NAME, HSpinner.class);
+        registerComponent(HSlider.TAG_NAME, HSlider.class);
+        registerComponent(HContentSeparator.TAG_NAME, HContentSeparator.class);
+        registerComponent(HVerticalSeparator.TAG_NAME, HVerticalSeparator.class);
+        registerComponent(HPanelSeparatorFancy.TAG_NAME, HPanelSeparatorFancy.class);
 
         // Special (3 components)
-        registerComponent(HActionButtonContainer.class);
-        registerComponent(HActionButtonSeparator.class);
-        registerComponent(HHeaderSeparator.class);
+        registerComponent(HActionButtonContainer.TAG_NAME, HActionButtonContainer.class);
+        registerComponent(HActionButtonSeparator.TAG_NAME, HActionButtonSeparator.class);
+        registerComponent(HHeaderSeparator.TAG_NAME, HHeaderSeparator.class);
     }
 
     /**
@@ -118,39 +117,10 @@ public class HComponentRegistry {
 
     /**
      * Register a component class with the component registry.
+     * @param tagName The tag name of the component (its TAG_NAME constant, inlined at compile time).
      * @param componentClass The component class to register.
      */
-    private static void registerComponent(Class<? extends ComponentBuilder> componentClass) {
-        try {
-            // Get the TAG_NAME static field from the component class or its superclasses
-            Field tagNameField = null;
-            Class<?> currentClass = componentClass;
-
-            while (currentClass != null) {
-                try {
-                    tagNameField = currentClass.getDeclaredField("TAG_NAME");
-                    break;
-                } catch (NoSuchFieldException e) {
-                    currentClass = currentClass.getSuperclass();
-                }
-            }
-
-            // If the field is not found, throw an error
-            if (tagNameField == null) {
-                throw new NoSuchFieldException("TAG_NAME field not found in class hierarchy of " + componentClass.getName());
-            }
-
-            tagNameField.setAccessible(true);
-            String tagName = (String) tagNameField.get(null);
-
-            // If tagName is null, throw an error
-            if (tagName == null) {
-                throw new NullPointerException("TAG_NAME is null for component class " + componentClass.getName());
-            }
-
-            COMPONENT_MAP.put(tagName, componentClass);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private static void registerComponent(String tagName, Class<? extends ComponentBuilder> componentClass) {
+        COMPONENT_MAP.put(tagName.toLowerCase(), componentClass);
     }
 }
@@ -3,11 +3,58 @@ package com.machina.minterfacebuilder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+import com.machina.minterfacebuilder.cache.CompiledTemplateStore;
+import com.machina.minterfacebuilder.cache.FileWatcher;
+import com.machina.minterfacebuilder.cache.SharedRenderCache;
+import com.machina.minterfacebuilder.cache.TemplateCache;
+import com.machina.minterfacebuilder.cache.TemplateWarmup;
+import com.machina.minterfacebuilder.compiler.TemplateCompiler;
+import com.machina.minterfacebuilder.factory.ComponentFactory;
 import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
+import com.machina.minterfacebuilder.model.InterfaceVariable;
+import com.machina.minterfacebuilder.model.PrecompiledTemplate;
+import com.machina.minterfacebuilder.pages.HTMLCustomUIPage;
+import com.machina.minterfacebuilder.pages.StaticUIAssets;
+import com.machina.minterfacebuilder.util.ImageRenderer;
+import com.machina.minterfacebuilder.util.customui.ComponentBuilder;
+import com.machina.minterfacebuilder.util.customui.AnchorMap;
+import com.machina.minterfacebuilder.util.customui.ComponentBuilderSettings;
+import com.machina.minterfacebuilder.util.customui.ComponentPrototype;
+import com.machina.minterfacebuilder.util.customui.TreeLimitExceededException;
+import com.machina.minterfacebuilder.util.customui.TreeLimits;
+import com.machina.minterfacebuilder.util.customui.components.HTextButton;
+import com.machina.minterfacebuilder.util.customui.components.QRCodeComponent;
+import com.machina.minterfacebuilder.util.customui.registry.ComponentRegistry;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -278,4 +325,968 @@ public class InterfaceBuilderTest {
             assertTrue(true, "Invalid variable name should cause parsing error");
         }
     }
+
+    /**
+     * Test that texture mode writes the image once as a PNG asset and emits a single Group.
+     */
+    @Test
+    public void testImageTextureRenderMode(@TempDir Path tempDir) throws IOException {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 2, 0xff0000);
+
+        ImageRenderer.setTextureOutput(tempDir, "Test/Images/");
+
+        String first = ImageRenderer.renderImage(image, Map.of("RenderMode", "Texture", "BlockSize", 2)).build();
+        String second = ImageRenderer.renderImage(image, Map.of("RenderMode", "Texture", "BlockSize", 2)).build();
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "Identical images should share a single texture file");
+        }
+
+        assertEquals(first, second, "Identical images should reference the same texture");
+        assertTrue(first.contains("TexturePath: \"Test/Images/"), "Background should reference the texture path");
+        assertTrue(first.contains("Width: 8"), "Anchor width should be the image width times the block size");
+        assertFalse(first.contains("RenderMode"), "Renderer options should not be emitted");
+        assertEquals(1, first.split("\\{").length - 1, "Texture mode should emit a single component");
+
+        // The texture size is merged into the caller's Anchor
+        String placed = ImageRenderer.renderImage(image, Map.of("RenderMode", "Texture", "BlockSize", 2,
+            "Anchor", Map.of("Left", 10, "Top", 5))).build();
+        assertTrue(placed.contains("Left: 10") && placed.contains("Top: 5"), "The caller's Anchor should be kept: " + placed);
+        assertTrue(placed.contains("Width: 8") && placed.contains("Height: 8"), "The texture size should be added: " + placed);
+        assertEquals(1, placed.split("Anchor").length - 1);
+    }
+
+    /**
+     * Test that QR codes merge dark modules into rectangles instead of one component per module.
+     */
+    @Test
+    public void testQRCodeRectangleMerging() throws Exception {
+        String data = "https://example.com/some/fairly/long/path?with=query";
+        String output = QRCodeComponent.withData(data).build();
+
+        // Count the dark modules of the natural size matrix
+        BitMatrix matrix = new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, 0, 0, Map.of(EncodeHintType.MARGIN, 1));
+        int darkModules = 0;
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                if (matrix.get(x, y)) {
+                    darkModules++;
+                }
+            }
+        }
+
+        int components = output.split("Group").length - 1;
+        System.out.println("QR code components: " + components + " for " + darkModules + " dark modules");
+
+        assertTrue(components > 1, "QR code should contain modules");
+        assertTrue(components < darkModules / 2, "Dark modules should be merged into rectangles");
+        assertEquals(2, output.split("#ffffff", -1).length, "Only the QR code background should be white");
+    }
+
+    /**
+     * Test that batch QR code generation matches single generation and keeps the order.
+     */
+    @Test
+    public void testQRCodeBatchGeneration() {
+        List<String> data = List.of("player-1", "player-2", "player-3", "player-1");
+
+        List<String> batch = QRCodeComponent.generateCustomUIQRCodes(data, Map.of("BlockSize", 4)).stream()
+            .map(component -> component.build())
+            .toList();
+
+        assertEquals(data.size(), batch.size(), "Batch should return one QR code per payload");
+        for (int i = 0; i < data.size(); i++) {
+            String single = QRCodeComponent.generateCustomUIQRCode(data.get(i), Map.of("BlockSize", 4)).build();
+            assertEquals(single, batch.get(i), "Batch output should match single generation");
+        }
+
+        assertNotEquals(batch.get(0), batch.get(1), "Different payloads should produce different QR codes");
+        assertFalse(batch.get(0).contains("Margin"), "Generator options should not be emitted");
+    }
+
+    /**
+     * Test that repeated property values are hoisted into variables and referenced.
+     */
+    @Test
+    public void testHoistRepeatedValues() {
+        ComponentBuilder root = ComponentBuilder.create("Group");
+        for (int i = 0; i < 20; i++) {
+            root.appendChild(ComponentBuilder.create("Button")
+                .setProperty("Style", Map.of("FontSize", 14, "TextColor", "#ffcc00", "RenderBold", true))
+                .setProperty("Text", "Button " + i));
+        }
+
+        String plain = root.build(new ComponentBuilderSettings());
+
+        Map<String, String> hoisted = root.collectHoistableValues();
+        assertEquals(1, hoisted.size(), "Only the repeated style should be hoisted");
+
+        ComponentBuilderSettings settings = new ComponentBuilderSettings();
+        settings.hoistedValues = hoisted;
+        String output = root.build(settings);
+
+        assertEquals(20, output.split("Style: @MIBc0;", -1).length - 1, "Every occurrence should reference the variable");
+        assertFalse(output.contains("TextColor"), "The hoisted value should not be repeated");
+        assertTrue(output.length() < plain.length() / 2, "Hoisting should shrink the output");
+    }
+
+    /**
+     * Test that flyweight leaves build exactly like equivalent component builders.
+     */
+    @Test
+    public void testFlyweightMatchesComponentBuilder() {
+        ComponentPrototype prototype = new ComponentPrototype("Group", Map.of("Background", "#000000"));
+
+        ComponentBuilder flyweights = ComponentBuilder.create("Group");
+        ComponentBuilder builders = ComponentBuilder.create("Group");
+
+        for (int i = 0; i < 3; i++) {
+            flyweights.appendChild(prototype.instance("Anchor", AnchorMap.of(i * 6, 0, 6, 6)));
+            builders.appendChild(ComponentBuilder.create("Group")
+                .setProperty("Background", "#000000")
+                .setProperty("Anchor", (Object) AnchorMap.of(i * 6, 0, 6, 6)));
+        }
+
+        // Property order follows map iteration order, which differs between the two storages
+        assertEquals(propertyStatements(builders.build()), propertyStatements(flyweights.build()),
+            "Flyweight output should match the component builder output");
+        assertEquals(propertyStatements(builders.build(new ComponentBuilderSettings(true))),
+            propertyStatements(flyweights.build(new ComponentBuilderSettings(true))));
+    }
+
+    /**
+     * Get the property statements of a UI, each prefixed with the index of its element, in sorted order.
+     */
+    private static List<String> propertyStatements(String ui) {
+        List<String> statements = new ArrayList<>();
+        int element = 0;
+        StringBuilder statement = null;
+        for (String line : ui.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.endsWith("{")) {
+                element++;
+                continue;
+            }
+            if (statement == null && trimmed.matches("[A-Za-z]+: .*")) {
+                statement = new StringBuilder().append(element).append(' ');
+            }
+            if (statement != null) {
+                statement.append(trimmed);
+                if (trimmed.endsWith(";")) {
+                    statements.add(statement.toString());
+                    statement = null;
+                }
+            }
+        }
+        statements.sort(null);
+        return statements;
+    }
+
+    /**
+     * Component with only a default constructor, for custom tag registration.
+     */
+    public static class DefaultConstructorComponent extends ComponentBuilder {
+        public DefaultConstructorComponent() {
+            super("Group");
+        }
+    }
+
+    /**
+     * Test that custom tags resolve case-insensitively to their bound constructors.
+     */
+    @Test
+    public void testCustomTagConstructors() {
+        ComponentFactory.registerCustomTag("default-constructor", DefaultConstructorComponent.class);
+
+        ComponentBuilder component = ComponentFactory.create("Default-Constructor", Map.of("text", "Ignored"));
+        assertTrue(component instanceof DefaultConstructorComponent, "Tag lookup should ignore case");
+        assertNotNull(ComponentFactory.create(DefaultConstructorComponent.class));
+
+        ComponentBuilder button = ComponentFactory.create("HTEXTBUTTON", Map.of("text", "Hello"));
+        assertTrue(button instanceof HTextButton, "H components should be registered");
+        assertTrue(button.build().contains("Hello"), "Attributes should reach the Map constructor");
+    }
+
+    /**
+     * Test that the built-in components come from the registry generated for their @CustomTag annotations.
+     */
+    @Test
+    public void testGeneratedComponentRegistry() {
+        ComponentRegistry generated = null;
+        for (ComponentRegistry registry : ServiceLoader.load(ComponentRegistry.class)) {
+            if (registry.getTagNames().contains("htextbutton")) {
+                generated = registry;
+            }
+        }
+
+        assertNotNull(generated, "The @CustomTag registry should be generated and listed as a service");
+        assertEquals(38, generated.getTagNames().size(), "All H components and the QR code should be generated");
+        assertTrue(generated.create("htextbutton", Map.of("text", "Hello")) instanceof HTextButton);
+        assertTrue(generated.create("qrcode", Map.of("data", "Hello")) instanceof QRCodeComponent);
+        assertNull(generated.create("unknown", Map.of()));
+
+        // The factory recognizes it by its class, so the built-in tags are not registered twice
+        assertEquals("com.machina.minterfacebuilder.util.customui.components.CustomTagRegistry", generated.getClass().getName());
+        assertSame(generated.getClass(), ComponentFactory.getCustomTagOwners().get("qrcode"));
+    }
+
+    /**
+     * Test that tag handlers resolve attributes case-insensitively, including for custom tags.
+     */
+    @Test
+    public void testTagHandlerAttributes() {
+        String ui = InterfaceBuilder.parse(
+            "<div>" +
+            "<input type=\"checkbox\" label=\"Remember\" checked />" +
+            "<input type=\"text\" maxlength=\"12\" readonly />" +
+            "<span m-show=\"false\">Hidden</span>" +
+            "<p m-if=\"@Shown\">Shown</p>" +
+            "<htextbutton text=\"Custom\" height=\"50\" />" +
+            "</div>"
+        ).build();
+
+        assertTrue(ui.contains("Text: \"Remember\";") && ui.contains("Value: true;"), "Checkbox label and checked should be applied");
+        assertTrue(ui.contains("MaxLength: 12;") && ui.contains("ReadOnly: true;"), "Maxlength and readonly should be applied");
+        assertTrue(ui.contains("Visible: false;") && ui.contains("Visible: @Shown;"), "m-show and m-if should set Visible");
+        assertTrue(ui.contains("Text: \"Custom\";") && ui.contains("Height: 50"), "Custom tags should receive HTML attributes");
+    }
+
+    /**
+     * Test that 50k-deep and 1M-node trees parse and build without recursion, and that the tree limits fail fast.
+     */
+    @Test
+    public void testDeepAndLargeTrees() {
+        int depth = 50_000;
+        String deepHtml = "<div>".repeat(depth) + "</div>".repeat(depth);
+
+        assertThrows(TreeLimitExceededException.class, () -> InterfaceBuilder.parse(deepHtml),
+            "The default depth limit should reject a 50k-deep template");
+
+        TreeLimits limits = new TreeLimits(depth, 1 << 20, Integer.MAX_VALUE);
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(true);
+        settings.limits = limits;
+
+        HTMLCustomUITemplate deep;
+        InterfaceBuilder.setTreeLimits(limits);
+        try {
+            deep = InterfaceBuilder.parse(deepHtml);
+
+            InterfaceBuilder.setTreeLimits(new TreeLimits(depth, 1_000, Integer.MAX_VALUE));
+            assertThrows(TreeLimitExceededException.class, () -> InterfaceBuilder.parse("<div>" + "<p>x</p>".repeat(1_000) + "</div>"),
+                "The node limit should be enforced while parsing");
+        } finally {
+            InterfaceBuilder.setTreeLimits(null);
+        }
+
+        String deepOutput = deep.build(settings);
+        assertEquals(depth, deepOutput.split("Group \\{", -1).length - 1, "Every level should be built");
+
+        // 1M nodes: 1,000 groups of 1,000 labels
+        ComponentBuilder root = ComponentBuilder.create("Group");
+        for (int i = 0; i < 1_000; i++) {
+            ComponentBuilder group = ComponentBuilder.create("Group");
+            for (int j = 0; j < 999; j++) {
+                group.appendChild(ComponentBuilder.create("Label").setProperty("Text", "x"));
+            }
+            root.appendChild(group);
+        }
+
+        String wideOutput = root.build(settings);
+        assertTrue(wideOutput.length() > 1_000_000 * 10, "Every node should be built");
+
+        ComponentBuilderSettings small = new ComponentBuilderSettings(true);
+        small.limits = new TreeLimits(depth, 1 << 20, 1 << 16);
+        TreeLimitExceededException exception = assertThrows(TreeLimitExceededException.class, () -> root.build(small));
+        assertEquals("output length", exception.getLimit());
+
+        small.limits = new TreeLimits(depth, 10_000, Integer.MAX_VALUE);
+        assertThrows(TreeLimitExceededException.class, () -> root.build(small), "The node limit should be enforced while building");
+    }
+
+    /**
+     * Test that files in one directory share its registration and that changes are reloaded after the debounce.
+     */
+    @Test
+    public void testFileWatcherSharedDirectory(@TempDir Path tempDir) throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.html"), "<div></div>");
+        Path second = Files.writeString(tempDir.resolve("second.html"), "<span></span>");
+        Path folder = Files.createDirectories(tempDir.resolve("folder/nested"));
+        Path nested = Files.writeString(folder.resolve("nested.html"), "<p>Nested</p>");
+
+        // Batches of changed files, in the order the watcher invalidates them
+        BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+        Consumer<Set<Path>> listener = batches::add;
+        FileWatcher.addChangeListener(listener);
+
+        try {
+            InterfaceBuilder.watchFileChanges(first);
+            InterfaceBuilder.watchFileChanges(second);
+            assertEquals(1, FileWatcher.getWatchedDirectoryCount(), "Files of one directory should share its key");
+
+            // Stopping one file must not stop its sibling
+            InterfaceBuilder.stopWatchingFile(first);
+            assertTrue(InterfaceBuilder.isWatchingFile(second));
+            assertEquals(1, FileWatcher.getWatchedDirectoryCount());
+
+            InterfaceBuilder.watchDirectoryChanges(tempDir.resolve("folder"), "**.html");
+            assertTrue(InterfaceBuilder.isWatchingFile(nested));
+            assertEquals(3, FileWatcher.getWatchedDirectoryCount());
+
+            HTMLCustomUITemplate secondTemplate = InterfaceBuilder.parse(second);
+            InterfaceBuilder.parse(nested);
+
+            // Several writes in a burst are reloaded once the burst is over
+            for (int i = 0; i < 3; i++) {
+                Files.writeString(second, "<span>" + i + "</span>");
+                Files.writeString(nested, "<p>" + i + "</p>");
+            }
+            assertTrue(InterfaceBuilder.parse(second) == secondTemplate || TemplateCache.getVersion(second) > 1,
+                "Readers should keep the last version until the reload is published");
+
+            // The burst may be split in several batches: wait for the ones until both files have their last content
+            while (!TemplateCache.await(second).build().contains("2") || !TemplateCache.await(nested).build().contains("2")) {
+                assertNotNull(batches.poll(5, TimeUnit.SECONDS), "Watched files should be reloaded");
+            }
+
+            // A deleted file is removed before its batch is reported
+            batches.clear();
+            Files.delete(second);
+            Set<Path> batch;
+            do {
+                batch = batches.poll(5, TimeUnit.SECONDS);
+                assertNotNull(batch, "Deleted file should be reported");
+            } while (!batch.contains(second));
+            assertFalse(TemplateCache.contains(second));
+            assertFalse(InterfaceBuilder.isWatchingFile(second), "A deleted file should no longer be watched");
+
+            // A file written without pause is still invalidated while the writes go on
+            batches.clear();
+            for (int i = 0; i < 1000 && batches.isEmpty(); i++) {
+                Files.writeString(nested, "<p>Stream " + i + "</p>");
+                Thread.sleep(5);
+            }
+            assertFalse(batches.isEmpty(), "A continuous stream of writes should not delay invalidation indefinitely");
+
+            // The last tree releases the remaining directories
+            InterfaceBuilder.stopWatchingDirectory(tempDir.resolve("folder"));
+            assertEquals(0, FileWatcher.getWatchedDirectoryCount());
+        } finally {
+            FileWatcher.removeChangeListener(listener);
+            InterfaceBuilder.stopAllWatchers();
+        }
+    }
+
+    /**
+     * Test that concurrent misses share one load and that a failed reload keeps the last good version.
+     */
+    @Test
+    public void testTemplateRegistryReload(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("registry.html");
+        AtomicInteger loads = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean();
+
+        TemplateCache.Loader loader = file -> {
+            loads.incrementAndGet();
+            if (failing.get()) {
+                throw new IOException("Broken template");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return InterfaceBuilder.parse("<p>" + loads.get() + "</p>");
+        };
+
+        // Concurrent misses wait for a single load
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<HTMLCustomUITemplate>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> TemplateCache.getOrLoad(path, loader)));
+            }
+            HTMLCustomUITemplate first = results.get(0).get();
+            for (Future<HTMLCustomUITemplate> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get(), "Concurrent misses should share one load");
+        assertEquals(1L, TemplateCache.getVersion(path));
+
+        // A reload is published with a new version
+        TemplateCache.reload(path);
+        HTMLCustomUITemplate second = TemplateCache.await(path);
+        assertEquals(2L, TemplateCache.getVersion(path));
+
+        // A failed reload keeps the last good version
+        failing.set(true);
+        TemplateCache.reload(path);
+        assertSame(second, TemplateCache.await(path));
+        assertEquals(3, loads.get());
+        assertEquals(2L, TemplateCache.getVersion(path));
+
+        TemplateCache.remove(path);
+    }
+
+    /**
+     * Test that a template removed while it loads or reloads is not published again by that load.
+     */
+    @Test
+    public void testTemplateCacheRemoveDuringLoad(@TempDir Path tempDir) throws Exception {
+        Path path = tempDir.resolve("removed.html");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TemplateCache.Loader loader = file -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return InterfaceBuilder.parse("<p>Loaded</p>");
+        };
+
+        // Removed during the first load
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<HTMLCustomUITemplate> load = executor.submit(() -> TemplateCache.getOrLoad(path, loader));
+            started.await();
+            TemplateCache.remove(path);
+            release.countDown();
+            assertNotNull(load.get(), "The loading thread still gets its template");
+        } finally {
+            executor.shutdown();
+        }
+        assertFalse(TemplateCache.contains(path), "A removed template should not be published by the load in flight");
+
+        // Removed during a reload
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch reloadStarted = new CountDownLatch(1);
+        CountDownLatch reloadRelease = new CountDownLatch(1);
+        TemplateCache.getOrLoad(path, file -> {
+            if (calls.incrementAndGet() > 1) {
+                reloadStarted.countDown();
+                try {
+                    reloadRelease.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return InterfaceBuilder.parse("<p>" + calls.get() + "</p>");
+        });
+        TemplateCache.reload(path);
+        reloadStarted.await();
+        TemplateCache.remove(path);
+        reloadRelease.countDown();
+
+        // Reloads run one at a time: once the next one has loaded, the removed one has finished
+        Path next = tempDir.resolve("next.html");
+        CountDownLatch nextLoaded = new CountDownLatch(2);
+        TemplateCache.getOrLoad(next, file -> {
+            nextLoaded.countDown();
+            return InterfaceBuilder.parse("<p>Next</p>");
+        });
+        TemplateCache.reload(next);
+        assertTrue(nextLoaded.await(5, TimeUnit.SECONDS));
+        assertFalse(TemplateCache.contains(path), "A removed template should not be published by the reload in flight");
+
+        TemplateCache.remove(next);
+    }
+
+    /**
+     * Test that a warm-up caches and pre-renders the matching templates and reports the failures.
+     */
+    @Test
+    public void testTemplateWarmup(@TempDir Path tempDir) throws Exception {
+        Path first = Files.writeString(tempDir.resolve("first.html"), "<div id=\"first\"><p>First</p></div>");
+        Path nested = Files.writeString(Files.createDirectories(tempDir.resolve("pages")).resolve("nested.html"), "<span>Nested</span>");
+        Path deep = Files.writeString(tempDir.resolve("deep.html"), "<div><div><div><div><p>Deep</p></div></div></div></div>");
+        Files.writeString(tempDir.resolve("notes.txt"), "<p>Not a template</p>");
+
+        InterfaceBuilder.setTreeLimits(new TreeLimits(3, 1000, 1 << 20));
+        try {
+            TemplateWarmup.Report report = InterfaceBuilder.warmUp(tempDir, null);
+            assertEquals(3, report.getEntries().size(), report.toString());
+            assertEquals(1, report.getFailures().size());
+            assertEquals(deep, report.getFailures().get(0).getPath());
+            assertTrue(report.getFailures().get(0).getError() instanceof TreeLimitExceededException);
+
+            // The warmed up templates are cached with their output
+            assertTrue(TemplateCache.contains(first) && TemplateCache.contains(nested));
+            TemplateWarmup.Entry entry = report.getEntries().stream().filter(e -> e.getPath().equals(first)).findFirst().orElseThrow();
+            String ui = InterfaceBuilder.parse(first).build(new ComponentBuilderSettings(false));
+            assertEquals(ui.length(), entry.getUiLength());
+            assertSame(ui, InterfaceBuilder.parse(first).build(new ComponentBuilderSettings(false)));
+
+            // A page opened from a warmed up file builds the cached template instead of parsing the file again
+            HTMLCustomUITemplate warmed = TemplateCache.get(first);
+            HTMLCustomUIPage<HTMLCustomUITemplate.DynamicEventData> page = HTMLCustomUIPage.fromFile(null, warmed.buildEventDataCodec(), first);
+            RecordingCommandBuilder commands = new RecordingCommandBuilder();
+            page.build(null, commands, new UIEventBuilder(), null);
+            assertSame(ui, commands.inline, "Opening a warmed up page should skip the parse");
+            assertEquals(1L, TemplateCache.getVersion(first));
+            page.onDismiss(null, null);
+
+            // The template handed out by the page is its own copy
+            HTMLCustomUITemplate own = page.getParsedTemplate();
+            assertNotSame(warmed, own);
+            own.setVariable("Leak", "Page");
+            assertNull(warmed.getVariable("Leak"));
+            assertSame(own, page.getParsedTemplate());
+
+            // With the persistent cache on, the warm-up stores the UI the pages read from it
+            CompiledTemplateStore.setDirectory(tempDir.resolve("cache"));
+            InterfaceBuilder.warmUp(tempDir, null);
+            assertSame(ui, CompiledTemplateStore.render(first), "The warmed up UI should be served from the persistent cache");
+        } finally {
+            CompiledTemplateStore.setDirectory(null);
+            InterfaceBuilder.setTreeLimits(null);
+            TemplateCache.removeAll(List.of(first, nested, deep));
+        }
+    }
+
+    /**
+     * Test that variables updated on an open page are kept by the page, not written to a shared template.
+     */
+    @Test
+    public void testUpdateVariablesKeepsSharedTemplate(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("shop.html"), "<script type=\"text/customui\">\n@Title = \"Shop\"\n@Gold = 10\n</script>\n"
+            + "<div id=\"shop\"><span>@Title</span><p id=\"gold\">@Gold</p></div>");
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        try {
+            // Pages opened from the same file share the cached template
+            HTMLCustomUITemplate shared = InterfaceBuilder.parse(file);
+            HTMLCustomUIPage<HTMLCustomUITemplate.DynamicEventData> page = HTMLCustomUIPage.fromFile(null, shared.buildEventDataCodec(), file);
+            HTMLCustomUIPage<HTMLCustomUITemplate.DynamicEventData> other = HTMLCustomUIPage.fromFile(null, page.buildEventDataCodec(), file);
+            String before = shared.build(settings);
+
+            page.updateVariables(Map.of("Gold", "25", "@Title", "Market"));
+            assertThrows(IllegalArgumentException.class, () -> page.updateVariables(Map.of("Silver", "1")));
+            assertSame(before, shared.build(settings));
+            assertEquals("10", shared.getVariable("Gold"));
+
+            // The page shows its values, the other page the values of the template
+            Path pageUi = tempDir.resolve("page.ui");
+            Path otherUi = tempDir.resolve("other.ui");
+            page.withUIOutputPath(pageUi).build(null, new UICommandBuilder(), new UIEventBuilder(), null);
+            other.withUIOutputPath(otherUi).build(null, new UICommandBuilder(), new UIEventBuilder(), null);
+            assertEquals(before.replace("@Gold = 10;", "@Gold = 25;").replace("@Title = \"Shop\";", "@Title = \"Market\";"), Files.readString(pageUi));
+            assertEquals(before, Files.readString(otherUi));
+            page.onDismiss(null, null);
+            other.onDismiss(null, null);
+
+            // A variable substituted while parsing is not bound: the page is parsed again with the new value
+            String bound = "<script type=\"text/customui\">\n@Title = \"Shop\"\n</script>\n<div id=\"shop\"><span id=\"heading\" :text=\"@Title\" /></div>";
+            HTMLCustomUITemplate substituted = InterfaceBuilder.parse(bound);
+            assertEquals(Set.of("Title"), substituted.getSubstitutedVariables());
+            assertEquals(Set.of("Title"), substituted.getDataBindings().getUnboundVariables());
+            HTMLCustomUIPage<HTMLCustomUITemplate.DynamicEventData> heading = HTMLCustomUIPage.fromHTML(null, substituted.buildEventDataCodec(), bound);
+            heading.updateVariables(Map.of("Title", "Market"));
+            RecordingCommandBuilder commands = new RecordingCommandBuilder();
+            heading.build(null, commands, new UIEventBuilder(), null);
+            assertTrue(commands.inline.contains("Text: \"Market\";"), commands.inline);
+            assertFalse(commands.inline.contains("\"Shop\""), commands.inline);
+
+            // A precompiled page is sent again with a copy of its template
+            PrecompiledTemplate template = new PrecompiledTemplate("", Map.of("Gold", InterfaceVariable.literalValue("10")), "Group #Shop {\n}\n") {
+                @Override
+                public com.hypixel.hytale.codec.builder.BuilderCodec<HTMLCustomUITemplate.DynamicEventData> getEventDataCodec() {
+                    return HTMLCustomUITemplate.buildEventDataCodec(this.getVariables());
+                }
+            };
+            String compiled = template.build();
+            HTMLCustomUIPage<HTMLCustomUITemplate.DynamicEventData> precompiled = HTMLCustomUIPage.fromPrecompiled(null, template.getEventDataCodec(), template);
+            assertNotNull(precompiled.buildEventDataCodec());
+            precompiled.updateVariables(Map.of("Gold", "25"));
+            assertThrows(IllegalArgumentException.class, () -> precompiled.updateVariables(Map.of("Silver", "1")));
+            assertSame(compiled, template.build());
+
+            Path precompiledUi = tempDir.resolve("precompiled.ui");
+            precompiled.withUIOutputPath(precompiledUi).build(null, new UICommandBuilder(), new UIEventBuilder(), null);
+            assertEquals(compiled.replace("@Gold = 10;", "@Gold = 25;"), Files.readString(precompiledUi));
+        } finally {
+            TemplateCache.remove(file);
+        }
+    }
+
+    /**
+     * Benchmark cold parsing against loading from the persistent cache for a 200-template corpus,
+     * and test that changed sources and damaged entries are rendered again.
+     */
+    @Test
+    public void testCompiledTemplateStore(@TempDir Path tempDir) throws Exception {
+        Path templates = Files.createDirectories(tempDir.resolve("templates"));
+        List<Path> corpus = new ArrayList<>();
+        for (int t = 0; t < 200; t++) {
+            StringBuilder html = new StringBuilder("<div id=\"page" + t + "\" style=\"padding: 8\">");
+            for (int i = 0; i < 20; i++) {
+                html.append("<div id=\"row").append(i).append("\" style=\"height: 32\">")
+                    .append("<p style=\"color: #ffcc00; font-size: 14px\">Row ").append(t).append('.').append(i).append("</p>")
+                    .append("<button id=\"action").append(i).append("\">Open</button></div>");
+            }
+            corpus.add(Files.writeString(templates.resolve("page" + t + ".html"), html.append("</div>").toString()));
+        }
+
+        try {
+            // First start with the cache fills it (and warms up the JIT for a fair comparison)
+            Path cacheDirectory = tempDir.resolve("cache");
+            CompiledTemplateStore.setDirectory(cacheDirectory);
+            for (Path template : corpus) {
+                CompiledTemplateStore.render(template);
+            }
+
+            // Cold start: every template is parsed and built
+            CompiledTemplateStore.setDirectory(null);
+            List<String> expected = new ArrayList<>();
+            long start = System.nanoTime();
+            for (Path template : corpus) {
+                expected.add(CompiledTemplateStore.render(template));
+            }
+            long cold = System.nanoTime() - start;
+
+            // Restart with the cache: entries are only read
+            CompiledTemplateStore.setDirectory(cacheDirectory);
+            start = System.nanoTime();
+            for (int i = 0; i < corpus.size(); i++) {
+                assertEquals(expected.get(i), CompiledTemplateStore.render(corpus.get(i)));
+            }
+            long cached = System.nanoTime() - start;
+            System.out.println("📊 " + corpus.size() + " templates: cold parse " + (cold / 1_000_000) + "ms, persistent cache " + (cached / 1_000_000) + "ms");
+
+            // A changed source is a miss
+            Files.writeString(corpus.get(0), "<div id=\"page0\"><p>Changed</p></div>");
+            assertTrue(CompiledTemplateStore.render(corpus.get(0)).contains("Changed"));
+
+            // A damaged entry is rendered again
+            CompiledTemplateStore.setDirectory(cacheDirectory);
+            try (var entries = Files.list(cacheDirectory)) {
+                for (Path entry : entries.collect(java.util.stream.Collectors.toList())) {
+                    Files.write(entry, new byte[] { 'M', 'I', 'B' });
+                }
+            }
+            assertEquals(expected.get(1), CompiledTemplateStore.render(corpus.get(1)));
+
+            // Each set of override variables is an entry: the directory keeps the most recently used ones
+            CompiledTemplateStore.clear();
+            CompiledTemplateStore.setMaxEntries(8);
+            ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+            for (int i = 0; i < 40; i++) {
+                String name = "Player" + i;
+                CompiledTemplateStore.getOrRender("<p>@Name</p>", Map.of("Name", name), settings, () -> name);
+            }
+            try (var entries = Files.list(cacheDirectory)) {
+                long count = entries.count();
+                assertTrue(count > 0 && count <= 8, "Entry files should be bounded, got " + count);
+            }
+            assertEquals("Player39", CompiledTemplateStore.getOrRender("<p>@Name</p>", Map.of("Name", "Player39"), settings, () -> "missing"));
+
+            // Registering a custom component changes the keys
+            assertEquals("first", CompiledTemplateStore.getOrRender("<p>Registry</p>", null, settings, () -> "first"));
+            ComponentFactory.registerCustomTag("store-fingerprint", DefaultConstructorComponent.class);
+            assertEquals("second", CompiledTemplateStore.getOrRender("<p>Registry</p>", null, settings, () -> "second"),
+                "A registered component should make the entries rendered before it a miss");
+
+            // So does the root directory imports are resolved against
+            String rootDir = ComponentBuilder.getRootDir();
+            try {
+                ComponentBuilder.setRootDir("../../");
+                assertEquals("nested", CompiledTemplateStore.getOrRender("<p>Registry</p>", null, settings, () -> "nested"),
+                    "Another root directory should make the entries rendered before it a miss");
+            } finally {
+                ComponentBuilder.setRootDir(rootDir);
+            }
+            assertEquals("second", CompiledTemplateStore.getOrRender("<p>Registry</p>", null, settings, () -> "missing"));
+        } finally {
+            CompiledTemplateStore.setMaxEntries(CompiledTemplateStore.DEFAULT_MAX_ENTRIES);
+            CompiledTemplateStore.setDirectory(null);
+        }
+    }
+
+    /**
+     * Test that processes mapping the same shared cache file reuse each other's renders, including
+     * under concurrent appends, and that a full cache still renders.
+     */
+    @Test
+    public void testSharedRenderCache(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("render.cache");
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+
+        // Two mappings of the same file stand for two processes
+        try (SharedRenderCache first = SharedRenderCache.open(file, 1 << 20, 1024);
+             SharedRenderCache second = SharedRenderCache.open(file)) {
+            assertEquals(1 << 20, second.getCapacity(), "An existing file keeps its size");
+
+            String html = "<div id=\"shared\"><p>Shared</p></div>";
+            CompiledTemplateStore.setSharedCache(first);
+            String ui = CompiledTemplateStore.getOrRender(html, null, settings, () -> InterfaceBuilder.parse(html).build(settings));
+
+            CompiledTemplateStore.setSharedCache(second);
+            assertEquals(ui, CompiledTemplateStore.getOrRender(html, null, settings, () -> {
+                throw new AssertionError("The render of the other process should be reused");
+            }));
+
+            // Concurrent appends through one mapping are all visible through the other
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        String key = "<p>" + thread + "." + i + "</p>";
+                        CompiledTemplateStore.getOrRender(key, null, settings, () -> "Label { Text: \"" + key + "\"; }");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            CompiledTemplateStore.setSharedCache(first);
+            assertEquals(second.getUsedBytes(), first.getUsedBytes());
+            for (int t = 0; t < 8; t++) {
+                for (int i = 0; i < 50; i++) {
+                    String key = "<p>" + t + "." + i + "</p>";
+                    assertEquals("Label { Text: \"" + key + "\"; }", CompiledTemplateStore.getOrRender(key, null, settings, () -> "missing"));
+                }
+            }
+        } finally {
+            CompiledTemplateStore.setSharedCache(null);
+        }
+
+        // A full cache doesn't share new renders, but still renders them
+        try (SharedRenderCache small = SharedRenderCache.open(tempDir.resolve("small.cache"), 1024, 16)) {
+            CompiledTemplateStore.setSharedCache(small);
+            String large = "x".repeat(2048);
+            assertEquals(large, CompiledTemplateStore.getOrRender("<p>Large</p>", null, settings, () -> large));
+            assertEquals("again", CompiledTemplateStore.getOrRender("<p>Large</p>", null, settings, () -> "again"));
+        } finally {
+            CompiledTemplateStore.setSharedCache(null);
+        }
+
+        // A full file is replaced by an empty one, which the other processes follow
+        Path full = tempDir.resolve("full.cache");
+        try (SharedRenderCache first = SharedRenderCache.open(full, 1024, 16);
+             SharedRenderCache second = SharedRenderCache.open(full)) {
+            CompiledTemplateStore.setSharedCache(first);
+            for (int i = 0; i < 40; i++) {
+                String name = "Entry" + i;
+                CompiledTemplateStore.getOrRender("<p>" + name + "</p>", null, settings, () -> name);
+            }
+            assertTrue(first.getUsedBytes() > 0 && first.getUsedBytes() < 1024 - 192, "The full file should have been replaced");
+            assertEquals(1024L, Files.size(full));
+
+            CompiledTemplateStore.setSharedCache(second);
+            assertEquals("Entry39", CompiledTemplateStore.getOrRender("<p>Entry39</p>", null, settings, () -> "missing"),
+                "The other process should map the new file");
+        } finally {
+            CompiledTemplateStore.setSharedCache(null);
+        }
+
+        // Offsets outside the log (a corrupted index) are ignored instead of read
+        try (FileChannel channel = FileChannel.open(full, StandardOpenOption.WRITE)) {
+            ByteBuffer offsets = ByteBuffer.allocate(16 * 8).order(ByteOrder.nativeOrder());
+            while (offsets.hasRemaining()) {
+                offsets.putLong(1020);
+            }
+            channel.write(offsets.flip(), 64);
+        }
+        try (SharedRenderCache corrupted = SharedRenderCache.open(full)) {
+            CompiledTemplateStore.setSharedCache(corrupted);
+            assertEquals("rendered", CompiledTemplateStore.getOrRender("<p>Corrupted</p>", null, settings, () -> "rendered"));
+            assertEquals("rendered", CompiledTemplateStore.getOrRender("<p>Corrupted</p>", null, settings, () -> "missing"),
+                "A file with a full index should be replaced");
+        } finally {
+            CompiledTemplateStore.setSharedCache(null);
+        }
+
+        // A file left without its magic (by a process stopped during the creation) is initialized again
+        Path crashed = Files.write(tempDir.resolve("crashed.cache"), new byte[4096]);
+        try (SharedRenderCache recovered = SharedRenderCache.open(crashed, 4096, 16)) {
+            CompiledTemplateStore.setSharedCache(recovered);
+            assertEquals("shared", CompiledTemplateStore.getOrRender("<p>Recovered</p>", null, settings, () -> "shared"));
+            assertEquals("shared", CompiledTemplateStore.getOrRender("<p>Recovered</p>", null, settings, () -> "missing"));
+        } finally {
+            CompiledTemplateStore.setSharedCache(null);
+        }
+        try (SharedRenderCache reopened = SharedRenderCache.open(crashed)) {
+            assertNotNull(reopened, "An initialized file should keep its size");
+        }
+
+        // Other files are refused
+        Path other = Files.writeString(tempDir.resolve("other.cache"), "not a cache");
+        assertThrows(IOException.class, () -> SharedRenderCache.open(other));
+    }
+
+    /**
+     * Test that templates compiled at build time give the UI of parse and build, without parsing.
+     */
+    @Test
+    public void testTemplateCompiler(@TempDir Path tempDir) throws Exception {
+        String html = """
+            <script type="text/customui">
+            @Title = "Default Title"
+            @Show = true
+            </script>
+            <div id="container"><label id="title">@Title</label><p>Hello</p></div>
+            """;
+        Path sources = Files.createDirectories(tempDir.resolve("resources/Common/UI"));
+        Files.writeString(sources.resolve("login-page.html"), html);
+        Files.writeString(sources.resolve("status.html"), """
+            <script type="text/customui">
+            @Status = "Online"
+            </script>
+            <div id="status"><span id="state" :text="@Status" /></div>
+            """);
+
+        Path uiDirectory = tempDir.resolve("classes");
+        Path javaDirectory = tempDir.resolve("generated");
+        List<Path> written = TemplateCompiler.compile(tempDir.resolve("resources"), uiDirectory, javaDirectory, "com.example.ui");
+        assertEquals(4, written.size());
+
+        // Static UI asset at the same relative path
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        String expected = InterfaceBuilder.parse(html).build(settings);
+        String ui = Files.readString(uiDirectory.resolve("Common/UI/login-page.ui"));
+        assertEquals(expected.length(), ui.length());
+        assertTrue(ui.endsWith(InterfaceBuilder.parse(html).buildBody(settings)));
+
+        // Generated class: typed setters rebuild the UI without the component tree
+        Path source = javaDirectory.resolve("com/example/ui/common/ui/LoginPageTemplate.java");
+        assertTrue(Files.readString(source).contains("public LoginPageTemplate setShow(boolean value)"));
+        Path statusSource = javaDirectory.resolve("com/example/ui/common/ui/StatusTemplate.java");
+
+        javax.tools.JavaCompiler javac = javax.tools.ToolProvider.getSystemJavaCompiler();
+        Path classes = Files.createDirectories(tempDir.resolve("compiled"));
+        assertEquals(0, javac.run(null, null, null, "-nowarn", "-proc:none", "-cp", System.getProperty("java.class.path"),
+            "-d", classes.toString(), source.toString(), statusSource.toString()));
+
+        try (java.net.URLClassLoader loader = new java.net.URLClassLoader(new java.net.URL[] { classes.toUri().toURL() }, getClass().getClassLoader())) {
+            Class<?> type = loader.loadClass("com.example.ui.common.ui.LoginPageTemplate");
+            PrecompiledTemplate template = (PrecompiledTemplate) type.getConstructor().newInstance();
+            assertEquals(ui, template.build());
+            assertNotNull(template.getEventDataCodec());
+
+            type.getMethod("setTitle", String.class).invoke(template, "Custom");
+            type.getMethod("setShow", boolean.class).invoke(template, false);
+            String custom = template.build();
+            assertTrue(custom.contains("@Title = \"Custom\";"));
+            assertTrue(custom.contains("@Show = false;"));
+            assertTrue(custom.endsWith(InterfaceBuilder.parse(html, Map.of("Title", "Custom")).buildBody(settings)));
+
+            // A variable bound by an attribute stays a reference, so its setter changes what is shown
+            Class<?> statusType = loader.loadClass("com.example.ui.common.ui.StatusTemplate");
+            PrecompiledTemplate status = (PrecompiledTemplate) statusType.getConstructor().newInstance();
+            assertTrue(status.build().contains("Text: @Status;"), status.build());
+            statusType.getMethod("setStatus", String.class).invoke(status, "Away");
+            assertTrue(status.build().contains("@Status = \"Away\";"));
+            assertFalse(status.build().contains("Online"));
+        }
+
+        // A broken template fails the compilation
+        Files.writeString(sources.resolve("broken.html"), "<marquee>Broken</marquee>");
+        assertThrows(IOException.class, () -> TemplateCompiler.compile(tempDir.resolve("resources"), uiDirectory, null, null));
+    }
+
+    /**
+     * Test that registered UI is referenced as a static asset named by its content.
+     */
+    @Test
+    public void testStaticUIAssets(@TempDir Path tempDir) throws Exception {
+        String ui = InterfaceBuilder.parse("<div id=\"panel\"><p>Static</p></div>").build(new ComponentBuilderSettings(false));
+        try {
+            assertThrows(IllegalStateException.class, () -> StaticUIAssets.register(ui));
+
+            StaticUIAssets.setAssetPack(tempDir);
+            assertNull(StaticUIAssets.getDocumentPath(ui));
+
+            String document = StaticUIAssets.register(ui);
+            assertTrue(document.matches("Pages/MIB_[0-9a-f]{32}\\.ui"));
+            assertEquals(document, StaticUIAssets.getDocumentPath(ui));
+            assertEquals(document, StaticUIAssets.register(ui));
+            Path asset = tempDir.resolve("Common/UI/Custom/" + document);
+            assertEquals(ui, Files.readString(asset));
+
+            // A changed UI is another asset
+            String other = StaticUIAssets.register(ui + "\n");
+            assertNotEquals(document, other);
+
+            // Assets already in the pack are found again, unless edited
+            Files.writeString(tempDir.resolve("Common/UI/Custom/" + other), "Group #Edited {\n}");
+            StaticUIAssets.setAssetPack(tempDir);
+            assertEquals(document, StaticUIAssets.getDocumentPath(ui));
+            assertNull(StaticUIAssets.getDocumentPath(ui + "\n"));
+
+            // Another instance of the same UI is the same asset
+            assertEquals(document, StaticUIAssets.getDocumentPath(new String(ui.toCharArray())));
+
+            // Assets not registered since the pack was set are pruned
+            String stale = StaticUIAssets.register(ui + "\n\n");
+            StaticUIAssets.setAssetPack(tempDir);
+            assertEquals(document, StaticUIAssets.register(ui));
+            assertEquals(2, StaticUIAssets.prune());
+            assertTrue(Files.exists(asset));
+            assertFalse(Files.exists(tempDir.resolve("Common/UI/Custom/" + stale)));
+            assertFalse(Files.exists(tempDir.resolve("Common/UI/Custom/" + other)));
+            assertEquals(document, StaticUIAssets.getDocumentPath(ui));
+            assertNull(StaticUIAssets.getDocumentPath(ui + "\n\n"));
+        } finally {
+            StaticUIAssets.setAssetPack(null);
+        }
+        assertNull(StaticUIAssets.getDocumentPath(ui));
+    }
+
+    /**
+     * Test that templates parsed in shared prelude mode import the @MIB definitions instead of repeating them.
+     */
+    @Test
+    public void testSharedPrelude() throws Exception {
+        String html = "<div id=\"panel\"><h1>Title</h1><p>Text</p><span>Note</span></div>";
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        String inline = InterfaceBuilder.parse(html).build(settings);
+        assertTrue(inline.contains("@MIBH1 = Label {"));
+
+        // The shipped asset holds the definitions of every text tag
+        try (java.io.InputStream asset = InterfaceBuilder.class.getResourceAsStream("/Common/UI/Custom/" + HTMLCustomUITemplate.SHARED_PRELUDE_DOCUMENT)) {
+            assertNotNull(asset);
+            String prelude = new String(asset.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+            assertEquals(HTMLCustomUITemplate.buildSharedPrelude(), prelude);
+            assertTrue(prelude.contains("@MIBLabel = Label {"));
+        }
+
+        InterfaceBuilder.setSharedPrelude(true);
+        try {
+            HTMLCustomUITemplate template = InterfaceBuilder.parse(html);
+            assertTrue(template.isSharedPrelude());
+            String shared = template.build(settings);
+            assertTrue(shared.startsWith("$MIB = \"MInterfaceBuilder_Prelude.ui\";\n\n"));
+            assertFalse(shared.contains("= Label {"));
+            assertTrue(shared.contains("$MIB.@MIBH1 {"));
+            assertTrue(shared.contains("$MIB.@MIBP {"));
+            assertTrue(shared.length() < inline.length());
+
+            // Without text tags there is nothing to import
+            assertFalse(InterfaceBuilder.parse("<div id=\"empty\"></div>").build(settings).contains("$MIB"));
+        } finally {
+            InterfaceBuilder.setSharedPrelude(false);
+        }
+        assertEquals(inline, InterfaceBuilder.parse(html).build(settings));
+    }
+
+    /**
+     * Command builder that keeps the last inline UI appended.
+     */
+    private static final class RecordingCommandBuilder extends UICommandBuilder {
+        private String inline;
+
+        @Override
+        public UICommandBuilder appendInline(String selector, String ui) {
+            this.inline = ui;
+            return super.appendInline(selector, ui);
+        }
+    }
 }
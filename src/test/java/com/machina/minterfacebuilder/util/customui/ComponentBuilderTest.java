@@ -0,0 +1,418 @@
+package com.machina.minterfacebuilder.util.customui;
+
+import com.machina.minterfacebuilder.InterfaceBuilder;
+import com.machina.minterfacebuilder.helpers.Color;
+import com.machina.minterfacebuilder.helpers.QuotedString;
+import com.machina.minterfacebuilder.helpers.VarRef;
+import com.machina.minterfacebuilder.model.HTMLCustomUITemplate;
+import com.machina.minterfacebuilder.model.InterfaceVariable;
+import com.machina.minterfacebuilder.parser.CSSStyleParser;
+import com.machina.minterfacebuilder.parser.CustomUIScriptParser;
+import com.machina.minterfacebuilder.util.customui.components.base.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ComponentBuilder node storage and build.
+ */
+public class ComponentBuilderTest {
+
+    /**
+     * Number of property symbols registered before the test.
+     */
+    private int symbols;
+
+    /**
+     * Remember the size of the global property symbol table.
+     */
+    @BeforeEach
+    public void markPropertyKeys() {
+        this.symbols = PropertyKeys.size();
+    }
+
+    /**
+     * Forget the property symbols registered by the test, so the table is not left full for the next ones.
+     */
+    @AfterEach
+    public void resetPropertyKeys() {
+        PropertyKeys.truncate(this.symbols);
+    }
+
+    /**
+     * Build a tree of 100 groups with 99 labels each (10,000 nodes including the root groups).
+     */
+    private static ComponentBuilder createTree() {
+        ComponentBuilder root = ComponentBuilder.create("Group");
+
+        for (int i = 0; i < 100; i++) {
+            ComponentBuilder group = ComponentBuilder.create("Group").setProperty("LayoutMode", "Top");
+
+            for (int j = 0; j < 99; j++) {
+                group.appendChild(ComponentBuilder.create("Label").setProperty("Text", "Item"));
+            }
+
+            root.appendChild(group);
+        }
+
+        return root;
+    }
+
+    /**
+     * Test that a component allocates its storage only when written, and that the shared empty storage
+     * of unwritten components never sees another component's writes.
+     */
+    @Test
+    public void testLazyStorage() {
+        ComponentBuilder label = ComponentBuilder.create("Label");
+        ComponentBuilder group = ComponentBuilder.create("Group");
+        assertTrue(label.getPropertyMap().isEmpty() && label.getChildren().isEmpty() && label.getBuilderVariables().isEmpty());
+        assertSame(group.getPropertyMap(), label.getPropertyMap(), "Empty storage should be a shared singleton");
+        assertSame(group.getChildNodes(), label.getChildNodes());
+
+        label.setProperty("Text", "Item").setStyle("FontSize", "12").setVariable("Name", "Item");
+        assertTrue(label.getPropertyMap() instanceof CompactMap, "Written properties should use a compact map");
+        assertEquals("Item", label.getPropertyIgnoreCase("text"));
+        assertTrue(group.getPropertyMap().isEmpty(), "Writes should not reach the shared empty storage");
+        assertNull(group.getStyleNameIgnoreCase("FontSize"));
+        assertTrue(group.getBuilderVariables().isEmpty());
+        assertSame(group.getChildNodes(), label.getChildNodes(), "Unwritten children should stay shared");
+
+        group.appendChild(label);
+        assertEquals(1, group.getChildren().size());
+        assertSame(label, group.getChildren().get(0));
+        assertTrue(label.getChildren().isEmpty() && ComponentBuilder.create("Group").getChildren().isEmpty());
+        assertNotSame(label.getChildNodes(), group.getChildNodes());
+    }
+
+    /**
+     * Test that compact maps keep insertion order across the switch to a hash map.
+     */
+    @Test
+    public void testCompactMapOrderAndOverflow() {
+        CompactMap<Integer> map = new CompactMap<>();
+
+        for (int i = 0; i < 12; i++) {
+            map.put("Key" + i, i);
+
+            if (i == 3) {
+                map.put("Key1", 100);
+                assertEquals(Integer.valueOf(100), map.remove("Key1"));
+            }
+        }
+
+        assertEquals(11, map.size());
+        assertNull(map.get("Key1"));
+        assertEquals(Integer.valueOf(11), map.get("Key11"));
+
+        List<String> keys = new ArrayList<>(map.keySet());
+        assertEquals(List.of("Key0", "Key2", "Key3", "Key4", "Key5", "Key6", "Key7", "Key8", "Key9", "Key10", "Key11"), keys);
+
+        CompactMap<Integer> small = new CompactMap<>();
+        small.put("A", 1);
+        small.put("B", 2);
+        small.put("C", 3);
+
+        Iterator<Map.Entry<String, Integer>> iterator = small.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.next().setValue(20);
+
+        assertEquals(Map.of("B", 20, "C", 3), small);
+    }
+
+    /**
+     * Test that children keep their type and order, and raw strings are exposed as strings.
+     */
+    @Test
+    public void testTypedChildren() {
+        ComponentBuilder label = ComponentBuilder.create("Label");
+        ComponentPrototype prototype = new ComponentPrototype("Group", Map.of("Background", "#000000"));
+        FlyweightComponent leaf = prototype.instance("Anchor", AnchorMap.of(0, 0, 1, 1));
+
+        ComponentBuilder root = ComponentBuilder.create("Group")
+            .appendChild(label)
+            .appendChild("  Label { Text: \"Raw\"; }  ")
+            .appendChild(leaf);
+
+        List<Object> children = root.getChildren();
+        assertSame(label, children.get(0));
+        assertEquals("Label { Text: \"Raw\"; }", children.get(1));
+        assertSame(leaf, children.get(2));
+
+        // Moving children keeps their output
+        ComponentBuilder copy = ComponentBuilder.create("Group").appendChild(new ArrayList<>(children));
+        assertEquals(root.build(), copy.build());
+    }
+
+    /**
+     * Test case-insensitive key resolution through the property symbol table.
+     */
+    @Test
+    public void testPropertyKeyResolution() {
+        String parsed = CustomUIScriptParser.capitalizePropertyName("layout-mode");
+        assertSame(parsed, CustomUIScriptParser.capitalizePropertyName("layout-mode"));
+        assertSame(PropertyKeys.intern("LayoutMode"), parsed);
+        assertEquals("LayoutMode", PropertyKeys.nameOf(PropertyKeys.idOf(parsed)));
+        assertEquals("Anchor", PropertyKeys.canonicalIgnoreCase("ANCHOR"));
+
+        ComponentBuilder component = ComponentBuilder.create("Group")
+            .setProperty("flexWeight", "1")
+            .setStyle("fontSize", "12");
+
+        assertEquals("flexWeight", component.getPropertyNameIgnoreCase("FlexWeight"));
+        assertEquals("1", component.getPropertyIgnoreCase("FLEXWEIGHT"));
+        assertEquals("fontSize", component.getStyleNameIgnoreCase("FontSize"));
+        assertNull(component.getPropertyNameIgnoreCase("Anchor"));
+        assertNull(component.getPropertyNameIgnoreCase("NeverUsedPropertyName"));
+    }
+
+    /**
+     * Test that the symbol table stops growing at its bound and still resolves keys stored past it.
+     */
+    @Test
+    public void testPropertyKeyTableBound() {
+        for (int i = 0; i < 5000; i++) {
+            PropertyKeys.intern("GeneratedKey" + i);
+        }
+        assertTrue(PropertyKeys.size() <= 4096, "Symbol table should be bounded, got " + PropertyKeys.size());
+
+        String unregistered = "UnregisteredKeyPastTheBound";
+        assertSame(unregistered, PropertyKeys.intern(unregistered));
+        assertEquals(-1, PropertyKeys.idOf(unregistered));
+
+        ComponentBuilder component = ComponentBuilder.create("Group").setProperty(unregistered, "1");
+        assertEquals(unregistered, component.getPropertyNameIgnoreCase("unregisteredkeypasttheBOUND"));
+        assertEquals("LayoutMode", PropertyKeys.canonicalIgnoreCase("layoutmode"));
+
+        // The generated spellings are forgotten, the ones registered before are kept
+        PropertyKeys.truncate(this.symbols);
+        assertEquals(this.symbols, PropertyKeys.size());
+        assertNull(PropertyKeys.canonicalIgnoreCase("generatedkey0"));
+        assertEquals("LayoutMode", PropertyKeys.canonicalIgnoreCase("layoutmode"));
+    }
+
+    /**
+     * Test that a template builds its component tree like the component builder, with the current
+     * variables on every build.
+     */
+    @Test
+    public void testTemplateBuild() {
+        ComponentBuilder root = ComponentBuilder.create("Group");
+        for (int i = 0; i < 20; i++) {
+            ComponentBuilder group = ComponentBuilder.create("Group").setProperty("LayoutMode", "Top");
+            for (int j = 0; j < 49; j++) {
+                group.appendChild(ComponentBuilder.create("Label").setProperty("Text", "Item " + j));
+            }
+            root.appendChild(group);
+        }
+
+        String expected = root.build();
+        HTMLCustomUITemplate template = new HTMLCustomUITemplate(root, Map.of(), Set.of());
+        ComponentBuilderSettings settings = new ComponentBuilderSettings();
+        settings.hoistValues = false;
+
+        for (int round = 0; round < 3; round++) {
+            template.setVariable("Round", String.valueOf(round));
+            String built = template.build(settings);
+            String variables = HTMLCustomUITemplate.formatVariables(Map.of("Round", InterfaceVariable.stringValue(String.valueOf(round))));
+            assertTrue(built.contains(variables), "Build " + round + " should have its variables");
+            assertTrue(built.endsWith(expected), "Build " + round + " should match the component builder output");
+        }
+    }
+
+    /**
+     * Test that a change re-serializes only the path to the root and matches an unmemoized build.
+     */
+    @Test
+    public void testBuildMemoization() {
+        ComponentBuilder root = createTree();
+        ComponentBuilder group = (ComponentBuilder) root.getChildren().get(50);
+        ComponentBuilder sibling = (ComponentBuilder) root.getChildren().get(49);
+        ComponentBuilder leaf = (ComponentBuilder) group.getChildren().get(10);
+
+        ComponentBuilderSettings settings = new ComponentBuilderSettings();
+        String first = root.build(settings);
+        assertFalse(root.isDirty() || group.isDirty() || leaf.isDirty(), "A build should clean the tree");
+
+        leaf.setProperty("Text", "Changed");
+        assertTrue(leaf.isDirty() && group.isDirty() && root.isDirty(), "A change should mark the path to the root");
+        assertFalse(sibling.isDirty(), "Siblings should keep their memoized output");
+
+        ComponentBuilderSettings unmemoized = new ComponentBuilderSettings();
+        unmemoized.memoize = false;
+
+        String second = root.build(settings);
+        assertNotEquals(first, second);
+        assertTrue(second.contains("Text: \"Changed\""));
+        assertEquals(root.build(unmemoized), second, "Memoized output should match a full build");
+
+        // In-place changes are picked up after invalidate()
+        sibling.setProperty("Anchor", Map.of("Height", 10));
+        root.build(settings);
+        Map<String, Object> anchor = sibling.getProperty("Anchor");
+        anchor.put("Height", 20);
+        sibling.invalidate();
+        assertTrue(root.build(settings).contains("Height: 20"));
+        assertEquals(root.build(unmemoized), root.build(settings));
+
+        // Minimal output is memoized separately
+        assertEquals(root.build(new ComponentBuilderSettings(true)), createChangedTree(anchor).build(new ComponentBuilderSettings(true)));
+
+        // Reading the variables leaves the memoized output valid
+        root.getBuilderVariables();
+        assertFalse(root.isDirty());
+
+        // A child that customizes its build runs it on every build of its ancestors
+        ComponentBuilder panel = ComponentBuilder.create("Group");
+        Image image = new Image("First.png");
+        panel.appendChild(ComponentBuilder.create("Label").setProperty("Text", "Caption"));
+        panel.appendChild(image);
+        assertTrue(panel.build(settings).contains("First.png"));
+        image.setSrc("Second.png");
+        String changed = panel.build(settings);
+        assertTrue(changed.contains("Second.png") && !changed.contains("First.png"), changed);
+    }
+
+    /**
+     * Test that the template cache keeps its segments per settings variant across variable and component changes.
+     */
+    @Test
+    public void testSegmentedTemplateCache() {
+        HTMLCustomUITemplate template = new HTMLCustomUITemplate(createTree(), Map.of(), Set.of("h1"));
+        template.setVariable("Title", "First");
+
+        ComponentBuilderSettings pretty = new ComponentBuilderSettings();
+        ComponentBuilderSettings minimal = new ComponentBuilderSettings(true);
+        String first = template.build(pretty);
+        String firstMinimal = template.build(minimal);
+        assertSame(first, template.build(pretty), "Alternating settings should keep each variant cached");
+        assertSame(firstMinimal, template.build(minimal));
+
+        // A variable change only rebuilds the variables section
+        template.setVariable("Title", "Second");
+        assertEquals(first.replace("@Title = \"First\";", "@Title = \"Second\";"), template.build(pretty));
+        assertEquals(firstMinimal.replace("@Title = \"First\";", "@Title = \"Second\";"), template.build(minimal));
+
+        // A component change rebuilds the body of each variant on its next build
+        ((ComponentBuilder) template.getChildren().get(3)).setProperty("LayoutMode", "Left");
+        String changed = template.build(minimal);
+
+        ComponentBuilder expectedTree = createTree();
+        ((ComponentBuilder) expectedTree.getChildren().get(3)).setProperty("LayoutMode", "Left");
+        HTMLCustomUITemplate expected = new HTMLCustomUITemplate(expectedTree,
+            Map.of("Title", InterfaceVariable.stringValue("Second")), Set.of("h1"));
+        assertEquals(expected.build(minimal), changed);
+        assertEquals(expected.build(pretty), template.build(pretty));
+    }
+
+    /**
+     * Test that typed values format as their strings do and are not classified again on build.
+     */
+    @Test
+    public void testTypedValues() {
+        String[] samples = {
+            "Text", " padded ", "", "%ui.button_submit", "@Color", "12", "-0.5", "1.", ".5", "1e5", "\u0661",
+            "true", "false", "True", "#abc", "#AABBCC", "#12345678(0.5)", "-", "a\"b"
+        };
+        for (String sample : samples) {
+            assertEquals(ComponentBuilder.stringifyValue(sample), ComponentBuilder.typedValue(sample).getValue(), sample);
+        }
+
+        assertTrue(ComponentBuilder.typedValue("@Color") instanceof VarRef);
+        assertTrue(ComponentBuilder.typedValue("#abc") instanceof Color);
+        assertEquals("Text", ((QuotedString) ComponentBuilder.typedValue(" Text ")).getText());
+
+        // Parsed colors and sizes are stored typed
+        ComponentBuilder label = ComponentBuilder.create("Label");
+        CSSStyleParser.applyStyle(label, "color: rgb(255, 0, 0); font-size: 16px; background: #fff");
+        assertTrue(label.getProperty("Background") instanceof Color);
+        String output = label.build();
+        assertTrue(output.contains("TextColor: #FF0000") && output.contains("FontSize: 16") && output.contains("Background: #ffffff"), output);
+    }
+
+    /**
+     * Test that a diff of two template versions only replaces the children of the closest changed component with an id.
+     */
+    @Test
+    public void testTreeDiff() {
+        String html = "<div id=\"root\"><div id=\"panel\"><p id=\"first\">One</p><p id=\"second\">%s</p></div>"
+            + "<div id=\"side\"><p>Side</p></div></div>";
+        HTMLCustomUITemplate shown = InterfaceBuilder.parse(String.format(html, "Two"));
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        String before = shown.build(settings);
+
+        // Unchanged template: nothing to send
+        HTMLCustomUITemplate same = InterfaceBuilder.parse(String.format(html, "Two"));
+        assertTrue(TreeDiff.diff(shown, same, same.buildHeader(), settings).isEmpty());
+
+        // Changed label: only the children of its panel are replaced
+        HTMLCustomUITemplate changed = InterfaceBuilder.parse(String.format(html, "Zwei"));
+        List<TreeDiff.Fragment> fragments = TreeDiff.diff(shown, changed, changed.buildHeader(), settings);
+        assertEquals(1, fragments.size());
+        assertEquals("#Panel", fragments.get(0).getSelector());
+        String ui = fragments.get(0).getUi();
+        assertTrue(ui.contains("Zwei") && ui.contains("One") && !ui.contains("Side"), ui);
+
+        // A changed root can't be patched
+        HTMLCustomUITemplate restyled = InterfaceBuilder.parse(String.format(html, "Two").replace("id=\"root\"", "id=\"root\" style=\"padding: 4\""));
+        assertNull(TreeDiff.diff(shown, restyled, restyled.buildHeader(), settings));
+
+        // Diffing leaves the builds untouched
+        assertEquals(before, shown.build(settings));
+    }
+
+    /**
+     * Test that variables shown only as properties of elements with an id are bound to property updates.
+     */
+    @Test
+    public void testDataBindings() {
+        String html = "<script type=\"text/customui\">\n@Title = \"Shop\"\n@Name = \"Steve\"\n@Gold = 10\n@Accent = #ff0000\n</script>\n"
+            + "<div id=\"shop\" style=\"background-color: @Accent\"><label id=\"title\">@Title</label><span>@Title</span>"
+            + "<p id=\"gold\">@Gold</p><p id=\"name\">@Name</p><p id=\"also\">@Name</p>"
+            + "<button id=\"buy\" style=\"color: @Accent\">Buy</button></div>";
+        HTMLCustomUITemplate template = InterfaceBuilder.parse(html);
+        ComponentBuilderSettings settings = new ComponentBuilderSettings(false);
+        String before = template.build(settings);
+
+        DataBindings bindings = template.getDataBindings();
+        assertEquals(List.of("#Gold.Text"), bindings.getSelectors().get("Gold"));
+        assertEquals(List.of("#Name.Text", "#Also.Text"), bindings.getSelectors().get("Name"));
+
+        // Shown in an element without id, or in a style: the page must be sent again
+        assertEquals(Set.of("Title", "Accent"), bindings.getUnboundVariables());
+        com.hypixel.hytale.server.core.ui.builder.UICommandBuilder commands = new com.hypixel.hytale.server.core.ui.builder.UICommandBuilder();
+        assertTrue(bindings.apply(commands, Map.of("Gold", InterfaceVariable.literalValue("25"), "Name", InterfaceVariable.stringValue("Alex"))));
+        assertFalse(bindings.apply(commands, Map.of("Title", InterfaceVariable.stringValue("Market"))));
+
+        // Finding the bindings leaves the builds untouched, and they are reused while the tree is unchanged
+        assertEquals(before, template.build(settings));
+        assertSame(bindings, template.getDataBindings());
+        template.setVariable("Gold", InterfaceVariable.literalValue("25"));
+        assertSame(bindings, template.getDataBindings());
+
+        // A changed tree is found again without a build in between
+        ((ComponentBuilder) template.getChildren().get(0)).setProperty("Text", "@Gold");
+        DataBindings changed = template.getDataBindings();
+        assertNotSame(bindings, changed);
+        assertEquals(List.of("#Title.Text", "#Gold.Text"), changed.getSelectors().get("Gold"));
+    }
+
+    /**
+     * Build the tree of {@link #createTree()} with the changes of {@link #testBuildMemoization()} applied.
+     */
+    private static ComponentBuilder createChangedTree(Map<String, Object> anchor) {
+        ComponentBuilder root = createTree();
+        ((ComponentBuilder) ((ComponentBuilder) root.getChildren().get(50)).getChildren().get(10)).setProperty("Text", "Changed");
+        ((ComponentBuilder) root.getChildren().get(49)).setProperty("Anchor", new java.util.HashMap<>(anchor));
+        return root;
+    }
+}